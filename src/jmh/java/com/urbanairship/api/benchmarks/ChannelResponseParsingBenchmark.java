@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.urbanairship.api.channel.model.ChannelResponse;
+import com.urbanairship.api.channel.model.ChannelView;
+import com.urbanairship.api.channel.parse.ChannelObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of channel listing pages, from a String and from a stream, and of single channels carrying fields unknown to
+ * the field dispatch of the StandardObjectDeserializer, which have to be skipped.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ChannelResponseParsingBenchmark {
+
+    @Param({"1000"})
+    public int channels;
+
+    private final ObjectMapper mapper = ChannelObjectMapper.getInstance();
+
+    private String page;
+    private byte[] pageBytes;
+    private String channel;
+    private String channelWithUnknownFields;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder("{\"ok\":true,\"next_page\":\"https://go.urbanairship.com/api/channels?start=next\",\"channels\":[");
+        for (int i = 0; i < channels; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append(channel(i, false));
+        }
+        page = builder.append("]}").toString();
+        pageBytes = page.getBytes(StandardCharsets.UTF_8);
+
+        channel = channel(0, false);
+        channelWithUnknownFields = channel(0, true);
+    }
+
+    @Benchmark
+    public ChannelResponse parsePage() throws IOException {
+        return mapper.readValue(page, ChannelResponse.class);
+    }
+
+    @Benchmark
+    public ChannelResponse parsePageFromStream() throws IOException {
+        return mapper.readValue(new ByteArrayInputStream(pageBytes), ChannelResponse.class);
+    }
+
+    @Benchmark
+    public ChannelView parseChannel() throws IOException {
+        return mapper.readValue(channel, ChannelView.class);
+    }
+
+    @Benchmark
+    public ChannelView parseChannelWithUnknownFields() throws IOException {
+        return mapper.readValue(channelWithUnknownFields, ChannelView.class);
+    }
+
+    private static String channel(int index, boolean unknownFields) {
+        StringBuilder builder = new StringBuilder()
+            .append("{\"channel_id\":\"").append(String.format("%08d-0000-4000-8000-000000000000", index)).append("\",")
+            .append("\"device_type\":\"").append(index % 2 == 0 ? "ios" : "android").append("\",")
+            .append("\"installed\":true,")
+            .append("\"opt_in\":").append(index % 3 != 0).append(',')
+            .append("\"background\":true,")
+            .append("\"push_address\":\"E4EA0D96092A9213BB186BEF66E83EE226401F82B3A77A1AC8217A8FE8ED4614\",")
+            .append("\"created\":\"2014-07-09T18:08:37\",")
+            .append("\"last_registration\":\"2014-10-02T01:41:42\",")
+            .append("\"alias\":null,")
+            .append("\"tags\":[\"tag-a\",\"tag-b\",\"tag-").append(index).append("\"],")
+            .append("\"tag_groups\":{\"group\":[\"group-tag-a\",\"group-tag-b\"]}");
+        if (unknownFields) {
+            builder.append(",\"future_scalar\":\"value\"")
+                .append(",\"future_array\":[1,2,3,{\"nested\":[true,false]}]")
+                .append(",\"future_object\":{\"a\":{\"b\":{\"c\":[\"d\",\"e\"]}},\"f\":1.5}");
+        }
+        return builder.append('}').toString();
+    }
+}
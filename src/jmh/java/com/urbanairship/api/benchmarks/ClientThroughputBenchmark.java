@@ -0,0 +1,262 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.benchmarks;
+
+import com.github.tomakehurst.wiremock.http.LogNormal;
+import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableSet;
+import com.urbanairship.api.channel.ChannelRequest;
+import com.urbanairship.api.channel.ChannelTagRequest;
+import com.urbanairship.api.client.AsyncRequestClient;
+import com.urbanairship.api.client.Request;
+import com.urbanairship.api.client.Response;
+import com.urbanairship.api.client.UrbanAirshipClient;
+import com.urbanairship.api.push.PushRequest;
+import com.urbanairship.api.push.model.DeviceType;
+import com.urbanairship.api.push.model.DeviceTypeData;
+import com.urbanairship.api.push.model.PushPayload;
+import com.urbanairship.api.push.model.audience.Selectors;
+import com.urbanairship.api.push.model.notification.Notifications;
+import com.urbanairship.api.simulator.ApiSimulator;
+import org.asynchttpclient.ClientStats;
+import org.asynchttpclient.DefaultAsyncHttpClientConfig;
+import org.asynchttpclient.filter.FilterContext;
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Threads;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.profile.GCProfiler;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * End to end throughput and latency of the UrbanAirshipClient and AsyncRequestClient against the local
+ * {@link ApiSimulator}, for push, channel tag and channel lookup request mixes.
+ *
+ * Every benchmark thread keeps one request in flight, so the concurrency level is the number of threads: 16 by
+ * default, -t on the JMH command line overrides it and {@link #main(String[])} runs a sweep over several levels:
+ *
+ * <pre>
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.args="ClientThroughputBenchmark -t 64"
+ * mvn -Pbenchmarks test-compile exec:exec -Djmh.main=com.urbanairship.api.benchmarks.ClientThroughputBenchmark
+ * </pre>
+ *
+ * The throughput benchmark reports requests per second and the latency benchmark the latency percentiles, up to
+ * p99.9. As the simulator runs in the benchmark JVM, the GC profiler's allocation rate includes the server side; the
+ * allocation per request of the client threads alone and the connection counts of the client are printed at the end
+ * of each iteration.
+ */
+@Warmup(iterations = 3, time = 5)
+@Measurement(iterations = 5, time = 5)
+@Fork(1)
+@Threads(16)
+@State(Scope.Benchmark)
+public class ClientThroughputBenchmark {
+
+    private static final String CHANNEL_ID = "e393d28e-23b2-4a22-9ace-dc539a5b07a8";
+
+    @Param({"mixed"})
+    public String mix;
+
+    @Param({"10"})
+    public int serverLatencyMillis;
+
+    @Param({"-1", "16"})
+    public int maxConnectionsPerHost;
+
+    @Param({"true"})
+    public boolean keepAlive;
+
+    @Param({"0"})
+    public int ioThreads;
+
+    private final AtomicLong requests = new AtomicLong();
+    private long iterationRequests;
+    private long iterationAllocatedBytes;
+
+    private ApiSimulator simulator;
+    private AsyncRequestClient asyncRequestClient;
+    private UrbanAirshipClient client;
+
+    private PushRequest pushRequest;
+    private ChannelTagRequest channelTagRequest;
+    private ChannelRequest channelRequest;
+
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    @State(Scope.Thread)
+    public static class Failures {
+
+        public long failures;
+        private int sequence;
+    }
+
+    /**
+     * Runs the benchmark at several concurrency levels.
+     *
+     * @param args Unused.
+     * @throws RunnerException If a run fails.
+     */
+    public static void main(String[] args) throws RunnerException {
+        for (int threads : new int[]{1, 16, 64, 256}) {
+            new Runner(new OptionsBuilder()
+                .include(ClientThroughputBenchmark.class.getName())
+                .threads(threads)
+                .addProfiler(GCProfiler.class)
+                .build())
+                .run();
+        }
+    }
+
+    @Setup
+    public void setup() {
+        simulator = ApiSimulator.newBuilder()
+            .setLatency(new LogNormal(serverLatencyMillis, 0.2))
+            .setContainerThreads(256)
+            .build();
+        simulator.start();
+
+        DefaultAsyncHttpClientConfig.Builder clientConfigBuilder = new DefaultAsyncHttpClientConfig.Builder()
+            .setMaxConnectionsPerHost(maxConnectionsPerHost)
+            .setKeepAlive(keepAlive);
+        if (ioThreads > 0) {
+            clientConfigBuilder.setIoThreadsCount(ioThreads);
+        }
+
+        asyncRequestClient = AsyncRequestClient.newBuilder()
+            .setBaseUri(simulator.getBaseUri())
+            .setClientConfigBuilder(clientConfigBuilder)
+            .setRetryPredicate(new Predicate<FilterContext>() {
+                @Override
+                public boolean apply(FilterContext input) {
+                    return input.getResponseStatus().getStatusCode() >= 500;
+                }
+            })
+            .build();
+
+        client = UrbanAirshipClient.newBuilder()
+            .setKey("key")
+            .setSecret("secret")
+            .setClient(asyncRequestClient)
+            .build();
+
+        pushRequest = PushRequest.newRequest(PushPayload.newBuilder()
+            .setAudience(Selectors.and(Selectors.tag("benchmark"), Selectors.namedUser("user")))
+            .setDeviceTypes(DeviceTypeData.of(DeviceType.IOS, DeviceType.ANDROID))
+            .setNotification(Notifications.alert("Benchmark alert"))
+            .build());
+        channelTagRequest = ChannelTagRequest.newRequest()
+            .addIOSChannel(CHANNEL_ID)
+            .addTags("group", ImmutableSet.of("tag-1", "tag-2"));
+        channelRequest = ChannelRequest.newRequest(CHANNEL_ID);
+    }
+
+    @Setup(Level.Iteration)
+    public void startIteration() {
+        iterationRequests = requests.get();
+        iterationAllocatedBytes = clientAllocatedBytes();
+    }
+
+    @TearDown(Level.Iteration)
+    public void report() {
+        ClientStats stats = asyncRequestClient.getClientStats();
+        long count = requests.get() - iterationRequests;
+        long bytes = clientAllocatedBytes() - iterationAllocatedBytes;
+        System.out.printf("%nclient: %d requests, %d B/request allocated by client threads, connections total=%d active=%d idle=%d%n",
+            count, count == 0 ? 0 : bytes / count,
+            stats.getTotalConnectionCount(), stats.getTotalActiveConnectionCount(), stats.getTotalIdleConnectionCount());
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+        simulator.stop();
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.Throughput)
+    @OutputTimeUnit(TimeUnit.SECONDS)
+    public Response throughput(Failures failures) throws InterruptedException {
+        return execute(failures);
+    }
+
+    @Benchmark
+    @BenchmarkMode(Mode.SampleTime)
+    @OutputTimeUnit(TimeUnit.MICROSECONDS)
+    public Response latency(Failures failures) throws InterruptedException {
+        return execute(failures);
+    }
+
+    private Response execute(Failures failures) throws InterruptedException {
+        requests.incrementAndGet();
+        try {
+            Response response = client.executeAsync(next(failures)).get();
+            if (response.getStatus() >= 400) {
+                failures.failures++;
+            }
+            return response;
+        } catch (ExecutionException e) {
+            failures.failures++;
+            return null;
+        }
+    }
+
+    private Request<?> next(Failures failures) {
+        switch (mix) {
+            case "push":
+                return pushRequest;
+            case "channel_tags":
+                return channelTagRequest;
+            case "channels":
+                return channelRequest;
+            default:
+                // 2 pushes, 3 tag updates and 5 channel lookups out of every 10 requests.
+                int slot = failures.sequence++ % 10;
+                if (slot < 2) {
+                    return pushRequest;
+                }
+                return slot < 5 ? channelTagRequest : channelRequest;
+        }
+    }
+
+    private static long clientAllocatedBytes() {
+        ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (!(threads instanceof com.sun.management.ThreadMXBean)) {
+            return 0;
+        }
+
+        long bytes = 0;
+        for (long id : threads.getAllThreadIds()) {
+            ThreadInfo info = threads.getThreadInfo(id);
+            if (info == null) {
+                continue;
+            }
+            String name = info.getThreadName();
+            if (name.startsWith("AsyncHttpClient") || name.startsWith("ua-") || name.contains("jmh-worker")) {
+                bytes += Math.max(0, ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(id));
+            }
+        }
+        return bytes;
+    }
+}
@@ -0,0 +1,97 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.benchmarks;
+
+import com.google.common.util.concurrent.Futures;
+import com.urbanairship.api.channel.ChannelRequest;
+import com.urbanairship.api.client.Request;
+import com.urbanairship.api.client.RequestClient;
+import com.urbanairship.api.client.Response;
+import com.urbanairship.api.client.ResponseCallback;
+import com.urbanairship.api.client.UrbanAirshipClient;
+import com.urbanairship.api.push.PushRequest;
+import com.urbanairship.api.push.model.DeviceType;
+import com.urbanairship.api.push.model.DeviceTypeData;
+import com.urbanairship.api.push.model.PushPayload;
+import com.urbanairship.api.push.model.audience.Selectors;
+import com.urbanairship.api.push.model.notification.Notifications;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per request overhead of the UrbanAirshipClient, with a request client completing every request right away so that
+ * only the header and dispatch work of the client is measured. Run with -prof gc to check its allocation rate.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class DispatchBenchmark {
+
+    private UrbanAirshipClient client;
+    private PushRequest pushRequest;
+    private ChannelRequest channelRequest;
+
+    @Setup
+    public void setup() {
+        client = UrbanAirshipClient.newBuilder()
+            .setKey("key")
+            .setSecret("secret")
+            .setClient(new CompletedRequestClient())
+            .build();
+
+        pushRequest = PushRequest.newRequest(PushPayload.newBuilder()
+            .setAudience(Selectors.all())
+            .setDeviceTypes(DeviceTypeData.of(DeviceType.IOS, DeviceType.ANDROID))
+            .setNotification(Notifications.alert("alert"))
+            .build());
+        channelRequest = ChannelRequest.newRequest();
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        client.close();
+    }
+
+    @Benchmark
+    public Future<Response> dispatchPush() {
+        return client.executeAsync(pushRequest);
+    }
+
+    @Benchmark
+    public Future<Response> dispatchChannelListing() {
+        return client.executeAsync(channelRequest);
+    }
+
+    private static class CompletedRequestClient implements RequestClient {
+
+        private final Future<Response> completed = Futures.<Response>immediateFuture(null);
+
+        @Override
+        public <T> Future<Response> executeAsync(Request<T> request, ResponseCallback callback, Map<String, String> headers) {
+            return completed;
+        }
+
+        @Override
+        public void close() {
+        }
+    }
+}
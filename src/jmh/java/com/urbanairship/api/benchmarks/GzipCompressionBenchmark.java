@@ -0,0 +1,119 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.benchmarks;
+
+import com.urbanairship.api.client.GzipCompressingChannel;
+import com.urbanairship.api.client.NonBlockingReadableChannel;
+import com.urbanairship.api.client.ParallelGzipCompressingChannel;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.util.Random;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Gzip compression of a static list upload body, single threaded and split into blocks compressed on a fork-join pool
+ * of increasing parallelism. With enough cores the parallel time should drop close to linearly with the parallelism.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+@State(Scope.Benchmark)
+public class GzipCompressionBenchmark {
+
+    @Param({"1", "2", "4", "8"})
+    public int parallelism;
+
+    @Param({"1", "6"})
+    public int level;
+
+    @Param({"131072"})
+    public int blockSize;
+
+    @Param({"64"})
+    public int sizeMegabytes;
+
+    private final ByteBuffer sink = ByteBuffer.allocateDirect(64 * 1024);
+
+    private byte[] csv;
+    private ForkJoinPool pool;
+
+    @Setup
+    public void setup() {
+        Random random = new Random(42);
+        StringBuilder rows = new StringBuilder(sizeMegabytes * 1024 * 1024);
+        while (rows.length() < sizeMegabytes * 1024 * 1024) {
+            rows.append(random.nextBoolean() ? "named_user,user-" : "ios_channel,")
+                .append(Long.toHexString(random.nextLong()))
+                .append('\n');
+        }
+        csv = rows.toString().getBytes(StandardCharsets.UTF_8);
+        pool = new ForkJoinPool(parallelism);
+    }
+
+    @TearDown
+    public void tearDown() {
+        pool.shutdown();
+    }
+
+    @Benchmark
+    public long sequential() throws IOException {
+        return drain(new GzipCompressingChannel(source(), level));
+    }
+
+    @Benchmark
+    public long parallel() throws IOException {
+        return drain(new ParallelGzipCompressingChannel(source(), level, blockSize, pool));
+    }
+
+    private ReadableByteChannel source() {
+        return Channels.newChannel(new ByteArrayInputStream(csv));
+    }
+
+    private long drain(ReadableByteChannel channel) throws IOException {
+        final Semaphore readable = new Semaphore(0);
+        if (channel instanceof NonBlockingReadableChannel) {
+            ((NonBlockingReadableChannel) channel).setReadListener(new Runnable() {
+                @Override
+                public void run() {
+                    readable.release();
+                }
+            });
+        }
+
+        long compressed = 0;
+        try (ReadableByteChannel compressing = channel) {
+            int read;
+            while ((read = compressing.read(sink)) != -1) {
+                if (read == 0) {
+                    readable.acquireUninterruptibly();
+                }
+                compressed += read;
+                sink.clear();
+            }
+        }
+        return compressed;
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.collect.ImmutableList;
+import com.google.common.io.ByteStreams;
+import com.urbanairship.api.push.model.DeviceType;
+import com.urbanairship.api.push.model.DeviceTypeData;
+import com.urbanairship.api.push.model.PushPayload;
+import com.urbanairship.api.push.model.audience.Selectors;
+import com.urbanairship.api.push.model.notification.DevicePayloadOverride;
+import com.urbanairship.api.push.model.notification.Notifications;
+import com.urbanairship.api.push.model.notification.android.AndroidDevicePayload;
+import com.urbanairship.api.push.model.notification.android.BigTextStyle;
+import com.urbanairship.api.push.model.notification.android.Wearable;
+import com.urbanairship.api.push.model.notification.ios.IOSAlertData;
+import com.urbanairship.api.push.model.notification.ios.IOSBadgeData;
+import com.urbanairship.api.push.model.notification.ios.IOSDevicePayload;
+import com.urbanairship.api.push.model.notification.wns.WNSBinding;
+import com.urbanairship.api.push.model.notification.wns.WNSDevicePayload;
+import com.urbanairship.api.push.model.notification.wns.WNSPush;
+import com.urbanairship.api.push.model.notification.wns.WNSToastData;
+import com.urbanairship.api.push.parse.PushObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Serialization of push payloads with rich platform overrides through the PushObjectMapper, both to a String and
+ * streamed to an OutputStream as done for streaming requests.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PushPayloadSerializationBenchmark {
+
+    @Param({"ios", "android", "wns", "all"})
+    public String platform;
+
+    private final ObjectMapper mapper = PushObjectMapper.getInstance();
+    private final OutputStream sink = ByteStreams.nullOutputStream();
+
+    private PushPayload payload;
+
+    @Setup
+    public void setup() {
+        DevicePayloadOverride[] overrides;
+        DeviceTypeData deviceTypes;
+        switch (platform) {
+            case "ios":
+                overrides = new DevicePayloadOverride[]{ios()};
+                deviceTypes = DeviceTypeData.of(DeviceType.IOS);
+                break;
+            case "android":
+                overrides = new DevicePayloadOverride[]{android()};
+                deviceTypes = DeviceTypeData.of(DeviceType.ANDROID);
+                break;
+            case "wns":
+                overrides = new DevicePayloadOverride[]{wns()};
+                deviceTypes = DeviceTypeData.of(DeviceType.WNS);
+                break;
+            default:
+                overrides = new DevicePayloadOverride[]{ios(), android(), wns()};
+                deviceTypes = DeviceTypeData.of(DeviceType.IOS, DeviceType.ANDROID, DeviceType.WNS);
+                break;
+        }
+
+        payload = PushPayload.newBuilder()
+            .setAudience(Selectors.and(Selectors.tag("benchmark"), Selectors.namedUsers("user-1", "user-2", "user-3")))
+            .setDeviceTypes(deviceTypes)
+            .setNotification(Notifications.notification("Default alert", overrides))
+            .build();
+    }
+
+    @Benchmark
+    public String toJsonString() throws IOException {
+        return mapper.writeValueAsString(payload);
+    }
+
+    @Benchmark
+    public void toJsonStream() throws IOException {
+        mapper.writeValue(sink, payload);
+    }
+
+    private static IOSDevicePayload ios() {
+        return IOSDevicePayload.newBuilder()
+            .setAlert(IOSAlertData.newBuilder()
+                .setTitle("Title")
+                .setBody("An iOS alert with a body, a title and localization arguments")
+                .setLocKey("LOC_KEY")
+                .setLocArgs(ImmutableList.of("first", "second"))
+                .build())
+            .setBadge(IOSBadgeData.newBuilder()
+                .setType(IOSBadgeData.Type.INCREMENT)
+                .setValue(1)
+                .build())
+            .setSound("default")
+            .setContentAvailable(true)
+            .setCategory("category")
+            .setThreadId("thread")
+            .setMutableContent(true)
+            .addExtraEntry("deep_link", "app://benchmark/ios")
+            .addExtraEntry("campaign", "benchmark")
+            .build();
+    }
+
+    private static AndroidDevicePayload android() {
+        return AndroidDevicePayload.newBuilder()
+            .setAlert("An Android alert with a big text style and a wearable page")
+            .setTitle("Title")
+            .setSummary("Summary")
+            .setCollapseKey("collapse")
+            .setDeliveryPriority("high")
+            .setIcon("icon")
+            .setIconColor("#ff0000")
+            .setStyle(BigTextStyle.newBuilder()
+                .setTitle("Big title")
+                .setContent("Big content")
+                .setSummary("Big summary")
+                .build())
+            .setWearable(Wearable.newBuilder()
+                .setBackgroundImage("https://example.com/background.png")
+                .addExtraPage("Page title", "Page alert")
+                .build())
+            .addExtraEntry("deep_link", "app://benchmark/android")
+            .addExtraEntry("campaign", "benchmark")
+            .build();
+    }
+
+    private static WNSDevicePayload wns() {
+        return WNSDevicePayload.newBuilder()
+            .setBody(WNSPush.newBuilder()
+                .setType(WNSPush.Type.TOAST)
+                .setToast(WNSToastData.newBuilder()
+                    .setBinding(WNSBinding.newBuilder()
+                        .setTemplate("ToastText03")
+                        .addText("A WNS toast")
+                        .addText("with two lines of text")
+                        .addImage("https://example.com/toast.png")
+                        .build())
+                    .build())
+                .build())
+            .build();
+    }
+}
@@ -0,0 +1,65 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.urbanairship.api.reports.model.PushListingResponse;
+import com.urbanairship.api.reports.parse.ReportsObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Parsing of push listing report pages.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ReportsParsingBenchmark {
+
+    @Param({"100", "1000"})
+    public int pushes;
+
+    private final ObjectMapper mapper = ReportsObjectMapper.getInstance();
+
+    private String page;
+
+    @Setup
+    public void setup() {
+        StringBuilder builder = new StringBuilder("{\"next_page\":\"https://go.urbanairship.com/api/reports/responses/list?start=next\",\"pushes\":[");
+        for (int i = 0; i < pushes; i++) {
+            if (i > 0) {
+                builder.append(',');
+            }
+            builder.append("{\"push_uuid\":\"").append(String.format("%08x-fa3c-11e2-97ce-14feb5d317b8", i)).append("\",")
+                .append("\"push_time\":\"2013-07-31 23:56:52\",")
+                .append("\"push_type\":\"").append(i % 2 == 0 ? "BROADCAST_PUSH" : "UNICAST_PUSH").append("\",")
+                .append("\"direct_responses\":").append(i % 7).append(',')
+                .append("\"sends\":").append(i * 13)
+                .append(",\"open_channels_sends\":{\"platforms\":[{\"id\":\"PLATFORM_NAME_1\",\"sends\":13},{\"id\":\"PLATFORM_NAME_2\",\"sends\":31}]}")
+                .append('}');
+        }
+        page = builder.append("]}").toString();
+    }
+
+    @Benchmark
+    public PushListingResponse parsePushListing() throws IOException {
+        return mapper.readValue(page, PushListingResponse.class);
+    }
+}
@@ -0,0 +1,72 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.benchmarks;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.urbanairship.api.push.model.audience.Selector;
+import com.urbanairship.api.push.model.audience.Selectors;
+import com.urbanairship.api.push.parse.PushObjectMapper;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Deserialization of nested and/or/not audience selector trees of increasing depth.
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class SelectorDeserializationBenchmark {
+
+    @Param({"2", "4", "6"})
+    public int depth;
+
+    private final ObjectMapper mapper = PushObjectMapper.getInstance();
+
+    private String json;
+
+    @Setup
+    public void setup() throws IOException {
+        json = mapper.writeValueAsString(tree(depth, 0));
+    }
+
+    @Benchmark
+    public Selector readSelector() throws IOException {
+        return mapper.readValue(json, Selector.class);
+    }
+
+    private static Selector tree(int depth, int index) {
+        if (depth == 0) {
+            switch (index % 3) {
+                case 0:
+                    return Selectors.tag("tag-" + index);
+                case 1:
+                    return Selectors.namedUser("user-" + index);
+                default:
+                    return Selectors.tagWithGroup("tag-" + index, "group");
+            }
+        }
+
+        Selector left = tree(depth - 1, index * 2);
+        Selector right = tree(depth - 1, index * 2 + 1);
+        return depth % 2 == 0
+            ? Selectors.and(left, Selectors.not(right))
+            : Selectors.or(left, right);
+    }
+}
@@ -4,18 +4,21 @@
 
 package com.urbanairship.api.channel;
 
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
-import com.google.common.net.HttpHeaders;
 import com.urbanairship.api.channel.model.ChannelResponse;
+import com.urbanairship.api.channel.model.ChannelView;
 import com.urbanairship.api.channel.parse.ChannelObjectMapper;
+import com.urbanairship.api.client.JsonResponseParser;
+import com.urbanairship.api.client.Paginator;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
+import com.urbanairship.api.client.UrbanAirshipClient;
 import org.apache.http.entity.ContentType;
 
-import java.io.IOException;
 import java.net.URI;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -26,6 +29,7 @@ public class ChannelRequest implements Request<ChannelResponse> {
 
     private final static String API_CHANNELS_LIST = "/api/channels/";
     private final static String API_SMS_CHANNEL = "/api/channels/sms/";
+    private static final ResponseParser<ChannelResponse> PARSER = new JsonResponseParser<>(ChannelObjectMapper.getInstance(), ChannelResponse.class);
 
     private final String path;
 
@@ -77,6 +81,37 @@ public class ChannelRequest implements Request<ChannelResponse> {
         return new ChannelRequest(API_SMS_CHANNEL + msisdn + "/" + sender);
     }
 
+    /**
+     * Create a paginator builder iterating over the channels of the listing, starting with the given request.
+     *
+     * @param client UrbanAirshipClient
+     * @param firstRequest ChannelRequest
+     * @return Paginator builder
+     */
+    public static Paginator.Builder<ChannelResponse, ChannelView> newPaginatorBuilder(UrbanAirshipClient client, ChannelRequest firstRequest) {
+        return Paginator.<ChannelResponse, ChannelView>newBuilder()
+            .setClient(client)
+            .setFirstRequest(firstRequest)
+            .setNextPageRequest(new Function<URI, ChannelRequest>() {
+                @Override
+                public ChannelRequest apply(URI nextPage) {
+                    return newRequest(nextPage);
+                }
+            })
+            .setPageElements(new Function<ChannelResponse, Iterable<ChannelView>>() {
+                @Override
+                public Iterable<ChannelView> apply(ChannelResponse response) {
+                    return response.getChannelObjects().orNull();
+                }
+            })
+            .setNextPage(new Function<ChannelResponse, Optional<String>>() {
+                @Override
+                public Optional<String> apply(ChannelResponse response) {
+                    return response.getNextPage();
+                }
+            });
+    }
+
     @Override
     public ContentType getContentType() {
         return ContentType.APPLICATION_JSON;
@@ -84,10 +119,7 @@ public class ChannelRequest implements Request<ChannelResponse> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -107,12 +139,7 @@ public class ChannelRequest implements Request<ChannelResponse> {
 
     @Override
     public ResponseParser<ChannelResponse> getResponseParser() {
-        return new ResponseParser<ChannelResponse>() {
-            @Override
-            public ChannelResponse parse(String response) throws IOException {
-                return ChannelObjectMapper.getInstance().readValue(response, ChannelResponse.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
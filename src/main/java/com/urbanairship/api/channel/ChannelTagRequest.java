@@ -5,14 +5,14 @@
 package com.urbanairship.api.channel;
 
 import com.google.common.base.Preconditions;
-import com.google.common.net.HttpHeaders;
 import com.urbanairship.api.channel.parse.ChannelObjectMapper;
-import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
+import com.urbanairship.api.client.StreamingRequest;
 import org.apache.http.entity.ContentType;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -24,7 +24,7 @@ import java.util.Set;
  * The ChannelTagRequest class builds channels tag mutation requests to be executed in
  * the {@link com.urbanairship.api.client.UrbanAirshipClient}.
  */
-public class ChannelTagRequest implements Request<String> {
+public class ChannelTagRequest implements StreamingRequest<String> {
 
     private final static String API_CHANNELS_TAGS_PATH = "/api/channels/tags/";
     private static final String IOS_CHANNEL_KEY = "ios_channel";
@@ -216,10 +216,7 @@ public class ChannelTagRequest implements Request<String> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -229,6 +226,21 @@ public class ChannelTagRequest implements Request<String> {
 
     @Override
     public String getRequestBody() {
+        Map<String, Map<String, Set<String>>> payload = buildPayload();
+
+        try {
+            return ChannelObjectMapper.getInstance().writeValueAsString(payload);
+        } catch (Exception ex) {
+            return "{ \"exception\" : \"" + ex.getClass().getName() + "\", \"message\" : \"" + ex.getMessage() + "\" }";
+        }
+    }
+
+    @Override
+    public void writeRequestBody(OutputStream out) throws IOException {
+        ChannelObjectMapper.getInstance().writeValue(out, buildPayload());
+    }
+
+    private Map<String, Map<String, Set<String>>> buildPayload() {
         final Map<String, Map<String, Set<String>>> payload = new HashMap<String, Map<String, Set<String>>>();
 
         payload.put(AUDIENCE_KEY, audience);
@@ -250,11 +262,7 @@ public class ChannelTagRequest implements Request<String> {
             Preconditions.checkArgument(!payload.containsKey(REMOVE_KEY) && !payload.containsKey(ADD_KEY));
         }
 
-        try {
-            return ChannelObjectMapper.getInstance().writeValueAsString(payload);
-        } catch (Exception ex) {
-            return "{ \"exception\" : \"" + ex.getClass().getName() + "\", \"message\" : \"" + ex.getMessage() + "\" }";
-        }
+        return payload;
     }
 
     @Override
@@ -1,24 +1,23 @@
 package com.urbanairship.api.channel;
 
 import com.google.common.base.Preconditions;
-import com.google.common.net.HttpHeaders;
 import com.urbanairship.api.channel.model.OpenChannelResponse;
 import com.urbanairship.api.channel.model.open.OpenChannelPayload;
 import com.urbanairship.api.channel.parse.ChannelObjectMapper;
+import com.urbanairship.api.client.JsonResponseParser;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
 import org.apache.http.entity.ContentType;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.HashMap;
 import java.util.Map;
 
 public class OpenChannelRequest implements Request<OpenChannelResponse> {
 
     private final static String API_OPEN_CHANNEL = "/api/channels/open/";
+    private static final ResponseParser<OpenChannelResponse> PARSER = new JsonResponseParser<>(ChannelObjectMapper.getInstance(), OpenChannelResponse.class);
 
     private final OpenChannelPayload payload;
 
@@ -48,10 +47,7 @@ public class OpenChannelRequest implements Request<OpenChannelResponse> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -61,12 +57,7 @@ public class OpenChannelRequest implements Request<OpenChannelResponse> {
 
     @Override
     public ResponseParser<OpenChannelResponse> getResponseParser() {
-        return new ResponseParser<OpenChannelResponse>() {
-            @Override
-            public OpenChannelResponse parse(String response) throws IOException {
-                return ChannelObjectMapper.getInstance().readValue(response, OpenChannelResponse.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
@@ -2,9 +2,9 @@ package com.urbanairship.api.channel;
 
 import com.fasterxml.jackson.core.JsonProcessingException;
 import com.google.common.base.Preconditions;
-import com.google.common.net.HttpHeaders;
 import com.urbanairship.api.channel.model.SmsRegistrationResponse;
 import com.urbanairship.api.channel.parse.ChannelObjectMapper;
+import com.urbanairship.api.client.JsonResponseParser;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
@@ -12,7 +12,6 @@ import com.urbanairship.api.common.parse.DateFormats;
 import org.apache.http.entity.ContentType;
 import org.joda.time.DateTime;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.HashMap;
@@ -23,6 +22,7 @@ public class SmsRegistrationRequest implements Request<SmsRegistrationResponse>
     private final static String REGISTER_SMS_CHANNEL = "/api/channels/sms";
     private final static String OPT_OUT = "/api/channels/sms/opt-out";
     private final static String UNINSTALL = "/api/channels/sms/uninstall";
+    private static final ResponseParser<SmsRegistrationResponse> PARSER = new JsonResponseParser<>(ChannelObjectMapper.getInstance(), SmsRegistrationResponse.class);
 
     private static final String SENDER_KEY = "sender";
     private static final String MSISDN_KEY = "msisdn";
@@ -118,10 +118,7 @@ public class SmsRegistrationRequest implements Request<SmsRegistrationResponse>
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -131,12 +128,7 @@ public class SmsRegistrationRequest implements Request<SmsRegistrationResponse>
 
     @Override
     public ResponseParser<SmsRegistrationResponse> getResponseParser() {
-        return new ResponseParser<SmsRegistrationResponse>() {
-            @Override
-            public SmsRegistrationResponse parse(String response) throws IOException {
-                return ChannelObjectMapper.getInstance().readValue(response, SmsRegistrationResponse.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
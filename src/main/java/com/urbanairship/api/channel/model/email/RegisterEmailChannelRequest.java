@@ -1,17 +1,15 @@
 package com.urbanairship.api.channel.model.email;
 
 import com.google.common.base.Preconditions;
-import com.google.common.net.HttpHeaders;
 import com.urbanairship.api.channel.parse.ChannelObjectMapper;
+import com.urbanairship.api.client.JsonResponseParser;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
 import org.apache.http.entity.ContentType;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -20,6 +18,7 @@ import java.util.Map;
 public class RegisterEmailChannelRequest implements Request<EmailChannelResponse> {
 
     private final static String API_REGISTER_EMAIL_CHANNEL = "/api/channels/email/";
+    private static final ResponseParser<EmailChannelResponse> PARSER = new JsonResponseParser<>(ChannelObjectMapper.getInstance(), EmailChannelResponse.class);
     private final RegisterEmailChannel payload;
 
     private RegisterEmailChannelRequest(RegisterEmailChannel payload) {
@@ -48,10 +47,7 @@ public class RegisterEmailChannelRequest implements Request<EmailChannelResponse
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -61,12 +57,7 @@ public class RegisterEmailChannelRequest implements Request<EmailChannelResponse
 
     @Override
     public ResponseParser<EmailChannelResponse> getResponseParser() {
-        return new ResponseParser<EmailChannelResponse>() {
-            @Override
-            public EmailChannelResponse parse(String response) throws IOException {
-                return ChannelObjectMapper.getInstance().readValue(response, EmailChannelResponse.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
@@ -1,17 +1,15 @@
 package com.urbanairship.api.channel.model.email;
 
 import com.google.common.base.Preconditions;
-import com.google.common.net.HttpHeaders;
 import com.urbanairship.api.channel.parse.ChannelObjectMapper;
+import com.urbanairship.api.client.JsonResponseParser;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
 import org.apache.http.entity.ContentType;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.HashMap;
 import java.util.Map;
 
 
@@ -22,6 +20,7 @@ import java.util.Map;
 public class UninstallEmailChannelRequest implements Request<EmailChannelResponse> {
 
     private final static String API_UNINSTALL_EMAIL_CHANNEL = "/api/channels/email/uninstall";
+    private static final ResponseParser<EmailChannelResponse> PARSER = new JsonResponseParser<>(ChannelObjectMapper.getInstance(), EmailChannelResponse.class);
 
     private final UninstallEmailChannel payload;
 
@@ -57,10 +56,7 @@ public class UninstallEmailChannelRequest implements Request<EmailChannelRespons
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -70,12 +66,7 @@ public class UninstallEmailChannelRequest implements Request<EmailChannelRespons
 
     @Override
     public ResponseParser<EmailChannelResponse> getResponseParser() {
-        return new ResponseParser<EmailChannelResponse>() {
-            @Override
-            public EmailChannelResponse parse(String response) throws IOException {
-                return ChannelObjectMapper.getInstance().readValue(response, EmailChannelResponse.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
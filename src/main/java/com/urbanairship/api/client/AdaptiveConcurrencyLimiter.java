@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import com.google.common.base.Optional;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Bounds the number of requests in flight with a limit adapting to the observed round trip times, in the manner of a
+ * gradient (Vegas style) congestion controller. The limit is scaled by the ratio between the long term average RTT and
+ * the latest RTT, so that it grows while latency stays flat and shrinks as soon as requests start queueing on the
+ * server side; a dropped request (a failure or a request that has to be retried) cuts the limit by a tenth.
+ *
+ * Tasks which can't be started within the limit are queued and started, in order, as requests complete.
+ */
+class AdaptiveConcurrencyLimiter {
+
+    private static final double SMOOTHING = 0.2;
+    private static final double LONG_RTT_SMOOTHING = 0.05;
+    private static final double MIN_GRADIENT = 0.5;
+    private static final double DROP_BACKOFF = 0.9;
+    private static final int MIN_LIMIT = 1;
+
+    private final int maxLimit;
+    private final Deque<Runnable> queue = new ArrayDeque<>();
+
+    private double limit;
+    private double longRttNanos;
+    private int inFlight;
+
+    AdaptiveConcurrencyLimiter(int initialLimit, int maxLimit) {
+        this.maxLimit = maxLimit;
+        this.limit = Math.max(MIN_LIMIT, Math.min(initialLimit, maxLimit));
+    }
+
+    /**
+     * Runs the task right away if the limit allows it, or queues it until a request completes. The task must
+     * eventually call {@link #release(Optional, boolean)}.
+     *
+     * @param task The task starting a request.
+     */
+    void acquire(Runnable task) {
+        synchronized (this) {
+            if (inFlight >= (int) limit) {
+                queue.add(task);
+                return;
+            }
+            inFlight++;
+        }
+        task.run();
+    }
+
+    /**
+     * Releases the permit of a completed request, updates the limit and starts the queued tasks it allows.
+     *
+     * @param rttNanos The round trip time of the request, absent if it never reached the server or was cancelled.
+     * @param dropped Whether the request failed or has to be retried.
+     */
+    void release(Optional<Long> rttNanos, boolean dropped) {
+        List<Runnable> ready = new ArrayList<>();
+        synchronized (this) {
+            int inFlightAtCompletion = inFlight;
+            inFlight--;
+
+            if (dropped) {
+                limit = Math.max(MIN_LIMIT, limit * DROP_BACKOFF);
+            } else if (rttNanos.isPresent() && rttNanos.get() > 0) {
+                onSample(rttNanos.get(), inFlightAtCompletion);
+            }
+
+            while (!queue.isEmpty() && inFlight < (int) limit) {
+                inFlight++;
+                ready.add(queue.poll());
+            }
+        }
+
+        for (Runnable task : ready) {
+            task.run();
+        }
+    }
+
+    /**
+     * Removes the tasks waiting for a permit.
+     *
+     * @return The queued tasks.
+     */
+    synchronized List<Runnable> clearQueue() {
+        List<Runnable> tasks = new ArrayList<>(queue);
+        queue.clear();
+        return tasks;
+    }
+
+    synchronized int getQueueDepth() {
+        return queue.size();
+    }
+
+    synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    private void onSample(long rttNanos, int inFlightAtCompletion) {
+        if (longRttNanos == 0) {
+            longRttNanos = rttNanos;
+        } else {
+            longRttNanos = longRttNanos * (1 - LONG_RTT_SMOOTHING) + rttNanos * LONG_RTT_SMOOTHING;
+        }
+
+        // Let the long term average recover quickly once a latency spike is over.
+        if (longRttNanos > 2 * rttNanos) {
+            longRttNanos *= 0.95;
+        }
+
+        // A limit which isn't being used can't be validated by the RTT, don't let it grow.
+        if (inFlightAtCompletion * 2 < limit) {
+            return;
+        }
+
+        double gradient = Math.max(MIN_GRADIENT, Math.min(1.0, longRttNanos / rttNanos));
+        double newLimit = limit * gradient + Math.sqrt(limit);
+        limit = Math.max(MIN_LIMIT, Math.min(maxLimit, limit * (1 - SMOOTHING) + newLimit * SMOOTHING));
+    }
+}
@@ -3,9 +3,16 @@ package com.urbanairship.api.client;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
 import com.google.common.base.Predicate;
+import com.google.common.collect.Sets;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
 import org.apache.http.entity.ContentType;
 import org.asynchttpclient.AsyncHttpClient;
 import org.asynchttpclient.BoundRequestBuilder;
+import org.asynchttpclient.ClientStats;
 import org.asynchttpclient.DefaultAsyncHttpClient;
 import org.asynchttpclient.DefaultAsyncHttpClientConfig;
 import org.asynchttpclient.filter.FilterContext;
@@ -16,8 +23,17 @@ import org.slf4j.LoggerFactory;
 import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.file.Path;
+import java.util.EnumMap;
 import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionHandler;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
 
 /**
  * The AsyncRequestClient is the default request client used by the UrbanAirshipClient.
@@ -25,19 +41,65 @@ import java.util.concurrent.Future;
 public class AsyncRequestClient implements RequestClient {
 
     private static final Logger log = LoggerFactory.getLogger(UrbanAirshipClient.class);
+    private static final long RETRY_TIMER_TICK_MS = 5;
+    private static final int INITIAL_CONCURRENCY_LIMIT = 20;
+    private static final int RESPONSE_QUEUE_CAPACITY = 4096;
 
     private final Optional<ProxyServer> proxyServer;
 
     private final URI baseUri;
+    private final URI requestBaseUri;
     private final AsyncHttpClient client;
     private final DefaultAsyncHttpClientConfig clientConfig;
+    private final Timer retryTimer;
+    private final RateLimitFilter rateLimitFilter;
+    private final Optional<AdaptiveConcurrencyLimiter> concurrencyLimiter;
+    private final Optional<RequestMetrics> requestMetrics;
+    private final Executor responseExecutor;
+    private final Optional<ExecutorService> ownedResponseExecutor;
+    private final Set<RetryingResponseFuture> inFlight = Sets.newConcurrentHashSet();
 
     private AsyncRequestClient(Builder builder) {
         this.baseUri = URI.create(builder.baseUri);
+        // Resolving request paths against a base path ending with a slash spares RequestUtils a URI re-parse per request.
+        this.requestBaseUri = baseUri.getPath() == null || baseUri.getPath().endsWith("/") ? baseUri : URI.create(builder.baseUri + "/");
 
         DefaultAsyncHttpClientConfig.Builder clientConfigBuilder = builder.clientConfigBuilder;
 
-        clientConfigBuilder.addResponseFilter(new RequestRetryFilter(builder.maxRetries, Optional.fromNullable(builder.retryPredicate)));
+        Map<EndpointFamily, TokenBucketRateLimiter> rateLimiters = new EnumMap<>(EndpointFamily.class);
+        for (Map.Entry<EndpointFamily, RateLimit> entry : builder.rateLimits.entrySet()) {
+            rateLimiters.put(entry.getKey(), new TokenBucketRateLimiter(entry.getValue().requestsPerSecond, entry.getValue().burst));
+        }
+        this.rateLimitFilter = new RateLimitFilter(rateLimiters);
+        if (!rateLimiters.isEmpty()) {
+            clientConfigBuilder.addResponseFilter(rateLimitFilter);
+        }
+
+        clientConfigBuilder.addResponseFilter(new RequestRetryFilter(builder.maxRetries, Optional.fromNullable(builder.retryPredicate),
+                builder.baseRetryDelayMillis, builder.maxRetryDelayMillis));
+
+        this.retryTimer = new HashedWheelTimer(new ThreadFactoryBuilder()
+                .setNameFormat("ua-retry-timer-%d")
+                .setDaemon(true)
+                .build(), RETRY_TIMER_TICK_MS, TimeUnit.MILLISECONDS);
+
+        if (builder.maxConcurrentRequests != null) {
+            this.concurrencyLimiter = Optional.of(new AdaptiveConcurrencyLimiter(
+                    Math.min(INITIAL_CONCURRENCY_LIMIT, builder.maxConcurrentRequests), builder.maxConcurrentRequests));
+        } else {
+            this.concurrencyLimiter = Optional.absent();
+        }
+
+        this.requestMetrics = Optional.fromNullable(builder.requestMetrics);
+
+        if (builder.responseExecutor != null) {
+            this.responseExecutor = builder.responseExecutor;
+            this.ownedResponseExecutor = Optional.absent();
+        } else {
+            ExecutorService executor = newResponseExecutor();
+            this.responseExecutor = executor;
+            this.ownedResponseExecutor = Optional.of(executor);
+        }
 
         if (Optional.fromNullable(builder.proxyServer).isPresent()) {
             proxyServer = Optional.fromNullable(builder.proxyServer);
@@ -51,6 +113,35 @@ public class AsyncRequestClient implements RequestClient {
         this.client = new DefaultAsyncHttpClient(clientConfig);
     }
 
+    /**
+     * The default response executor: one thread per core, at least two, and a bounded queue. When the queue is full,
+     * responses are processed on the I/O thread which received them, which slows reads down until the pool catches up.
+     * Once the executor is shut down, responses and failures still arriving from connections being closed are also
+     * processed on the I/O thread, so that their futures complete.
+     */
+    private static ExecutorService newResponseExecutor() {
+        int threads = Math.max(2, Runtime.getRuntime().availableProcessors());
+        ThreadPoolExecutor executor = new ThreadPoolExecutor(threads, threads, 60, TimeUnit.SECONDS,
+                new ArrayBlockingQueue<Runnable>(RESPONSE_QUEUE_CAPACITY),
+                new ThreadFactoryBuilder()
+                        .setNameFormat("ua-response-%d")
+                        .setDaemon(true)
+                        .build(),
+                RUN_ON_CALLER);
+        executor.allowCoreThreadTimeOut(true);
+        return executor;
+    }
+
+    /**
+     * Unlike CallerRunsPolicy, which discards tasks once the executor is shut down, always runs rejected tasks.
+     */
+    private static final RejectedExecutionHandler RUN_ON_CALLER = new RejectedExecutionHandler() {
+        @Override
+        public void rejectedExecution(Runnable task, ThreadPoolExecutor executor) {
+            task.run();
+        }
+    };
+
     /**
      * New AsyncRequestClient Builder.
      *
@@ -87,6 +178,33 @@ public class AsyncRequestClient implements RequestClient {
         return clientConfig;
     }
 
+    /**
+     * Get the number of requests waiting for the concurrency limit to let them through.
+     *
+     * @return The number of queued requests, always 0 when the concurrency isn't limited.
+     */
+    public int getQueuedRequestCount() {
+        return concurrencyLimiter.isPresent() ? concurrencyLimiter.get().getQueueDepth() : 0;
+    }
+
+    /**
+     * Get the current adaptive concurrency limit.
+     *
+     * @return Optional concurrency limit, absent when the concurrency isn't limited.
+     */
+    public Optional<Integer> getConcurrencyLimit() {
+        return concurrencyLimiter.isPresent() ? Optional.of(concurrencyLimiter.get().getLimit()) : Optional.<Integer>absent();
+    }
+
+    /**
+     * Get the connection pool statistics of the underlying HTTP client.
+     *
+     * @return ClientStats with the total, active and idle connection counts per host.
+     */
+    public ClientStats getClientStats() {
+        return client.getClientStats();
+    }
+
 
     @Override
     /**
@@ -97,16 +215,21 @@ public class AsyncRequestClient implements RequestClient {
      * @return A client response future.
      */
     public <T> Future<Response> executeAsync(final Request<T> request, final ResponseCallback callback, Map<String, String> headers) {
+        long startNanos = System.nanoTime();
+        Object requestEvent = ClientEvents.beginRequest();
+        boolean metered = requestMetrics.isPresent() || requestEvent != null;
+        long bytesSent = 0;
         BoundRequestBuilder requestBuilder;
-        String uri;
+        URI requestUri;
 
         try {
-            uri = request.getUri(baseUri).toString();
+            requestUri = request.getUri(requestBaseUri);
         } catch (URISyntaxException e) {
             log.error("Failed to generate a request URI from base URI " + baseUri.toString(), e);
             throw new RuntimeException(e);
         }
 
+        String uri = requestUri.toString();
         switch (request.getHttpMethod()) {
             case GET:
                 requestBuilder = client.prepareGet(uri);
@@ -131,24 +254,98 @@ public class AsyncRequestClient implements RequestClient {
         }
 
         // Body
-        String body = request.getRequestBody();
+        long serializationStartNanos = metered ? System.nanoTime() : 0;
+        Object serializationEvent = ClientEvents.beginSerialization();
         ContentType contentType = request.getContentType();
-        if (body != null && contentType != null) {
-            requestBuilder.setBody(body.getBytes(contentType.getCharset()));
+        if (request instanceof ChannelBodyRequest && contentType != null) {
+            ChannelBodyRequest<T> bodyRequest = (ChannelBodyRequest<T>) request;
+            Optional<Path> file = bodyRequest.getRequestBodyFile();
+            if (file.isPresent()) {
+                requestBuilder.setBody(file.get().toFile());
+                bytesSent = file.get().toFile().length();
+            } else {
+                requestBuilder.setBody(new ChannelBodyGenerator(bodyRequest));
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Executing Urban Airship request to %s with a streamed body.", uri));
+            }
+        } else if (request instanceof StreamingRequest && contentType != null) {
+            RequestBodyOutputStream body = new RequestBodyOutputStream();
+            try {
+                ((StreamingRequest<T>) request).writeRequestBody(body);
+            } catch (IOException e) {
+                log.error("Failed to write the request body for " + uri, e);
+                throw new RuntimeException(e);
+            }
+            requestBuilder.setBody(body.toSegments());
+            bytesSent = body.size();
+
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Executing Urban Airship request to %s with a %s bytes body.", uri, body.size()));
+            }
+        } else {
+            String body = request.getRequestBody();
+            if (body != null && contentType != null) {
+                byte[] bytes = body.getBytes(contentType.getCharset());
+                requestBuilder.setBody(bytes);
+                bytesSent = bytes.length;
+            }
+
+            if (log.isDebugEnabled()) {
+                log.debug(String.format("Executing Urban Airship request to %s with body %s.", uri, body));
+            }
+        }
+
+        ClientEvents.commitSerialization(serializationEvent, request.getClass(), bytesSent);
+        Optional<RequestMeter> meter = Optional.absent();
+        if (metered) {
+            meter = RequestMeter.start(requestMetrics, requestEvent, request.getHttpMethod().name(), requestUri.getPath(),
+                    startNanos, bytesSent, System.nanoTime() - serializationStartNanos);
         }
 
-        log.debug(String.format("Executing Urban Airship request to %s with body %s.", uri, request.getRequestBody()));
         ResponseAsyncHandler<T> handler = new ResponseAsyncHandler<>(Optional.fromNullable(callback), request.getResponseParser());
-        return requestBuilder.execute(handler);
+        final RetryingResponseFuture future = new RetryingResponseFuture(client, retryTimer, requestBuilder.build(), handler,
+                rateLimitFilter.getRateLimiter(requestUri.getPath()), concurrencyLimiter, meter, responseExecutor);
+        inFlight.add(future);
+        future.addListener(new Runnable() {
+            @Override
+            public void run() {
+                inFlight.remove(future);
+            }
+        }, MoreExecutors.directExecutor());
+        return future.start();
     }
 
     /**
-     * Close the underlying HTTP client's thread pool.
+     * Close the underlying HTTP client's thread pool. Requests waiting for a retry or for the concurrency limit are
+     * cancelled, and requests in flight fail with an IOException. The default response executor is shut down once the
+     * responses it already holds are processed, an executor set on the builder is left running.
      */
     @Override
     public void close() throws IOException {
         log.info("Closing client");
+        for (Timeout timeout : retryTimer.stop()) {
+            if (timeout.task() instanceof RetryingResponseFuture) {
+                ((RetryingResponseFuture) timeout.task()).cancel(false);
+            }
+        }
+        if (concurrencyLimiter.isPresent()) {
+            for (Runnable task : concurrencyLimiter.get().clearQueue()) {
+                if (task instanceof RetryingResponseFuture) {
+                    ((RetryingResponseFuture) task).cancel(false);
+                }
+            }
+        }
         client.close();
+        // The HTTP client drops the requests still in flight without completing them.
+        IOException closed = new IOException("The client has been closed");
+        for (RetryingResponseFuture future : inFlight) {
+            future.abort(closed);
+        }
+        if (ownedResponseExecutor.isPresent()) {
+            ownedResponseExecutor.get().shutdown();
+        }
     }
 
     /**
@@ -161,6 +358,12 @@ public class AsyncRequestClient implements RequestClient {
         private DefaultAsyncHttpClientConfig.Builder clientConfigBuilder = new DefaultAsyncHttpClientConfig.Builder();
         private Predicate<FilterContext> retryPredicate = null;
         private ProxyServer proxyServer;
+        private long baseRetryDelayMillis = RequestRetryFilter.DEFAULT_BASE_RETRY_DELAY_MS;
+        private long maxRetryDelayMillis = RequestRetryFilter.DEFAULT_MAX_RETRY_DELAY_MS;
+        private Map<EndpointFamily, RateLimit> rateLimits = new EnumMap<>(EndpointFamily.class);
+        private Integer maxConcurrentRequests = null;
+        private RequestMetrics requestMetrics = null;
+        private Executor responseExecutor = null;
 
         private Builder() {
             baseUri = "https://go.urbanairship.com";
@@ -187,6 +390,89 @@ public class AsyncRequestClient implements RequestClient {
             return this;
         }
 
+        /**
+         * Set the base delay of the exponential retry backoff -- defaults to 5 milliseconds. The delay before a retry
+         * is drawn at random between zero and the base delay doubled for every attempt.
+         *
+         * @param baseRetryDelayMillis The base delay in milliseconds.
+         * @return Builder
+         */
+        public Builder setBaseRetryDelayMillis(long baseRetryDelayMillis) {
+            this.baseRetryDelayMillis = baseRetryDelayMillis;
+            return this;
+        }
+
+        /**
+         * Set the maximum delay before a retry, including delays requested with a Retry-After header -- defaults
+         * to 30 seconds.
+         *
+         * @param maxRetryDelayMillis The maximum delay in milliseconds.
+         * @return Builder
+         */
+        public Builder setMaxRetryDelayMillis(long maxRetryDelayMillis) {
+            this.maxRetryDelayMillis = maxRetryDelayMillis;
+            return this;
+        }
+
+        /**
+         * Set a client side rate limit for the requests to an endpoint family -- by default requests are not rate
+         * limited. Requests exceeding the limit are not rejected, their execution is delayed without blocking the
+         * calling thread. The limit is lowered when the server throttles requests with a 429, and recovers as
+         * requests succeed.
+         *
+         * @param endpointFamily The endpoint family.
+         * @param requestsPerSecond The sustained request rate.
+         * @param burst The number of requests that may be sent at once before the rate applies.
+         * @return Builder
+         */
+        public Builder setRateLimit(EndpointFamily endpointFamily, double requestsPerSecond, int burst) {
+            Preconditions.checkNotNull(endpointFamily, "endpoint family may not be null");
+            Preconditions.checkArgument(requestsPerSecond > 0, "rate limit must be positive");
+            Preconditions.checkArgument(burst >= 1, "rate limit burst must be at least 1");
+            this.rateLimits.put(endpointFamily, new RateLimit(requestsPerSecond, burst));
+            return this;
+        }
+
+        /**
+         * Enable the adaptive concurrency limit -- by default the number of requests in flight isn't limited. The
+         * limit starts at 20 requests or the given maximum if lower, then adapts to the observed round trip times:
+         * it grows while latency stays flat and shrinks when latency rises or requests fail. Requests over the limit
+         * are queued locally, see {@link AsyncRequestClient#getQueuedRequestCount()}.
+         *
+         * @param maxConcurrentRequests The maximum the limit may grow to.
+         * @return Builder
+         */
+        public Builder setMaxConcurrentRequests(int maxConcurrentRequests) {
+            Preconditions.checkArgument(maxConcurrentRequests >= 1, "max concurrent requests must be at least 1");
+            this.maxConcurrentRequests = maxConcurrentRequests;
+            return this;
+        }
+
+        /**
+         * Set the metrics receiving the latencies, retries, status codes and sizes of the requests, per endpoint
+         * family, see {@link ClientMetrics} for the built-in implementation. No metrics are recorded by default.
+         *
+         * @param requestMetrics The request metrics.
+         * @return Builder
+         */
+        public Builder setRequestMetrics(RequestMetrics requestMetrics) {
+            this.requestMetrics = requestMetrics;
+            return this;
+        }
+
+        /**
+         * Set the executor parsing the response bodies and invoking the response callbacks, so that the HTTP client's
+         * I/O threads only move bytes. Defaults to a pool of one thread per core with a bounded queue, which falls
+         * back to the I/O thread when full. The executor is not shut down when the client is closed.
+         *
+         * @param responseExecutor The response executor.
+         * @return Builder
+         */
+        public Builder setResponseExecutor(Executor responseExecutor) {
+            this.responseExecutor = responseExecutor;
+            return this;
+        }
+
         /**
          * Set the client config builder -- defaults to a new builder. Available for custom settings.
          *
@@ -229,6 +515,7 @@ public class AsyncRequestClient implements RequestClient {
          * 3. The base URI has been overridden but not set.
          * 4. Max for non-POST 5xx retries must be set, already defaults to 10.
          * 5. HTTP client config builder must be set, already defaults to a new builder.
+         * 6. The retry delays must not be negative and the max retry delay must not be lower than the base delay.
          * </pre>
          *
          * @return UrbanAirshipClient
@@ -237,8 +524,21 @@ public class AsyncRequestClient implements RequestClient {
             Preconditions.checkNotNull(baseUri, "base URI needed to build APIClient");
             Preconditions.checkNotNull(maxRetries, "max non-POST retries needed to build APIClient");
             Preconditions.checkNotNull(clientConfigBuilder, "Async HTTP client config builder needed to build APIClient");
+            Preconditions.checkArgument(baseRetryDelayMillis >= 0, "base retry delay must not be negative");
+            Preconditions.checkArgument(maxRetryDelayMillis >= baseRetryDelayMillis, "max retry delay must not be lower than the base retry delay");
 
             return new AsyncRequestClient(this);
         }
     }
+
+    private static class RateLimit {
+
+        private final double requestsPerSecond;
+        private final int burst;
+
+        private RateLimit(double requestsPerSecond, int burst) {
+            this.requestsPerSecond = requestsPerSecond;
+            this.burst = burst;
+        }
+    }
 }
@@ -0,0 +1,124 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import io.netty.buffer.ByteBuf;
+import org.asynchttpclient.request.body.Body;
+import org.asynchttpclient.request.body.generator.FeedListener;
+import org.asynchttpclient.request.body.generator.FeedableBodyGenerator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+/**
+ * Streams the body of a {@link ChannelBodyRequest} in chunks: the HTTP client fills each chunk buffer from the request's
+ * channel, which is opened anew for every attempt.
+ *
+ * The chunks are filled on the HTTP client's I/O threads, which must never block. A {@link NonBlockingReadableChannel}
+ * is read directly; any other channel is read ahead on a body thread. When no bytes are available yet, the transfer
+ * is suspended, and resumed by the channel's read listener. The generator is feedable only so that the HTTP client
+ * hands it the listener resuming the transfer: it is fed by its request's channel, not by {@link #feed}.
+ */
+class ChannelBodyGenerator implements FeedableBodyGenerator {
+
+    private static final ExecutorService BODY_EXECUTOR = Executors.newCachedThreadPool(new ThreadFactoryBuilder()
+            .setNameFormat("ua-request-body-%d")
+            .setDaemon(true)
+            .build());
+
+    private final ChannelBodyRequest<?> request;
+
+    private volatile FeedListener listener;
+
+    ChannelBodyGenerator(ChannelBodyRequest<?> request) {
+        this.request = request;
+    }
+
+    @Override
+    public Body createBody() {
+        return new ChannelBody();
+    }
+
+    @Override
+    public void setListener(FeedListener listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Not supported, the body is read from the request's channel.
+     *
+     * @throws IllegalStateException always.
+     */
+    @Override
+    public boolean feed(ByteBuf buffer, boolean isLast) {
+        throw new IllegalStateException("The body of a ChannelBodyRequest is read from its channel");
+    }
+
+    private void contentAdded() {
+        FeedListener current = listener;
+        if (current != null) {
+            current.onContentAdded();
+        }
+    }
+
+    private class ChannelBody implements Body {
+
+        private NonBlockingReadableChannel channel;
+
+        @Override
+        public long getContentLength() {
+            return -1;
+        }
+
+        @Override
+        public BodyState transferTo(ByteBuf target) throws IOException {
+            // The channel is opened by the first transfer, so that opening it can fail with an IOException.
+            if (channel == null) {
+                ReadableByteChannel body = request.openRequestBody();
+                channel = body instanceof NonBlockingReadableChannel
+                        ? (NonBlockingReadableChannel) body
+                        : new PumpingChannel(body, BODY_EXECUTOR);
+                channel.setReadListener(new Runnable() {
+                    @Override
+                    public void run() {
+                        contentAdded();
+                    }
+                });
+            }
+
+            int writerIndex = target.writerIndex();
+            ByteBuffer buffer = target.nioBuffer(writerIndex, target.writableBytes());
+            int read = 0;
+            while (buffer.hasRemaining()) {
+                int count = channel.read(buffer);
+                if (count < 0) {
+                    target.writerIndex(writerIndex + read);
+                    return BodyState.STOP;
+                }
+                if (count == 0) {
+                    break;
+                }
+                read += count;
+            }
+            if (read == 0) {
+                // Resumed by the read listener once the channel has bytes.
+                return BodyState.SUSPEND;
+            }
+            target.writerIndex(writerIndex + read);
+            return BodyState.CONTINUE;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (channel != null) {
+                channel.close();
+            }
+        }
+    }
+}
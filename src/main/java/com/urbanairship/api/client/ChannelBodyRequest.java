@@ -0,0 +1,40 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import com.google.common.base.Optional;
+
+import java.io.IOException;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Path;
+
+/**
+ * A Request whose body is streamed from a file or a channel as it is sent, so that the memory used does not depend on
+ * the size of the body. The AsyncRequestClient uses it instead of {@link Request#getRequestBody()}.
+ *
+ * @param <T> The parsed response type.
+ */
+public interface ChannelBodyRequest<T> extends Request<T> {
+
+    /**
+     * Get the file holding the body exactly as it must be sent. A file body is sent with its length and, when the
+     * connection allows it, transferred to the socket without being copied through the heap.
+     *
+     * @return Optional file, absent if the body is read from {@link #openRequestBody()}.
+     */
+    Optional<Path> getRequestBodyFile();
+
+    /**
+     * Opens a channel over the body, which is sent with a chunked transfer encoding. It is called for every attempt
+     * of the request and the channel is closed once the body has been sent.
+     *
+     * The channel is read ahead on a body thread, so that blocking reads don't stall the HTTP client's I/O threads,
+     * unless it is a {@link NonBlockingReadableChannel}, which is read directly from the I/O threads.
+     *
+     * @return A channel over the body.
+     * @throws IOException if the body can't be opened, or can't be read again for a retry.
+     */
+    ReadableByteChannel openRequestBody() throws IOException;
+}
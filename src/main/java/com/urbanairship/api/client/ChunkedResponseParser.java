@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+
+/**
+ * A ResponseParser consuming a successful response body chunk by chunk, as it is received, so that the body is never
+ * held in memory. Other responses are aggregated and parsed with {@link ResponseParser#parse(String)}.
+ *
+ * The chunks are consumed on the HTTP client's I/O thread, which also means that the server can't send faster than
+ * they are consumed: consumers should only do quick work such as writing to a file.
+ *
+ * @param <T> The parsed response type.
+ */
+public interface ChunkedResponseParser<T> extends ResponseParser<T> {
+
+    /**
+     * Creates the consumer of a response body. A new consumer is created for every attempt receiving a successful
+     * response; the consumer of an abandoned attempt is closed without being completed.
+     *
+     * @return A body consumer.
+     * @throws IOException if the consumer can't be created, or the body can't be consumed again for a retry.
+     */
+    BodyConsumer<T> newConsumer() throws IOException;
+
+    /**
+     * Consumer of a single response body.
+     *
+     * @param <T> The parsed response type.
+     */
+    interface BodyConsumer<T> extends Closeable {
+
+        /**
+         * Consumes the next chunk of the body.
+         *
+         * @param chunk The chunk, only valid for the duration of the call.
+         * @throws IOException if the chunk can't be consumed.
+         */
+        void consume(ByteBuffer chunk) throws IOException;
+
+        /**
+         * Completes the body once it has been received entirely, and releases the consumer's resources.
+         *
+         * @return The parsed response, may be null if the response has no body.
+         * @throws IOException if the body can't be completed.
+         */
+        T complete() throws IOException;
+    }
+}
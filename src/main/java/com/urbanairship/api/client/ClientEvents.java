@@ -0,0 +1,123 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+/**
+ * Java Flight Recorder events of the client: request lifecycle, body serialization, attempts, retries, response parsing
+ * and callbacks.
+ *
+ * The events are defined by JfrClientEvents, which uses the jdk.jfr API: it lives under src/main/java11 and is only
+ * compiled when the library is built with JDK 11 or later. It is loaded reflectively, so every method is a no-op on
+ * runtimes without JFR, such as Java 8, and with a library built with JDK 8. The events are handed around as plain
+ * objects; the begin methods return null when the event is disabled and the commit methods ignore null events.
+ */
+final class ClientEvents {
+
+    private static final Recorder RECORDER = loadRecorder();
+
+    private ClientEvents() {
+    }
+
+    static Object beginRequest() {
+        return RECORDER != null ? RECORDER.beginRequest() : null;
+    }
+
+    static void commitRequest(Object requestEvent, String method, String endpoint, EndpointFamily endpointFamily,
+                              int statusCode, int attempts, long bytesSent, long serializationNanos) {
+        if (requestEvent != null) {
+            RECORDER.commitRequest(requestEvent, method, endpoint, endpointFamily, statusCode, attempts, bytesSent,
+                serializationNanos);
+        }
+    }
+
+    static Object beginSerialization() {
+        return RECORDER != null ? RECORDER.beginSerialization() : null;
+    }
+
+    static void commitSerialization(Object serializationEvent, Class<?> requestType, long bodySize) {
+        if (serializationEvent != null) {
+            RECORDER.commitSerialization(serializationEvent, requestType, bodySize);
+        }
+    }
+
+    static Object beginAttempt() {
+        return RECORDER != null ? RECORDER.beginAttempt() : null;
+    }
+
+    static void commitAttempt(Object attemptEvent, String method, String endpoint, int attempt, int statusCode,
+                              long timeToFirstByteNanos, long bytesSent, long bytesReceived) {
+        if (attemptEvent != null) {
+            RECORDER.commitAttempt(attemptEvent, method, endpoint, attempt, statusCode, timeToFirstByteNanos, bytesSent,
+                bytesReceived);
+        }
+    }
+
+    static void retry(String method, String endpoint, int attempt, int statusCode, long delayMillis) {
+        if (RECORDER != null) {
+            RECORDER.retry(method, endpoint, attempt, statusCode, delayMillis);
+        }
+    }
+
+    static Object beginParse() {
+        return RECORDER != null ? RECORDER.beginParse() : null;
+    }
+
+    static void commitParse(Object parseEvent, Class<?> parserType, long bodySize) {
+        if (parseEvent != null) {
+            RECORDER.commitParse(parseEvent, parserType, bodySize);
+        }
+    }
+
+    static Object beginCallback() {
+        return RECORDER != null ? RECORDER.beginCallback() : null;
+    }
+
+    static void commitCallback(Object callbackEvent, Class<?> callbackType, boolean error) {
+        if (callbackEvent != null) {
+            RECORDER.commitCallback(callbackEvent, callbackType, error);
+        }
+    }
+
+    private static Recorder loadRecorder() {
+        try {
+            return (Recorder) Class.forName("com.urbanairship.api.client.JfrClientEvents", true, ClientEvents.class.getClassLoader())
+                .getDeclaredConstructor()
+                .newInstance();
+        } catch (ReflectiveOperationException | LinkageError e) {
+            // Built without JFR support, or running on a runtime without the jdk.jfr module.
+            return null;
+        }
+    }
+
+    /**
+     * Records the events, see {@link ClientEvents} for the contract of each method.
+     */
+    interface Recorder {
+
+        Object beginRequest();
+
+        void commitRequest(Object requestEvent, String method, String endpoint, EndpointFamily endpointFamily,
+                           int statusCode, int attempts, long bytesSent, long serializationNanos);
+
+        Object beginSerialization();
+
+        void commitSerialization(Object serializationEvent, Class<?> requestType, long bodySize);
+
+        Object beginAttempt();
+
+        void commitAttempt(Object attemptEvent, String method, String endpoint, int attempt, int statusCode,
+                           long timeToFirstByteNanos, long bytesSent, long bytesReceived);
+
+        void retry(String method, String endpoint, int attempt, int statusCode, long delayMillis);
+
+        Object beginParse();
+
+        void commitParse(Object parseEvent, Class<?> parserType, long bodySize);
+
+        Object beginCallback();
+
+        void commitCallback(Object callbackEvent, Class<?> callbackType, boolean error);
+    }
+}
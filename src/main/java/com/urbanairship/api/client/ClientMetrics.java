@@ -0,0 +1,215 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import com.google.common.collect.ImmutableMap;
+
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Built-in {@link RequestMetrics} implementation, keeping latency histograms and counters per endpoint family in
+ * memory. Comparing the request latency, which includes serialization, queueing and retries, with the attempt latency
+ * and time to first byte tells whether slow requests are held up on the client or on the server side. The connection
+ * pool occupancy is available from {@link AsyncRequestClient#getClientStats()}.
+ *
+ * Usage:
+ * <pre>
+ * ClientMetrics metrics = new ClientMetrics();
+ * AsyncRequestClient client = AsyncRequestClient.newBuilder()
+ *     .setBaseUri("https://go.urbanairship.com")
+ *     .setRequestMetrics(metrics)
+ *     .build();
+ * ...
+ * long p99 = metrics.get(EndpointFamily.PUSH).getRequestLatency().getValueAtPercentile(99);
+ * </pre>
+ */
+public class ClientMetrics implements RequestMetrics {
+
+    private final Map<EndpointFamily, EndpointMetrics> endpoints = new EnumMap<>(EndpointFamily.class);
+
+    public ClientMetrics() {
+        for (EndpointFamily family : EndpointFamily.values()) {
+            endpoints.put(family, new EndpointMetrics());
+        }
+    }
+
+    /**
+     * Get the metrics of an endpoint family.
+     *
+     * @param endpointFamily The endpoint family.
+     * @return EndpointMetrics
+     */
+    public EndpointMetrics get(EndpointFamily endpointFamily) {
+        return endpoints.get(endpointFamily);
+    }
+
+    @Override
+    public void requestStarted(EndpointFamily endpointFamily) {
+        EndpointMetrics metrics = endpoints.get(endpointFamily);
+        metrics.requests.increment();
+        metrics.inFlight.incrementAndGet();
+    }
+
+    @Override
+    public void attemptCompleted(EndpointFamily endpointFamily, int statusCode, long timeToFirstByteNanos, long durationNanos,
+                                 long bytesSent, long bytesReceived) {
+        EndpointMetrics metrics = endpoints.get(endpointFamily);
+        metrics.attemptLatency.record(durationNanos);
+        if (timeToFirstByteNanos >= 0) {
+            metrics.timeToFirstByte.record(timeToFirstByteNanos);
+        }
+        metrics.statusCounts.incrementAndGet(statusIndex(statusCode));
+        metrics.bytesSent.add(bytesSent);
+        metrics.bytesReceived.add(bytesReceived);
+    }
+
+    @Override
+    public void retryScheduled(EndpointFamily endpointFamily, int statusCode) {
+        endpoints.get(endpointFamily).retries.increment();
+    }
+
+    @Override
+    public void requestCompleted(EndpointFamily endpointFamily, int statusCode, long durationNanos) {
+        EndpointMetrics metrics = endpoints.get(endpointFamily);
+        metrics.inFlight.decrementAndGet();
+        metrics.requestLatency.record(durationNanos);
+    }
+
+    private static int statusIndex(int statusCode) {
+        return statusCode >= 0 && statusCode < EndpointMetrics.STATUS_CODES ? statusCode : 0;
+    }
+
+    /**
+     * Metrics of the requests to an endpoint family.
+     */
+    public static class EndpointMetrics {
+
+        private static final int STATUS_CODES = 600;
+
+        private final LatencyHistogram requestLatency = new LatencyHistogram();
+        private final LatencyHistogram attemptLatency = new LatencyHistogram();
+        private final LatencyHistogram timeToFirstByte = new LatencyHistogram();
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder retries = new LongAdder();
+        private final LongAdder bytesSent = new LongAdder();
+        private final LongAdder bytesReceived = new LongAdder();
+        private final AtomicLongArray statusCounts = new AtomicLongArray(STATUS_CODES);
+
+        private EndpointMetrics() {
+        }
+
+        /**
+         * Get the histogram of the request durations, from submission to completion.
+         *
+         * @return LatencyHistogram
+         */
+        public LatencyHistogram getRequestLatency() {
+            return requestLatency;
+        }
+
+        /**
+         * Get the histogram of the attempt durations.
+         *
+         * @return LatencyHistogram
+         */
+        public LatencyHistogram getAttemptLatency() {
+            return attemptLatency;
+        }
+
+        /**
+         * Get the histogram of the times to first byte of the attempts.
+         *
+         * @return LatencyHistogram
+         */
+        public LatencyHistogram getTimeToFirstByte() {
+            return timeToFirstByte;
+        }
+
+        /**
+         * Get the number of requests submitted and not yet completed.
+         *
+         * @return The in-flight request count.
+         */
+        public int getInFlight() {
+            return inFlight.get();
+        }
+
+        /**
+         * Get the number of requests submitted.
+         *
+         * @return The request count.
+         */
+        public long getRequestCount() {
+            return requests.sum();
+        }
+
+        /**
+         * Get the number of attempts.
+         *
+         * @return The attempt count.
+         */
+        public long getAttemptCount() {
+            return attemptLatency.getCount();
+        }
+
+        /**
+         * Get the number of retries.
+         *
+         * @return The retry count.
+         */
+        public long getRetryCount() {
+            return retries.sum();
+        }
+
+        /**
+         * Get the number of request body bytes sent.
+         *
+         * @return The bytes sent.
+         */
+        public long getBytesSent() {
+            return bytesSent.sum();
+        }
+
+        /**
+         * Get the number of response body bytes received.
+         *
+         * @return The bytes received.
+         */
+        public long getBytesReceived() {
+            return bytesReceived.sum();
+        }
+
+        /**
+         * Get the number of attempts completed with a status code.
+         *
+         * @param statusCode The status code, 0 for attempts which received no response.
+         * @return The attempt count.
+         */
+        public long getStatusCount(int statusCode) {
+            return statusCode >= 0 && statusCode < STATUS_CODES ? statusCounts.get(statusCode) : 0;
+        }
+
+        /**
+         * Get the number of attempts per status code, for the status codes seen at least once.
+         *
+         * @return An immutable map of attempt counts by status code.
+         */
+        public Map<Integer, Long> getStatusCounts() {
+            ImmutableMap.Builder<Integer, Long> counts = ImmutableMap.builder();
+            for (int status = 0; status < STATUS_CODES; status++) {
+                long count = statusCounts.get(status);
+                if (count > 0) {
+                    counts.put(status, count);
+                }
+            }
+            return counts.build();
+        }
+    }
+}
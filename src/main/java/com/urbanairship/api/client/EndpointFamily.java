@@ -0,0 +1,47 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import com.google.common.collect.ImmutableList;
+
+/**
+ * Groups of API endpoints sharing a rate limit, used to configure the client side rate limiting of the
+ * {@link AsyncRequestClient}.
+ */
+public enum EndpointFamily {
+
+    REPORTS("/api/reports/", "/api/push/stats/"),
+    PUSH("/api/push/", "/api/create-and-send", "/api/experiments/", "/api/schedules/", "/api/templates/push/", "/api/templates/schedules/"),
+    CHANNELS("/api/channels/"),
+    NAMED_USERS("/api/named_users/"),
+    CUSTOM_EVENTS("/api/custom-events/"),
+    OTHER();
+
+    private final ImmutableList<String> paths;
+
+    EndpointFamily(String... paths) {
+        this.paths = ImmutableList.copyOf(paths);
+    }
+
+    /**
+     * Get the endpoint family of a request path. The base URI path the API is served from may precede the endpoint
+     * path.
+     *
+     * @param path The request path.
+     * @return The endpoint family, OTHER if the path doesn't belong to any family.
+     */
+    public static EndpointFamily forPath(String path) {
+        if (path != null) {
+            for (EndpointFamily family : values()) {
+                for (String familyPath : family.paths) {
+                    if (path.contains(familyPath)) {
+                        return family;
+                    }
+                }
+            }
+        }
+        return OTHER;
+    }
+}
@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import com.google.common.base.Preconditions;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A channel reading the gzip compressed form of a source channel. The source is compressed as it is read, with fixed
+ * size buffers, so that bodies of any size can be compressed while they are sent.
+ *
+ * Reads block on the source and deflate inline, on the reading thread. The AsyncRequestClient reads a request body
+ * channel like this one on a body thread, off its I/O threads; see {@link ChannelBodyRequest#openRequestBody()}.
+ */
+public class GzipCompressingChannel implements ReadableByteChannel {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+
+    private final ReadableByteChannel source;
+    private final Deflater deflater;
+    private final CRC32 crc = new CRC32();
+    private final byte[] input = new byte[BUFFER_SIZE];
+    private final byte[] output = new byte[BUFFER_SIZE];
+
+    private ByteBuffer pending = ByteBuffer.wrap(HEADER);
+    private boolean inputFinished = false;
+    private boolean trailerWritten = false;
+    private boolean open = true;
+
+    /**
+     * Compresses the source with the default compression level.
+     *
+     * @param source The uncompressed source.
+     */
+    public GzipCompressingChannel(ReadableByteChannel source) {
+        this(source, Deflater.DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * Compresses the source with the given compression level.
+     *
+     * @param source The uncompressed source.
+     * @param level The compression level, from 0 to 9 or -1 for the default.
+     */
+    public GzipCompressingChannel(ReadableByteChannel source, int level) {
+        Preconditions.checkNotNull(source, "source may not be null");
+        Preconditions.checkArgument(level >= Deflater.DEFAULT_COMPRESSION && level <= Deflater.BEST_COMPRESSION,
+            "compression level must be between -1 and 9");
+        this.source = source;
+        this.deflater = new Deflater(level, true);
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int written = 0;
+        while (dst.hasRemaining()) {
+            if (pending.hasRemaining()) {
+                int count = Math.min(pending.remaining(), dst.remaining());
+                ByteBuffer slice = pending.duplicate();
+                slice.limit(slice.position() + count);
+                dst.put(slice);
+                pending.position(pending.position() + count);
+                written += count;
+            } else if (trailerWritten) {
+                break;
+            } else if (!fill()) {
+                break;
+            }
+        }
+        return written == 0 && trailerWritten && !pending.hasRemaining() ? -1 : written;
+    }
+
+    /**
+     * Produces the next compressed bytes.
+     *
+     * @return False if the source has no bytes available yet.
+     */
+    private boolean fill() throws IOException {
+        if (deflater.finished()) {
+            pending = trailer();
+            trailerWritten = true;
+            return true;
+        }
+
+        if (deflater.needsInput() && !inputFinished) {
+            int count = source.read(ByteBuffer.wrap(input));
+            if (count < 0) {
+                inputFinished = true;
+                deflater.finish();
+            } else if (count == 0) {
+                return false;
+            } else {
+                crc.update(input, 0, count);
+                deflater.setInput(input, 0, count);
+            }
+        }
+
+        pending = ByteBuffer.wrap(output, 0, deflater.deflate(output));
+        return true;
+    }
+
+    private ByteBuffer trailer() {
+        ByteBuffer trailer = ByteBuffer.allocate(8).order(ByteOrder.LITTLE_ENDIAN);
+        trailer.putInt((int) crc.getValue());
+        trailer.putInt((int) deflater.getBytesRead());
+        trailer.flip();
+        return trailer;
+    }
+
+    @Override
+    public boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        if (open) {
+            open = false;
+            deflater.end();
+            source.close();
+        }
+    }
+}
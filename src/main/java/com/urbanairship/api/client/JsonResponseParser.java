@@ -0,0 +1,43 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import com.fasterxml.jackson.core.type.TypeReference;
+import com.fasterxml.jackson.databind.JavaType;
+import com.fasterxml.jackson.databind.ObjectMapper;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * StreamingResponseParser reading JSON response bodies with one of the library's object mappers.
+ *
+ * @param <T> The parsed response type.
+ */
+public class JsonResponseParser<T> implements StreamingResponseParser<T> {
+
+    private final ObjectMapper mapper;
+    private final JavaType type;
+
+    public JsonResponseParser(ObjectMapper mapper, Class<T> type) {
+        this.mapper = mapper;
+        this.type = mapper.getTypeFactory().constructType(type);
+    }
+
+    public JsonResponseParser(ObjectMapper mapper, TypeReference<T> type) {
+        this.mapper = mapper;
+        this.type = mapper.getTypeFactory().constructType(type);
+    }
+
+    @Override
+    public T parse(String response) throws IOException {
+        return mapper.readValue(response, type);
+    }
+
+    @Override
+    public T parse(InputStream response) throws IOException {
+        return mapper.readValue(response, type);
+    }
+}
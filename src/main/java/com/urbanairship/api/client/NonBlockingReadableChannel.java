@@ -0,0 +1,23 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import java.nio.channels.ReadableByteChannel;
+
+/**
+ * A channel whose reads never block: a read returns no bytes while none are available yet, and the channel's read
+ * listener is run once more bytes, the end of the channel or a failure can be read. The AsyncRequestClient reads such
+ * a channel straight from its I/O threads.
+ */
+public interface NonBlockingReadableChannel extends ReadableByteChannel {
+
+    /**
+     * Set the listener run when the channel can be read again. It may be run from any thread, and more often than
+     * strictly needed.
+     *
+     * @param listener The read listener.
+     */
+    void setReadListener(Runnable listener);
+}
@@ -0,0 +1,504 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.Iterables;
+import com.google.common.collect.Iterators;
+import org.reactivestreams.Publisher;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
+
+import java.net.URI;
+import java.util.ArrayDeque;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.Queue;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.BiConsumer;
+import java.util.stream.Stream;
+import java.util.stream.StreamSupport;
+
+/**
+ * Exposes a paged listing endpoint as a lazy sequence of its elements. Pages are requested through the
+ * {@link UrbanAirshipClient} while the previous ones are being consumed: up to the prefetch depth pages are
+ * fetched ahead of the page currently iterated over.
+ *
+ * The listing can also be consumed as a reactive-streams {@link Publisher} through {@link #publisher()}, in which case
+ * pages are only requested when the subscriber's demand can't be met by the elements already received.
+ *
+ * Each call to {@link #iterator()}, {@link #stream()} or {@link Publisher#subscribe(Subscriber)} starts a new traversal
+ * from the first request. A request returning a 4xx or 5xx status ends the traversal with a {@link ClientException} or
+ * a {@link ServerException}.
+ *
+ * @param <T> The listing response type.
+ * @param <E> The listed element type.
+ */
+public class Paginator<T, E> implements Iterable<E> {
+
+    private final UrbanAirshipClient client;
+    private final Request<T> firstRequest;
+    private final Function<URI, ? extends Request<T>> nextPageRequest;
+    private final Function<T, ? extends Iterable<E>> pageElements;
+    private final Function<T, Optional<String>> nextPage;
+    private final int prefetchDepth;
+
+    private Paginator(Builder<T, E> builder) {
+        this.client = builder.client;
+        this.firstRequest = builder.firstRequest;
+        this.nextPageRequest = builder.nextPageRequest;
+        this.pageElements = builder.pageElements;
+        this.nextPage = builder.nextPage;
+        this.prefetchDepth = builder.prefetchDepth;
+    }
+
+    /**
+     * New Paginator builder.
+     *
+     * @param <T> The listing response type.
+     * @param <E> The listed element type.
+     * @return Builder
+     */
+    public static <T, E> Builder<T, E> newBuilder() {
+        return new Builder<>();
+    }
+
+    /**
+     * Get the number of pages fetched ahead of the page being consumed.
+     *
+     * @return The prefetch depth.
+     */
+    public int getPrefetchDepth() {
+        return prefetchDepth;
+    }
+
+    @Override
+    public Iterator<E> iterator() {
+        return new PageIterator();
+    }
+
+    /**
+     * Get the listed elements as a sequential stream. Closing the stream cancels the pages being fetched.
+     *
+     * @return A stream of the listed elements.
+     */
+    public Stream<E> stream() {
+        final PageIterator iterator = new PageIterator();
+        return StreamSupport.stream(Spliterators.spliteratorUnknownSize(iterator, Spliterator.ORDERED | Spliterator.NONNULL), false)
+            .onClose(new Runnable() {
+                @Override
+                public void run() {
+                    iterator.close();
+                }
+            });
+    }
+
+    /**
+     * Get the listed elements as a reactive-streams publisher. Pages are fetched one at a time, and the next page is
+     * only requested once all the elements received so far have been delivered and the subscriber still has
+     * outstanding demand, so a slow subscriber never causes pages to be buffered. The prefetch depth does not apply.
+     *
+     * @return A publisher of the listed elements.
+     */
+    public Publisher<E> publisher() {
+        return new Publisher<E>() {
+            @Override
+            public void subscribe(Subscriber<? super E> subscriber) {
+                Preconditions.checkNotNull(subscriber, "subscriber may not be null");
+                PageSubscription subscription = new PageSubscription(subscriber);
+                subscriber.onSubscribe(subscription);
+                subscription.drain();
+            }
+        };
+    }
+
+    private class PageIterator implements Iterator<E> {
+
+        private final Deque<CompletableFuture<T>> pages = new ArrayDeque<>();
+
+        private Iterator<E> current = Collections.emptyIterator();
+        private URI pendingNextPage;
+        private boolean closed;
+
+        PageIterator() {
+            synchronized (this) {
+                fetch(firstRequest);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (!current.hasNext()) {
+                CompletableFuture<T> page;
+                synchronized (this) {
+                    if (pages.isEmpty() && pendingNextPage != null) {
+                        fetchPendingPage();
+                    }
+                    page = pages.poll();
+                    if (page == null) {
+                        return false;
+                    }
+                    fillPrefetchWindow();
+                }
+
+                Iterable<E> elements = pageElements.apply(await(page));
+                current = elements == null ? Collections.<E>emptyIterator() : Iterators.unmodifiableIterator(elements.iterator());
+            }
+            return true;
+        }
+
+        @Override
+        public E next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            return current.next();
+        }
+
+        synchronized void close() {
+            closed = true;
+            pendingNextPage = null;
+            for (CompletableFuture<T> page : pages) {
+                page.cancel(true);
+            }
+            pages.clear();
+        }
+
+        // Must be called while holding the lock.
+        private void fetch(Request<T> request) {
+            // The page is queued before the response is handled, which may happen right away on this thread and fetch
+            // the next pages: they are queued after it. The next page is scheduled before the page future completes,
+            // so that a consumer done with this page always finds either the next page or the end of the listing.
+            final CompletableFuture<T> page = new CompletableFuture<>();
+            pages.add(page);
+            final CompletableFuture<Response<T>> response = client.executeAsyncStage(request).toCompletableFuture();
+            page.whenComplete(new BiConsumer<T, Throwable>() {
+                @Override
+                public void accept(T body, Throwable throwable) {
+                    if (throwable instanceof CancellationException) {
+                        response.cancel(true);
+                    }
+                }
+            });
+            response.whenComplete(new BiConsumer<Response<T>, Throwable>() {
+                @Override
+                public void accept(Response<T> result, Throwable throwable) {
+                    if (throwable != null) {
+                        page.completeExceptionally(throwable);
+                        return;
+                    }
+                    try {
+                        T body = checkStatus(result);
+                        onPage(body);
+                        page.complete(body);
+                    } catch (RuntimeException e) {
+                        page.completeExceptionally(e);
+                    }
+                }
+            });
+        }
+
+        private synchronized void onPage(T body) {
+            Optional<String> next = body == null ? Optional.<String>absent() : nextPage.apply(body);
+            if (closed || !next.isPresent()) {
+                return;
+            }
+
+            pendingNextPage = URI.create(next.get());
+            fillPrefetchWindow();
+        }
+
+        // Must be called while holding the lock.
+        private void fillPrefetchWindow() {
+            if (pendingNextPage != null && !closed && pages.size() < prefetchDepth) {
+                fetchPendingPage();
+            }
+        }
+
+        // Must be called while holding the lock.
+        private void fetchPendingPage() {
+            URI uri = pendingNextPage;
+            pendingNextPage = null;
+            fetch(nextPageRequest.apply(uri));
+        }
+
+        private T await(CompletableFuture<T> page) {
+            try {
+                return page.get();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                close();
+                throw new RuntimeException("Thread interrupted while retrieving listing page", e);
+            } catch (ExecutionException e) {
+                close();
+                if (e.getCause() instanceof RuntimeException) {
+                    throw (RuntimeException) e.getCause();
+                }
+                throw new RuntimeException("Failed to retrieve listing page", e.getCause());
+            }
+        }
+    }
+
+    private class PageSubscription implements Subscription {
+
+        private final Subscriber<? super E> subscriber;
+        private final AtomicLong requested = new AtomicLong();
+        private final AtomicInteger wip = new AtomicInteger();
+        private final Queue<E> buffer = new ConcurrentLinkedQueue<>();
+
+        private volatile Request<T> nextRequest = firstRequest;
+        private volatile CompletableFuture<?> inFlight;
+        private volatile Throwable error;
+        private volatile boolean cancelled;
+        private boolean done;
+
+        PageSubscription(Subscriber<? super E> subscriber) {
+            this.subscriber = subscriber;
+        }
+
+        @Override
+        public void request(long n) {
+            if (n <= 0) {
+                error = new IllegalArgumentException("Subscriber demand must be positive, got " + n);
+                cancel();
+                drain();
+                return;
+            }
+
+            long current;
+            long updated;
+            do {
+                current = requested.get();
+                updated = current + n < 0 ? Long.MAX_VALUE : current + n;
+            } while (!requested.compareAndSet(current, updated));
+
+            drain();
+        }
+
+        @Override
+        public void cancel() {
+            cancelled = true;
+            nextRequest = null;
+            CompletableFuture<?> page = inFlight;
+            if (page != null) {
+                page.cancel(true);
+            }
+        }
+
+        // Delivers the signals from a single thread at a time, and requests the next page when the demand requires it.
+        void drain() {
+            if (wip.getAndIncrement() != 0) {
+                return;
+            }
+
+            int missed = 1;
+            do {
+                while (!done) {
+                    if (error != null) {
+                        done = true;
+                        buffer.clear();
+                        subscriber.onError(error);
+                    } else if (cancelled) {
+                        done = true;
+                        buffer.clear();
+                    } else if (requested.get() > 0 && !buffer.isEmpty()) {
+                        subscriber.onNext(buffer.poll());
+                        if (requested.get() != Long.MAX_VALUE) {
+                            requested.decrementAndGet();
+                        }
+                    } else if (buffer.isEmpty() && inFlight == null && nextRequest == null) {
+                        done = true;
+                        subscriber.onComplete();
+                    } else if (requested.get() > 0 && buffer.isEmpty() && inFlight == null) {
+                        Request<T> request = nextRequest;
+                        nextRequest = null;
+                        fetch(request);
+                    } else {
+                        break;
+                    }
+                }
+                missed = wip.addAndGet(-missed);
+            } while (missed != 0);
+        }
+
+        private void fetch(Request<T> request) {
+            final CompletableFuture<Response<T>> response;
+            try {
+                response = client.executeAsyncStage(request).toCompletableFuture();
+            } catch (RuntimeException e) {
+                error = e;
+                return;
+            }
+
+            inFlight = response;
+            response.whenComplete(new BiConsumer<Response<T>, Throwable>() {
+                @Override
+                public void accept(Response<T> result, Throwable throwable) {
+                    onPage(result, throwable);
+                }
+            });
+        }
+
+        private void onPage(Response<T> response, Throwable throwable) {
+            if (!cancelled) {
+                try {
+                    if (throwable != null) {
+                        throw throwable instanceof CompletionException && throwable.getCause() != null ? throwable.getCause() : throwable;
+                    }
+
+                    T body = checkStatus(response);
+                    if (body != null) {
+                        Iterable<E> elements = pageElements.apply(body);
+                        if (elements != null) {
+                            Iterables.addAll(buffer, elements);
+                        }
+                        Optional<String> next = nextPage.apply(body);
+                        if (next.isPresent()) {
+                            nextRequest = nextPageRequest.apply(URI.create(next.get()));
+                        }
+                    }
+                } catch (Throwable t) {
+                    error = t;
+                }
+            }
+
+            inFlight = null;
+            drain();
+        }
+    }
+
+    private static <T> T checkStatus(Response<T> response) {
+        int status = response.getStatus();
+        if (status >= 500) {
+            throw ServerException.newBuilder()
+                .setStatusCode(status)
+                .setStatusText("Listing page request failed with status " + status)
+                .build();
+        }
+        if (status >= 400) {
+            throw ClientException.newBuilder()
+                .setStatusCode(status)
+                .setStatusText("Listing page request failed with status " + status)
+                .build();
+        }
+        return response.getBody().orNull();
+    }
+
+    /**
+     * Paginator builder.
+     *
+     * @param <T> The listing response type.
+     * @param <E> The listed element type.
+     */
+    public static class Builder<T, E> {
+
+        private UrbanAirshipClient client;
+        private Request<T> firstRequest;
+        private Function<URI, ? extends Request<T>> nextPageRequest;
+        private Function<T, ? extends Iterable<E>> pageElements;
+        private Function<T, Optional<String>> nextPage;
+        private int prefetchDepth = 1;
+
+        private Builder() {
+        }
+
+        /**
+         * Set the client executing the page requests.
+         *
+         * @param client UrbanAirshipClient
+         * @return Builder
+         */
+        public Builder<T, E> setClient(UrbanAirshipClient client) {
+            this.client = client;
+            return this;
+        }
+
+        /**
+         * Set the request for the first page.
+         *
+         * @param firstRequest The first request.
+         * @return Builder
+         */
+        public Builder<T, E> setFirstRequest(Request<T> firstRequest) {
+            this.firstRequest = firstRequest;
+            return this;
+        }
+
+        /**
+         * Set the function creating the request for a next page URI, usually the listing request's
+         * newRequest(URI nextPage) factory.
+         *
+         * @param nextPageRequest The next page request function.
+         * @return Builder
+         */
+        public Builder<T, E> setNextPageRequest(Function<URI, ? extends Request<T>> nextPageRequest) {
+            this.nextPageRequest = nextPageRequest;
+            return this;
+        }
+
+        /**
+         * Set the function extracting the elements of a page.
+         *
+         * @param pageElements The page elements function, may return null for an empty page.
+         * @return Builder
+         */
+        public Builder<T, E> setPageElements(Function<T, ? extends Iterable<E>> pageElements) {
+            this.pageElements = pageElements;
+            return this;
+        }
+
+        /**
+         * Set the function extracting the next page URI of a page.
+         *
+         * @param nextPage The next page function.
+         * @return Builder
+         */
+        public Builder<T, E> setNextPage(Function<T, Optional<String>> nextPage) {
+            this.nextPage = nextPage;
+            return this;
+        }
+
+        /**
+         * Set the number of pages fetched ahead of the page being consumed -- defaults to 1. Zero disables
+         * prefetching, a page is then only requested once the previous one has been consumed.
+         *
+         * @param prefetchDepth The prefetch depth.
+         * @return Builder
+         */
+        public Builder<T, E> setPrefetchDepth(int prefetchDepth) {
+            this.prefetchDepth = prefetchDepth;
+            return this;
+        }
+
+        /**
+         * Build a Paginator. Will fail if the client, the first request or any of the functions are not set, or if
+         * the prefetch depth is negative.
+         *
+         * @return Paginator
+         */
+        public Paginator<T, E> build() {
+            Preconditions.checkNotNull(client, "client needed to build Paginator");
+            Preconditions.checkNotNull(firstRequest, "first request needed to build Paginator");
+            Preconditions.checkNotNull(nextPageRequest, "next page request function needed to build Paginator");
+            Preconditions.checkNotNull(pageElements, "page elements function needed to build Paginator");
+            Preconditions.checkNotNull(nextPage, "next page function needed to build Paginator");
+            Preconditions.checkArgument(prefetchDepth >= 0, "prefetch depth must not be negative");
+
+            return new Paginator<>(this);
+        }
+    }
+}
@@ -0,0 +1,352 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import com.google.common.base.Preconditions;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+
+/**
+ * A channel reading the gzip compressed form of a source channel, compressed on several cores in the manner of pigz.
+ * The source is cut into blocks which are deflated independently on an executor, each one primed with the last 32 KiB
+ * of the previous block as its dictionary and ended with a sync flush, so that the compressed blocks concatenate into
+ * a single deflate stream. The gzip CRC is computed as the blocks are read.
+ *
+ * The source is read ahead on the executor too, and up to twice the executor's parallelism blocks are compressed
+ * ahead of the reader, which bounds the memory used to a few blocks whatever the size of the source. Reads never
+ * block: a read returns no bytes while the next block is being compressed, and the read listener is run once it is
+ * done. A busy executor slows the compression down, it never stalls the reading thread.
+ */
+public class ParallelGzipCompressingChannel implements NonBlockingReadableChannel {
+
+    public static final int DEFAULT_BLOCK_SIZE = 128 * 1024;
+
+    private static final int MIN_BLOCK_SIZE = 32 * 1024;
+    private static final int DICTIONARY_SIZE = 32 * 1024;
+    private static final byte[] HEADER = {0x1f, (byte) 0x8b, Deflater.DEFLATED, 0, 0, 0, 0, 0, 0, 0};
+    // An empty final block with fixed Huffman codes, ending the deflate stream after the last sync flushed block.
+    private static final byte[] FINAL_BLOCK = {0x03, 0x00};
+
+    private final ReadableByteChannel source;
+    private final int level;
+    private final int blockSize;
+    private final Executor executor;
+    private final int maxBlocksInFlight;
+
+    // Guarded by this channel.
+    private final Deque<Block> blocks = new ArrayDeque<>();
+    private Runnable listener;
+    private IOException failure;
+    private boolean sourceReading = false;
+    private boolean inputFinished = false;
+    private boolean open = true;
+
+    // Only used by the task reading the source, of which there is at most one at a time.
+    private final CRC32 crc = new CRC32();
+    private byte[] dictionary = new byte[0];
+    private long inputSize = 0;
+
+    // Only used by the reader of the channel.
+    private ByteBuffer pending = ByteBuffer.wrap(HEADER);
+    private boolean trailerWritten = false;
+
+    private final Runnable sourceReader = new Runnable() {
+        @Override
+        public void run() {
+            readSource();
+        }
+    };
+
+    /**
+     * Compresses the source with the default compression level and block size, on the common fork-join pool.
+     *
+     * @param source The uncompressed source.
+     */
+    public ParallelGzipCompressingChannel(ReadableByteChannel source) {
+        this(source, Deflater.DEFAULT_COMPRESSION, DEFAULT_BLOCK_SIZE, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compresses the source on the common fork-join pool.
+     *
+     * @param source The uncompressed source.
+     * @param level The compression level, from 0 to 9 or -1 for the default.
+     * @param blockSize The size of the blocks compressed in parallel, at least 32 KiB.
+     */
+    public ParallelGzipCompressingChannel(ReadableByteChannel source, int level, int blockSize) {
+        this(source, level, blockSize, ForkJoinPool.commonPool());
+    }
+
+    /**
+     * Compresses the source on the given fork-join pool.
+     *
+     * @param source The uncompressed source.
+     * @param level The compression level, from 0 to 9 or -1 for the default.
+     * @param blockSize The size of the blocks compressed in parallel, at least 32 KiB.
+     * @param pool The pool compressing the blocks.
+     */
+    public ParallelGzipCompressingChannel(ReadableByteChannel source, int level, int blockSize, ForkJoinPool pool) {
+        this(source, level, blockSize, pool, pool.getParallelism());
+    }
+
+    /**
+     * Compresses the source on the given executor.
+     *
+     * @param source The uncompressed source.
+     * @param level The compression level, from 0 to 9 or -1 for the default.
+     * @param blockSize The size of the blocks compressed in parallel, at least 32 KiB.
+     * @param executor The executor compressing the blocks.
+     * @param parallelism The number of blocks the executor compresses at once.
+     */
+    public ParallelGzipCompressingChannel(ReadableByteChannel source, int level, int blockSize, Executor executor, int parallelism) {
+        Preconditions.checkNotNull(source, "source may not be null");
+        Preconditions.checkNotNull(executor, "executor may not be null");
+        Preconditions.checkArgument(level >= Deflater.DEFAULT_COMPRESSION && level <= Deflater.BEST_COMPRESSION,
+            "compression level must be between -1 and 9");
+        Preconditions.checkArgument(blockSize >= MIN_BLOCK_SIZE, "block size must be at least 32 KiB");
+        Preconditions.checkArgument(parallelism >= 1, "parallelism must be at least 1");
+        this.source = source;
+        this.level = level;
+        this.blockSize = blockSize;
+        this.executor = executor;
+        this.maxBlocksInFlight = 2 * parallelism;
+    }
+
+    @Override
+    public synchronized void setReadListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        int written = 0;
+        boolean readSource = false;
+        synchronized (this) {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+
+            while (dst.hasRemaining()) {
+                if (pending.hasRemaining()) {
+                    int count = Math.min(pending.remaining(), dst.remaining());
+                    ByteBuffer slice = pending.duplicate();
+                    slice.limit(slice.position() + count);
+                    dst.put(slice);
+                    pending.position(pending.position() + count);
+                    written += count;
+                } else if (trailerWritten) {
+                    break;
+                } else if (!blocks.isEmpty()) {
+                    if (blocks.peek().compressed == null) {
+                        break;
+                    }
+                    pending = ByteBuffer.wrap(blocks.poll().compressed);
+                } else if (inputFinished) {
+                    pending = trailer();
+                    trailerWritten = true;
+                } else {
+                    break;
+                }
+            }
+
+            if (!sourceReading && !inputFinished && blocks.size() < maxBlocksInFlight) {
+                sourceReading = true;
+                readSource = true;
+            }
+        }
+
+        if (readSource) {
+            executor.execute(sourceReader);
+        }
+        return written == 0 && trailerWritten && !pending.hasRemaining() ? -1 : written;
+    }
+
+    /**
+     * Reads blocks of the source and submits them for compression, until enough are in flight.
+     */
+    private void readSource() {
+        while (true) {
+            synchronized (this) {
+                if (!open || inputFinished || blocks.size() >= maxBlocksInFlight) {
+                    sourceReading = false;
+                    return;
+                }
+            }
+
+            ByteBuffer input = ByteBuffer.allocate(blockSize);
+            boolean finished = false;
+            try {
+                while (input.hasRemaining()) {
+                    if (source.read(input) < 0) {
+                        finished = true;
+                        break;
+                    }
+                }
+            } catch (IOException e) {
+                fail(e);
+                return;
+            }
+
+            Block block = input.position() > 0 ? newBlock(input.array(), input.position()) : null;
+            synchronized (this) {
+                if (block != null) {
+                    blocks.add(block);
+                }
+                if (finished) {
+                    inputFinished = true;
+                    sourceReading = false;
+                }
+            }
+            if (block != null) {
+                try {
+                    executor.execute(block);
+                } catch (RuntimeException e) {
+                    fail(new IOException("Failed to submit a block", e));
+                    return;
+                }
+            }
+            if (finished) {
+                // The trailer can be read once the last block has been.
+                notifyListener();
+                return;
+            }
+        }
+    }
+
+    private Block newBlock(byte[] input, int length) {
+        Block block = new Block(input, length, dictionary);
+        crc.update(input, 0, length);
+        inputSize += length;
+        int dictionaryLength = Math.min(DICTIONARY_SIZE, length);
+        dictionary = Arrays.copyOfRange(input, length - dictionaryLength, length);
+        return block;
+    }
+
+    private void fail(IOException e) {
+        synchronized (this) {
+            if (failure == null) {
+                failure = e;
+            }
+            sourceReading = false;
+        }
+        notifyListener();
+    }
+
+    private void notifyListener() {
+        Runnable current;
+        synchronized (this) {
+            current = listener;
+        }
+        if (current != null) {
+            current.run();
+        }
+    }
+
+    private static byte[] deflate(byte[] input, int length, byte[] dictionary, int level) {
+        Deflater deflater = new Deflater(level, true);
+        try {
+            if (dictionary.length > 0) {
+                deflater.setDictionary(dictionary);
+            }
+            deflater.setInput(input, 0, length);
+
+            ByteArrayOutputStream out = new ByteArrayOutputStream(length / 2 + 64);
+            byte[] buffer = new byte[Math.max(1024, length / 4)];
+            while (!deflater.needsInput()) {
+                out.write(buffer, 0, deflater.deflate(buffer, 0, buffer.length, Deflater.NO_FLUSH));
+            }
+            int count;
+            do {
+                count = deflater.deflate(buffer, 0, buffer.length, Deflater.SYNC_FLUSH);
+                out.write(buffer, 0, count);
+            } while (count == buffer.length);
+            return out.toByteArray();
+        } finally {
+            deflater.end();
+        }
+    }
+
+    private ByteBuffer trailer() {
+        ByteBuffer trailer = ByteBuffer.allocate(FINAL_BLOCK.length + 8).order(ByteOrder.LITTLE_ENDIAN);
+        trailer.put(FINAL_BLOCK);
+        trailer.putInt((int) crc.getValue());
+        trailer.putInt((int) inputSize);
+        trailer.flip();
+        return trailer;
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return open;
+    }
+
+    /**
+     * Closes the source. Blocks still being compressed are abandoned.
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (!open) {
+                return;
+            }
+            open = false;
+            blocks.clear();
+        }
+        source.close();
+    }
+
+    /**
+     * A block of the source, compressed on the executor.
+     */
+    private final class Block implements Runnable {
+        private final byte[] input;
+        private final int length;
+        private final byte[] dictionary;
+
+        // Guarded by the channel.
+        private byte[] compressed;
+
+        private Block(byte[] input, int length, byte[] dictionary) {
+            this.input = input;
+            this.length = length;
+            this.dictionary = dictionary;
+        }
+
+        @Override
+        public void run() {
+            synchronized (ParallelGzipCompressingChannel.this) {
+                if (!open) {
+                    return;
+                }
+            }
+            byte[] output;
+            try {
+                output = deflate(input, length, dictionary, level);
+            } catch (RuntimeException e) {
+                fail(new IOException("Failed to compress a block", e));
+                return;
+            }
+            synchronized (ParallelGzipCompressingChannel.this) {
+                compressed = output;
+            }
+            notifyListener();
+        }
+    }
+}
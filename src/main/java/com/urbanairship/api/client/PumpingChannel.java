@@ -0,0 +1,149 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.concurrent.Executor;
+
+/**
+ * Reads a blocking channel ahead on an executor, into a few buffered chunks, so that it can be read without blocking.
+ * The source is only read while fewer than the maximum number of chunks are buffered.
+ */
+class PumpingChannel implements NonBlockingReadableChannel {
+
+    static final int CHUNK_SIZE = 64 * 1024;
+    static final int MAX_BUFFERED_CHUNKS = 4;
+
+    private final ReadableByteChannel source;
+    private final Executor executor;
+    private final Deque<ByteBuffer> chunks = new ArrayDeque<>();
+
+    private Runnable listener;
+    private IOException failure;
+    private boolean pumping = false;
+    private boolean sourceFinished = false;
+    private boolean open = true;
+
+    private final Runnable pump = new Runnable() {
+        @Override
+        public void run() {
+            while (true) {
+                synchronized (PumpingChannel.this) {
+                    if (!open || sourceFinished || chunks.size() >= MAX_BUFFERED_CHUNKS) {
+                        pumping = false;
+                        return;
+                    }
+                }
+
+                ByteBuffer chunk = ByteBuffer.allocate(CHUNK_SIZE);
+                boolean finished = false;
+                IOException error = null;
+                try {
+                    while (chunk.hasRemaining()) {
+                        if (source.read(chunk) < 0) {
+                            finished = true;
+                            break;
+                        }
+                    }
+                } catch (IOException e) {
+                    error = e;
+                }
+
+                Runnable notified;
+                synchronized (PumpingChannel.this) {
+                    chunk.flip();
+                    if (chunk.hasRemaining()) {
+                        chunks.add(chunk);
+                    }
+                    sourceFinished = finished;
+                    if (error != null) {
+                        failure = error;
+                        pumping = false;
+                    }
+                    notified = listener;
+                }
+                if (notified != null) {
+                    notified.run();
+                }
+                if (error != null) {
+                    return;
+                }
+            }
+        }
+    };
+
+    PumpingChannel(ReadableByteChannel source, Executor executor) {
+        this.source = source;
+        this.executor = executor;
+    }
+
+    @Override
+    public synchronized void setReadListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public int read(ByteBuffer dst) throws IOException {
+        boolean schedule;
+        int written = 0;
+        synchronized (this) {
+            if (!open) {
+                throw new ClosedChannelException();
+            }
+            if (failure != null) {
+                throw failure;
+            }
+
+            while (dst.hasRemaining() && !chunks.isEmpty()) {
+                ByteBuffer chunk = chunks.peek();
+                int count = Math.min(chunk.remaining(), dst.remaining());
+                ByteBuffer slice = chunk.duplicate();
+                slice.limit(slice.position() + count);
+                dst.put(slice);
+                chunk.position(chunk.position() + count);
+                written += count;
+                if (!chunk.hasRemaining()) {
+                    chunks.poll();
+                }
+            }
+
+            if (written == 0 && chunks.isEmpty() && sourceFinished) {
+                return -1;
+            }
+
+            schedule = !pumping && !sourceFinished && chunks.size() < MAX_BUFFERED_CHUNKS;
+            if (schedule) {
+                pumping = true;
+            }
+        }
+
+        if (schedule) {
+            executor.execute(pump);
+        }
+        return written;
+    }
+
+    @Override
+    public synchronized boolean isOpen() {
+        return open;
+    }
+
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            if (!open) {
+                return;
+            }
+            open = false;
+            chunks.clear();
+        }
+        source.close();
+    }
+}
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableMap;
+import org.asynchttpclient.filter.FilterContext;
+import org.asynchttpclient.filter.FilterException;
+import org.asynchttpclient.filter.ResponseFilter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.Map;
+
+/**
+ * ResponseFilter holding the rate limiters of the {@link AsyncRequestClient}, one per configured {@link EndpointFamily}.
+ * Every response is fed back to the limiter of its endpoint family: a 429 slows the limiter down, and honors the
+ * Retry-After header if one is present, while successful responses let it recover towards its configured rate.
+ */
+class RateLimitFilter implements ResponseFilter {
+
+    private static final Logger log = LoggerFactory.getLogger(RateLimitFilter.class);
+    private static final String RETRY_AFTER_KEY = "Retry-After";
+    private static final int TOO_MANY_REQUESTS = 429;
+
+    private final ImmutableMap<EndpointFamily, TokenBucketRateLimiter> rateLimiters;
+
+    RateLimitFilter(Map<EndpointFamily, TokenBucketRateLimiter> rateLimiters) {
+        this.rateLimiters = ImmutableMap.copyOf(rateLimiters);
+    }
+
+    /**
+     * Get the rate limiter of the endpoint family a request path belongs to.
+     *
+     * @param path The request path.
+     * @return The rate limiter, absent if the family isn't rate limited.
+     */
+    Optional<TokenBucketRateLimiter> getRateLimiter(String path) {
+        if (rateLimiters.isEmpty()) {
+            return Optional.absent();
+        }
+        return Optional.fromNullable(rateLimiters.get(EndpointFamily.forPath(path)));
+    }
+
+    @Override
+    public <T> FilterContext<T> filter(FilterContext<T> ctx) throws FilterException {
+        Optional<TokenBucketRateLimiter> rateLimiter = getRateLimiter(ctx.getRequest().getUri().getPath());
+        if (!rateLimiter.isPresent()) {
+            return ctx;
+        }
+
+        int statusCode = ctx.getResponseStatus().getStatusCode();
+        if (statusCode == TOO_MANY_REQUESTS) {
+            Optional<Long> retryAfter = ctx.getResponseHeaders() == null ? Optional.<Long>absent() :
+                RequestRetryFilter.parseRetryAfter(ctx.getResponseHeaders().get(RETRY_AFTER_KEY));
+            rateLimiter.get().onThrottled(retryAfter);
+            log.info(String.format("Request to %s was throttled, rate limit lowered to %.2f requests per second",
+                ctx.getRequest().getUri().getPath(), rateLimiter.get().getRate()));
+        } else if (statusCode < 400) {
+            rateLimiter.get().onSuccess();
+        }
+
+        return ctx;
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * OutputStream collecting a request body into a list of byte array segments. Unlike a ByteArrayOutputStream, the
+ * segments are never copied to grow the buffer, and they can be handed to the HTTP client as they are.
+ */
+class RequestBodyOutputStream extends OutputStream {
+
+    private static final int FIRST_SEGMENT_SIZE = 512;
+    private static final int MAX_SEGMENT_SIZE = 64 * 1024;
+
+    private final List<byte[]> segments = new ArrayList<>();
+
+    private byte[] current = new byte[FIRST_SEGMENT_SIZE];
+    private int position;
+    private long size;
+
+    @Override
+    public void write(int b) {
+        if (position == current.length) {
+            nextSegment();
+        }
+        current[position++] = (byte) b;
+        size++;
+    }
+
+    @Override
+    public void write(byte[] b, int off, int len) {
+        while (len > 0) {
+            if (position == current.length) {
+                nextSegment();
+            }
+            int count = Math.min(len, current.length - position);
+            System.arraycopy(b, off, current, position, count);
+            position += count;
+            off += count;
+            len -= count;
+            size += count;
+        }
+    }
+
+    /**
+     * Get the number of bytes written.
+     *
+     * @return The body size.
+     */
+    long size() {
+        return size;
+    }
+
+    /**
+     * Get the written bytes as a list of segments. Only the last segment is trimmed to its written length.
+     *
+     * @return The body segments.
+     */
+    List<byte[]> toSegments() {
+        List<byte[]> result = new ArrayList<>(segments.size() + 1);
+        result.addAll(segments);
+        if (position > 0) {
+            byte[] last = new byte[position];
+            System.arraycopy(current, 0, last, 0, position);
+            result.add(last);
+        }
+        return result;
+    }
+
+    private void nextSegment() {
+        segments.add(current);
+        current = new byte[Math.min(current.length * 2, MAX_SEGMENT_SIZE)];
+        position = 0;
+    }
+}
@@ -0,0 +1,110 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import com.google.common.base.Optional;
+
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Reports the lifecycle of a single request to the client's {@link RequestMetrics} and as {@link ClientEvents} when the
+ * request event is enabled in a running flight recording.
+ */
+class RequestMeter {
+
+    private final Optional<RequestMetrics> metrics;
+    private final Object requestEvent;
+    private final String method;
+    private final String endpoint;
+    private final EndpointFamily endpointFamily;
+    private final long startNanos;
+    private final long bytesSent;
+    private final long serializationNanos;
+    private final AtomicInteger attempts = new AtomicInteger();
+    private final AtomicBoolean completed = new AtomicBoolean();
+
+    private volatile Object attemptEvent;
+
+    private RequestMeter(Optional<RequestMetrics> metrics, Object requestEvent, String method, String endpoint,
+                         long startNanos, long bytesSent, long serializationNanos) {
+        this.metrics = metrics;
+        this.requestEvent = requestEvent;
+        this.method = method;
+        this.endpoint = endpoint;
+        this.endpointFamily = EndpointFamily.forPath(endpoint);
+        this.startNanos = startNanos;
+        this.bytesSent = bytesSent;
+        this.serializationNanos = serializationNanos;
+    }
+
+    /**
+     * Reports a request as started.
+     *
+     * @param metrics The client metrics, if any.
+     * @param requestEvent The request event begun by {@link ClientEvents#beginRequest()}, null if disabled.
+     * @param method The HTTP method.
+     * @param endpoint The request path.
+     * @param startNanos The System.nanoTime() at which the request was submitted.
+     * @param bytesSent The size of the request body.
+     * @param serializationNanos The time spent serializing the request body.
+     * @return The meter of the request, absent if there are neither metrics nor events to report to.
+     */
+    static Optional<RequestMeter> start(Optional<RequestMetrics> metrics, Object requestEvent, String method, String endpoint,
+                                        long startNanos, long bytesSent, long serializationNanos) {
+        if (!metrics.isPresent() && requestEvent == null) {
+            return Optional.absent();
+        }
+
+        RequestMeter meter = new RequestMeter(metrics, requestEvent, method, endpoint, startNanos, bytesSent, serializationNanos);
+        if (metrics.isPresent()) {
+            metrics.get().requestStarted(meter.endpointFamily);
+        }
+        return Optional.of(meter);
+    }
+
+    void attemptStarted() {
+        attempts.incrementAndGet();
+        if (requestEvent != null) {
+            attemptEvent = ClientEvents.beginAttempt();
+        }
+    }
+
+    void attemptCompleted(int statusCode, long attemptStartNanos, long firstByteNanos, long bytesReceived) {
+        long timeToFirstByteNanos = statusCode == 0 ? -1 : firstByteNanos - attemptStartNanos;
+        if (metrics.isPresent()) {
+            metrics.get().attemptCompleted(endpointFamily, statusCode, timeToFirstByteNanos, System.nanoTime() - attemptStartNanos,
+                bytesSent, bytesReceived);
+        }
+        ClientEvents.commitAttempt(attemptEvent, method, endpoint, attempts.get(), statusCode, timeToFirstByteNanos,
+            bytesSent, bytesReceived);
+    }
+
+    void retryScheduled(int statusCode, long delayMillis) {
+        if (metrics.isPresent()) {
+            metrics.get().retryScheduled(endpointFamily, statusCode);
+        }
+        if (requestEvent != null) {
+            ClientEvents.retry(method, endpoint, attempts.get(), statusCode, delayMillis);
+        }
+    }
+
+    /**
+     * Reports the request as completed, only the first call has an effect.
+     *
+     * @param statusCode The status code of the last attempt, 0 if none.
+     */
+    void requestCompleted(int statusCode) {
+        if (!completed.compareAndSet(false, true)) {
+            return;
+        }
+
+        if (metrics.isPresent()) {
+            metrics.get().requestCompleted(endpointFamily, statusCode, System.nanoTime() - startNanos);
+        }
+        ClientEvents.commitRequest(requestEvent, method, endpoint, endpointFamily, statusCode, attempts.get(), bytesSent,
+            serializationNanos);
+    }
+}
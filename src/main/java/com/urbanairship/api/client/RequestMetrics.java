@@ -0,0 +1,54 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+/**
+ * Receives the metrics of the requests executed by the AsyncRequestClient, per endpoint family. Implementations are
+ * called from the I/O threads of the HTTP client and must be thread safe and must not block; {@link ClientMetrics} is
+ * the built-in implementation, adapters to a metrics library implement this interface.
+ *
+ * A request is made of one or more attempts, one per HTTP exchange: the request duration covers the serialization of
+ * the body, the time spent waiting for the rate or concurrency limits and every attempt and retry delay, while the
+ * attempt durations only cover the exchanges with the server.
+ */
+public interface RequestMetrics {
+
+    /**
+     * Called when a request is submitted.
+     *
+     * @param endpointFamily The endpoint family of the request.
+     */
+    void requestStarted(EndpointFamily endpointFamily);
+
+    /**
+     * Called when an attempt completes.
+     *
+     * @param endpointFamily The endpoint family of the request.
+     * @param statusCode The response status code, 0 if no response was received.
+     * @param timeToFirstByteNanos The time until the response status was received, -1 if no response was received.
+     * @param durationNanos The duration of the attempt.
+     * @param bytesSent The size of the request body.
+     * @param bytesReceived The size of the response body.
+     */
+    void attemptCompleted(EndpointFamily endpointFamily, int statusCode, long timeToFirstByteNanos, long durationNanos,
+                          long bytesSent, long bytesReceived);
+
+    /**
+     * Called when an attempt is going to be retried.
+     *
+     * @param endpointFamily The endpoint family of the request.
+     * @param statusCode The response status code of the attempt, 0 if no response was received.
+     */
+    void retryScheduled(EndpointFamily endpointFamily, int statusCode);
+
+    /**
+     * Called when a request completes, successfully or not, or is cancelled.
+     *
+     * @param endpointFamily The endpoint family of the request.
+     * @param statusCode The status code of the last attempt, 0 if no response was received.
+     * @param durationNanos The duration of the request, since it was submitted.
+     */
+    void requestCompleted(EndpointFamily endpointFamily, int statusCode, long durationNanos);
+}
@@ -4,15 +4,21 @@
 
 package com.urbanairship.api.client;
 
+import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
-import org.apache.commons.lang.math.RandomUtils;
+import io.netty.handler.codec.http.HttpHeaders;
 import org.asynchttpclient.filter.FilterContext;
 import org.asynchttpclient.filter.FilterException;
 import org.asynchttpclient.filter.ResponseFilter;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.concurrent.ThreadLocalRandom;
+
 /**
  * ResponseFilter in charge of async request retries on server errors. The filter is applied before the response reaches the
  * ResponseAsyncHandler, but calls upon the handler of a given request to track the retry count.
@@ -21,13 +27,21 @@ import org.slf4j.LoggerFactory;
  * If the client user decides to do so, a retry predicate may be created and passed in by the {@link com.urbanairship.api.client.UrbanAirshipClient} builder.
  * The default predicate logic allows for retries on all non-POST 5xxs. The maximum non-post request retry limit is also
  * configured in the {@link com.urbanairship.api.client.UrbanAirshipClient} builder and defaults to 10.
- * If the count is below the max retry limit and the predicate allows for a retry, the request will be replayed with an
- * exponential backoff. If the limit is reached and the predicate allows for a retry, a response is returned with the status code of the failed request.
+ * If the count is below the max retry limit and the predicate allows for a retry, the request will be replayed with a
+ * full jitter exponential backoff, or after the delay given by a Retry-After header, bounded by the maximum retry delay.
+ * If the limit is reached and the predicate allows for a retry, a response is returned with the status code of the failed request.
+ *
+ * The filter never blocks the I/O thread it runs on. It only marks the response as being retried; the remainder of the
+ * response is drained and the request is replayed from a timer by the {@link AsyncRequestClient}.
  */
 public class RequestRetryFilter implements ResponseFilter {
 
     private static final Logger log = LoggerFactory.getLogger(RequestRetryFilter.class);
-    private static final int BASE_RETRY_TIME_MS = 5;
+    private static final String RETRY_AFTER_KEY = "Retry-After";
+
+    static final long DEFAULT_BASE_RETRY_DELAY_MS = 5;
+    static final long DEFAULT_MAX_RETRY_DELAY_MS = 30000;
+
     private static final Predicate<FilterContext> DEFAULT_PREDICATE = new Predicate<FilterContext>() {
         @Override
         public boolean apply(FilterContext input) {
@@ -37,10 +51,18 @@ public class RequestRetryFilter implements ResponseFilter {
 
     private final int maxRetries;
     private final Predicate<FilterContext> retryPredicate;
+    private final long baseRetryDelayMillis;
+    private final long maxRetryDelayMillis;
 
     public RequestRetryFilter(int maxRetries, Optional<Predicate<FilterContext>> retryPredicate) {
+        this(maxRetries, retryPredicate, DEFAULT_BASE_RETRY_DELAY_MS, DEFAULT_MAX_RETRY_DELAY_MS);
+    }
+
+    public RequestRetryFilter(int maxRetries, Optional<Predicate<FilterContext>> retryPredicate, long baseRetryDelayMillis, long maxRetryDelayMillis) {
         this.maxRetries = maxRetries;
         this.retryPredicate = retryPredicate.isPresent() ? retryPredicate.get() : DEFAULT_PREDICATE;
+        this.baseRetryDelayMillis = baseRetryDelayMillis;
+        this.maxRetryDelayMillis = maxRetryDelayMillis;
     }
 
     @Override
@@ -49,18 +71,10 @@ public class RequestRetryFilter implements ResponseFilter {
         if (ctx.getAsyncHandler() instanceof ResponseAsyncHandler) {
             ResponseAsyncHandler asyncHandler = (ResponseAsyncHandler) ctx.getAsyncHandler();
             if (asyncHandler.getRetryCount() < maxRetries && retryPredicate.apply(ctx)) {
-                try {
-                    int sleepTime = BASE_RETRY_TIME_MS * Math.max(1, RandomUtils.nextInt(1 << (asyncHandler.getRetryCount() + 1)));
-                    log.info(String.format("Request failed with status code %s - waiting for %s ms before retrying request", statusCode, sleepTime));
-                    Thread.sleep(sleepTime);
-                } catch (InterruptedException e) {
-                    Thread.currentThread().interrupt();
-                }
-                asyncHandler.incrementRetryCount();
-                return new FilterContext.FilterContextBuilder<>(ctx)
-                    .request(ctx.getRequest())
-                    .replayRequest(true)
-                    .build();
+                long delay = getRetryDelay(asyncHandler.getRetryCount(), ctx.getResponseHeaders());
+                log.info(String.format("Request failed with status code %s - waiting for %s ms before retrying request", statusCode, delay));
+                asyncHandler.scheduleRetry(delay);
+                return ctx;
             }
 
             if (asyncHandler.getRetryCount() >= maxRetries && retryPredicate.apply(ctx)) {
@@ -71,4 +85,52 @@ public class RequestRetryFilter implements ResponseFilter {
 
         return ctx;
     }
+
+    /**
+     * Computes the delay before the next attempt. A Retry-After header takes precedence over the backoff, otherwise
+     * the delay is drawn uniformly between zero and the exponential backoff for the attempt. Both are bounded by the
+     * maximum retry delay.
+     *
+     * @param retryCount The number of retries already made.
+     * @param headers The response headers, may be null.
+     * @return The delay in milliseconds.
+     */
+    @VisibleForTesting
+    long getRetryDelay(int retryCount, HttpHeaders headers) {
+        Optional<Long> retryAfter = headers == null ? Optional.<Long>absent() : parseRetryAfter(headers.get(RETRY_AFTER_KEY));
+        if (retryAfter.isPresent()) {
+            return Math.min(retryAfter.get(), maxRetryDelayMillis);
+        }
+
+        long backoff = baseRetryDelayMillis << Math.min(retryCount + 1, 30);
+        return ThreadLocalRandom.current().nextLong(Math.min(backoff, maxRetryDelayMillis) + 1);
+    }
+
+    /**
+     * Parses a Retry-After header value, either in delay-seconds or in HTTP-date form.
+     *
+     * @param value The header value, may be null.
+     * @return The delay in milliseconds, absent if the value can't be parsed.
+     */
+    @VisibleForTesting
+    static Optional<Long> parseRetryAfter(String value) {
+        if (value == null || value.trim().isEmpty()) {
+            return Optional.absent();
+        }
+
+        String trimmed = value.trim();
+        try {
+            return Optional.of(Math.max(0, Long.parseLong(trimmed) * 1000));
+        } catch (NumberFormatException e) {
+            // Not delay-seconds, try an HTTP-date.
+        }
+
+        try {
+            ZonedDateTime date = ZonedDateTime.parse(trimmed, DateTimeFormatter.RFC_1123_DATE_TIME);
+            return Optional.of(Math.max(0, date.toInstant().toEpochMilli() - System.currentTimeMillis()));
+        } catch (DateTimeParseException e) {
+            log.debug("Ignoring unparseable Retry-After header " + value);
+            return Optional.absent();
+        }
+    }
 }
@@ -4,11 +4,28 @@
 
 package com.urbanairship.api.client;
 
+import com.google.common.collect.ImmutableMap;
+import com.google.common.net.HttpHeaders;
+
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.util.Map;
 
 public class RequestUtils {
 
+    /**
+     * Headers of requests sending and accepting JSON, shared by the requests instead of being rebuilt for every call.
+     */
+    public static final Map<String, String> JSON_REQUEST_HEADERS = ImmutableMap.of(
+            HttpHeaders.CONTENT_TYPE, Request.CONTENT_TYPE_JSON,
+            HttpHeaders.ACCEPT, Request.UA_VERSION_JSON);
+
+    /**
+     * Headers of requests accepting JSON without sending a body.
+     */
+    public static final Map<String, String> JSON_ACCEPT_HEADERS = ImmutableMap.of(
+            HttpHeaders.ACCEPT, Request.UA_VERSION_JSON);
+
     /**
      * A method to resolve base URIs without excluding the original path.
      * @param baseURI URI
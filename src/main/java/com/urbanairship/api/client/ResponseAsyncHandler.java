@@ -6,17 +6,24 @@ package com.urbanairship.api.client;
 
 import com.google.common.base.Optional;
 import io.netty.handler.codec.http.HttpHeaders;
-import org.apache.commons.lang.StringUtils;
 import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.HttpResponseBodyPart;
 import org.asynchttpclient.HttpResponseStatus;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.SequenceInputStream;
 import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Asynchronous API response handler.
@@ -25,6 +32,7 @@ import java.util.concurrent.atomic.AtomicInteger;
 class ResponseAsyncHandler<T> implements AsyncHandler<Response> {
     private static final Logger log = LoggerFactory.getLogger(ResponseAsyncHandler.class);
     private static final String CONTENT_TYPE_KEY = "Content-type";
+    private static final long NO_RETRY = -1;
 
     private final Response.Builder<T> responseBuilder = new Response.Builder<>();
     private final ClientException.Builder exceptionBuilder = ClientException.newBuilder();
@@ -33,12 +41,22 @@ class ResponseAsyncHandler<T> implements AsyncHandler<Response> {
 
     private final Optional<ResponseCallback> clientCallback;
     private final ResponseParser<T> parser;
-    private final StringBuilder bodyBuilder = new StringBuilder();
+    private final List<byte[]> bodyParts = new ArrayList<>();
+
+    private int bodyLength;
+    private ChunkedResponseParser.BodyConsumer<T> bodyConsumer;
 
     private AtomicInteger retryCount = new AtomicInteger(0);
+    private AtomicLong pendingRetryDelay = new AtomicLong(NO_RETRY);
     private String exceptionContentType;
     private boolean isSuccessful;
     private Integer statusCode;
+
+    // Measures of the current attempt, including the responses which are going to be retried.
+    private volatile int attemptStatusCode;
+    private volatile long attemptFirstByteNanos;
+    private volatile long attemptBytesReceived;
+
     /**
      * ResponseAsyncHandler constructor.
      *
@@ -52,14 +70,23 @@ class ResponseAsyncHandler<T> implements AsyncHandler<Response> {
 
     @Override
     public State onStatusReceived(HttpResponseStatus responseStatus) throws Exception {
-        statusCode = responseStatus.getStatusCode();
+        int status = responseStatus.getStatusCode();
+        attemptFirstByteNanos = System.nanoTime();
+        attemptStatusCode = status;
+
+        if (isRetryPending()) {
+            // The response is going to be replayed, the body is only drained to keep the connection alive.
+            return State.CONTINUE;
+        }
+
+        statusCode = status;
 
         if (statusCode == 401 || statusCode == 403) {
             exceptionBuilder.setStatusCode(statusCode);
             exceptionBuilder.setStatusText(responseStatus.getStatusText());
             isSuccessful = false;
         } else {
-            responseBuilder.setStatus(responseStatus.getStatusCode());
+            responseBuilder.setStatus(statusCode);
             isSuccessful = true;
         }
 
@@ -68,6 +95,10 @@ class ResponseAsyncHandler<T> implements AsyncHandler<Response> {
 
     @Override
     public State onHeadersReceived(HttpHeaders httpHeaders) throws Exception {
+        if (isRetryPending()) {
+            return State.CONTINUE;
+        }
+
         if (isSuccessful) {
             responseBuilder.setHeaders(getHeaders(httpHeaders));
         } else {
@@ -78,43 +109,148 @@ class ResponseAsyncHandler<T> implements AsyncHandler<Response> {
     }
 
     @Override
+    @SuppressWarnings("unchecked")
     public State onBodyPartReceived(HttpResponseBodyPart bodyPart) throws Exception {
-        String body = new String(bodyPart.getBodyPartBytes(), StandardCharsets.UTF_8);
+        attemptBytesReceived += bodyPart.length();
+
+        if (isRetryPending()) {
+            return State.CONTINUE;
+        }
+
+        if (parser instanceof ChunkedResponseParser && statusCode / 100 == 2) {
+            if (bodyConsumer == null) {
+                bodyConsumer = ((ChunkedResponseParser<T>) parser).newConsumer();
+            }
+            bodyConsumer.consume(bodyPart.getBodyByteBuffer());
+            bodyLength += bodyPart.length();
+            return State.CONTINUE;
+        }
+
+        byte[] bytes = bodyPart.getBodyPartBytes();
 
         if (!isSuccessful) {
             // The response body for an error won't be very big, so we can throw here without needing to aggregate.
-            RequestError error = RequestError.errorFromResponse(body, exceptionContentType);
+            RequestError error = RequestError.errorFromResponse(new String(bytes, StandardCharsets.UTF_8), exceptionContentType);
             exceptionBuilder.setRequestError(error);
             throw exceptionBuilder.build();
         }
 
-        bodyBuilder.append(body);
+        // Chunks are only decoded once the whole body has been received, a multi-byte character may span two chunks.
+        bodyParts.add(bytes);
+        bodyLength += bytes.length;
         return State.CONTINUE;
     }
 
+    /**
+     * Called on the I/O thread once the response has been received. The body is only parsed, and the callback invoked,
+     * by {@link #complete()} so that the I/O thread is released as soon as the bytes are in.
+     *
+     * @return Always null, the response is built by {@link #complete()}.
+     */
     @Override
     public Response onCompleted() throws Exception {
-        if (StringUtils.isNotBlank(bodyBuilder.toString())) {
-            responseBuilder.setBody(parser.parse(bodyBuilder.toString()));
+        return null;
+    }
+
+    @Override
+    public void onRetry() {
+        abandonBody();
+    }
+
+    @Override
+    public void onThrowable(Throwable t) {
+        abandonBody();
+        if (isRetryPending()) {
+            log.debug("Exception thrown while draining a response that will be retried", t);
+            return;
+        }
+
+        log.error("Exception thrown during response processing", t);
+    }
+
+    /**
+     * Parses the received response and hands it to the callback, if any.
+     *
+     * @return The response.
+     * @throws Exception If the response body could not be parsed.
+     */
+    @SuppressWarnings("unchecked")
+    Response complete() throws Exception {
+        if (parser instanceof ChunkedResponseParser && statusCode != null && statusCode / 100 == 2) {
+            Object parseEvent = ClientEvents.beginParse();
+            ChunkedResponseParser.BodyConsumer<T> consumer = bodyConsumer != null ? bodyConsumer : ((ChunkedResponseParser<T>) parser).newConsumer();
+            bodyConsumer = null;
+            T body = consumer.complete();
+            if (body != null) {
+                responseBuilder.setBody(body);
+            }
+            ClientEvents.commitParse(parseEvent, parser.getClass(), bodyLength);
+        } else if (!isBodyBlank()) {
+            Object parseEvent = ClientEvents.beginParse();
+            responseBuilder.setBody(parseBody());
+            ClientEvents.commitParse(parseEvent, parser.getClass(), bodyLength);
         }
 
         Response response = responseBuilder.build();
         if (clientCallback.isPresent()) {
+            Object callbackEvent = ClientEvents.beginCallback();
             clientCallback.get().completed(response);
+            ClientEvents.commitCallback(callbackEvent, clientCallback.get().getClass(), false);
         }
 
-        log.debug("Response processing completed for " + response.getBody());
+        if (log.isDebugEnabled()) {
+            log.debug("Response processing completed for " + response.getBody());
+        }
         return response;
     }
 
-    @Override
-    public void onThrowable(Throwable t) {
-        log.error("Exception thrown during response processing", t);
+    /**
+     * Hands the failure of the request to the callback, if any.
+     *
+     * @param t The cause of the failure.
+     */
+    void fail(Throwable t) {
         if (clientCallback.isPresent()) {
+            Object callbackEvent = ClientEvents.beginCallback();
             clientCallback.get().error(t);
+            ClientEvents.commitCallback(callbackEvent, clientCallback.get().getClass(), true);
         }
     }
 
+    private boolean isBodyBlank() {
+        for (byte[] part : bodyParts) {
+            for (byte b : part) {
+                if (!Character.isWhitespace(b)) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Parses the aggregated body parts. Parsers able to read bytes are handed a stream over the received parts, the
+     * others get the body decoded as a single String.
+     */
+    @SuppressWarnings("unchecked")
+    private T parseBody() throws IOException {
+        if (parser instanceof StreamingResponseParser) {
+            List<InputStream> streams = new ArrayList<>(bodyParts.size());
+            for (byte[] part : bodyParts) {
+                streams.add(new ByteArrayInputStream(part));
+            }
+            return ((StreamingResponseParser<T>) parser).parse(new SequenceInputStream(Collections.enumeration(streams)));
+        }
+
+        byte[] body = new byte[bodyLength];
+        int offset = 0;
+        for (byte[] part : bodyParts) {
+            System.arraycopy(part, 0, body, offset, part.length);
+            offset += part.length;
+        }
+        return parser.parse(new String(body, StandardCharsets.UTF_8));
+    }
+
     /**
      * Retrieves the response headers.
      * @param httpResponse The HttpResponse.
@@ -143,4 +279,88 @@ class ResponseAsyncHandler<T> implements AsyncHandler<Response> {
     public void incrementRetryCount() {
         retryCount.incrementAndGet();
     }
+
+    /**
+     * Marks the response currently being received as one that will be retried after the given delay. The remainder
+     * of the response is discarded and neither the parser nor the callback are invoked for it.
+     *
+     * @param delayMillis The delay before the request is replayed, in milliseconds.
+     */
+    public void scheduleRetry(long delayMillis) {
+        incrementRetryCount();
+        pendingRetryDelay.set(Math.max(0, delayMillis));
+    }
+
+    /**
+     * Whether the response currently being received is going to be retried.
+     *
+     * @return True if a retry has been scheduled for the current response.
+     */
+    public boolean isRetryPending() {
+        return pendingRetryDelay.get() != NO_RETRY;
+    }
+
+    /**
+     * Retrieves and clears the delay of a scheduled retry.
+     *
+     * @return The retry delay in milliseconds, absent if no retry has been scheduled.
+     */
+    Optional<Long> pollRetryDelay() {
+        long delay = pendingRetryDelay.getAndSet(NO_RETRY);
+        return delay == NO_RETRY ? Optional.<Long>absent() : Optional.of(delay);
+    }
+
+    /**
+     * Resets the measures of the current attempt, before it is executed.
+     */
+    void startAttempt() {
+        abandonBody();
+        attemptStatusCode = 0;
+        attemptFirstByteNanos = 0;
+        attemptBytesReceived = 0;
+    }
+
+    /**
+     * Drops the body received by an attempt which won't complete and closes its consumer, if any.
+     */
+    private void abandonBody() {
+        ChunkedResponseParser.BodyConsumer<T> consumer = bodyConsumer;
+        bodyConsumer = null;
+        bodyParts.clear();
+        bodyLength = 0;
+        if (consumer != null) {
+            try {
+                consumer.close();
+            } catch (IOException e) {
+                log.warn("Failed to close the consumer of an abandoned response body", e);
+            }
+        }
+    }
+
+    /**
+     * Retrieves the status code of the current attempt.
+     *
+     * @return The status code, 0 if no response has been received.
+     */
+    int getAttemptStatusCode() {
+        return attemptStatusCode;
+    }
+
+    /**
+     * Retrieves the System.nanoTime() at which the response status of the current attempt was received.
+     *
+     * @return The time of the first byte, meaningless if no response has been received.
+     */
+    long getAttemptFirstByteNanos() {
+        return attemptFirstByteNanos;
+    }
+
+    /**
+     * Retrieves the number of response body bytes received for the current attempt.
+     *
+     * @return The bytes received.
+     */
+    long getAttemptBytesReceived() {
+        return attemptBytesReceived;
+    }
 }
@@ -0,0 +1,67 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import com.google.common.util.concurrent.ListenableFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Future;
+
+/**
+ * CompletableFuture completed by the response callback of a request. Cancelling it cancels the underlying request
+ * future, and a cancellation of the request future, for instance when the client is closed, cancels it.
+ *
+ * @param <T> The parsed response type.
+ */
+class ResponseStage<T> extends CompletableFuture<Response<T>> implements ResponseCallback {
+
+    private volatile Future<Response> requestFuture;
+
+    /**
+     * Binds the future of the executed request to this stage.
+     *
+     * @param future The request future.
+     */
+    void bind(final Future<Response> future) {
+        this.requestFuture = future;
+
+        if (future instanceof ListenableFuture) {
+            ((ListenableFuture<Response>) future).addListener(new Runnable() {
+                @Override
+                public void run() {
+                    if (future.isCancelled()) {
+                        ResponseStage.super.cancel(false);
+                    }
+                }
+            }, MoreExecutors.directExecutor());
+        }
+
+        if (isCancelled()) {
+            future.cancel(true);
+        }
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public void completed(Response response) {
+        complete((Response<T>) response);
+    }
+
+    @Override
+    public void error(Throwable throwable) {
+        completeExceptionally(throwable);
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        boolean cancelled = super.cancel(mayInterruptIfRunning);
+        Future<Response> future = requestFuture;
+        if (cancelled && future != null) {
+            future.cancel(true);
+        }
+        return cancelled;
+    }
+}
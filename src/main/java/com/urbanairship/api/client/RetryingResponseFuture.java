@@ -0,0 +1,286 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import com.google.common.base.Optional;
+import com.google.common.util.concurrent.AbstractFuture;
+import com.google.common.util.concurrent.MoreExecutors;
+import com.google.common.util.concurrent.Uninterruptibles;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.ListenableFuture;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Future returned by the AsyncRequestClient. Each attempt of the request is executed by the underlying HTTP client;
+ * when the {@link RequestRetryFilter} schedules a retry for an attempt, the request is replayed from a timer once the
+ * retry delay has elapsed, so that no I/O thread is ever blocked while waiting.
+ *
+ * When the request's endpoint family is rate limited, every attempt first reserves a permit from the rate limiter and is
+ * started from the timer once the permit is available. When the client's concurrency is limited, an attempt only starts
+ * once the {@link AdaptiveConcurrencyLimiter} lets it through, and reports its round trip time when it completes.
+ * Every attempt, retry and the completion of the request are reported to the request's {@link RequestMeter}, if any.
+ *
+ * The I/O thread only receives the response bytes: the body is parsed and the callback invoked on the client's
+ * response executor, before this future completes. A rejected completion runs on the I/O thread.
+ *
+ * Cancelling this future cancels the attempt in flight or the pending retry.
+ */
+class RetryingResponseFuture extends AbstractFuture<Response> implements TimerTask, Runnable {
+
+    private static final Logger log = LoggerFactory.getLogger(RetryingResponseFuture.class);
+
+    private final AsyncHttpClient client;
+    private final Timer timer;
+    private final org.asynchttpclient.Request request;
+    private final ResponseAsyncHandler<?> handler;
+    private final Optional<TokenBucketRateLimiter> rateLimiter;
+    private final Optional<AdaptiveConcurrencyLimiter> concurrencyLimiter;
+    private final Optional<RequestMeter> meter;
+    private final Executor responseExecutor;
+
+    private volatile ListenableFuture<Response> attempt;
+    private volatile Timeout pendingRetry;
+
+    RetryingResponseFuture(AsyncHttpClient client, Timer timer, org.asynchttpclient.Request request, ResponseAsyncHandler<?> handler,
+                           Optional<TokenBucketRateLimiter> rateLimiter, Optional<AdaptiveConcurrencyLimiter> concurrencyLimiter,
+                           Optional<RequestMeter> meter, Executor responseExecutor) {
+        this.client = client;
+        this.timer = timer;
+        this.request = request;
+        this.handler = handler;
+        this.rateLimiter = rateLimiter;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.meter = meter;
+        this.responseExecutor = responseExecutor;
+    }
+
+    /**
+     * Executes the first attempt of the request, as soon as the rate limiter allows it.
+     *
+     * @return This future.
+     */
+    RetryingResponseFuture start() {
+        long delayNanos = reservePermit();
+        if (delayNanos > 0) {
+            schedule(delayNanos);
+            return this;
+        }
+        return execute();
+    }
+
+    /**
+     * Executes a new attempt of the request, as soon as the concurrency limiter allows it.
+     *
+     * @return This future.
+     */
+    RetryingResponseFuture execute() {
+        if (isDone()) {
+            return this;
+        }
+
+        if (concurrencyLimiter.isPresent()) {
+            concurrencyLimiter.get().acquire(this);
+        } else {
+            run();
+        }
+        return this;
+    }
+
+    /**
+     * Fails the attempt in flight, which the underlying HTTP client no longer completes once it is closed. The failure
+     * is processed like that of any other attempt.
+     *
+     * @param cause The failure.
+     */
+    void abort(Throwable cause) {
+        ListenableFuture<Response> current = attempt;
+        if (current != null && !current.isDone()) {
+            current.abort(cause);
+        }
+    }
+
+    @Override
+    public void run(Timeout timeout) {
+        execute();
+    }
+
+    /**
+     * Starts an attempt, once the concurrency limiter has granted it a permit.
+     */
+    @Override
+    public void run() {
+        if (isDone()) {
+            releasePermit(Optional.<Long>absent(), false);
+            return;
+        }
+
+        handler.startAttempt();
+        if (meter.isPresent()) {
+            meter.get().attemptStarted();
+        }
+        final long startNanos = System.nanoTime();
+        final ListenableFuture<Response> current;
+        try {
+            current = client.executeRequest(request, handler);
+        } catch (RuntimeException e) {
+            releasePermit(Optional.<Long>absent(), true);
+            setException(e);
+            return;
+        }
+
+        attempt = current;
+        current.addListener(new Runnable() {
+            @Override
+            public void run() {
+                onAttemptDone(current, startNanos);
+            }
+        }, MoreExecutors.directExecutor());
+
+        if (isCancelled()) {
+            current.cancel(true);
+        }
+    }
+
+    private void onAttemptDone(ListenableFuture<Response> current, long startNanos) {
+        Optional<Long> rttNanos = Optional.of(System.nanoTime() - startNanos);
+        Optional<Long> retryDelay = handler.pollRetryDelay();
+        if (meter.isPresent()) {
+            meter.get().attemptCompleted(handler.getAttemptStatusCode(), startNanos, handler.getAttemptFirstByteNanos(),
+                handler.getAttemptBytesReceived());
+        }
+
+        if (retryDelay.isPresent() && !current.isCancelled() && !isDone()) {
+            releasePermit(rttNanos, true);
+            if (meter.isPresent()) {
+                meter.get().retryScheduled(handler.getAttemptStatusCode(), retryDelay.get());
+            }
+            schedule(Math.max(TimeUnit.MILLISECONDS.toNanos(retryDelay.get()), reservePermit()));
+            return;
+        }
+
+        try {
+            Uninterruptibles.getUninterruptibly(current);
+            int status = handler.getAttemptStatusCode();
+            releasePermit(rttNanos, status >= 500 || status == 429);
+            complete(Optional.<Throwable>absent());
+        } catch (ExecutionException e) {
+            releasePermit(rttNanos, !(e.getCause() instanceof ClientException));
+            complete(Optional.of(e.getCause()));
+        } catch (CancellationException e) {
+            releasePermit(Optional.<Long>absent(), false);
+            cancel(false);
+        } catch (RuntimeException e) {
+            releasePermit(rttNanos, true);
+            log.error("Unexpected exception while completing the response future", e);
+            setException(e);
+        }
+    }
+
+    /**
+     * Parses the response and runs the callback on the response executor, then completes this future.
+     *
+     * @param failure The failure of the last attempt, absent if a response has been received.
+     */
+    private void complete(final Optional<Throwable> failure) {
+        Runnable completion = new Runnable() {
+            @Override
+            public void run() {
+                Throwable cause = failure.orNull();
+                if (cause == null) {
+                    try {
+                        set(handler.complete());
+                        return;
+                    } catch (Exception e) {
+                        log.error("Exception thrown during response processing", e);
+                        cause = e;
+                    }
+                }
+
+                try {
+                    handler.fail(cause);
+                } finally {
+                    setException(cause);
+                }
+            }
+        };
+
+        try {
+            responseExecutor.execute(completion);
+        } catch (RejectedExecutionException e) {
+            completion.run();
+        }
+    }
+
+    private void releasePermit(Optional<Long> rttNanos, boolean dropped) {
+        if (concurrencyLimiter.isPresent()) {
+            concurrencyLimiter.get().release(rttNanos, dropped);
+        }
+    }
+
+    private long reservePermit() {
+        return rateLimiter.isPresent() ? rateLimiter.get().reserve() : 0;
+    }
+
+    private void schedule(long delayNanos) {
+        try {
+            pendingRetry = timer.newTimeout(this, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (IllegalStateException e) {
+            // The timer has been stopped, the client is closing.
+            cancel(false);
+            return;
+        }
+
+        if (isCancelled()) {
+            pendingRetry.cancel();
+        }
+    }
+
+    // The request is reported as completed before the future completes, so that it is accounted for by the time the
+    // caller gets the response.
+    @Override
+    protected boolean set(Response value) {
+        reportCompletion();
+        return super.set(value);
+    }
+
+    @Override
+    protected boolean setException(Throwable throwable) {
+        reportCompletion();
+        return super.setException(throwable);
+    }
+
+    private void reportCompletion() {
+        if (meter.isPresent()) {
+            meter.get().requestCompleted(handler.getAttemptStatusCode());
+        }
+    }
+
+    @Override
+    protected void afterDone() {
+        if (isCancelled()) {
+            reportCompletion();
+
+            Timeout retry = pendingRetry;
+            if (retry != null) {
+                retry.cancel();
+            }
+
+            ListenableFuture<Response> current = attempt;
+            if (current != null) {
+                current.cancel(true);
+            }
+        }
+    }
+}
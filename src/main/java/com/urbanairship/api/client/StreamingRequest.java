@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * A Request able to write its body directly to an output stream. The AsyncRequestClient uses it instead of
+ * {@link Request#getRequestBody()} so that large bodies are never materialized as a String.
+ *
+ * @param <T> The parsed response type.
+ */
+public interface StreamingRequest<T> extends Request<T> {
+
+    /**
+     * Writes the request body, encoded with the charset of the request content type. The bytes written must be the
+     * same as the encoded {@link Request#getRequestBody()}.
+     *
+     * @param out The stream to write the body to.
+     * @throws IOException if the body can't be written.
+     */
+    void writeRequestBody(OutputStream out) throws IOException;
+}
@@ -0,0 +1,26 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import java.io.IOException;
+import java.io.InputStream;
+
+/**
+ * A ResponseParser able to parse a response body directly from its UTF-8 encoded bytes. When a request's parser
+ * implements this interface, the response body is never materialized as a String.
+ *
+ * @param <T> The parsed response type.
+ */
+public interface StreamingResponseParser<T> extends ResponseParser<T> {
+
+    /**
+     * Parses a response body.
+     *
+     * @param response The UTF-8 encoded response body.
+     * @return The parsed response.
+     * @throws IOException if the body can't be read or parsed.
+     */
+    T parse(InputStream response) throws IOException;
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import com.google.common.annotations.VisibleForTesting;
+import com.google.common.base.Optional;
+import com.google.common.base.Ticker;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Non-blocking token bucket. Callers reserve a permit and are told how long to wait before using it, instead of being
+ * put to sleep; the permits are handed out in reservation order at the current rate, after an initial burst.
+ *
+ * The rate adapts to the server's feedback: it is halved whenever a request is throttled, down to a sixteenth of the
+ * configured rate, and recovers additively towards the configured rate as requests succeed. A Retry-After delay sent
+ * with a throttled response pauses the bucket for that long.
+ */
+class TokenBucketRateLimiter {
+
+    private static final int MIN_RATE_DIVISOR = 16;
+    private static final int RECOVERY_STEPS = 20;
+
+    private final Ticker ticker;
+    private final double maxRate;
+    private final double minRate;
+    private final int burst;
+
+    private double rate;
+    private long intervalNanos;
+    private long nextFreeNanos;
+
+    TokenBucketRateLimiter(double requestsPerSecond, int burst) {
+        this(requestsPerSecond, burst, Ticker.systemTicker());
+    }
+
+    @VisibleForTesting
+    TokenBucketRateLimiter(double requestsPerSecond, int burst, Ticker ticker) {
+        this.ticker = ticker;
+        this.maxRate = requestsPerSecond;
+        this.minRate = requestsPerSecond / MIN_RATE_DIVISOR;
+        this.burst = burst;
+        this.nextFreeNanos = ticker.read();
+        setRate(requestsPerSecond);
+    }
+
+    /**
+     * Reserves a permit.
+     *
+     * @return The delay in nanoseconds before the permit may be used, zero if it may be used right away.
+     */
+    synchronized long reserve() {
+        long now = ticker.read();
+        long start = Math.max(now, nextFreeNanos - (burst - 1) * intervalNanos);
+        nextFreeNanos = Math.max(nextFreeNanos, now) + intervalNanos;
+        return start - now;
+    }
+
+    /**
+     * Slows the bucket down after a throttled request.
+     *
+     * @param retryAfterMillis The delay requested by the server before the next request, if any.
+     */
+    synchronized void onThrottled(Optional<Long> retryAfterMillis) {
+        setRate(Math.max(minRate, rate / 2));
+        if (retryAfterMillis.isPresent()) {
+            long resume = ticker.read() + TimeUnit.MILLISECONDS.toNanos(retryAfterMillis.get());
+            nextFreeNanos = Math.max(nextFreeNanos, resume + (burst - 1) * intervalNanos);
+        }
+    }
+
+    /**
+     * Speeds the bucket back up towards the configured rate after a successful request.
+     */
+    synchronized void onSuccess() {
+        if (rate < maxRate) {
+            setRate(Math.min(maxRate, rate + maxRate / RECOVERY_STEPS));
+        }
+    }
+
+    synchronized double getRate() {
+        return rate;
+    }
+
+    private void setRate(double rate) {
+        this.rate = rate;
+        this.intervalNanos = (long) (TimeUnit.SECONDS.toNanos(1) / rate);
+    }
+}
@@ -7,6 +7,7 @@ package com.urbanairship.api.client;
 import com.google.common.annotations.VisibleForTesting;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.io.BaseEncoding;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -17,6 +18,9 @@ import java.io.InputStream;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.Properties;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Future;
 
@@ -34,14 +38,37 @@ public class UrbanAirshipClient implements Closeable {
 
     private String userAgent;
 
+    // Headers sent with every request, and their merge with the constant headers of the requests, computed once.
+    private final Optional<ImmutableMap<String, String>> basicAuthHeaders;
+    private final Optional<ImmutableMap<String, String>> bearerAuthHeaders;
+    private final ConcurrentMap<Map<String, String>, Map<String, String>> basicAuthRequestHeaders = new ConcurrentHashMap<>();
+    private final ConcurrentMap<Map<String, String>, Map<String, String>> bearerAuthRequestHeaders = new ConcurrentHashMap<>();
+
     public static final String EU_URI = "https://go.airship.eu";
 
+    private static final int MAX_CACHED_REQUEST_HEADERS = 64;
+    private static final String USER_AGENT_KEY = "User-Agent";
+    private static final String AUTHORIZATION_KEY = "Authorization";
+    private static final String APP_KEY_KEY = "X-UA-Appkey";
+
     private UrbanAirshipClient(Builder builder) {
         this.client = builder.client;
         userAgent = getUserAgent();
         this.key = builder.key;
         this.secret = Optional.fromNullable(builder.secret);
         this.bearerToken = Optional.fromNullable(builder.bearerToken);
+
+        if (secret.isPresent()) {
+            basicAuthHeaders = Optional.of(clientHeaders("Basic " + BaseEncoding.base64().encode((key + ":" + secret.get()).getBytes())));
+        } else {
+            basicAuthHeaders = Optional.absent();
+        }
+
+        if (bearerToken.isPresent()) {
+            bearerAuthHeaders = Optional.of(clientHeaders("Bearer " + bearerToken.get()));
+        } else {
+            bearerAuthHeaders = Optional.absent();
+        }
     }
 
     /**
@@ -62,6 +89,31 @@ public class UrbanAirshipClient implements Closeable {
         return executeAsync(request, null);
     }
 
+    /**
+     * Execute a request asynchronously and expose its response as a CompletionStage. Cancelling the returned stage,
+     * through {@link java.util.concurrent.CompletableFuture#cancel(boolean)} on its toCompletableFuture() view,
+     * cancels the underlying HTTP request.
+     *
+     * Dependent stages that are not given an executor run on the thread completing the response. For the default
+     * AsyncRequestClient, that is a thread of its response executor (see
+     * {@link AsyncRequestClient.Builder#setResponseExecutor(java.util.concurrent.Executor)}); when the default
+     * executor's queue is full, its CallerRunsPolicy completes the response on the HTTP client's I/O thread instead, as
+     * does a rejecting custom executor. Use the async variants for blocking work.
+     *
+     * @param request The request.
+     * @param <T> The parsed response type.
+     * @return A CompletionStage of the response.
+     */
+    public <T> CompletionStage<Response<T>> executeAsyncStage(Request<T> request) {
+        ResponseStage<T> stage = new ResponseStage<>();
+        try {
+            stage.bind(executeAsync(request, stage));
+        } catch (RuntimeException e) {
+            stage.completeExceptionally(e);
+        }
+        return stage;
+    }
+
     public <T> Response execute(Request<T> request) throws IOException {
         return execute(request, null);
     }
@@ -77,33 +129,51 @@ public class UrbanAirshipClient implements Closeable {
         }
     }
 
-    private Map<String, String> createHeaders(Request request) {
-        Map<String, String> headers = new HashMap<>();
-
-        headers.put("User-Agent", userAgent);
-        Map<String, String> requestHeaders = request.getRequestHeaders();
-        if (requestHeaders != null) {
-            for (Map.Entry<String, String> entry : requestHeaders.entrySet()) {
-                headers.put(entry.getKey(), entry.getValue());
-            }
-        }
-
-        String auth;
+    @VisibleForTesting
+    Map<String, String> createHeaders(Request request) {
+        Map<String, String> clientHeaders;
+        ConcurrentMap<Map<String, String>, Map<String, String>> cache;
 
         if (request.bearerTokenAuthRequired()) {
-            Preconditions.checkNotNull(bearerToken.get(), "Bearer token required for request: " + request);
-            auth = "Bearer " + getBearerToken().get();
+            Preconditions.checkState(bearerAuthHeaders.isPresent(), "Bearer token required for request: %s", request);
+            clientHeaders = bearerAuthHeaders.get();
+            cache = bearerAuthRequestHeaders;
         } else {
-            Preconditions.checkNotNull(getAppSecret().get(), "App secret required for request: " + request);
-            auth = "Basic " + BaseEncoding.base64().encode((getAppKey() + ":" + getAppSecret().get()).getBytes());
+            Preconditions.checkState(basicAuthHeaders.isPresent(), "App secret required for request: %s", request);
+            clientHeaders = basicAuthHeaders.get();
+            cache = basicAuthRequestHeaders;
         }
 
-        headers.put("Authorization", auth);
-        headers.put("X-UA-Appkey", getAppKey());
+        Map<String, String> requestHeaders = request.getRequestHeaders();
+        if (requestHeaders == null || requestHeaders.isEmpty()) {
+            return clientHeaders;
+        }
 
+        // Requests usually return constant headers, so the merged headers are cached. Unexpected variety in the
+        // request headers is bounded by the cache size, past which headers are merged for every call.
+        Map<String, String> headers = cache.get(requestHeaders);
+        if (headers == null) {
+            // The request may override the user agent, but not the authentication.
+            Map<String, String> merged = new HashMap<>(clientHeaders);
+            merged.putAll(requestHeaders);
+            merged.put(AUTHORIZATION_KEY, clientHeaders.get(AUTHORIZATION_KEY));
+            merged.put(APP_KEY_KEY, clientHeaders.get(APP_KEY_KEY));
+            headers = ImmutableMap.copyOf(merged);
+
+            if (cache.size() < MAX_CACHED_REQUEST_HEADERS) {
+                cache.putIfAbsent(ImmutableMap.copyOf(requestHeaders), headers);
+            }
+        }
         return headers;
     }
 
+    private ImmutableMap<String, String> clientHeaders(String authorization) {
+        return ImmutableMap.of(
+            USER_AGENT_KEY, userAgent,
+            AUTHORIZATION_KEY, authorization,
+            APP_KEY_KEY, key);
+    }
+
     /**
      * Retrieve the client user agent.
      *
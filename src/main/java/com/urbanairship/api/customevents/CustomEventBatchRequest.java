@@ -0,0 +1,132 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.customevents;
+
+import com.urbanairship.api.client.ClientException;
+import com.urbanairship.api.client.Request;
+import com.urbanairship.api.client.RequestError;
+import com.urbanairship.api.client.Response;
+import com.urbanairship.api.client.ResponseParser;
+import com.urbanairship.api.client.ServerException;
+import com.urbanairship.api.client.StreamingRequest;
+import com.urbanairship.api.customevents.model.CustomEventResponse;
+import org.apache.http.entity.ContentType;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.Map;
+
+/**
+ * A batch of custom events sent by the {@link CustomEventDispatcher}. Everything but the response parser is taken from
+ * the batch's CustomEventRequest.
+ *
+ * The response body is received as is and only parsed by {@link #parseResponse(Response)}, as a CustomEventResponse
+ * when the batch succeeded or as a {@link RequestError} when it was rejected.
+ */
+class CustomEventBatchRequest implements StreamingRequest<String> {
+
+    private static final ResponseParser<String> PARSER = new ResponseParser<String>() {
+        @Override
+        public String parse(String response) {
+            return response;
+        }
+    };
+
+    private final CustomEventRequest request;
+
+    CustomEventBatchRequest(CustomEventRequest request) {
+        this.request = request;
+    }
+
+    /**
+     * Parses the response to the batch.
+     *
+     * @param response The response, with its raw body.
+     * @return The parsed response body.
+     * @throws ClientException if the batch was rejected with a 4xx status.
+     * @throws ServerException if the batch failed with a 5xx status.
+     * @throws IOException if the body can't be parsed.
+     */
+    CustomEventResponse parseResponse(Response<String> response) throws IOException {
+        String body = response.getBody().or("");
+        int status = response.getStatus();
+        if (status / 100 != 2) {
+            RequestError error = errorFromResponse(response, body);
+            String statusText = error != null ? error.getError() : "Custom events request failed with status " + status;
+            if (status / 100 == 5) {
+                throw ServerException.newBuilder()
+                    .setStatusCode(status)
+                    .setStatusText(statusText)
+                    .setRequestError(error)
+                    .build();
+            }
+            throw ClientException.newBuilder()
+                .setStatusCode(status)
+                .setStatusText(statusText)
+                .setRequestError(error)
+                .build();
+        }
+        if (body.trim().isEmpty()) {
+            throw new IOException("Custom events response with status " + status + " has no body");
+        }
+        return request.getResponseParser().parse(body);
+    }
+
+    private static RequestError errorFromResponse(Response<String> response, String body) {
+        String contentType = Request.CONTENT_TYPE_JSON;
+        for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+            if (header.getKey().equalsIgnoreCase("Content-Type")) {
+                contentType = header.getValue();
+            }
+        }
+        try {
+            return RequestError.errorFromResponse(body, contentType);
+        } catch (IOException | RuntimeException e) {
+            return null;
+        }
+    }
+
+    @Override
+    public void writeRequestBody(OutputStream out) throws IOException {
+        request.writeRequestBody(out);
+    }
+
+    @Override
+    public HttpMethod getHttpMethod() {
+        return request.getHttpMethod();
+    }
+
+    @Override
+    public String getRequestBody() {
+        return request.getRequestBody();
+    }
+
+    @Override
+    public ContentType getContentType() {
+        return request.getContentType();
+    }
+
+    @Override
+    public Map<String, String> getRequestHeaders() {
+        return request.getRequestHeaders();
+    }
+
+    @Override
+    public URI getUri(URI baseUri) throws URISyntaxException {
+        return request.getUri(baseUri);
+    }
+
+    @Override
+    public ResponseParser<String> getResponseParser() {
+        return PARSER;
+    }
+
+    @Override
+    public boolean bearerTokenAuthRequired() {
+        return request.bearerTokenAuthRequired();
+    }
+}
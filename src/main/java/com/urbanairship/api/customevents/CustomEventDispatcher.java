@@ -0,0 +1,387 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.customevents;
+
+import com.google.common.base.Preconditions;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.urbanairship.api.client.ClientException;
+import com.urbanairship.api.client.Response;
+import com.urbanairship.api.client.ServerException;
+import com.urbanairship.api.client.UrbanAirshipClient;
+import com.urbanairship.api.customevents.model.CustomEventPayload;
+import com.urbanairship.api.customevents.model.CustomEventResponse;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+
+/**
+ * Sends custom events in batches. Dispatched events are buffered and sent in a single request once the batch holds the
+ * maximum number of events or bytes, or once its oldest event has waited for the maximum delay.
+ *
+ * Up to a maximum number of batches are sent at once; the batches sealed beyond it wait for one of them to complete,
+ * in a queue of bounded size. Events are rejected while the queue is full, so that a producer faster than the API
+ * can't buffer events without bound.
+ *
+ * The future of each event completes with the response of its batch, or fails with a {@link ClientException} or a
+ * {@link ServerException} holding the API's error when the batch is rejected with a 4xx or 5xx status.
+ */
+public class CustomEventDispatcher implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(CustomEventDispatcher.class);
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    public static final int DEFAULT_MAX_BATCH_BYTES = 1024 * 1024;
+    public static final long DEFAULT_MAX_BATCH_DELAY_MILLIS = 100;
+    public static final int DEFAULT_MAX_IN_FLIGHT_BATCHES = 4;
+    public static final int DEFAULT_MAX_QUEUED_BATCHES = 16;
+
+    private final UrbanAirshipClient client;
+    private final int maxBatchSize;
+    private final int maxBatchBytes;
+    private final long maxBatchDelayNanos;
+    private final int maxInFlightBatches;
+    private final int maxQueuedBatches;
+    private final ScheduledThreadPoolExecutor timer;
+
+    private final Deque<Batch> sealedBatches = new ArrayDeque<>();
+    private Batch currentBatch = null;
+    private int inFlightBatches = 0;
+    private boolean closed = false;
+
+    private CustomEventDispatcher(Builder builder) {
+        this.client = builder.client;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.maxBatchBytes = builder.maxBatchBytes;
+        this.maxBatchDelayNanos = builder.maxBatchDelayNanos;
+        this.maxInFlightBatches = builder.maxInFlightBatches;
+        this.maxQueuedBatches = builder.maxQueuedBatches;
+        this.timer = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+            .setNameFormat("ua-custom-events-%d")
+            .setDaemon(true)
+            .build());
+        this.timer.setRemoveOnCancelPolicy(true);
+    }
+
+    /**
+     * New CustomEventDispatcher builder.
+     *
+     * @return Builder
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Add an event to the current batch.
+     *
+     * @param payload CustomEventPayload
+     * @return A future completing with the response of the event's batch.
+     * @throws IllegalStateException if the dispatcher is closed.
+     * @throws RejectedExecutionException if the maximum number of batches are queued.
+     */
+    public CompletableFuture<CustomEventResponse> dispatch(CustomEventPayload payload) {
+        Preconditions.checkNotNull(payload, "payload may not be null");
+        String json = payload.toJSON();
+        int bytes = json.getBytes(StandardCharsets.UTF_8).length;
+        CompletableFuture<CustomEventResponse> future = new CompletableFuture<>();
+
+        synchronized (this) {
+            Preconditions.checkState(!closed, "The dispatcher is closed");
+            if (sealedBatches.size() >= maxQueuedBatches) {
+                throw new RejectedExecutionException("The dispatcher has " + sealedBatches.size() + " batches queued");
+            }
+            if (currentBatch != null && currentBatch.bytes + bytes + 1 > maxBatchBytes) {
+                seal();
+            }
+            if (currentBatch == null) {
+                currentBatch = new Batch();
+                scheduleFlush(currentBatch);
+            }
+            currentBatch.add(payload, json, bytes, future);
+            if (currentBatch.payloads.size() >= maxBatchSize || currentBatch.bytes >= maxBatchBytes) {
+                seal();
+            }
+        }
+
+        sendBatches();
+        return future;
+    }
+
+    /**
+     * Send the current batch without waiting for it to fill up.
+     */
+    public void flush() {
+        synchronized (this) {
+            seal();
+        }
+        sendBatches();
+    }
+
+    /**
+     * Get the number of sealed batches waiting for a batch in flight to complete.
+     *
+     * @return int
+     */
+    public synchronized int getQueuedBatchCount() {
+        return sealedBatches.size();
+    }
+
+    /**
+     * Get the number of batches being sent.
+     *
+     * @return int
+     */
+    public synchronized int getInFlightBatchCount() {
+        return inFlightBatches;
+    }
+
+    /**
+     * Send the current batch and stop accepting events. The batches already sealed are still sent; the client is left
+     * open.
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            seal();
+        }
+        sendBatches();
+        timer.shutdown();
+    }
+
+    private void scheduleFlush(final Batch batch) {
+        if (timer.isShutdown()) {
+            return;
+        }
+        batch.flushTimeout = timer.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (CustomEventDispatcher.this) {
+                    if (currentBatch != batch) {
+                        return;
+                    }
+                    seal();
+                }
+                sendBatches();
+            }
+        }, maxBatchDelayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    // Must hold the lock.
+    private void seal() {
+        if (currentBatch == null) {
+            return;
+        }
+        if (currentBatch.flushTimeout != null) {
+            currentBatch.flushTimeout.cancel(false);
+        }
+        sealedBatches.add(currentBatch);
+        currentBatch = null;
+    }
+
+    private void sendBatches() {
+        while (true) {
+            Batch batch;
+            synchronized (this) {
+                if (inFlightBatches >= maxInFlightBatches || sealedBatches.isEmpty()) {
+                    return;
+                }
+                batch = sealedBatches.poll();
+                inFlightBatches++;
+            }
+            send(batch);
+        }
+    }
+
+    private void send(final Batch batch) {
+        final CustomEventBatchRequest request = new CustomEventBatchRequest(CustomEventRequest.newRequest(batch.payloads, batch.serialized));
+        // Set by whichever of the submission and the completion finishes last.
+        final AtomicBoolean submitted = new AtomicBoolean();
+        CompletionStage<Response<String>> stage;
+        try {
+            stage = client.executeAsyncStage(request);
+        } catch (RuntimeException e) {
+            batchCompleted(batch, null, e, false);
+            return;
+        }
+
+        stage.whenComplete(new BiConsumer<Response<String>, Throwable>() {
+            @Override
+            public void accept(Response<String> response, Throwable throwable) {
+                CustomEventResponse parsed = null;
+                if (throwable == null) {
+                    try {
+                        parsed = request.parseResponse(response);
+                    } catch (Exception e) {
+                        throwable = e;
+                    }
+                }
+                // A batch completed while it was being submitted, such as one the client failed right away, leaves
+                // the next batches to the loop submitting it rather than recursing into it.
+                batchCompleted(batch, parsed, throwable, !submitted.compareAndSet(false, true));
+            }
+        });
+        submitted.compareAndSet(false, true);
+    }
+
+    private void batchCompleted(Batch batch, CustomEventResponse response, Throwable throwable, boolean sendNext) {
+        synchronized (this) {
+            inFlightBatches--;
+        }
+
+        try {
+            if (throwable != null) {
+                log.error("Failed to send a batch of " + batch.payloads.size() + " custom events", throwable);
+            }
+            for (CompletableFuture<CustomEventResponse> future : batch.futures) {
+                if (throwable != null) {
+                    future.completeExceptionally(throwable);
+                } else {
+                    future.complete(response);
+                }
+            }
+        } finally {
+            if (sendNext) {
+                sendBatches();
+            }
+        }
+    }
+
+    private static final class Batch {
+        private final List<CustomEventPayload> payloads = new ArrayList<>();
+        private final List<String> serialized = new ArrayList<>();
+        private final List<CompletableFuture<CustomEventResponse>> futures = new ArrayList<>();
+        // The brackets of the JSON array.
+        private int bytes = 2;
+        private ScheduledFuture<?> flushTimeout;
+
+        private void add(CustomEventPayload payload, String json, int size, CompletableFuture<CustomEventResponse> future) {
+            if (!payloads.isEmpty()) {
+                bytes++;
+            }
+            payloads.add(payload);
+            serialized.add(json);
+            futures.add(future);
+            bytes += size;
+        }
+    }
+
+    /**
+     * CustomEventDispatcher Builder
+     */
+    public static class Builder {
+        private UrbanAirshipClient client = null;
+        private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+        private int maxBatchBytes = DEFAULT_MAX_BATCH_BYTES;
+        private long maxBatchDelayNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_MAX_BATCH_DELAY_MILLIS);
+        private int maxInFlightBatches = DEFAULT_MAX_IN_FLIGHT_BATCHES;
+        private int maxQueuedBatches = DEFAULT_MAX_QUEUED_BATCHES;
+
+        private Builder() {
+        }
+
+        /**
+         * Set the client sending the batches. It needs a bearer token.
+         *
+         * @param client UrbanAirshipClient
+         * @return Builder
+         */
+        public Builder setClient(UrbanAirshipClient client) {
+            this.client = client;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of events in a batch, 100 by default.
+         *
+         * @param maxBatchSize int
+         * @return Builder
+         */
+        public Builder setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Set the maximum size of a batch's request body in bytes, 1 MiB by default. An event larger than it is sent
+         * on its own.
+         *
+         * @param maxBatchBytes int
+         * @return Builder
+         */
+        public Builder setMaxBatchBytes(int maxBatchBytes) {
+            this.maxBatchBytes = maxBatchBytes;
+            return this;
+        }
+
+        /**
+         * Set the maximum time an event waits for its batch to fill up, 100 milliseconds by default.
+         *
+         * @param delay long
+         * @param unit TimeUnit
+         * @return Builder
+         */
+        public Builder setMaxBatchDelay(long delay, TimeUnit unit) {
+            this.maxBatchDelayNanos = unit.toNanos(delay);
+            return this;
+        }
+
+        /**
+         * Set the maximum number of batches sent at once, 4 by default.
+         *
+         * @param maxInFlightBatches int
+         * @return Builder
+         */
+        public Builder setMaxInFlightBatches(int maxInFlightBatches) {
+            this.maxInFlightBatches = maxInFlightBatches;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of sealed batches waiting for a batch in flight to complete, 16 by default. Events
+         * are rejected while that many batches are queued; a batch sealed by {@link CustomEventDispatcher#flush()} or by its delay is
+         * still queued.
+         *
+         * @param maxQueuedBatches int
+         * @return Builder
+         */
+        public Builder setMaxQueuedBatches(int maxQueuedBatches) {
+            this.maxQueuedBatches = maxQueuedBatches;
+            return this;
+        }
+
+        /**
+         * Build the CustomEventDispatcher object.
+         *
+         * @return CustomEventDispatcher
+         */
+        public CustomEventDispatcher build() {
+            Preconditions.checkNotNull(client, "client must be set");
+            Preconditions.checkArgument(maxBatchSize >= 1, "maxBatchSize must be at least 1");
+            Preconditions.checkArgument(maxBatchBytes >= 1, "maxBatchBytes must be positive");
+            Preconditions.checkArgument(maxBatchDelayNanos >= 0, "maxBatchDelay cannot be negative");
+            Preconditions.checkArgument(maxInFlightBatches >= 1, "maxInFlightBatches must be at least 1");
+            Preconditions.checkArgument(maxQueuedBatches >= 1, "maxQueuedBatches must be at least 1");
+            return new CustomEventDispatcher(this);
+        }
+    }
+}
@@ -1,34 +1,84 @@
 package com.urbanairship.api.customevents;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
-import com.google.common.net.HttpHeaders;
-import com.urbanairship.api.client.Request;
+import com.google.common.collect.ImmutableList;
+import com.urbanairship.api.client.JsonResponseParser;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
+import com.urbanairship.api.client.StreamingRequest;
 import com.urbanairship.api.customevents.model.CustomEventPayload;
 import com.urbanairship.api.customevents.model.CustomEventResponse;
 import com.urbanairship.api.push.parse.PushObjectMapper;
 import org.apache.http.entity.ContentType;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.HashMap;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
 import java.util.Map;
 
-public class CustomEventRequest implements Request<CustomEventResponse> {
+/**
+ * The CustomEventRequest class builds custom event requests, of one or several events, to be executed in
+ * the {@link com.urbanairship.api.client.UrbanAirshipClient}.
+ */
+public class CustomEventRequest implements StreamingRequest<CustomEventResponse> {
 
     private final static String API_CUSTOM_EVENTS_PATH = "/api/custom-events/";
+    private static final ResponseParser<CustomEventResponse> PARSER = new JsonResponseParser<>(PushObjectMapper.getInstance(), CustomEventResponse.class);
 
-    private final CustomEventPayload payload;
+    private final List<CustomEventPayload> payloads;
+    private final Optional<List<String>> serializedPayloads;
 
-    private CustomEventRequest(CustomEventPayload payload) {
-        Preconditions.checkNotNull(payload, "Payload required when creating a custom-events request");
-        this.payload = payload;
+    private CustomEventRequest(List<CustomEventPayload> payloads, Optional<List<String>> serializedPayloads) {
+        this.payloads = payloads;
+        this.serializedPayloads = serializedPayloads;
     }
 
+    /**
+     * Create a custom event request.
+     *
+     * @param customEventPayload CustomEventPayload
+     * @return CustomEventRequest
+     */
     public static CustomEventRequest newRequest(CustomEventPayload customEventPayload) {
-        return new CustomEventRequest(customEventPayload);
+        Preconditions.checkNotNull(customEventPayload, "Payload required when creating a custom-events request");
+        return new CustomEventRequest(ImmutableList.of(customEventPayload), Optional.<List<String>>absent());
+    }
+
+    /**
+     * Create a custom event request sending several events at once.
+     *
+     * @param customEventPayloads List of CustomEventPayload objects
+     * @return CustomEventRequest
+     */
+    public static CustomEventRequest newRequest(List<CustomEventPayload> customEventPayloads) {
+        Preconditions.checkNotNull(customEventPayloads, "Payload required when creating a custom-events request");
+        Preconditions.checkArgument(!customEventPayloads.isEmpty(), "Payload list cannot be empty");
+        return new CustomEventRequest(ImmutableList.copyOf(customEventPayloads), Optional.<List<String>>absent());
+    }
+
+    /**
+     * Create a custom event request for events already serialized to JSON, so that they aren't serialized again.
+     *
+     * @param customEventPayloads List of CustomEventPayload objects
+     * @param serializedPayloads The JSON of each payload
+     * @return CustomEventRequest
+     */
+    static CustomEventRequest newRequest(List<CustomEventPayload> customEventPayloads, List<String> serializedPayloads) {
+        Preconditions.checkArgument(customEventPayloads.size() == serializedPayloads.size(), "Every payload must be serialized");
+        return new CustomEventRequest(ImmutableList.copyOf(customEventPayloads), Optional.<List<String>>of(ImmutableList.copyOf(serializedPayloads)));
+    }
+
+    /**
+     * Get the events of the request.
+     *
+     * @return List of CustomEventPayload objects
+     */
+    public List<CustomEventPayload> getPayloads() {
+        return payloads;
     }
 
     @Override
@@ -38,7 +88,31 @@ public class CustomEventRequest implements Request<CustomEventResponse> {
 
     @Override
     public String getRequestBody() {
-        return payload.toJSON();
+        if (serializedPayloads.isPresent()) {
+            List<String> serialized = serializedPayloads.get();
+            return serialized.size() == 1 ? serialized.get(0) : "[" + String.join(",", serialized) + "]";
+        }
+
+        if (payloads.size() == 1) {
+            return payloads.get(0).toJSON();
+        }
+
+        try {
+            return PushObjectMapper.getInstance().writeValueAsString(payloads);
+        } catch (Exception ex) {
+            return "{ \"exception\" : \"" + ex.getClass().getName() + "\", \"message\" : \"" + ex.getMessage() + "\" }";
+        }
+    }
+
+    @Override
+    public void writeRequestBody(OutputStream out) throws IOException {
+        if (serializedPayloads.isPresent()) {
+            out.write(getRequestBody().getBytes(StandardCharsets.UTF_8));
+        } else if (payloads.size() == 1) {
+            PushObjectMapper.getInstance().writeValue(out, payloads.get(0));
+        } else {
+            PushObjectMapper.getInstance().writeValue(out, payloads);
+        }
     }
 
     @Override
@@ -48,10 +122,7 @@ public class CustomEventRequest implements Request<CustomEventResponse> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -61,12 +132,7 @@ public class CustomEventRequest implements Request<CustomEventResponse> {
 
     @Override
     public ResponseParser<CustomEventResponse> getResponseParser() {
-        return new ResponseParser<CustomEventResponse>() {
-            @Override
-            public CustomEventResponse parse(String response) throws IOException {
-                return PushObjectMapper.getInstance().readValue(response, CustomEventResponse.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
@@ -5,7 +5,7 @@
 package com.urbanairship.api.experiments;
 
 import com.google.common.base.Preconditions;
-import com.google.common.net.HttpHeaders;
+import com.urbanairship.api.client.JsonResponseParser;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
@@ -14,9 +14,7 @@ import com.urbanairship.api.experiments.model.ExperimentResponse;
 import com.urbanairship.api.experiments.parse.ExperimentObjectMapper;
 import org.apache.http.entity.ContentType;
 
-import java.io.IOException;
 import java.net.URI;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -27,6 +25,7 @@ public class ExperimentRequest implements Request<ExperimentResponse> {
 
     private final static String EXPERIMENT_PATH = "/api/experiments/";
     private final static String EXPERIMENT_VALIDATE_PATH = "/api/experiments/validate/";
+    private static final ResponseParser<ExperimentResponse> PARSER = new JsonResponseParser<>(ExperimentObjectMapper.getInstance(), ExperimentResponse.class);
 
     private final Experiment experiment;
     private boolean validateOnly;
@@ -64,10 +63,7 @@ public class ExperimentRequest implements Request<ExperimentResponse> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -88,12 +84,7 @@ public class ExperimentRequest implements Request<ExperimentResponse> {
 
     @Override
     public ResponseParser<ExperimentResponse> getResponseParser() {
-        return new ResponseParser<ExperimentResponse>() {
-            @Override
-            public ExperimentResponse parse(String response) throws IOException {
-                return ExperimentObjectMapper.getInstance().readValue(response, ExperimentResponse.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
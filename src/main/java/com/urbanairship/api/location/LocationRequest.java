@@ -5,7 +5,7 @@
 package com.urbanairship.api.location;
 
 import com.google.common.base.Preconditions;
-import com.google.common.net.HttpHeaders;
+import com.urbanairship.api.client.JsonResponseParser;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
@@ -18,11 +18,9 @@ import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.ContentType;
 import org.apache.http.message.BasicNameValuePair;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
-import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -33,6 +31,7 @@ import java.util.Map;
 public class LocationRequest implements Request<LocationResponse> {
 
     private final static String API_LOCATION_PATH = "/api/location/";
+    private static final ResponseParser<LocationResponse> PARSER = new JsonResponseParser<>(LocationObjectMapper.getInstance(), LocationResponse.class);
 
     private final String path;
     private final List<BasicNameValuePair> parameters = new ArrayList<BasicNameValuePair>();
@@ -112,10 +111,7 @@ public class LocationRequest implements Request<LocationResponse> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -130,12 +126,7 @@ public class LocationRequest implements Request<LocationResponse> {
 
     @Override
     public ResponseParser<LocationResponse> getResponseParser() {
-        return new ResponseParser<LocationResponse>() {
-            @Override
-            public LocationResponse parse(String response) throws IOException {
-                return LocationObjectMapper.getInstance().readValue(response, LocationResponse.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
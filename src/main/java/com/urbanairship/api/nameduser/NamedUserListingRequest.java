@@ -4,19 +4,22 @@
 
 package com.urbanairship.api.nameduser;
 
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
-import com.google.common.net.HttpHeaders;
+import com.urbanairship.api.client.JsonResponseParser;
+import com.urbanairship.api.client.Paginator;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
+import com.urbanairship.api.client.UrbanAirshipClient;
 import com.urbanairship.api.nameduser.model.NamedUserListingResponse;
+import com.urbanairship.api.nameduser.model.NamedUserView;
 import com.urbanairship.api.nameduser.parse.NamedUserObjectMapper;
 import org.apache.http.entity.ContentType;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -26,6 +29,7 @@ import java.util.Map;
 public class NamedUserListingRequest implements Request<NamedUserListingResponse> {
 
     private final static String API_NAMED_USERS_GET = "/api/named_users/";
+    private static final ResponseParser<NamedUserListingResponse> PARSER = new JsonResponseParser<>(NamedUserObjectMapper.getInstance(), NamedUserListingResponse.class);
 
     private final String path;
 
@@ -63,6 +67,37 @@ public class NamedUserListingRequest implements Request<NamedUserListingResponse
         return new NamedUserListingRequest(nextPage.getPath() + "?" + nextPage.getQuery());
     }
 
+    /**
+     * Create a paginator builder iterating over the named users of the listing, starting with the given request.
+     *
+     * @param client UrbanAirshipClient
+     * @param firstRequest NamedUserListingRequest
+     * @return Paginator builder
+     */
+    public static Paginator.Builder<NamedUserListingResponse, NamedUserView> newPaginatorBuilder(UrbanAirshipClient client, NamedUserListingRequest firstRequest) {
+        return Paginator.<NamedUserListingResponse, NamedUserView>newBuilder()
+            .setClient(client)
+            .setFirstRequest(firstRequest)
+            .setNextPageRequest(new Function<URI, NamedUserListingRequest>() {
+                @Override
+                public NamedUserListingRequest apply(URI nextPage) {
+                    return newRequest(nextPage);
+                }
+            })
+            .setPageElements(new Function<NamedUserListingResponse, Iterable<NamedUserView>>() {
+                @Override
+                public Iterable<NamedUserView> apply(NamedUserListingResponse response) {
+                    return response.getNamedUserViews().orNull();
+                }
+            })
+            .setNextPage(new Function<NamedUserListingResponse, Optional<String>>() {
+                @Override
+                public Optional<String> apply(NamedUserListingResponse response) {
+                    return response.getNextPage();
+                }
+            });
+    }
+
     @Override
     public ContentType getContentType() {
         return ContentType.APPLICATION_JSON;
@@ -70,10 +105,7 @@ public class NamedUserListingRequest implements Request<NamedUserListingResponse
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -93,12 +125,7 @@ public class NamedUserListingRequest implements Request<NamedUserListingResponse
 
     @Override
     public ResponseParser<NamedUserListingResponse> getResponseParser() {
-        return new ResponseParser<NamedUserListingResponse>() {
-            @Override
-            public NamedUserListingResponse parse(String response) throws IOException {
-                return NamedUserObjectMapper.getInstance().readValue(response, NamedUserListingResponse.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
@@ -5,14 +5,14 @@
 package com.urbanairship.api.nameduser;
 
 import com.google.common.base.Preconditions;
-import com.google.common.net.HttpHeaders;
-import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
+import com.urbanairship.api.client.StreamingRequest;
 import com.urbanairship.api.nameduser.parse.NamedUserObjectMapper;
 import org.apache.http.entity.ContentType;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.util.Arrays;
 import java.util.HashMap;
@@ -24,7 +24,7 @@ import java.util.Set;
  * The NamedUserTagRequest class builds named user tag mutation requests to be executed in
  * the {@link com.urbanairship.api.client.UrbanAirshipClient}.
  */
-public class NamedUserTagRequest implements Request<String> {
+public class NamedUserTagRequest implements StreamingRequest<String> {
 
     private final static String API_NAMED_USERS_TAGS = "/api/named_users/tags/";
     private static final String NAMED_USER_AUDIENCE_KEY = "named_user_id";
@@ -122,10 +122,7 @@ public class NamedUserTagRequest implements Request<String> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -135,6 +132,21 @@ public class NamedUserTagRequest implements Request<String> {
 
     @Override
     public String getRequestBody() {
+        Map<String, Map<String, Set<String>>> payload = buildPayload();
+
+        try {
+            return NamedUserObjectMapper.getInstance().writeValueAsString(payload);
+        } catch (Exception e) {
+            return "{ \"exception\" : \"" + e.getClass().getName() + "\", \"message\" : \"" + e.getMessage() + "\" }";
+        }
+    }
+
+    @Override
+    public void writeRequestBody(OutputStream out) throws IOException {
+        NamedUserObjectMapper.getInstance().writeValue(out, buildPayload());
+    }
+
+    private Map<String, Map<String, Set<String>>> buildPayload() {
         final Map<String, Map<String, Set<String>>> payload = new HashMap<String, Map<String, Set<String>>>();
 
         payload.put(AUDIENCE_KEY, audience);
@@ -156,11 +168,7 @@ public class NamedUserTagRequest implements Request<String> {
             Preconditions.checkArgument(!payload.containsKey(REMOVE_KEY) && !payload.containsKey(ADD_KEY));
         }
 
-        try {
-            return NamedUserObjectMapper.getInstance().writeValueAsString(payload);
-        } catch (Exception e) {
-            return "{ \"exception\" : \"" + e.getClass().getName() + "\", \"message\" : \"" + e.getMessage() + "\" }";
-        }
+        return payload;
     }
 
     @Override
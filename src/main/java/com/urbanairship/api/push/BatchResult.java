@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.push;
+
+import com.google.common.base.Optional;
+import com.google.common.collect.ImmutableList;
+import com.urbanairship.api.client.RequestError;
+
+import java.util.List;
+
+/**
+ * The outcome of a batched request sent by {@link PushBatchSender} while isolating the payloads rejected by the API:
+ * the merged response to the delivered payloads, the rejected payloads with the API's error, and the batches which
+ * failed for another reason, such as a server error or a lost connection, with their failure.
+ *
+ * Every payload of the request is either delivered, rejected or part of a failed batch. The payloads of a failed batch
+ * may or may not have been delivered: the API doesn't report it.
+ *
+ * @param <T> The response type.
+ */
+public final class BatchResult<T> {
+
+    private final Optional<T> response;
+    private final ImmutableList<RejectedPayload> rejectedPayloads;
+    private final ImmutableList<FailedBatch> failedBatches;
+    private final int requestCount;
+
+    BatchResult(Optional<T> response, List<RejectedPayload> rejectedPayloads, List<FailedBatch> failedBatches, int requestCount) {
+        this.response = response;
+        this.rejectedPayloads = ImmutableList.copyOf(rejectedPayloads);
+        this.failedBatches = ImmutableList.copyOf(failedBatches);
+        this.requestCount = requestCount;
+    }
+
+    /**
+     * Get the merged response to the delivered payloads, absent if no payload was delivered. Its push IDs are in the
+     * order of the delivered payloads.
+     *
+     * @return Optional response
+     */
+    public Optional<T> getResponse() {
+        return response;
+    }
+
+    /**
+     * Get the rejected payloads, in the order of the request.
+     *
+     * @return List of RejectedPayload
+     */
+    public ImmutableList<RejectedPayload> getRejectedPayloads() {
+        return rejectedPayloads;
+    }
+
+    /**
+     * Get the batches which failed without rejecting their payloads, in the order of the request.
+     *
+     * @return List of FailedBatch
+     */
+    public ImmutableList<FailedBatch> getFailedBatches() {
+        return failedBatches;
+    }
+
+    /**
+     * Get the number of HTTP requests sent, including the ones splitting the rejected batches.
+     *
+     * @return int
+     */
+    public int getRequestCount() {
+        return requestCount;
+    }
+
+    @Override
+    public String toString() {
+        return "BatchResult{" +
+                "response=" + response +
+                ", rejectedPayloads=" + rejectedPayloads +
+                ", failedBatches=" + failedBatches +
+                ", requestCount=" + requestCount +
+                '}';
+    }
+
+    /**
+     * A payload rejected by the API.
+     */
+    public static final class RejectedPayload {
+
+        private final int index;
+        private final int statusCode;
+        private final Optional<RequestError> error;
+
+        RejectedPayload(int index, int statusCode, Optional<RequestError> error) {
+            this.index = index;
+            this.statusCode = statusCode;
+            this.error = error;
+        }
+
+        /**
+         * Get the position of the payload in the request.
+         *
+         * @return int
+         */
+        public int getIndex() {
+            return index;
+        }
+
+        /**
+         * Get the status code of the response rejecting the payload.
+         *
+         * @return int
+         */
+        public int getStatusCode() {
+            return statusCode;
+        }
+
+        /**
+         * Get the API's error.
+         *
+         * @return Optional RequestError
+         */
+        public Optional<RequestError> getError() {
+            return error;
+        }
+
+        @Override
+        public String toString() {
+            return "RejectedPayload{" +
+                    "index=" + index +
+                    ", statusCode=" + statusCode +
+                    ", error=" + error +
+                    '}';
+        }
+    }
+
+    /**
+     * A batch of consecutive payloads which failed without being rejected by the API, such as with a 5xx status,
+     * a 429 status or an I/O error. Its payloads can be sent again.
+     */
+    public static final class FailedBatch {
+
+        private final int fromIndex;
+        private final int toIndex;
+        private final Throwable cause;
+
+        FailedBatch(int fromIndex, int toIndex, Throwable cause) {
+            this.fromIndex = fromIndex;
+            this.toIndex = toIndex;
+            this.cause = cause;
+        }
+
+        /**
+         * Get the position of the first payload of the batch in the request, inclusive.
+         *
+         * @return int
+         */
+        public int getFromIndex() {
+            return fromIndex;
+        }
+
+        /**
+         * Get the position of the last payload of the batch in the request, exclusive.
+         *
+         * @return int
+         */
+        public int getToIndex() {
+            return toIndex;
+        }
+
+        /**
+         * Get the failure of the batch.
+         *
+         * @return Throwable
+         */
+        public Throwable getCause() {
+            return cause;
+        }
+
+        @Override
+        public String toString() {
+            return "FailedBatch{" +
+                    "fromIndex=" + fromIndex +
+                    ", toIndex=" + toIndex +
+                    ", cause=" + cause +
+                    '}';
+        }
+    }
+}
@@ -0,0 +1,33 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.push;
+
+/**
+ * Failure of a batched request sent by {@link PushBatchSender}, thrown once every batch has completed when some of
+ * them failed. Sending is not atomic: the other batches may have been delivered, and sending the whole request again
+ * would deliver their payloads twice. The result tells which payloads were delivered and which batches failed, so that
+ * only the failed batches are sent again.
+ *
+ * The cause is the failure of the first failed batch, in payload order.
+ */
+public class BatchSendException extends RuntimeException {
+
+    private final BatchResult<?> result;
+
+    BatchSendException(BatchResult<?> result) {
+        super(result.getFailedBatches().size() + " batches failed", result.getFailedBatches().get(0).getCause());
+        this.result = result;
+    }
+
+    /**
+     * Get the outcome of the request: the merged response to the delivered batches, of the response type of the request
+     * sent, and the failed batches with their failure.
+     *
+     * @return BatchResult
+     */
+    public BatchResult<?> getResult() {
+        return result;
+    }
+}
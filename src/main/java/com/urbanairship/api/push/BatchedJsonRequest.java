@@ -0,0 +1,137 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.push;
+
+import com.urbanairship.api.client.ClientException;
+import com.urbanairship.api.client.Request;
+import com.urbanairship.api.client.RequestError;
+import com.urbanairship.api.client.Response;
+import com.urbanairship.api.client.ResponseParser;
+import com.urbanairship.api.client.ServerException;
+import org.apache.http.entity.ContentType;
+
+import java.io.IOException;
+import java.net.URI;
+import java.net.URISyntaxException;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * A batch of the payloads of a multi-payload request, already serialized. Everything but the body is taken from the
+ * original request.
+ *
+ * The response body is received as is and only parsed by {@link #parseResponse(Response)}, with the original request's
+ * parser when the batch succeeded or as a {@link RequestError} when it failed.
+ *
+ * @param <T> The parsed response type of the original request.
+ */
+class BatchedJsonRequest<T> implements Request<String> {
+
+    private static final ResponseParser<String> PARSER = new ResponseParser<String>() {
+        @Override
+        public String parse(String response) {
+            return response;
+        }
+    };
+
+    private final Request<T> request;
+    private final List<String> payloads;
+
+    BatchedJsonRequest(Request<T> request, List<String> payloads) {
+        this.request = request;
+        this.payloads = payloads;
+    }
+
+    List<String> getPayloads() {
+        return payloads;
+    }
+
+    /**
+     * A batch of a part of the payloads of this batch.
+     *
+     * @param from The index of the first payload, inclusive.
+     * @param to The index of the last payload, exclusive.
+     * @return BatchedJsonRequest
+     */
+    BatchedJsonRequest<T> slice(int from, int to) {
+        return new BatchedJsonRequest<>(request, payloads.subList(from, to));
+    }
+
+    /**
+     * Parses the response to the batch.
+     *
+     * @param response The response, with its raw body.
+     * @return The parsed response body.
+     * @throws ClientException if the batch was rejected with a 4xx status.
+     * @throws ServerException if the batch failed with a 5xx status.
+     * @throws IOException if the body can't be parsed.
+     */
+    T parseResponse(Response<String> response) throws IOException {
+        String body = response.getBody().or("");
+        if (response.getStatus() / 100 != 2) {
+            RequestError error = RequestError.errorFromResponse(body, getContentType(response));
+            if (response.getStatus() / 100 == 5) {
+                throw ServerException.newBuilder()
+                    .setStatusCode(response.getStatus())
+                    .setStatusText(error.getError())
+                    .setRequestError(error)
+                    .build();
+            }
+            throw ClientException.newBuilder()
+                .setStatusCode(response.getStatus())
+                .setStatusText(error.getError())
+                .setRequestError(error)
+                .build();
+        }
+        if (body.trim().isEmpty()) {
+            throw new IOException("Response with status " + response.getStatus() + " has no body");
+        }
+        return request.getResponseParser().parse(body);
+    }
+
+    private static String getContentType(Response<String> response) {
+        for (Map.Entry<String, String> header : response.getHeaders().entrySet()) {
+            if (header.getKey().equalsIgnoreCase("Content-Type")) {
+                return header.getValue();
+            }
+        }
+        return Request.CONTENT_TYPE_JSON;
+    }
+
+    @Override
+    public HttpMethod getHttpMethod() {
+        return request.getHttpMethod();
+    }
+
+    @Override
+    public String getRequestBody() {
+        return payloads.size() == 1 ? payloads.get(0) : "[" + String.join(",", payloads) + "]";
+    }
+
+    @Override
+    public ContentType getContentType() {
+        return request.getContentType();
+    }
+
+    @Override
+    public Map<String, String> getRequestHeaders() {
+        return request.getRequestHeaders();
+    }
+
+    @Override
+    public URI getUri(URI baseUri) throws URISyntaxException {
+        return request.getUri(baseUri);
+    }
+
+    @Override
+    public ResponseParser<String> getResponseParser() {
+        return PARSER;
+    }
+
+    @Override
+    public boolean bearerTokenAuthRequired() {
+        return request.bearerTokenAuthRequired();
+    }
+}
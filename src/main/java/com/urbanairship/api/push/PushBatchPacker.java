@@ -0,0 +1,196 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.push;
+
+import com.google.common.base.Preconditions;
+import com.urbanairship.api.push.model.PushPayload;
+import com.urbanairship.api.push.parse.PushSizeEstimator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Packs push payloads into as few push requests as possible, each within a byte budget and a maximum number of
+ * payloads. The payloads are sized by a {@link PushSizeEstimator}, without being serialized to a String, then placed
+ * first-fit in decreasing order of size, which fills the requests close to the budget.
+ *
+ * The payloads of each request keep their relative order, and the requests are ordered by their first payload, but
+ * payloads may be sent in a different request than their neighbours. A payload larger than the budget is sent on its
+ * own.
+ */
+public class PushBatchPacker {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    public static final long DEFAULT_MAX_BATCH_BYTES = 1024 * 1024;
+
+    private final int maxBatchSize;
+    private final long maxBatchBytes;
+    private final PushSizeEstimator estimator;
+
+    private PushBatchPacker(Builder builder) {
+        this.maxBatchSize = builder.maxBatchSize;
+        this.maxBatchBytes = builder.maxBatchBytes;
+        this.estimator = builder.estimator;
+    }
+
+    /**
+     * New PushBatchPacker builder.
+     *
+     * @return Builder
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Pack payloads into push requests.
+     *
+     * @param payloads List of PushPayload objects
+     * @return List of PushRequest objects
+     */
+    public List<PushRequest> pack(List<PushPayload> payloads) {
+        List<PushRequest> requests = new ArrayList<>();
+        for (List<PushPayload> batch : packPayloads(payloads)) {
+            requests.add(PushRequest.newRequest(batch));
+        }
+        return requests;
+    }
+
+    /**
+     * Pack payloads into batches.
+     *
+     * @param payloads List of PushPayload objects
+     * @return The payloads of each batch.
+     */
+    public List<List<PushPayload>> packPayloads(List<PushPayload> payloads) {
+        final long[] sizes = new long[payloads.size()];
+        Integer[] order = new Integer[payloads.size()];
+        for (int i = 0; i < sizes.length; i++) {
+            sizes[i] = estimator.sizeOf(payloads.get(i));
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(Integer a, Integer b) {
+                int bySize = Long.compare(sizes[b], sizes[a]);
+                return bySize != 0 ? bySize : Integer.compare(a, b);
+            }
+        });
+
+        List<Bin> bins = new ArrayList<>();
+        for (int index : order) {
+            Bin target = null;
+            for (Bin bin : bins) {
+                if (bin.fits(sizes[index])) {
+                    target = bin;
+                    break;
+                }
+            }
+            if (target == null) {
+                target = new Bin();
+                bins.add(target);
+            }
+            target.add(index, sizes[index]);
+        }
+
+        for (Bin bin : bins) {
+            Collections.sort(bin.indexes);
+        }
+        Collections.sort(bins, new Comparator<Bin>() {
+            @Override
+            public int compare(Bin a, Bin b) {
+                return Integer.compare(a.indexes.get(0), b.indexes.get(0));
+            }
+        });
+
+        List<List<PushPayload>> batches = new ArrayList<>(bins.size());
+        for (Bin bin : bins) {
+            List<PushPayload> batch = new ArrayList<>(bin.indexes.size());
+            for (int index : bin.indexes) {
+                batch.add(payloads.get(index));
+            }
+            batches.add(batch);
+        }
+        return batches;
+    }
+
+    /**
+     * The payloads of a request being packed.
+     */
+    private final class Bin {
+        private final List<Integer> indexes = new ArrayList<>();
+        // The brackets of the JSON array.
+        private long bytes = 2;
+
+        private boolean fits(long size) {
+            return indexes.size() < maxBatchSize && bytes + size + 1 <= maxBatchBytes;
+        }
+
+        private void add(int index, long size) {
+            bytes += indexes.isEmpty() ? size : size + 1;
+            indexes.add(index);
+        }
+    }
+
+    /**
+     * PushBatchPacker Builder
+     */
+    public static class Builder {
+        private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+        private long maxBatchBytes = DEFAULT_MAX_BATCH_BYTES;
+        private PushSizeEstimator estimator = PushSizeEstimator.getInstance();
+
+        private Builder() {
+        }
+
+        /**
+         * Set the maximum number of payloads in a request, 100 by default.
+         *
+         * @param maxBatchSize int
+         * @return Builder
+         */
+        public Builder setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Set the byte budget of a request's body, 1 MiB by default.
+         *
+         * @param maxBatchBytes long
+         * @return Builder
+         */
+        public Builder setMaxBatchBytes(long maxBatchBytes) {
+            this.maxBatchBytes = maxBatchBytes;
+            return this;
+        }
+
+        /**
+         * Set the estimator sizing the payloads, the shared {@link PushSizeEstimator} by default.
+         *
+         * @param estimator PushSizeEstimator
+         * @return Builder
+         */
+        public Builder setSizeEstimator(PushSizeEstimator estimator) {
+            this.estimator = estimator;
+            return this;
+        }
+
+        /**
+         * Build the PushBatchPacker object.
+         *
+         * @return PushBatchPacker
+         */
+        public PushBatchPacker build() {
+            Preconditions.checkArgument(maxBatchSize >= 1, "maxBatchSize must be at least 1");
+            Preconditions.checkArgument(maxBatchBytes >= 1, "maxBatchBytes must be positive");
+            Preconditions.checkNotNull(estimator, "estimator may not be null");
+            return new PushBatchPacker(this);
+        }
+    }
+}
@@ -0,0 +1,611 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.push;
+
+import com.fasterxml.jackson.core.JsonProcessingException;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.urbanairship.api.client.ClientException;
+import com.urbanairship.api.client.Request;
+import com.urbanairship.api.client.Response;
+import com.urbanairship.api.client.UrbanAirshipClient;
+import com.urbanairship.api.createandsend.CreateAndSendRequest;
+import com.urbanairship.api.push.model.PushResponse;
+import com.urbanairship.api.push.parse.PushObjectMapper;
+import com.urbanairship.api.templates.TemplatePushRequest;
+import com.urbanairship.api.templates.model.TemplateResponse;
+import com.urbanairship.api.templates.parse.TemplatesObjectMapper;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Sends multi-payload push, create and send, and template push requests of any size, split into batches the API
+ * accepts. Each batch holds at most the maximum number of payloads and bytes; a payload larger than the byte limit is
+ * sent on its own. The payloads are serialized once, to split them and to build the batches' bodies.
+ *
+ * The batches are sent concurrently, at most the maximum number of in-flight batches at once across every request the
+ * sender is given; the other batches wait for one of them to complete. Once every batch of a request has completed,
+ * their responses are merged in the order of the payloads: push IDs, message IDs and content URLs are concatenated,
+ * the response is ok only if every batch's response is, and the operation ID is the first batch's.
+ *
+ * Sending is not atomic: a failed batch doesn't stop the others. If any batch fails, the returned future fails with a
+ * {@link BatchSendException} holding the merged response to the delivered batches and the failed batches, whose first
+ * failure in payload order is the exception's cause. A batch rejected by the API fails with a
+ * {@link com.urbanairship.api.client.ClientException} holding the API's error, a batch failing with a 5xx status with a
+ * {@link com.urbanairship.api.client.ServerException}. Only the failed batches should be sent again.
+ *
+ * The sendIsolatingRejects methods instead react to a batch rejected with a 4xx status, such as a validation error, by
+ * splitting it in halves sent again until the offending payloads are isolated. The valid payloads are delivered and the
+ * rejected ones reported in the {@link BatchResult} with the API's error. A batch failing for another reason, such as
+ * a 5xx status or an I/O error, is reported in the BatchResult as a failed batch with its failure, and doesn't hold up
+ * the report of the other batches.
+ */
+public class PushBatchSender {
+
+    public static final int DEFAULT_MAX_BATCH_SIZE = 100;
+    public static final int DEFAULT_MAX_BATCH_BYTES = 1024 * 1024;
+    public static final int DEFAULT_MAX_IN_FLIGHT_BATCHES = 8;
+
+    private static final Function<List<PushResponse>, PushResponse> PUSH_RESPONSE_MERGER = new Function<List<PushResponse>, PushResponse>() {
+        @Override
+        public PushResponse apply(List<PushResponse> responses) {
+            return mergePushResponses(responses);
+        }
+    };
+
+    private static final Function<List<TemplateResponse>, TemplateResponse> TEMPLATE_RESPONSE_MERGER = new Function<List<TemplateResponse>, TemplateResponse>() {
+        @Override
+        public TemplateResponse apply(List<TemplateResponse> responses) {
+            return mergeTemplateResponses(responses);
+        }
+    };
+
+    private final UrbanAirshipClient client;
+    private final int maxBatchSize;
+    private final int maxBatchBytes;
+    private final int maxInFlightBatches;
+
+    private final Deque<Runnable> queuedBatches = new ArrayDeque<>();
+    private int inFlightBatches = 0;
+
+    private PushBatchSender(Builder builder) {
+        this.client = builder.client;
+        this.maxBatchSize = builder.maxBatchSize;
+        this.maxBatchBytes = builder.maxBatchBytes;
+        this.maxInFlightBatches = builder.maxInFlightBatches;
+    }
+
+    /**
+     * New PushBatchSender builder.
+     *
+     * @return Builder
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Send the payloads of a push request in batches.
+     *
+     * @param request PushRequest
+     * @return A future of the merged responses of the batches, failing with a BatchSendException if any batch fails.
+     */
+    public CompletableFuture<PushResponse> send(PushRequest request) {
+        return sendBatches(request, request.getPayloads(), PushObjectMapper.getInstance(), PUSH_RESPONSE_MERGER);
+    }
+
+    /**
+     * Send the payloads of a push request in batches, isolating the payloads rejected by the API.
+     *
+     * @param request PushRequest
+     * @return A future of the merged response to the delivered payloads and of the rejected payloads.
+     */
+    public CompletableFuture<BatchResult<PushResponse>> sendIsolatingRejects(PushRequest request) {
+        return sendIsolatingRejects(request, request.getPayloads(), PushObjectMapper.getInstance(), PUSH_RESPONSE_MERGER);
+    }
+
+    /**
+     * Send the payloads of a create and send request in batches.
+     *
+     * @param request CreateAndSendRequest
+     * @return A future of the merged responses of the batches, failing with a BatchSendException if any batch fails.
+     */
+    public CompletableFuture<PushResponse> send(CreateAndSendRequest request) {
+        return sendBatches(request, request.getPayloads(), PushObjectMapper.getInstance(), PUSH_RESPONSE_MERGER);
+    }
+
+    /**
+     * Send the payloads of a create and send request in batches, isolating the payloads rejected by the API.
+     *
+     * @param request CreateAndSendRequest
+     * @return A future of the merged response to the delivered payloads and of the rejected payloads.
+     */
+    public CompletableFuture<BatchResult<PushResponse>> sendIsolatingRejects(CreateAndSendRequest request) {
+        return sendIsolatingRejects(request, request.getPayloads(), PushObjectMapper.getInstance(), PUSH_RESPONSE_MERGER);
+    }
+
+    /**
+     * Send the payloads of a template push request in batches.
+     *
+     * @param request TemplatePushRequest
+     * @return A future of the merged responses of the batches, failing with a BatchSendException if any batch fails.
+     */
+    public CompletableFuture<TemplateResponse> send(TemplatePushRequest request) {
+        return sendBatches(request, request.getTemplatePushPayloads(), TemplatesObjectMapper.getInstance(), TEMPLATE_RESPONSE_MERGER);
+    }
+
+    /**
+     * Send the payloads of a template push request in batches, isolating the payloads rejected by the API.
+     *
+     * @param request TemplatePushRequest
+     * @return A future of the merged response to the delivered payloads and of the rejected payloads.
+     */
+    public CompletableFuture<BatchResult<TemplateResponse>> sendIsolatingRejects(TemplatePushRequest request) {
+        return sendIsolatingRejects(request, request.getTemplatePushPayloads(), TemplatesObjectMapper.getInstance(), TEMPLATE_RESPONSE_MERGER);
+    }
+
+    /**
+     * Get the number of batches waiting for a batch in flight to complete.
+     *
+     * @return int
+     */
+    public synchronized int getQueuedBatchCount() {
+        return queuedBatches.size();
+    }
+
+    /**
+     * Get the number of batches being sent.
+     *
+     * @return int
+     */
+    public synchronized int getInFlightBatchCount() {
+        return inFlightBatches;
+    }
+
+    private <T> CompletableFuture<T> sendBatches(Request<T> request, List<?> payloads, ObjectMapper mapper,
+                                                 final Function<List<T>, T> merger) {
+        Preconditions.checkArgument(!payloads.isEmpty(), "Payload list cannot be empty");
+
+        List<CompletableFuture<Outcome<T>>> futures = new ArrayList<>();
+        try {
+            int offset = 0;
+            for (List<String> batch : split(payloads, mapper)) {
+                futures.add(deliver(new BatchedJsonRequest<>(request, batch), offset));
+                offset += batch.size();
+            }
+        } catch (JsonProcessingException e) {
+            CompletableFuture<T> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        final CompletableFuture<T> result = new CompletableFuture<>();
+        allInOrder(futures).whenComplete(new BiConsumer<List<Outcome<T>>, Throwable>() {
+            @Override
+            public void accept(List<Outcome<T>> outcomes, Throwable throwable) {
+                if (throwable != null) {
+                    result.completeExceptionally(unwrap(throwable));
+                    return;
+                }
+                BatchResult<T> batchResult = toResult(outcomes, merger);
+                if (batchResult.getFailedBatches().isEmpty()) {
+                    result.complete(batchResult.getResponse().get());
+                } else {
+                    result.completeExceptionally(new BatchSendException(batchResult));
+                }
+            }
+        });
+        return result;
+    }
+
+    private <T> CompletableFuture<Outcome<T>> deliver(final BatchedJsonRequest<T> batch, final int offset) {
+        return submit(batch).handle(new BiFunction<T, Throwable, Outcome<T>>() {
+            @Override
+            public Outcome<T> apply(T response, Throwable throwable) {
+                if (throwable == null) {
+                    return Outcome.delivered(response);
+                }
+                return Outcome.failed(new BatchResult.FailedBatch(offset, offset + batch.getPayloads().size(), unwrap(throwable)));
+            }
+        });
+    }
+
+    /**
+     * Sends the batches of a request; a batch rejected by the API is split in two halves sent again, until the rejected
+     * payloads are found, which takes O(k log n) requests for k rejected payloads out of n.
+     */
+    private <T> CompletableFuture<BatchResult<T>> sendIsolatingRejects(Request<T> request, List<?> payloads, ObjectMapper mapper,
+                                                                      final Function<List<T>, T> merger) {
+        Preconditions.checkArgument(!payloads.isEmpty(), "Payload list cannot be empty");
+
+        List<CompletableFuture<Outcome<T>>> futures = new ArrayList<>();
+        try {
+            int offset = 0;
+            for (List<String> batch : split(payloads, mapper)) {
+                futures.add(isolateRejects(new BatchedJsonRequest<>(request, batch), offset));
+                offset += batch.size();
+            }
+        } catch (JsonProcessingException e) {
+            CompletableFuture<BatchResult<T>> failed = new CompletableFuture<>();
+            failed.completeExceptionally(e);
+            return failed;
+        }
+
+        return allInOrder(futures).thenApply(new Function<List<Outcome<T>>, BatchResult<T>>() {
+            @Override
+            public BatchResult<T> apply(List<Outcome<T>> outcomes) {
+                return toResult(outcomes, merger);
+            }
+        });
+    }
+
+    private static <T> BatchResult<T> toResult(List<Outcome<T>> outcomes, Function<List<T>, T> merger) {
+        List<T> responses = new ArrayList<>();
+        List<BatchResult.RejectedPayload> rejectedPayloads = new ArrayList<>();
+        List<BatchResult.FailedBatch> failedBatches = new ArrayList<>();
+        int requestCount = 0;
+        for (Outcome<T> outcome : outcomes) {
+            responses.addAll(outcome.responses);
+            rejectedPayloads.addAll(outcome.rejectedPayloads);
+            failedBatches.addAll(outcome.failedBatches);
+            requestCount += outcome.requestCount;
+        }
+        Optional<T> response = responses.isEmpty() ? Optional.<T>absent() : Optional.of(merger.apply(responses));
+        return new BatchResult<>(response, rejectedPayloads, failedBatches, requestCount);
+    }
+
+    private <T> CompletableFuture<Outcome<T>> isolateRejects(final BatchedJsonRequest<T> batch, final int offset) {
+        final CompletableFuture<Outcome<T>> outcome = new CompletableFuture<>();
+        submit(batch).whenComplete(new BiConsumer<T, Throwable>() {
+            @Override
+            public void accept(T response, Throwable throwable) {
+                if (throwable == null) {
+                    outcome.complete(Outcome.delivered(response));
+                    return;
+                }
+
+                Throwable cause = unwrap(throwable);
+                int size = batch.getPayloads().size();
+                if (!(cause instanceof ClientException) || !isRejection(((ClientException) cause).getStatusCode())) {
+                    outcome.complete(Outcome.<T>failed(new BatchResult.FailedBatch(offset, offset + size, cause)));
+                    return;
+                }
+
+                ClientException rejection = (ClientException) cause;
+                if (size == 1) {
+                    outcome.complete(Outcome.<T>rejected(new BatchResult.RejectedPayload(offset, rejection.getStatusCode(), rejection.getError())));
+                    return;
+                }
+
+                int half = size / 2;
+                CompletableFuture<Outcome<T>> first = isolateRejects(batch.slice(0, half), offset);
+                CompletableFuture<Outcome<T>> second = isolateRejects(batch.slice(half, size), offset + half);
+                first.thenCombine(second, new BiFunction<Outcome<T>, Outcome<T>, Outcome<T>>() {
+                    @Override
+                    public Outcome<T> apply(Outcome<T> firstOutcome, Outcome<T> secondOutcome) {
+                        Outcome<T> combined = Outcome.<T>rejected();
+                        combined.append(firstOutcome);
+                        combined.append(secondOutcome);
+                        return combined;
+                    }
+                }).whenComplete(new BiConsumer<Outcome<T>, Throwable>() {
+                    @Override
+                    public void accept(Outcome<T> combined, Throwable failure) {
+                        if (failure != null) {
+                            outcome.completeExceptionally(unwrap(failure));
+                        } else {
+                            outcome.complete(combined);
+                        }
+                    }
+                });
+            }
+        });
+        return outcome;
+    }
+
+    /**
+     * Whether a status code rejects the payloads of a batch, rather than the request as a whole.
+     */
+    private static boolean isRejection(int statusCode) {
+        return statusCode / 100 == 4 && statusCode != 401 && statusCode != 403 && statusCode != 404
+            && statusCode != 408 && statusCode != 429;
+    }
+
+    private static Throwable unwrap(Throwable throwable) {
+        if (throwable instanceof CompletionException && throwable.getCause() != null) {
+            return throwable.getCause();
+        }
+        return throwable;
+    }
+
+    /**
+     * Completes once every future has, with their values in order, or with the first failure in order.
+     */
+    private static <V> CompletableFuture<List<V>> allInOrder(final List<CompletableFuture<V>> futures) {
+        final CompletableFuture<List<V>> result = new CompletableFuture<>();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).whenComplete(new BiConsumer<Void, Throwable>() {
+            @Override
+            public void accept(Void ignored, Throwable throwable) {
+                List<V> values = new ArrayList<>(futures.size());
+                for (CompletableFuture<V> future : futures) {
+                    try {
+                        values.add(future.join());
+                    } catch (RuntimeException e) {
+                        result.completeExceptionally(unwrap(e));
+                        return;
+                    }
+                }
+                result.complete(values);
+            }
+        });
+        return result;
+    }
+
+    /**
+     * Serializes the payloads and splits them into batches within the size and byte limits.
+     */
+    private List<List<String>> split(List<?> payloads, ObjectMapper mapper) throws JsonProcessingException {
+        List<List<String>> batches = new ArrayList<>();
+        List<String> batch = new ArrayList<>();
+        // The brackets of the JSON array.
+        int batchBytes = 2;
+        for (Object payload : payloads) {
+            String json = mapper.writeValueAsString(payload);
+            int bytes = json.getBytes(StandardCharsets.UTF_8).length;
+            if (!batch.isEmpty() && (batch.size() >= maxBatchSize || batchBytes + bytes + 1 > maxBatchBytes)) {
+                batches.add(batch);
+                batch = new ArrayList<>();
+                batchBytes = 2;
+            }
+            batchBytes += batch.isEmpty() ? bytes : bytes + 1;
+            batch.add(json);
+        }
+        batches.add(batch);
+        return batches;
+    }
+
+    private <T> CompletableFuture<T> submit(final BatchedJsonRequest<T> request) {
+        final CompletableFuture<T> future = new CompletableFuture<>();
+        Runnable send = new Runnable() {
+            @Override
+            public void run() {
+                // Set by whichever of the submission and the completion finishes last.
+                final AtomicBoolean submitted = new AtomicBoolean();
+                CompletionStage<Response<String>> stage;
+                try {
+                    stage = client.executeAsyncStage(request);
+                } catch (RuntimeException e) {
+                    releaseBatch();
+                    future.completeExceptionally(e);
+                    return;
+                }
+
+                stage.whenComplete(new BiConsumer<Response<String>, Throwable>() {
+                    @Override
+                    public void accept(Response<String> response, Throwable throwable) {
+                        releaseBatch();
+                        // A batch completed while it was being submitted, such as one the client failed right
+                        // away, leaves the next batches to the loop submitting it rather than recursing into it.
+                        if (!submitted.compareAndSet(false, true)) {
+                            sendQueuedBatches();
+                        }
+                        if (throwable != null) {
+                            future.completeExceptionally(throwable);
+                            return;
+                        }
+                        try {
+                            future.complete(request.parseResponse(response));
+                        } catch (Exception e) {
+                            future.completeExceptionally(e);
+                        }
+                    }
+                });
+                submitted.compareAndSet(false, true);
+            }
+        };
+
+        synchronized (this) {
+            queuedBatches.add(send);
+        }
+        sendQueuedBatches();
+        return future;
+    }
+
+    private synchronized void releaseBatch() {
+        inFlightBatches--;
+    }
+
+    private void sendQueuedBatches() {
+        while (true) {
+            Runnable send;
+            synchronized (this) {
+                if (inFlightBatches >= maxInFlightBatches || queuedBatches.isEmpty()) {
+                    return;
+                }
+                send = queuedBatches.poll();
+                inFlightBatches++;
+            }
+            send.run();
+        }
+    }
+
+    private static PushResponse mergePushResponses(List<PushResponse> responses) {
+        if (responses.size() == 1) {
+            return responses.get(0);
+        }
+
+        PushResponse.Builder merged = PushResponse.newBuilder()
+            .setOk(true);
+        boolean operationIdSet = false;
+        for (PushResponse response : responses) {
+            if (!operationIdSet && response.getOperationId().isPresent()) {
+                merged.setOperationId(response.getOperationId().get());
+                operationIdSet = true;
+            }
+            if (!response.getOk()) {
+                merged.setOk(false);
+            }
+            if (response.getPushIds().isPresent()) {
+                merged.addAllPushIds(response.getPushIds().get());
+            }
+            if (response.getMessageIds().isPresent()) {
+                merged.addAllMessageIds(response.getMessageIds().get());
+            }
+            if (response.getContentUrls().isPresent()) {
+                merged.addAllContentUrls(response.getContentUrls().get());
+            }
+        }
+        return merged.build();
+    }
+
+    private static TemplateResponse mergeTemplateResponses(List<TemplateResponse> responses) {
+        if (responses.size() == 1) {
+            return responses.get(0);
+        }
+
+        TemplateResponse.Builder merged = TemplateResponse.newBuilder()
+            .setOk(true);
+        boolean operationIdSet = false;
+        boolean templateIdSet = false;
+        for (TemplateResponse response : responses) {
+            if (!operationIdSet && response.getOperationId().isPresent()) {
+                merged.setOperationId(response.getOperationId().get());
+                operationIdSet = true;
+            }
+            if (!templateIdSet && response.getTemplateId().isPresent()) {
+                merged.setTemplateId(response.getTemplateId().get());
+                templateIdSet = true;
+            }
+            if (!response.getOk()) {
+                merged.setOk(false);
+            }
+            if (response.getPushIds().isPresent()) {
+                merged.addAllPushIds(response.getPushIds().get());
+            }
+        }
+        return merged.build();
+    }
+
+    /**
+     * The responses to the delivered payloads of a batch, its rejected payloads, once isolated, and its parts which
+     * failed.
+     */
+    private static final class Outcome<T> {
+        private final List<T> responses = new ArrayList<>();
+        private final List<BatchResult.RejectedPayload> rejectedPayloads = new ArrayList<>();
+        private final List<BatchResult.FailedBatch> failedBatches = new ArrayList<>();
+        // The request of the batch, plus the requests isolating its rejected payloads.
+        private int requestCount = 1;
+
+        private static <T> Outcome<T> delivered(T response) {
+            Outcome<T> outcome = new Outcome<>();
+            outcome.responses.add(response);
+            return outcome;
+        }
+
+        private static <T> Outcome<T> rejected(BatchResult.RejectedPayload... rejectedPayloads) {
+            Outcome<T> outcome = new Outcome<>();
+            outcome.rejectedPayloads.addAll(Arrays.asList(rejectedPayloads));
+            return outcome;
+        }
+
+        private static <T> Outcome<T> failed(BatchResult.FailedBatch failedBatch) {
+            Outcome<T> outcome = new Outcome<>();
+            outcome.failedBatches.add(failedBatch);
+            return outcome;
+        }
+
+        private void append(Outcome<T> other) {
+            responses.addAll(other.responses);
+            rejectedPayloads.addAll(other.rejectedPayloads);
+            failedBatches.addAll(other.failedBatches);
+            requestCount += other.requestCount;
+        }
+    }
+
+    /**
+     * PushBatchSender Builder
+     */
+    public static class Builder {
+        private UrbanAirshipClient client = null;
+        private int maxBatchSize = DEFAULT_MAX_BATCH_SIZE;
+        private int maxBatchBytes = DEFAULT_MAX_BATCH_BYTES;
+        private int maxInFlightBatches = DEFAULT_MAX_IN_FLIGHT_BATCHES;
+
+        private Builder() {
+        }
+
+        /**
+         * Set the client sending the batches.
+         *
+         * @param client UrbanAirshipClient
+         * @return Builder
+         */
+        public Builder setClient(UrbanAirshipClient client) {
+            this.client = client;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of payloads in a batch, 100 by default.
+         *
+         * @param maxBatchSize int
+         * @return Builder
+         */
+        public Builder setMaxBatchSize(int maxBatchSize) {
+            this.maxBatchSize = maxBatchSize;
+            return this;
+        }
+
+        /**
+         * Set the maximum size of a batch's request body in bytes, 1 MiB by default.
+         *
+         * @param maxBatchBytes int
+         * @return Builder
+         */
+        public Builder setMaxBatchBytes(int maxBatchBytes) {
+            this.maxBatchBytes = maxBatchBytes;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of batches sent at once, 8 by default. It should not exceed the number of
+         * connections of the client's connection pool.
+         *
+         * @param maxInFlightBatches int
+         * @return Builder
+         */
+        public Builder setMaxInFlightBatches(int maxInFlightBatches) {
+            this.maxInFlightBatches = maxInFlightBatches;
+            return this;
+        }
+
+        /**
+         * Build the PushBatchSender object.
+         *
+         * @return PushBatchSender
+         */
+        public PushBatchSender build() {
+            Preconditions.checkNotNull(client, "client must be set");
+            Preconditions.checkArgument(maxBatchSize >= 1, "maxBatchSize must be at least 1");
+            Preconditions.checkArgument(maxBatchBytes >= 1, "maxBatchBytes must be positive");
+            Preconditions.checkArgument(maxInFlightBatches >= 1, "maxInFlightBatches must be at least 1");
+            return new PushBatchSender(this);
+        }
+    }
+}
@@ -4,23 +4,21 @@ package com.urbanairship.api.push;
  * Copyright (c) 2013-2016.  Urban Airship and Contributors
  */
 
-import com.fasterxml.jackson.databind.JsonNode;
-import com.fasterxml.jackson.databind.ObjectMapper;
-import com.fasterxml.jackson.databind.node.ArrayNode;
 import com.google.common.base.Preconditions;
-import com.google.common.net.HttpHeaders;
-import com.urbanairship.api.client.Request;
+import com.urbanairship.api.client.JsonResponseParser;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
+import com.urbanairship.api.client.StreamingRequest;
 import com.urbanairship.api.push.model.PushPayload;
 import com.urbanairship.api.push.model.PushResponse;
 import com.urbanairship.api.push.parse.PushObjectMapper;
 import org.apache.http.entity.ContentType;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -28,10 +26,11 @@ import java.util.Map;
  * The PushRequest class builds push and push validation requests to be executed in
  * the {@link com.urbanairship.api.client.UrbanAirshipClient}.
  */
-public class PushRequest implements Request<PushResponse> {
+public class PushRequest implements StreamingRequest<PushResponse> {
 
     private final static String API_PUSH_PATH = "/api/push/";
     private final static String API_VALIDATE_PATH = "/api/push/validate/";
+    private static final ResponseParser<PushResponse> PARSER = new JsonResponseParser<>(PushObjectMapper.getInstance(), PushResponse.class);
 
     private final List<PushPayload> payloads = new ArrayList<>();
     private boolean validateOnly;
@@ -107,6 +106,15 @@ public class PushRequest implements Request<PushResponse> {
         return this;
     }
 
+    /**
+     * Get the payloads of the request.
+     *
+     * @return List of PushPayload objects
+     */
+    public List<PushPayload> getPayloads() {
+        return Collections.unmodifiableList(payloads);
+    }
+
     @Override
     public ContentType getContentType() {
         return ContentType.APPLICATION_JSON;
@@ -114,10 +122,7 @@ public class PushRequest implements Request<PushResponse> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -131,20 +136,20 @@ public class PushRequest implements Request<PushResponse> {
             return this.payloads.get(0).toJSON();
         }
 
-        ObjectMapper mapper = new ObjectMapper();
-
-        ArrayNode arrayNode = mapper.createArrayNode();
-
-        for (PushPayload pushPayload : this.payloads) {
-            try {
-                JsonNode pushJson = mapper.readTree(pushPayload.toJSON());
-                arrayNode.add(pushJson);
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        try {
+            return PushObjectMapper.getInstance().writeValueAsString(this.payloads);
+        } catch (Exception ex) {
+            return "{ \"exception\" : \"" + ex.getClass().getName() + "\", \"message\" : \"" + ex.getMessage() + "\" }";
         }
+    }
 
-        return arrayNode.toString();
+    @Override
+    public void writeRequestBody(OutputStream out) throws IOException {
+        if (this.payloads.size() == 1) {
+            PushObjectMapper.getInstance().writeValue(out, this.payloads.get(0));
+        } else {
+            PushObjectMapper.getInstance().writeValue(out, this.payloads);
+        }
     }
 
     @Override
@@ -155,12 +160,7 @@ public class PushRequest implements Request<PushResponse> {
 
     @Override
     public ResponseParser<PushResponse> getResponseParser() {
-        return new ResponseParser<PushResponse>() {
-            @Override
-            public PushResponse parse(String response) throws IOException {
-                return PushObjectMapper.getInstance().readValue(response, PushResponse.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
@@ -213,9 +213,9 @@ public class PushObjectMapper {
         MODULE
                 .addSerializer(PushPayload.class, new PushPayloadSerializer())
                 .addDeserializer(PushPayload.class, new PushPayloadDeserializer())
-                .addSerializer(PushOptions.class, new PushOptionsSerializer())
+                .addSerializer(PushOptions.class, new PushSerializationCache.MemoizingSerializer<PushOptions>(new PushOptionsSerializer()))
                 .addDeserializer(PushOptions.class, new PushOptionsDeserializer())
-                .addSerializer(Notification.class, new NotificationSerializer())
+                .addSerializer(Notification.class, new PushSerializationCache.MemoizingSerializer<Notification>(new NotificationSerializer()))
                 .addDeserializer(Notification.class, notificationDeserializer)
                 .addSerializer(Interactive.class, new InteractiveSerializer())
                 .addDeserializer(Interactive.class, new InteractiveDeserializer())
@@ -226,11 +226,11 @@ public class PushObjectMapper {
                 .addSerializer(DeviceType.class, new DeviceTypeSerializer())
                 .addDeserializer(DeviceType.class, new PlatformDeserializer())
                 .addSerializer(Campaigns.class, new CampaignsSerializer())
-                .addSerializer(Selector.class, new SelectorSerializer())
+                .addSerializer(Selector.class, new PushSerializationCache.MemoizingSerializer<Selector>(new SelectorSerializer()))
                 .addDeserializer(Selector.class, new SelectorDeserializer())
-                .addSerializer(LocationSelector.class, new LocationSelectorSerializer())
+                .addSerializer(LocationSelector.class, new PushSerializationCache.MemoizingSerializer<LocationSelector>(new LocationSelectorSerializer()))
                 .addDeserializer(LocationSelector.class, new LocationSelectorDeserializer())
-                .addSerializer(SmsSelector.class, new SmsSelectorSerializer())
+                .addSerializer(SmsSelector.class, new PushSerializationCache.MemoizingSerializer<SmsSelector>(new SmsSelectorSerializer()))
                 .addSerializer(AbsoluteDateRange.class, new AbsoluteDateRangeSerializer())
                 .addDeserializer(AbsoluteDateRange.Builder.class, new AbsoluteDateRangeDeserializer())
                 .addSerializer(RecentDateRange.class, new RecentDateRangeSerializer())
@@ -364,7 +364,7 @@ public class PushObjectMapper {
                 .addSerializer((EmailPayload.class), new EmailPayloadSerializer())
 
                 /* LOCALIZATION */
-                .addSerializer(Localization.class, new LocalizationSerializer())
+                .addSerializer(Localization.class, new PushSerializationCache.MemoizingSerializer<Localization>(new LocalizationSerializer()))
 
                 /* Create And Send */
                 .addSerializer(SmsFields.class, new SmsFieldsSerializer())
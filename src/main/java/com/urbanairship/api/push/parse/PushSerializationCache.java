@@ -0,0 +1,225 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.push.parse;
+
+import com.fasterxml.jackson.core.JsonEncoding;
+import com.fasterxml.jackson.core.JsonFactory;
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.core.ObjectCodec;
+import com.fasterxml.jackson.core.SerializableString;
+import com.fasterxml.jackson.core.io.CharacterEscapes;
+import com.fasterxml.jackson.core.io.SerializedString;
+import com.fasterxml.jackson.core.json.UTF8JsonGenerator;
+import com.fasterxml.jackson.core.json.WriterBasedJsonGenerator;
+import com.fasterxml.jackson.databind.JsonSerializer;
+import com.fasterxml.jackson.databind.SerializationConfig;
+import com.fasterxml.jackson.databind.SerializerProvider;
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.MapMaker;
+import com.urbanairship.api.push.model.PushOptions;
+import com.urbanairship.api.push.model.audience.Selector;
+import com.urbanairship.api.push.model.localization.Localization;
+import com.urbanairship.api.push.model.notification.Notification;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Opt-in cache of the serialized form of immutable push model objects. Once an instance is memoized, it is only
+ * serialized the first time it is written; every later write splices its encoded JSON into the output as a raw value,
+ * so that a notification shared by thousands of payloads costs a copy of bytes instead of a serialization.
+ *
+ * Notifications, selectors, push options and localizations can be memoized. Instances are held weakly and compared by
+ * identity: they are forgotten once no longer referenced elsewhere.
+ *
+ * The encoded form depends on how the output is written, so an instance keeps one per configuration it is written
+ * with: the mapper's serialization config, the generator's features and character escapes, and whether it writes
+ * bytes or characters. A UTF-8 output escapes each half of a surrogate pair where a character output writes them as
+ * is, for instance, and the cached form matches what {@link PushSizeEstimator} measures. Writes that can't splice a
+ * raw value are serialized as usual: pretty printed output, whose indentation depends on where the value is written,
+ * and generators other than Jackson's JSON generators, such as the token buffers behind {@code valueToTree}.
+ */
+public final class PushSerializationCache {
+
+    private static final ConcurrentMap<Object, ConcurrentMap<Encoding, SerializableString>> ENCODED = new MapMaker()
+        .weakKeys()
+        .makeMap();
+
+    private PushSerializationCache() {
+    }
+
+    /**
+     * Memoize the serialized form of an object.
+     *
+     * @param value A Notification, Selector, PushOptions or Localization.
+     * @param <T> The type of the object.
+     * @return The object.
+     */
+    public static <T> T memoize(T value) {
+        Preconditions.checkNotNull(value, "value may not be null");
+        Preconditions.checkArgument(value instanceof Notification || value instanceof Selector
+                || value instanceof PushOptions || value instanceof Localization,
+            "Only notifications, selectors, push options and localizations can be memoized");
+        ENCODED.putIfAbsent(value, new ConcurrentHashMap<Encoding, SerializableString>(2));
+        return value;
+    }
+
+    /**
+     * Stop memoizing the serialized form of an object.
+     *
+     * @param value The object.
+     */
+    public static void forget(Object value) {
+        ENCODED.remove(value);
+    }
+
+    /**
+     * Whether the serialized form of an object is memoized.
+     *
+     * @param value The object.
+     * @return boolean
+     */
+    public static boolean isMemoized(Object value) {
+        return ENCODED.containsKey(value);
+    }
+
+    /**
+     * Get the serialized forms of an object memoized so far, one per output configuration it has been written with.
+     */
+    static List<String> getEncodings(Object value) {
+        ConcurrentMap<Encoding, SerializableString> encodings = ENCODED.get(value);
+        if (encodings == null) {
+            return ImmutableList.of();
+        }
+        List<String> values = new ArrayList<>();
+        for (SerializableString encoded : encodings.values()) {
+            values.add(encoded.getValue());
+        }
+        return values;
+    }
+
+    /**
+     * Writes a value with its serializer, or splices its memoized serialized form.
+     */
+    static <T> void write(T value, JsonSerializer<T> serializer, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+        ConcurrentMap<Encoding, SerializableString> encodings = ENCODED.get(value);
+        if (encodings == null || !canSplice(jgen)) {
+            serializer.serialize(value, jgen, provider);
+            return;
+        }
+
+        Encoding encoding = new Encoding(jgen, provider.getConfig());
+        SerializableString json = encodings.get(encoding);
+        if (json == null) {
+            json = new SerializedString(encode(value, serializer, jgen, provider));
+            SerializableString existing = encodings.putIfAbsent(encoding, json);
+            if (existing != null) {
+                json = existing;
+            }
+        }
+        jgen.writeRawValue(json);
+    }
+
+    private static boolean canSplice(JsonGenerator jgen) {
+        return jgen.getPrettyPrinter() == null
+            && jgen.getCodec() != null
+            && (jgen instanceof UTF8JsonGenerator || jgen instanceof WriterBasedJsonGenerator);
+    }
+
+    /**
+     * Serializes a value with a generator of the same kind and configuration as the one it is spliced into.
+     */
+    private static <T> String encode(T value, JsonSerializer<T> serializer, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+        JsonFactory factory = jgen.getCodec().getFactory();
+        if (jgen instanceof UTF8JsonGenerator) {
+            ByteArrayOutputStream out = new ByteArrayOutputStream();
+            try (JsonGenerator encoder = configure(factory.createGenerator(out, JsonEncoding.UTF8), jgen)) {
+                serializer.serialize(value, encoder, provider);
+            }
+            return new String(out.toByteArray(), StandardCharsets.UTF_8);
+        }
+
+        StringWriter writer = new StringWriter();
+        try (JsonGenerator encoder = configure(factory.createGenerator(writer), jgen)) {
+            serializer.serialize(value, encoder, provider);
+        }
+        return writer.toString();
+    }
+
+    private static JsonGenerator configure(JsonGenerator encoder, JsonGenerator jgen) {
+        encoder.setCodec(jgen.getCodec());
+        encoder.overrideStdFeatures(jgen.getFeatureMask(), -1);
+        encoder.setCharacterEscapes(jgen.getCharacterEscapes());
+        encoder.setHighestNonEscapedChar(jgen.getHighestEscapedChar());
+        return encoder;
+    }
+
+    /**
+     * The configuration an encoded form was written with.
+     */
+    private static final class Encoding {
+        private final Class<?> generatorType;
+        private final ObjectCodec codec;
+        private final SerializationConfig config;
+        private final int features;
+        private final CharacterEscapes escapes;
+        private final int highestNonEscapedChar;
+
+        private Encoding(JsonGenerator jgen, SerializationConfig config) {
+            this.generatorType = jgen.getClass();
+            this.codec = jgen.getCodec();
+            this.config = config;
+            this.features = jgen.getFeatureMask();
+            this.escapes = jgen.getCharacterEscapes();
+            this.highestNonEscapedChar = jgen.getHighestEscapedChar();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Encoding that = (Encoding) o;
+            // The codec, config and escapes don't override equals: they are compared by identity.
+            return generatorType == that.generatorType && codec == that.codec && config == that.config
+                && features == that.features && escapes == that.escapes
+                && highestNonEscapedChar == that.highestNonEscapedChar;
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(generatorType, System.identityHashCode(codec), System.identityHashCode(config),
+                features, System.identityHashCode(escapes), highestNonEscapedChar);
+        }
+    }
+
+    /**
+     * Wraps the serializer of a type that can be memoized.
+     */
+    static final class MemoizingSerializer<T> extends JsonSerializer<T> {
+
+        private final JsonSerializer<T> serializer;
+
+        MemoizingSerializer(JsonSerializer<T> serializer) {
+            this.serializer = serializer;
+        }
+
+        @Override
+        public void serialize(T value, JsonGenerator jgen, SerializerProvider provider) throws IOException {
+            write(value, serializer, jgen, provider);
+        }
+    }
+}
@@ -0,0 +1,230 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.push.parse;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Preconditions;
+import com.google.common.cache.Cache;
+import com.google.common.cache.CacheBuilder;
+import com.google.common.io.ByteStreams;
+import com.google.common.io.CountingOutputStream;
+import com.urbanairship.api.push.model.DeviceType;
+import com.urbanairship.api.push.model.PushPayload;
+import com.urbanairship.api.push.model.localization.Localization;
+import com.urbanairship.api.push.model.notification.DevicePayloadOverride;
+import com.urbanairship.api.push.model.notification.Notification;
+
+import java.io.IOException;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+
+/**
+ * Computes the exact size in bytes of the JSON encoding of push model objects, as written by the
+ * {@link PushObjectMapper}, without building their JSON String.
+ *
+ * Push payloads and notifications are sized field by field, following {@link PushPayloadSerializer} and
+ * {@link NotificationSerializer}. Their other parts (audiences, device payload overrides, actions, options,
+ * localizations...) are serialized once into a byte counter and their size cached for the instance, since the push
+ * model objects are immutable: an object shared by many payloads is only measured once. The cache holds its keys weakly,
+ * by identity.
+ */
+public class PushSizeEstimator {
+
+    public static final long DEFAULT_MAX_CACHED_SIZES = 100000;
+
+    private static final PushSizeEstimator INSTANCE = new PushSizeEstimator();
+
+    private final ObjectMapper mapper;
+    private final Cache<Object, Long> sizes;
+
+    /**
+     * Creates an estimator caching up to 100000 sizes.
+     */
+    public PushSizeEstimator() {
+        this(DEFAULT_MAX_CACHED_SIZES);
+    }
+
+    /**
+     * Creates an estimator.
+     *
+     * @param maxCachedSizes The number of object sizes cached.
+     */
+    public PushSizeEstimator(long maxCachedSizes) {
+        Preconditions.checkArgument(maxCachedSizes >= 0, "maxCachedSizes cannot be negative");
+        this.mapper = PushObjectMapper.getInstance();
+        this.sizes = CacheBuilder.newBuilder()
+            .weakKeys()
+            .maximumSize(maxCachedSizes)
+            .build();
+    }
+
+    /**
+     * Get the estimator shared by the library.
+     *
+     * @return PushSizeEstimator
+     */
+    public static PushSizeEstimator getInstance() {
+        return INSTANCE;
+    }
+
+    /**
+     * Get the size of the JSON encoding of a push payload.
+     *
+     * @param payload PushPayload
+     * @return The size in bytes.
+     */
+    public long sizeOf(PushPayload payload) {
+        Fields fields = new Fields();
+        fields.add("audience", sizeOf(payload.getAudience()));
+        fields.add("device_types", sizeOf(payload.getDeviceTypes().getDeviceTypes().get()));
+        if (payload.getNotification().isPresent()) {
+            fields.add("notification", sizeOf(payload.getNotification().get()));
+        }
+        if (payload.getMessage().isPresent()) {
+            fields.add("message", sizeOf(payload.getMessage().get()));
+        }
+        if (payload.getPushOptions().isPresent()) {
+            fields.add("options", sizeOf(payload.getPushOptions().get()));
+        }
+        if (payload.getInApp().isPresent()) {
+            fields.add("in_app", sizeOf(payload.getInApp().get()));
+        }
+        if (payload.getCampaigns().isPresent()) {
+            fields.add("campaigns", sizeOf(payload.getCampaigns().get()));
+        }
+        if (payload.getLocalizations().isPresent()) {
+            long size = 2;
+            boolean first = true;
+            for (Localization localization : payload.getLocalizations().get()) {
+                size += sizeOf(localization) + (first ? 0 : 1);
+                first = false;
+            }
+            fields.add("localizations", size);
+        }
+        return fields.size();
+    }
+
+    /**
+     * Get the size of the JSON encoding of a notification, cached for the instance.
+     *
+     * @param notification Notification
+     * @return The size in bytes.
+     */
+    public long sizeOf(final Notification notification) {
+        return cached(notification, new Callable<Long>() {
+            @Override
+            public Long call() throws IOException {
+                Fields fields = new Fields();
+                if (notification.getAlert().isPresent()) {
+                    fields.add("alert", sizeOf(notification.getAlert().get()));
+                }
+                for (Map.Entry<DeviceType, DevicePayloadOverride> entry : notification.getDeviceTypePayloadOverrides().entrySet()) {
+                    fields.add(entry.getKey().getIdentifier(), sizeOf(entry.getValue()));
+                }
+                if (notification.getActions().isPresent()) {
+                    fields.add("actions", sizeOf(notification.getActions().get()));
+                }
+                if (notification.getInteractive().isPresent()) {
+                    fields.add("interactive", sizeOf(notification.getInteractive().get()));
+                }
+                return fields.size();
+            }
+        });
+    }
+
+    /**
+     * Get the size of the JSON encoding of a string, escapes and quotes included.
+     *
+     * @param value String
+     * @return The size in bytes.
+     */
+    public long sizeOf(String value) {
+        return stringSize(value);
+    }
+
+    /**
+     * Get the size of the JSON encoding of an immutable push model object, such as an IOSDevicePayload,
+     * AndroidDevicePayload, WNSDevicePayload, Actions, Localization or Selector, cached for the instance.
+     *
+     * @param value The object.
+     * @return The size in bytes.
+     */
+    public long sizeOf(final Object value) {
+        if (value instanceof PushPayload) {
+            return sizeOf((PushPayload) value);
+        }
+        if (value instanceof Notification) {
+            return sizeOf((Notification) value);
+        }
+        if (value instanceof String) {
+            return sizeOf((String) value);
+        }
+        return cached(value, new Callable<Long>() {
+            @Override
+            public Long call() throws IOException {
+                CountingOutputStream out = new CountingOutputStream(ByteStreams.nullOutputStream());
+                mapper.writeValue(out, value);
+                return out.getCount();
+            }
+        });
+    }
+
+    private long cached(Object value, Callable<Long> size) {
+        try {
+            return sizes.get(value, size);
+        } catch (ExecutionException e) {
+            throw new IllegalArgumentException("Failed to serialize " + value.getClass().getSimpleName(), e.getCause());
+        }
+    }
+
+    /**
+     * Computes the size of a JSON string the way Jackson writes it in UTF-8: quotes and backslashes are escaped with a
+     * backslash, control characters with their short escape, and the other characters are encoded as is, except
+     * control characters without a short escape and each half of a surrogate pair, which are written as unicode escapes.
+     */
+    static long stringSize(String value) {
+        long size = 2;
+        int length = value.length();
+        for (int i = 0; i < length; i++) {
+            char c = value.charAt(i);
+            if (c < 0x80) {
+                if (c < 0x20) {
+                    size += (c == '\b' || c == '\t' || c == '\n' || c == '\f' || c == '\r') ? 2 : 6;
+                } else if (c == '"' || c == '\\') {
+                    size += 2;
+                } else {
+                    size += 1;
+                }
+            } else if (c < 0x800) {
+                size += 2;
+            } else if (Character.isSurrogate(c)) {
+                size += 6;
+            } else {
+                size += 3;
+            }
+        }
+        return size;
+    }
+
+    /**
+     * The size of a JSON object being summed up field by field.
+     */
+    private static final class Fields {
+        // The braces.
+        private long size = 2;
+        private int count = 0;
+
+        private void add(String name, long valueSize) {
+            // The quoted name and the colon, plus the comma separating the field from the previous one.
+            size += name.length() + 3 + valueSize + (count > 0 ? 1 : 0);
+            count++;
+        }
+
+        private long size() {
+            return size;
+        }
+    }
+}
@@ -1,20 +1,18 @@
 package com.urbanairship.api.reports;
 
+import com.urbanairship.api.client.JsonResponseParser;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
 import com.urbanairship.api.common.parse.DateFormats;
 import com.urbanairship.api.reports.model.DevicesReport;
 import com.urbanairship.api.reports.parse.ReportsObjectMapper;
-import org.apache.http.HttpHeaders;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.ContentType;
 import org.joda.time.DateTime;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.Optional;
 
@@ -24,6 +22,7 @@ import java.util.Optional;
  */
 public class DevicesReportRequest implements Request<DevicesReport> {
     private final static String API_DEVICES_REPORT = "/api/reports/devices/";
+    private static final ResponseParser<DevicesReport> PARSER = new JsonResponseParser<>(ReportsObjectMapper.getInstance(), DevicesReport.class);
     private final String path;
     private Optional<DateTime> date;
 
@@ -69,10 +68,7 @@ public class DevicesReportRequest implements Request<DevicesReport> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -95,12 +91,7 @@ public class DevicesReportRequest implements Request<DevicesReport> {
 
     @Override
     public ResponseParser<DevicesReport> getResponseParser() {
-        return new ResponseParser<DevicesReport>() {
-            @Override
-            public DevicesReport parse(String response) throws IOException {
-                return ReportsObjectMapper.getInstance().readValue(response, DevicesReport.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
@@ -1,22 +1,25 @@
 package com.urbanairship.api.reports;
 
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.urbanairship.api.client.JsonResponseParser;
+import com.urbanairship.api.client.Paginator;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
+import com.urbanairship.api.client.UrbanAirshipClient;
 import com.urbanairship.api.common.parse.DateFormats;
+import com.urbanairship.api.reports.model.PlatformStats;
 import com.urbanairship.api.reports.model.PlatformStatsResponse;
 import com.urbanairship.api.reports.model.Precision;
 import com.urbanairship.api.reports.parse.ReportsObjectMapper;
-import org.apache.http.HttpHeaders;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.ContentType;
 import org.joda.time.DateTime;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -25,6 +28,8 @@ import java.util.Map;
  * the {@link com.urbanairship.api.client.UrbanAirshipClient}
  */
 public class PlatformStatsRequest implements Request<PlatformStatsResponse> {
+    private static final ResponseParser<PlatformStatsResponse> PARSER = new JsonResponseParser<>(ReportsObjectMapper.getInstance(), PlatformStatsResponse.class);
+
     private final String path;
     private final boolean nextPageRequest;
     private DateTime start;
@@ -90,6 +95,37 @@ public class PlatformStatsRequest implements Request<PlatformStatsResponse> {
         return this;
     }
 
+    /**
+     * Create a paginator builder iterating over the platform stats of the listing, starting with the given request.
+     *
+     * @param client UrbanAirshipClient
+     * @param firstRequest PlatformStatsRequest
+     * @return Paginator builder
+     */
+    public static Paginator.Builder<PlatformStatsResponse, PlatformStats> newPaginatorBuilder(UrbanAirshipClient client, PlatformStatsRequest firstRequest) {
+        return Paginator.<PlatformStatsResponse, PlatformStats>newBuilder()
+            .setClient(client)
+            .setFirstRequest(firstRequest)
+            .setNextPageRequest(new Function<URI, PlatformStatsRequest>() {
+                @Override
+                public PlatformStatsRequest apply(URI nextPage) {
+                    return newRequest(nextPage);
+                }
+            })
+            .setPageElements(new Function<PlatformStatsResponse, Iterable<PlatformStats>>() {
+                @Override
+                public Iterable<PlatformStats> apply(PlatformStatsResponse response) {
+                    return response.getPlatformStatsObjects().orNull();
+                }
+            })
+            .setNextPage(new Function<PlatformStatsResponse, Optional<String>>() {
+                @Override
+                public Optional<String> apply(PlatformStatsResponse response) {
+                    return response.getNextPage();
+                }
+            });
+    }
+
     @Override
     public ContentType getContentType() {
         return ContentType.APPLICATION_JSON;
@@ -97,10 +133,7 @@ public class PlatformStatsRequest implements Request<PlatformStatsResponse> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -140,12 +173,7 @@ public class PlatformStatsRequest implements Request<PlatformStatsResponse> {
 
     @Override
     public ResponseParser<PlatformStatsResponse> getResponseParser() {
-        return new ResponseParser<PlatformStatsResponse>() {
-            @Override
-            public PlatformStatsResponse parse(String response) throws IOException {
-                return ReportsObjectMapper.getInstance().readValue(response, PlatformStatsResponse.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
@@ -4,17 +4,15 @@
 
 package com.urbanairship.api.reports;
 
+import com.urbanairship.api.client.JsonResponseParser;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
 import com.urbanairship.api.reports.model.PushInfoResponse;
 import com.urbanairship.api.reports.parse.ReportsObjectMapper;
-import org.apache.http.HttpHeaders;
 import org.apache.http.entity.ContentType;
 
-import java.io.IOException;
 import java.net.URI;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -24,6 +22,7 @@ import java.util.Map;
  */
 public class PushInfoRequest implements Request<PushInfoResponse> {
     private final static String API_PUSH_RESPONSE_STATS = "/api/reports/responses/";
+    private static final ResponseParser<PushInfoResponse> PARSER = new JsonResponseParser<>(ReportsObjectMapper.getInstance(), PushInfoResponse.class);
 
     private final String path;
 
@@ -48,10 +47,7 @@ public class PushInfoRequest implements Request<PushInfoResponse> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -71,12 +67,7 @@ public class PushInfoRequest implements Request<PushInfoResponse> {
 
     @Override
     public ResponseParser<PushInfoResponse> getResponseParser() {
-        return new ResponseParser<PushInfoResponse>() {
-            @Override
-            public PushInfoResponse parse(String response) throws IOException {
-                return ReportsObjectMapper.getInstance().readValue(response, PushInfoResponse.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
@@ -4,23 +4,25 @@
 
 package com.urbanairship.api.reports;
 
+import com.google.common.base.Function;
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.urbanairship.api.client.JsonResponseParser;
+import com.urbanairship.api.client.Paginator;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
+import com.urbanairship.api.client.UrbanAirshipClient;
 import com.urbanairship.api.common.parse.DateFormats;
+import com.urbanairship.api.reports.model.PushInfoResponse;
 import com.urbanairship.api.reports.model.PushListingResponse;
 import com.urbanairship.api.reports.parse.ReportsObjectMapper;
-import org.apache.http.HttpHeaders;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.ContentType;
 import org.joda.time.DateTime;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.HashMap;
 import java.util.Map;
 
 
@@ -30,6 +32,7 @@ import java.util.Map;
  */
 public class PushListingRequest implements Request<PushListingResponse> {
     private final static String API_PUSH_RESPONSE_LISTING = "/api/reports/responses/list/";
+    private static final ResponseParser<PushListingResponse> PARSER = new JsonResponseParser<>(ReportsObjectMapper.getInstance(), PushListingResponse.class);
     private final String path;
     private final boolean nextPageRequest;
     private DateTime start;
@@ -142,6 +145,37 @@ public class PushListingRequest implements Request<PushListingResponse> {
         return this;
     }
 
+    /**
+     * Create a paginator builder iterating over the pushes of the listing, starting with the given request.
+     *
+     * @param client UrbanAirshipClient
+     * @param firstRequest PushListingRequest
+     * @return Paginator builder
+     */
+    public static Paginator.Builder<PushListingResponse, PushInfoResponse> newPaginatorBuilder(UrbanAirshipClient client, PushListingRequest firstRequest) {
+        return Paginator.<PushListingResponse, PushInfoResponse>newBuilder()
+            .setClient(client)
+            .setFirstRequest(firstRequest)
+            .setNextPageRequest(new Function<URI, PushListingRequest>() {
+                @Override
+                public PushListingRequest apply(URI nextPage) {
+                    return newRequest(nextPage);
+                }
+            })
+            .setPageElements(new Function<PushListingResponse, Iterable<PushInfoResponse>>() {
+                @Override
+                public Iterable<PushInfoResponse> apply(PushListingResponse response) {
+                    return response.getPushInfoList().orNull();
+                }
+            })
+            .setNextPage(new Function<PushListingResponse, Optional<String>>() {
+                @Override
+                public Optional<String> apply(PushListingResponse response) {
+                    return response.getNextPage();
+                }
+            });
+    }
+
     @Override
     public ContentType getContentType() {
         return ContentType.APPLICATION_JSON;
@@ -149,10 +183,7 @@ public class PushListingRequest implements Request<PushListingResponse> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -188,12 +219,7 @@ public class PushListingRequest implements Request<PushListingResponse> {
 
     @Override
     public ResponseParser<PushListingResponse> getResponseParser() {
-        return new ResponseParser<PushListingResponse>() {
-            @Override
-            public PushListingResponse parse(String response) throws IOException {
-                return ReportsObjectMapper.getInstance().readValue(response, PushListingResponse.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
@@ -1,22 +1,25 @@
 package com.urbanairship.api.reports;
 
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.urbanairship.api.client.JsonResponseParser;
+import com.urbanairship.api.client.Paginator;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
+import com.urbanairship.api.client.UrbanAirshipClient;
 import com.urbanairship.api.common.parse.DateFormats;
 import com.urbanairship.api.reports.model.Precision;
 import com.urbanairship.api.reports.model.ResponseReport;
+import com.urbanairship.api.reports.model.ResponseReportResponse;
 import com.urbanairship.api.reports.parse.ReportsObjectMapper;
-import org.apache.http.HttpHeaders;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.ContentType;
 import org.joda.time.DateTime;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -25,6 +28,7 @@ import java.util.Map;
  */
 public class ResponseReportRequest implements Request<ResponseReport> {
     private final static String API_RESPONSE_REPORT = "/api/reports/responses/";
+    private static final ResponseParser<ResponseReport> PARSER = new JsonResponseParser<>(ReportsObjectMapper.getInstance(), ResponseReport.class);
     private final String path;
     private final boolean nextPageRequest;
     private DateTime start;
@@ -65,6 +69,37 @@ public class ResponseReportRequest implements Request<ResponseReport> {
         return new ResponseReportRequest(start, end, precision, nextPage.getPath() + "?" + nextPage.getQuery(), true);
     }
 
+    /**
+     * Create a paginator builder iterating over the response report entries of the listing, starting with the given request.
+     *
+     * @param client UrbanAirshipClient
+     * @param firstRequest ResponseReportRequest
+     * @return Paginator builder
+     */
+    public static Paginator.Builder<ResponseReport, ResponseReportResponse> newPaginatorBuilder(UrbanAirshipClient client, final ResponseReportRequest firstRequest) {
+        return Paginator.<ResponseReport, ResponseReportResponse>newBuilder()
+            .setClient(client)
+            .setFirstRequest(firstRequest)
+            .setNextPageRequest(new Function<URI, ResponseReportRequest>() {
+                @Override
+                public ResponseReportRequest apply(URI nextPage) {
+                    return newRequest(firstRequest.start, firstRequest.end, firstRequest.precision, nextPage);
+                }
+            })
+            .setPageElements(new Function<ResponseReport, Iterable<ResponseReportResponse>>() {
+                @Override
+                public Iterable<ResponseReportResponse> apply(ResponseReport response) {
+                    return response.getResponses().orElse(null);
+                }
+            })
+            .setNextPage(new Function<ResponseReport, Optional<String>>() {
+                @Override
+                public Optional<String> apply(ResponseReport response) {
+                    return Optional.fromNullable(response.getNextPage().orElse(null));
+                }
+            });
+    }
+
     @Override
     public ContentType getContentType() {
         return ContentType.APPLICATION_JSON;
@@ -82,10 +117,7 @@ public class ResponseReportRequest implements Request<ResponseReport> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -115,12 +147,7 @@ public class ResponseReportRequest implements Request<ResponseReport> {
 
     @Override
     public ResponseParser<ResponseReport> getResponseParser() {
-        return new ResponseParser<ResponseReport>() {
-            @Override
-            public ResponseReport parse(String response) throws IOException {
-                return ReportsObjectMapper.getInstance().readValue(response, ResponseReport.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
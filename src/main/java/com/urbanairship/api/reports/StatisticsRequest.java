@@ -2,6 +2,7 @@ package com.urbanairship.api.reports;
 
 import com.fasterxml.jackson.core.type.TypeReference;
 import com.google.common.base.Preconditions;
+import com.urbanairship.api.client.JsonResponseParser;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
@@ -12,7 +13,6 @@ import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.ContentType;
 import org.joda.time.DateTime;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.List;
@@ -20,6 +20,7 @@ import java.util.Map;
 
 public class StatisticsRequest implements Request<List<StatisticsResponse>> {
     private final static String API_STATISTICS = "/api/push/stats/";
+    private static final ResponseParser<List<StatisticsResponse>> PARSER = new JsonResponseParser<>(ReportsObjectMapper.getInstance(), new TypeReference<List<StatisticsResponse>>() {});
 
     private final DateTime start;
     private final DateTime end;
@@ -79,12 +80,7 @@ public class StatisticsRequest implements Request<List<StatisticsResponse>> {
 
     @Override
     public ResponseParser<List<StatisticsResponse>> getResponseParser() {
-        return new ResponseParser<List<StatisticsResponse>>() {
-            @Override
-            public List<StatisticsResponse> parse(String response) throws IOException {
-                return ReportsObjectMapper.getInstance().readValue(response, new TypeReference<List<StatisticsResponse>>() {});
-            }
-        };
+        return PARSER;
     }
 
     @Override
@@ -1,10 +1,15 @@
 package com.urbanairship.api.schedule;
 
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
-import com.google.common.net.HttpHeaders;
+import com.urbanairship.api.client.JsonResponseParser;
+import com.urbanairship.api.client.Paginator;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
+import com.urbanairship.api.client.StreamingResponseParser;
+import com.urbanairship.api.client.UrbanAirshipClient;
 import com.urbanairship.api.schedule.model.ListAllSchedulesResponse;
 import com.urbanairship.api.schedule.model.SchedulePayload;
 import com.urbanairship.api.schedule.parse.ScheduleObjectMapper;
@@ -12,8 +17,8 @@ import org.apache.commons.lang.StringUtils;
 import org.apache.http.entity.ContentType;
 
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
-import java.util.HashMap;
 import java.util.Map;
 import java.util.UUID;
 
@@ -23,22 +28,17 @@ import java.util.UUID;
  */
 public class ScheduleListingRequest implements Request<ListAllSchedulesResponse> {
 
-    private static final ResponseParser<ListAllSchedulesResponse> LIST_PARSER = new ResponseParser<ListAllSchedulesResponse>() {
+    private static final ResponseParser<ListAllSchedulesResponse> LIST_PARSER = new JsonResponseParser<>(ScheduleObjectMapper.getInstance(), ListAllSchedulesResponse.class);
+
+    private static final ResponseParser<ListAllSchedulesResponse> SINGLE_LOOKUP_PARSER = new StreamingResponseParser<ListAllSchedulesResponse>() {
         @Override
         public ListAllSchedulesResponse parse(String response) throws IOException {
-            return ScheduleObjectMapper.getInstance().readValue(response, ListAllSchedulesResponse.class);
+            return singleScheduleResponse(ScheduleObjectMapper.getInstance().readValue(response, SchedulePayload.class));
         }
-    };
 
-    private static final ResponseParser<ListAllSchedulesResponse> SINGLE_LOOKUP_PARSER = new ResponseParser<ListAllSchedulesResponse>() {
         @Override
-        public ListAllSchedulesResponse parse(String response) throws IOException {
-            return ListAllSchedulesResponse.newBuilder()
-                .setCount(1)
-                .setTotalCount(1)
-                .setOk(true)
-                .addSchedule(ScheduleObjectMapper.getInstance().readValue(response, SchedulePayload.class))
-                .build();
+        public ListAllSchedulesResponse parse(InputStream response) throws IOException {
+            return singleScheduleResponse(ScheduleObjectMapper.getInstance().readValue(response, SchedulePayload.class));
         }
     };
 
@@ -97,6 +97,37 @@ public class ScheduleListingRequest implements Request<ListAllSchedulesResponse>
         return new ScheduleListingRequest(nextPage.getPath() + "?" + nextPage.getQuery(), LIST_PARSER);
     }
 
+    /**
+     * Create a paginator builder iterating over the schedules of the listing, starting with the given request.
+     *
+     * @param client UrbanAirshipClient
+     * @param firstRequest ScheduleListingRequest
+     * @return Paginator builder
+     */
+    public static Paginator.Builder<ListAllSchedulesResponse, SchedulePayload> newPaginatorBuilder(UrbanAirshipClient client, ScheduleListingRequest firstRequest) {
+        return Paginator.<ListAllSchedulesResponse, SchedulePayload>newBuilder()
+            .setClient(client)
+            .setFirstRequest(firstRequest)
+            .setNextPageRequest(new Function<URI, ScheduleListingRequest>() {
+                @Override
+                public ScheduleListingRequest apply(URI nextPage) {
+                    return newRequest(nextPage);
+                }
+            })
+            .setPageElements(new Function<ListAllSchedulesResponse, Iterable<SchedulePayload>>() {
+                @Override
+                public Iterable<SchedulePayload> apply(ListAllSchedulesResponse response) {
+                    return response.getSchedules();
+                }
+            })
+            .setNextPage(new Function<ListAllSchedulesResponse, Optional<String>>() {
+                @Override
+                public Optional<String> apply(ListAllSchedulesResponse response) {
+                    return Optional.fromNullable(response.getNext_Page());
+                }
+            });
+    }
+
     @Override
     public HttpMethod getHttpMethod() {
         return HttpMethod.GET;
@@ -114,10 +145,7 @@ public class ScheduleListingRequest implements Request<ListAllSchedulesResponse>
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -134,4 +162,13 @@ public class ScheduleListingRequest implements Request<ListAllSchedulesResponse>
     public boolean bearerTokenAuthRequired() {
         return false;
     }
+
+    private static ListAllSchedulesResponse singleScheduleResponse(SchedulePayload schedule) {
+        return ListAllSchedulesResponse.newBuilder()
+            .setCount(1)
+            .setTotalCount(1)
+            .setOk(true)
+            .addSchedule(schedule)
+            .build();
+    }
 }
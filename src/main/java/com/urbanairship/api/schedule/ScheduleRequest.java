@@ -5,7 +5,7 @@ package com.urbanairship.api.schedule;
  */
 
 import com.google.common.base.Preconditions;
-import com.google.common.net.HttpHeaders;
+import com.urbanairship.api.client.JsonResponseParser;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
@@ -17,9 +17,7 @@ import com.urbanairship.api.schedule.parse.ScheduleObjectMapper;
 import org.apache.commons.lang.StringUtils;
 import org.apache.http.entity.ContentType;
 
-import java.io.IOException;
 import java.net.URI;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -29,6 +27,7 @@ import java.util.Map;
 public class ScheduleRequest implements Request<ScheduleResponse> {
 
     final static String API_SCHEDULE_PATH = "/api/schedules/";
+    private static final ResponseParser<ScheduleResponse> PARSER = new JsonResponseParser<>(ScheduleObjectMapper.getInstance(), ScheduleResponse.class);
 
     private final Schedule schedule;
     private final PushPayload pushPayload;
@@ -83,10 +82,7 @@ public class ScheduleRequest implements Request<ScheduleResponse> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -111,12 +107,7 @@ public class ScheduleRequest implements Request<ScheduleResponse> {
 
     @Override
     public ResponseParser<ScheduleResponse> getResponseParser() {
-        return new ResponseParser<ScheduleResponse>() {
-            @Override
-            public ScheduleResponse parse(String response) throws IOException {
-                return ScheduleObjectMapper.getInstance().readValue(response, ScheduleResponse.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
@@ -4,18 +4,21 @@
 
 package com.urbanairship.api.segments;
 
+import com.google.common.base.Function;
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
-import com.google.common.net.HttpHeaders;
+import com.urbanairship.api.client.JsonResponseParser;
+import com.urbanairship.api.client.Paginator;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
+import com.urbanairship.api.client.UrbanAirshipClient;
 import com.urbanairship.api.segments.model.SegmentListingResponse;
+import com.urbanairship.api.segments.model.SegmentListingView;
 import com.urbanairship.api.segments.parse.SegmentObjectMapper;
 import org.apache.http.entity.ContentType;
 
-import java.io.IOException;
 import java.net.URI;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -24,6 +27,7 @@ import java.util.Map;
  */
 public class SegmentListingRequest implements Request<SegmentListingResponse> {
     private final static String API_SEGMENTS_PATH = "/api/segments/";
+    private static final ResponseParser<SegmentListingResponse> PARSER = new JsonResponseParser<>(SegmentObjectMapper.getInstance(), SegmentListingResponse.class);
 
     private final String path;
 
@@ -51,6 +55,37 @@ public class SegmentListingRequest implements Request<SegmentListingResponse> {
         return new SegmentListingRequest(nextPage.getPath() + "?" + nextPage.getQuery());
     }
 
+    /**
+     * Create a paginator builder iterating over the segments of the listing, starting with the given request.
+     *
+     * @param client UrbanAirshipClient
+     * @param firstRequest SegmentListingRequest
+     * @return Paginator builder
+     */
+    public static Paginator.Builder<SegmentListingResponse, SegmentListingView> newPaginatorBuilder(UrbanAirshipClient client, SegmentListingRequest firstRequest) {
+        return Paginator.<SegmentListingResponse, SegmentListingView>newBuilder()
+            .setClient(client)
+            .setFirstRequest(firstRequest)
+            .setNextPageRequest(new Function<URI, SegmentListingRequest>() {
+                @Override
+                public SegmentListingRequest apply(URI nextPage) {
+                    return newRequest(nextPage);
+                }
+            })
+            .setPageElements(new Function<SegmentListingResponse, Iterable<SegmentListingView>>() {
+                @Override
+                public Iterable<SegmentListingView> apply(SegmentListingResponse response) {
+                    return response.getSegmentListingViews();
+                }
+            })
+            .setNextPage(new Function<SegmentListingResponse, Optional<String>>() {
+                @Override
+                public Optional<String> apply(SegmentListingResponse response) {
+                    return response.getNextPage();
+                }
+            });
+    }
+
     @Override
     public ContentType getContentType() {
         return null;
@@ -58,9 +93,7 @@ public class SegmentListingRequest implements Request<SegmentListingResponse> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_ACCEPT_HEADERS;
     }
 
     @Override
@@ -80,12 +113,7 @@ public class SegmentListingRequest implements Request<SegmentListingResponse> {
 
     @Override
     public ResponseParser<SegmentListingResponse> getResponseParser() {
-        return new ResponseParser<SegmentListingResponse>() {
-            @Override
-            public SegmentListingResponse parse(String response) throws IOException {
-                return SegmentObjectMapper.getInstance().readValue(response, SegmentListingResponse.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
@@ -5,7 +5,7 @@
 package com.urbanairship.api.segments;
 
 import com.google.common.base.Preconditions;
-import com.google.common.net.HttpHeaders;
+import com.urbanairship.api.client.JsonResponseParser;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
@@ -14,9 +14,7 @@ import com.urbanairship.api.segments.parse.SegmentObjectMapper;
 import org.apache.commons.lang.StringUtils;
 import org.apache.http.entity.ContentType;
 
-import java.io.IOException;
 import java.net.URI;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -25,6 +23,7 @@ import java.util.Map;
  */
 public class SegmentLookupRequest implements Request<SegmentView> {
     private final static String API_SEGMENTS_PATH = "/api/segments/";
+    private static final ResponseParser<SegmentView> PARSER = new JsonResponseParser<>(SegmentObjectMapper.getInstance(), SegmentView.class);
     private final String path;
 
     private SegmentLookupRequest(String path) {
@@ -49,9 +48,7 @@ public class SegmentLookupRequest implements Request<SegmentView> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_ACCEPT_HEADERS;
     }
 
     @Override
@@ -71,12 +68,7 @@ public class SegmentLookupRequest implements Request<SegmentView> {
 
     @Override
     public ResponseParser<SegmentView> getResponseParser() {
-        return new ResponseParser<SegmentView>() {
-            @Override
-            public SegmentView parse(String response) throws IOException {
-                return SegmentObjectMapper.getInstance().readValue(response, SegmentView.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
@@ -6,8 +6,10 @@ package com.urbanairship.api.staticlists;
 
 import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.net.HttpHeaders;
-import com.opencsv.CSVWriter;
+import com.opencsv.CSVParser;
+import com.urbanairship.api.client.ChunkedResponseParser;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
@@ -16,20 +18,45 @@ import org.apache.http.entity.ContentType;
 
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.OutputStreamWriter;
+import java.io.OutputStream;
 import java.net.URI;
-import java.util.HashMap;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
 
 /*
  * The StaticListDownloadRequest class static list download request to be executed in
  * the {@link com.urbanairship.api.client.UrbanAirshipClient}.
+ *
+ * By default the list is returned as the body of the response. When an output file, an output stream or a row consumer
+ * is set, the list is streamed to them as it is received instead, with the same memory whatever the size of the list,
+ * and the response has no body. Only a successful response reaches the outputs: the body of an error response, such as
+ * a 404 for an unknown list, is returned as the body of the response and the outputs are left untouched.
  */
 public class StaticListDownloadRequest implements Request<String> {
     private final static String API_LISTS_PATH = "/api/lists/";
+    private final static Map<String, String> HEADERS = ImmutableMap.of(HttpHeaders.ACCEPT, UA_VERSION_CSV);
+    private final static ResponseParser<String> PARSER = new ResponseParser<String>() {
+        @Override
+        public String parse(String response) throws IOException {
+            return response;
+        }
+    };
     private final String path;
 
-    private Optional<FileOutputStream> fileOutputStream = Optional.absent();
+    private final AtomicBoolean outputStreamWritten = new AtomicBoolean();
+
+    private Optional<Path> outputFile = Optional.absent();
+    private Optional<OutputStream> outputStream = Optional.absent();
+    private Optional<Consumer<String[]>> rowConsumer = Optional.absent();
 
     private StaticListDownloadRequest(String name) {
         this.path = API_LISTS_PATH + name + "/csv";
@@ -58,13 +85,63 @@ public class StaticListDownloadRequest implements Request<String> {
 
 
     /**
-     * Specify a file output stream to route the response data to.
+     * Specify a file output stream to route the response data to. Kept for compatibility, see
+     * {@link #setOutputStream(OutputStream)}.
      *
      * @param fileOutputStream The output stream to write to.
      * @return StaticListDownloadRequest
      */
     public StaticListDownloadRequest setOutputStream(FileOutputStream fileOutputStream) {
-        this.fileOutputStream = Optional.of(fileOutputStream);
+        return setOutputStream((OutputStream) fileOutputStream);
+    }
+
+    /**
+     * Specify an output stream to route the response data to. The list is written to the stream as it is received,
+     * and the stream is closed when the list has been received.
+     *
+     * Unlike a download without output, a successful response then has no body: read the list from the stream.
+     *
+     * A stream can only be written once. If the connection fails while a successful response is being received, the
+     * stream is left with part of the list and the attempt that would retry the download fails with an IOException
+     * instead. Use {@link #setOutputFile(Path)} for downloads that can be retried.
+     *
+     * @param outputStream The output stream to write to.
+     * @return StaticListDownloadRequest
+     */
+    public StaticListDownloadRequest setOutputStream(OutputStream outputStream) {
+        Preconditions.checkNotNull(outputStream, "Output stream cannot be null.");
+        this.outputStream = Optional.of(outputStream);
+        return this;
+    }
+
+    /**
+     * Specify a file to write the response data to. The file is created, or truncated, and written again if the
+     * download is retried.
+     *
+     * Unlike a download without output, a successful response then has no body: read the list from the file.
+     *
+     * @param outputFile The path of the file to write to.
+     * @return StaticListDownloadRequest
+     */
+    public StaticListDownloadRequest setOutputFile(Path outputFile) {
+        Preconditions.checkNotNull(outputFile, "Output file cannot be null.");
+        this.outputFile = Optional.of(outputFile);
+        return this;
+    }
+
+    /**
+     * Specify a consumer receiving the rows of the list, as they are received. The consumer is called on the HTTP
+     * client's I/O thread and should return quickly. If the download is retried, the rows are received again.
+     * Quoted fields may contain commas, escaped quotes and line breaks.
+     *
+     * Unlike a download without output, a successful response then has no body.
+     *
+     * @param rowConsumer The consumer of the parsed rows.
+     * @return StaticListDownloadRequest
+     */
+    public StaticListDownloadRequest setRowConsumer(Consumer<String[]> rowConsumer) {
+        Preconditions.checkNotNull(rowConsumer, "Row consumer cannot be null.");
+        this.rowConsumer = Optional.of(rowConsumer);
         return this;
     }
 
@@ -75,9 +152,7 @@ public class StaticListDownloadRequest implements Request<String> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_CSV);
-        return headers;
+        return HEADERS;
     }
 
     @Override
@@ -97,27 +172,116 @@ public class StaticListDownloadRequest implements Request<String> {
 
     @Override
     public ResponseParser<String> getResponseParser() {
-        return new ResponseParser<String>() {
+        if (!outputFile.isPresent() && !outputStream.isPresent() && !rowConsumer.isPresent()) {
+            return PARSER;
+        }
+
+        return new ChunkedResponseParser<String>() {
+            @Override
+            public BodyConsumer<String> newConsumer() throws IOException {
+                return newListConsumer();
+            }
+
+            // Only error responses are parsed whole: they are not part of the list.
             @Override
             public String parse(String response) throws IOException {
-                if (fileOutputStream.isPresent()) {
-                    try (OutputStreamWriter stream = new OutputStreamWriter(fileOutputStream.get());
-                         CSVWriter writer = new CSVWriter(stream, CSVWriter.DEFAULT_SEPARATOR, CSVWriter.NO_QUOTE_CHARACTER, CSVWriter.NO_ESCAPE_CHARACTER)) {
-                        String[] rows = response.split("\n");
-                        for (String row : rows) {
-                            writer.writeNext(row.split(","));
-                        }
-                    } finally {
-                        fileOutputStream.get().close();
-                    }
-                }
                 return response;
             }
         };
     }
 
+    private ListConsumer newListConsumer() throws IOException {
+        WritableByteChannel output = null;
+        if (outputFile.isPresent()) {
+            output = FileChannel.open(outputFile.get(), StandardOpenOption.WRITE, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        } else if (outputStream.isPresent()) {
+            if (!outputStreamWritten.compareAndSet(false, true)) {
+                throw new IOException("A list downloaded to a stream can only be received once");
+            }
+            output = Channels.newChannel(outputStream.get());
+        }
+        return new ListConsumer(Optional.fromNullable(output), rowConsumer);
+    }
+
     @Override
     public boolean bearerTokenAuthRequired() {
         return false;
     }
+
+    /**
+     * Writes the chunks of the list to the output and splits them into rows for the row consumer. Only the row being
+     * received is buffered. A line break inside a quoted field doesn't end the row; as an escaped quote is written as
+     * two quotes, counting quotes is enough to tell whether a line break is quoted.
+     */
+    private static class ListConsumer implements ChunkedResponseParser.BodyConsumer<String> {
+
+        private final Optional<WritableByteChannel> output;
+        private final Optional<Consumer<String[]>> rowConsumer;
+        private final CSVParser csvParser = new CSVParser();
+
+        private byte[] line = new byte[256];
+        private int lineLength = 0;
+        private boolean quoted = false;
+
+        private ListConsumer(Optional<WritableByteChannel> output, Optional<Consumer<String[]>> rowConsumer) {
+            this.output = output;
+            this.rowConsumer = rowConsumer;
+        }
+
+        @Override
+        public void consume(ByteBuffer chunk) throws IOException {
+            if (rowConsumer.isPresent()) {
+                ByteBuffer rows = chunk.duplicate();
+                while (rows.hasRemaining()) {
+                    byte b = rows.get();
+                    if (b == '\n' && !quoted) {
+                        emitRow();
+                    } else {
+                        if (b == '"') {
+                            quoted = !quoted;
+                        }
+                        if (lineLength == line.length) {
+                            line = Arrays.copyOf(line, line.length * 2);
+                        }
+                        line[lineLength++] = b;
+                    }
+                }
+            }
+
+            if (output.isPresent()) {
+                while (chunk.hasRemaining()) {
+                    output.get().write(chunk);
+                }
+            }
+        }
+
+        @Override
+        public String complete() throws IOException {
+            try {
+                emitRow();
+            } finally {
+                close();
+            }
+            return null;
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (output.isPresent()) {
+                output.get().close();
+            }
+        }
+
+        private void emitRow() throws IOException {
+            int length = lineLength;
+            if (length > 0 && line[length - 1] == '\r') {
+                length--;
+            }
+            lineLength = 0;
+            if (rowConsumer.isPresent() && length > 0) {
+                rowConsumer.get().accept(csvParser.parseLine(new String(line, 0, length, StandardCharsets.UTF_8)));
+            }
+        }
+    }
 }
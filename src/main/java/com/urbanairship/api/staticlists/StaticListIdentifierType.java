@@ -0,0 +1,76 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.staticlists;
+
+import com.google.common.base.Optional;
+
+import java.util.regex.Pattern;
+
+/**
+ * The StaticListIdentifierType enum supplies the identifier types accepted in the rows of a static list csv, used by
+ * the {@link com.urbanairship.api.staticlists.StaticListPreparer} to validate them.
+ */
+public enum StaticListIdentifierType {
+    ALIAS("alias", false),
+    NAMED_USER("named_user", false),
+    IOS_CHANNEL("ios_channel", true),
+    ANDROID_CHANNEL("android_channel", true),
+    AMAZON_CHANNEL("amazon_channel", true),
+    WEB_CHANNEL("web_channel", true);
+
+    private static final int MAX_ID_LENGTH = 128;
+    private static final Pattern UUID = Pattern.compile("[0-9a-fA-F]{8}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{4}-[0-9a-fA-F]{12}");
+
+    private final String type;
+    private final boolean channel;
+
+    private StaticListIdentifierType(final String type, final boolean channel) {
+        this.type = type;
+        this.channel = channel;
+    }
+
+    public String getType() {
+        return type;
+    }
+
+    /**
+     * Find the identifier type of a csv row.
+     *
+     * @param type The identifier type as written in the csv.
+     * @return Optional StaticListIdentifierType, absent if the type is unknown.
+     */
+    public static Optional<StaticListIdentifierType> find(String type) {
+        for (StaticListIdentifierType identifierType : values()) {
+            if (identifierType.type.equals(type)) {
+                return Optional.of(identifierType);
+            }
+        }
+        return Optional.absent();
+    }
+
+    /**
+     * Whether an identifier is valid for this type: channel ids are UUIDs, other ids are non blank and at most 128
+     * characters long.
+     *
+     * @param id The identifier.
+     * @return boolean
+     */
+    public boolean isValid(String id) {
+        if (channel) {
+            return UUID.matcher(id).matches();
+        }
+        return !id.trim().isEmpty() && id.length() <= MAX_ID_LENGTH;
+    }
+
+    /**
+     * Normalize an identifier, so that equal identifiers are written the same way.
+     *
+     * @param id A valid identifier.
+     * @return The normalized identifier.
+     */
+    public String normalize(String id) {
+        return channel ? id.toLowerCase() : id;
+    }
+}
@@ -5,7 +5,7 @@
 package com.urbanairship.api.staticlists;
 
 import com.google.common.base.Optional;
-import com.google.common.net.HttpHeaders;
+import com.urbanairship.api.client.JsonResponseParser;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
@@ -14,10 +14,8 @@ import com.urbanairship.api.staticlists.parse.StaticListsObjectMapper;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.ContentType;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -27,6 +25,7 @@ import java.util.Map;
 public class StaticListListingRequest implements Request<StaticListListingResponse> {
     private final static String API_LISTS_PATH = "/api/lists/";
     private final static String TYPE_PARAM = "type";
+    private static final ResponseParser<StaticListListingResponse> PARSER = new JsonResponseParser<>(StaticListsObjectMapper.getInstance(), StaticListListingResponse.class);
     private Optional<ListType> type;
 
     public enum ListType {all, lifecycle, user}
@@ -62,9 +61,7 @@ public class StaticListListingRequest implements Request<StaticListListingRespon
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_ACCEPT_HEADERS;
     }
 
     @Override
@@ -90,12 +87,7 @@ public class StaticListListingRequest implements Request<StaticListListingRespon
 
     @Override
     public ResponseParser<StaticListListingResponse> getResponseParser() {
-        return new ResponseParser<StaticListListingResponse>() {
-            @Override
-            public StaticListListingResponse parse(String response) throws IOException {
-                return StaticListsObjectMapper.getInstance().readValue(response, StaticListListingResponse.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
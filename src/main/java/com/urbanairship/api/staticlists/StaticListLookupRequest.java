@@ -5,7 +5,7 @@
 package com.urbanairship.api.staticlists;
 
 import com.google.common.base.Preconditions;
-import com.google.common.net.HttpHeaders;
+import com.urbanairship.api.client.JsonResponseParser;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
@@ -14,9 +14,7 @@ import com.urbanairship.api.staticlists.parse.StaticListsObjectMapper;
 import org.apache.commons.lang.StringUtils;
 import org.apache.http.entity.ContentType;
 
-import java.io.IOException;
 import java.net.URI;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -25,6 +23,7 @@ import java.util.Map;
  */
 public class StaticListLookupRequest implements Request<StaticListView> {
     private final static String API_LISTS_PATH = "/api/lists/";
+    private static final ResponseParser<StaticListView> PARSER = new JsonResponseParser<>(StaticListsObjectMapper.getInstance(), StaticListView.class);
     private final String path;
 
     private StaticListLookupRequest(String path) {
@@ -49,9 +48,7 @@ public class StaticListLookupRequest implements Request<StaticListView> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_ACCEPT_HEADERS;
     }
 
     @Override
@@ -71,12 +68,7 @@ public class StaticListLookupRequest implements Request<StaticListView> {
 
     @Override
     public ResponseParser<StaticListView> getResponseParser() {
-        return new ResponseParser<StaticListView>() {
-            @Override
-            public StaticListView parse(String response) throws IOException {
-                return StaticListsObjectMapper.getInstance().readValue(response, StaticListView.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
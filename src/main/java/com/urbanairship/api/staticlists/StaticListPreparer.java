@@ -0,0 +1,620 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.staticlists;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.util.concurrent.Uninterruptibles;
+import com.opencsv.CSVParser;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+import java.util.PriorityQueue;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * The StaticListPreparer validates, sorts and dedupes a static list csv before it is uploaded with a
+ * {@link com.urbanairship.api.staticlists.StaticListUploadRequest}, with bounded memory whatever the size of the list.
+ *
+ * Rows are validated in batches on a fork-join pool: each row must hold a known {@link StaticListIdentifierType} and a
+ * valid identifier. Valid rows are gathered in memory up to a maximum, then sorted, deduped and spilled to a temporary
+ * file; the spilled runs are finally merged into the output, dropping the duplicates found across runs. The output
+ * holds one normalized row per identifier and can be uploaded as is.
+ */
+public class StaticListPreparer {
+
+    public static final int DEFAULT_MAX_ROWS_IN_MEMORY = 500000;
+    public static final int DEFAULT_MAX_INVALID_ROWS_REPORTED = 1000;
+
+    private static final int BATCH_SIZE = 8192;
+    private static final int MAX_MERGED_RUNS = 64;
+    private static final int READ_BUFFER_SIZE = 64 * 1024;
+
+    private final int maxRowsInMemory;
+    private final int maxInvalidRowsReported;
+    private final Optional<Path> tempDirectory;
+    private final ForkJoinPool pool;
+
+    private StaticListPreparer(Builder builder) {
+        this.maxRowsInMemory = builder.maxRowsInMemory;
+        this.maxInvalidRowsReported = builder.maxInvalidRowsReported;
+        this.tempDirectory = Optional.fromNullable(builder.tempDirectory);
+        this.pool = builder.pool;
+    }
+
+    /**
+     * New StaticListPreparer Builder.
+     *
+     * @return Builder
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Prepare a static list csv file.
+     *
+     * @param csv The csv to prepare.
+     * @param output The file the prepared csv is written to.
+     * @return Result
+     * @throws IOException if the csv can't be read or the output can't be written.
+     */
+    public Result prepare(Path csv, Path output) throws IOException {
+        try (InputStream in = Files.newInputStream(csv)) {
+            return prepare(in, output);
+        }
+    }
+
+    /**
+     * Prepare a static list csv stream. The stream is not closed.
+     *
+     * @param csv The csv to prepare.
+     * @param output The file the prepared csv is written to.
+     * @return Result
+     * @throws IOException if the csv can't be read or the output can't be written.
+     */
+    public Result prepare(InputStream csv, Path output) throws IOException {
+        Preconditions.checkNotNull(csv, "csv cannot be null");
+        Preconditions.checkNotNull(output, "output cannot be null");
+
+        Preparation preparation = new Preparation(output);
+        try {
+            return preparation.run(new BufferedReader(new InputStreamReader(csv, StandardCharsets.UTF_8), READ_BUFFER_SIZE));
+        } finally {
+            preparation.deleteRuns();
+        }
+    }
+
+    /**
+     * The state of a single preparation.
+     */
+    private class Preparation {
+
+        private final Path output;
+        private final Deque<Future<Batch>> batches = new ArrayDeque<>();
+        private final List<Path> runs = new ArrayList<>();
+        private final List<InvalidRow> invalidRows = new ArrayList<>();
+
+        private List<String> rows = new ArrayList<>();
+        private long rowCount = 0;
+        private long validRowCount = 0;
+        private long invalidRowCount = 0;
+        private int spilledRunCount = 0;
+
+        private Preparation(Path output) {
+            this.output = output;
+        }
+
+        private Result run(BufferedReader reader) throws IOException {
+            int maxBatchesInFlight = 2 * pool.getParallelism();
+            List<String> lines = new ArrayList<>(BATCH_SIZE);
+            long firstLineNumber = 1;
+            long lineNumber = 0;
+            String line;
+            while ((line = reader.readLine()) != null) {
+                lineNumber++;
+                lines.add(line);
+                if (lines.size() == BATCH_SIZE) {
+                    submit(lines, firstLineNumber);
+                    lines = new ArrayList<>(BATCH_SIZE);
+                    firstLineNumber = lineNumber + 1;
+                    if (batches.size() >= maxBatchesInFlight) {
+                        collect(batches.poll());
+                    }
+                }
+            }
+            if (!lines.isEmpty()) {
+                submit(lines, firstLineNumber);
+            }
+            while (!batches.isEmpty()) {
+                collect(batches.poll());
+            }
+
+            long uniqueRowCount;
+            if (runs.isEmpty()) {
+                uniqueRowCount = write(sortUnique(rows), output);
+            } else {
+                if (!rows.isEmpty()) {
+                    spill();
+                }
+                uniqueRowCount = merge();
+            }
+            rows = null;
+
+            return new Result(output, rowCount, validRowCount, invalidRowCount, validRowCount - uniqueRowCount,
+                spilledRunCount, ImmutableList.copyOf(invalidRows));
+        }
+
+        private void submit(final List<String> lines, final long firstLineNumber) {
+            batches.add(pool.submit(new Callable<Batch>() {
+                @Override
+                public Batch call() {
+                    return validate(lines, firstLineNumber);
+                }
+            }));
+        }
+
+        private void collect(Future<Batch> future) throws IOException {
+            Batch batch;
+            try {
+                batch = Uninterruptibles.getUninterruptibly(future);
+            } catch (ExecutionException e) {
+                throw new IOException("Failed to validate static list rows", e.getCause());
+            }
+
+            rowCount += batch.rowCount;
+            validRowCount += batch.rows.size();
+            invalidRowCount += batch.invalidRows.size();
+            for (InvalidRow invalidRow : batch.invalidRows) {
+                if (invalidRows.size() >= maxInvalidRowsReported) {
+                    break;
+                }
+                invalidRows.add(invalidRow);
+            }
+
+            for (String row : batch.rows) {
+                rows.add(row);
+                if (rows.size() >= maxRowsInMemory) {
+                    spill();
+                }
+            }
+        }
+
+        private void spill() throws IOException {
+            Path run = tempDirectory.isPresent()
+                ? Files.createTempFile(tempDirectory.get(), "static-list-", ".csv")
+                : Files.createTempFile("static-list-", ".csv");
+            runs.add(run);
+            spilledRunCount++;
+            write(sortUnique(rows), run);
+            rows = new ArrayList<>();
+        }
+
+        /**
+         * Merges the spilled runs into the output, first merging them in groups while there are too many to be read
+         * at once.
+         */
+        private long merge() throws IOException {
+            while (runs.size() > MAX_MERGED_RUNS) {
+                List<Path> group = new ArrayList<>(runs.subList(0, MAX_MERGED_RUNS));
+                Path run = tempDirectory.isPresent()
+                    ? Files.createTempFile(tempDirectory.get(), "static-list-", ".csv")
+                    : Files.createTempFile("static-list-", ".csv");
+                runs.add(run);
+                merge(group, run);
+                for (Path merged : group) {
+                    runs.remove(merged);
+                    Files.deleteIfExists(merged);
+                }
+            }
+            return merge(runs, output);
+        }
+
+        private long merge(List<Path> sources, Path target) throws IOException {
+            PriorityQueue<RunReader> readers = new PriorityQueue<>();
+            try (BufferedWriter writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+                for (Path source : sources) {
+                    RunReader reader = new RunReader(source);
+                    if (reader.advance()) {
+                        readers.add(reader);
+                    } else {
+                        reader.close();
+                    }
+                }
+
+                long written = 0;
+                String last = null;
+                while (!readers.isEmpty()) {
+                    RunReader reader = readers.poll();
+                    if (!reader.current.equals(last)) {
+                        last = reader.current;
+                        writer.write(last);
+                        writer.write('\n');
+                        written++;
+                    }
+                    if (reader.advance()) {
+                        readers.add(reader);
+                    } else {
+                        reader.close();
+                    }
+                }
+                return written;
+            } finally {
+                for (RunReader reader : readers) {
+                    reader.close();
+                }
+            }
+        }
+
+        private void deleteRuns() throws IOException {
+            for (Path run : runs) {
+                Files.deleteIfExists(run);
+            }
+            runs.clear();
+        }
+    }
+
+    /**
+     * Validates and normalizes a batch of csv lines.
+     */
+    private static Batch validate(List<String> lines, long firstLineNumber) {
+        CSVParser parser = new CSVParser();
+        Batch batch = new Batch(lines.size());
+        long lineNumber = firstLineNumber;
+        for (String line : lines) {
+            long currentLineNumber = lineNumber++;
+            if (line.trim().isEmpty()) {
+                continue;
+            }
+            batch.rowCount++;
+
+            String[] fields;
+            try {
+                fields = parser.parseLine(line);
+            } catch (IOException e) {
+                batch.invalidRows.add(new InvalidRow(currentLineNumber, line, "Malformed csv: " + e.getMessage()));
+                continue;
+            }
+            if (fields.length != 2) {
+                batch.invalidRows.add(new InvalidRow(currentLineNumber, line, "Expected 2 columns, found " + fields.length));
+                continue;
+            }
+
+            String type = fields[0].trim();
+            String id = fields[1].trim();
+            Optional<StaticListIdentifierType> identifierType = StaticListIdentifierType.find(type);
+            if (!identifierType.isPresent()) {
+                batch.invalidRows.add(new InvalidRow(currentLineNumber, line, "Unknown identifier type: " + type));
+                continue;
+            }
+            if (!identifierType.get().isValid(id)) {
+                batch.invalidRows.add(new InvalidRow(currentLineNumber, line, "Invalid " + type + " identifier"));
+                continue;
+            }
+
+            batch.rows.add(type + "," + quote(identifierType.get().normalize(id)));
+        }
+        return batch;
+    }
+
+    private static String quote(String id) {
+        if (id.indexOf(',') < 0 && id.indexOf('"') < 0 && id.indexOf('\n') < 0 && id.indexOf('\r') < 0) {
+            return id;
+        }
+        return '"' + id.replace("\"", "\"\"") + '"';
+    }
+
+    private static List<String> sortUnique(List<String> rows) {
+        String[] sorted = rows.toArray(new String[rows.size()]);
+        Arrays.parallelSort(sorted);
+        List<String> unique = new ArrayList<>(sorted.length);
+        String last = null;
+        for (String row : sorted) {
+            if (!row.equals(last)) {
+                unique.add(row);
+                last = row;
+            }
+        }
+        return unique;
+    }
+
+    private static long write(List<String> rows, Path target) throws IOException {
+        try (BufferedWriter writer = Files.newBufferedWriter(target, StandardCharsets.UTF_8)) {
+            for (String row : rows) {
+                writer.write(row);
+                writer.write('\n');
+            }
+        }
+        return rows.size();
+    }
+
+    private static class Batch {
+
+        private final List<String> rows;
+        private final List<InvalidRow> invalidRows = new ArrayList<>();
+
+        private int rowCount = 0;
+
+        private Batch(int size) {
+            this.rows = new ArrayList<>(size);
+        }
+    }
+
+    /**
+     * Reads the rows of a sorted run, one at a time.
+     */
+    private static class RunReader implements Comparable<RunReader> {
+
+        private final BufferedReader reader;
+
+        private String current;
+
+        private RunReader(Path run) throws IOException {
+            this.reader = new BufferedReader(Files.newBufferedReader(run, StandardCharsets.UTF_8), READ_BUFFER_SIZE);
+        }
+
+        private boolean advance() throws IOException {
+            current = reader.readLine();
+            return current != null;
+        }
+
+        private void close() throws IOException {
+            reader.close();
+        }
+
+        @Override
+        public int compareTo(RunReader other) {
+            return current.compareTo(other.current);
+        }
+    }
+
+    /**
+     * The outcome of a static list preparation.
+     */
+    public static class Result {
+
+        private final Path output;
+        private final long rowCount;
+        private final long validRowCount;
+        private final long invalidRowCount;
+        private final long duplicateRowCount;
+        private final int spilledRunCount;
+        private final ImmutableList<InvalidRow> invalidRows;
+
+        private Result(Path output, long rowCount, long validRowCount, long invalidRowCount, long duplicateRowCount,
+                       int spilledRunCount, ImmutableList<InvalidRow> invalidRows) {
+            this.output = output;
+            this.rowCount = rowCount;
+            this.validRowCount = validRowCount;
+            this.invalidRowCount = invalidRowCount;
+            this.duplicateRowCount = duplicateRowCount;
+            this.spilledRunCount = spilledRunCount;
+            this.invalidRows = invalidRows;
+        }
+
+        /**
+         * Get the prepared csv, ready to be uploaded.
+         *
+         * @return Path
+         */
+        public Path getOutput() {
+            return output;
+        }
+
+        /**
+         * Get the number of non blank rows read.
+         *
+         * @return long
+         */
+        public long getRowCount() {
+            return rowCount;
+        }
+
+        /**
+         * Get the number of valid rows, including duplicates.
+         *
+         * @return long
+         */
+        public long getValidRowCount() {
+            return validRowCount;
+        }
+
+        /**
+         * Get the number of invalid rows, left out of the output.
+         *
+         * @return long
+         */
+        public long getInvalidRowCount() {
+            return invalidRowCount;
+        }
+
+        /**
+         * Get the number of duplicate rows, left out of the output.
+         *
+         * @return long
+         */
+        public long getDuplicateRowCount() {
+            return duplicateRowCount;
+        }
+
+        /**
+         * Get the number of rows written to the output.
+         *
+         * @return long
+         */
+        public long getUniqueRowCount() {
+            return validRowCount - duplicateRowCount;
+        }
+
+        /**
+         * Get the number of sorted runs spilled to temporary files.
+         *
+         * @return int
+         */
+        public int getSpilledRunCount() {
+            return spilledRunCount;
+        }
+
+        /**
+         * Get the first invalid rows, up to the maximum reported.
+         *
+         * @return ImmutableList of InvalidRow
+         */
+        public ImmutableList<InvalidRow> getInvalidRows() {
+            return invalidRows;
+        }
+
+        @Override
+        public String toString() {
+            return "Result{" +
+                "output=" + output +
+                ", rowCount=" + rowCount +
+                ", validRowCount=" + validRowCount +
+                ", invalidRowCount=" + invalidRowCount +
+                ", duplicateRowCount=" + duplicateRowCount +
+                ", spilledRunCount=" + spilledRunCount +
+                '}';
+        }
+    }
+
+    /**
+     * A row left out of the prepared list.
+     */
+    public static class InvalidRow {
+
+        private final long lineNumber;
+        private final String line;
+        private final String reason;
+
+        private InvalidRow(long lineNumber, String line, String reason) {
+            this.lineNumber = lineNumber;
+            this.line = line;
+            this.reason = reason;
+        }
+
+        /**
+         * Get the line number of the row in the csv, starting at 1.
+         *
+         * @return long
+         */
+        public long getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * Get the row as read.
+         *
+         * @return String
+         */
+        public String getLine() {
+            return line;
+        }
+
+        /**
+         * Get the reason the row is invalid.
+         *
+         * @return String
+         */
+        public String getReason() {
+            return reason;
+        }
+
+        @Override
+        public String toString() {
+            return "InvalidRow{" +
+                "lineNumber=" + lineNumber +
+                ", line='" + line + '\'' +
+                ", reason='" + reason + '\'' +
+                '}';
+        }
+    }
+
+    /**
+     * StaticListPreparer Builder.
+     */
+    public static class Builder {
+
+        private int maxRowsInMemory = DEFAULT_MAX_ROWS_IN_MEMORY;
+        private int maxInvalidRowsReported = DEFAULT_MAX_INVALID_ROWS_REPORTED;
+        private Path tempDirectory = null;
+        private ForkJoinPool pool = ForkJoinPool.commonPool();
+
+        private Builder() {
+        }
+
+        /**
+         * Set the maximum number of rows sorted in memory before they are spilled to a temporary file -- defaults to
+         * 500,000.
+         *
+         * @param maxRowsInMemory The maximum number of rows.
+         * @return Builder
+         */
+        public Builder setMaxRowsInMemory(int maxRowsInMemory) {
+            this.maxRowsInMemory = maxRowsInMemory;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of invalid rows kept in the result -- defaults to 1,000. All invalid rows are counted.
+         *
+         * @param maxInvalidRowsReported The maximum number of invalid rows.
+         * @return Builder
+         */
+        public Builder setMaxInvalidRowsReported(int maxInvalidRowsReported) {
+            this.maxInvalidRowsReported = maxInvalidRowsReported;
+            return this;
+        }
+
+        /**
+         * Set the directory of the temporary files -- defaults to the default temporary-file directory.
+         *
+         * @param tempDirectory The temporary directory.
+         * @return Builder
+         */
+        public Builder setTempDirectory(Path tempDirectory) {
+            this.tempDirectory = tempDirectory;
+            return this;
+        }
+
+        /**
+         * Set the pool validating the rows -- defaults to the common fork-join pool.
+         *
+         * @param pool The fork-join pool.
+         * @return Builder
+         */
+        public Builder setPool(ForkJoinPool pool) {
+            this.pool = pool;
+            return this;
+        }
+
+        /**
+         * Build a StaticListPreparer object. Will fail if the maximum number of rows in memory is lower than 1, the
+         * maximum number of invalid rows reported is negative or the pool is null.
+         *
+         * @return StaticListPreparer
+         */
+        public StaticListPreparer build() {
+            Preconditions.checkArgument(maxRowsInMemory >= 1, "max rows in memory must be at least 1");
+            Preconditions.checkArgument(maxInvalidRowsReported >= 0, "max invalid rows reported must not be negative");
+            Preconditions.checkNotNull(pool, "pool must not be null");
+            return new StaticListPreparer(this);
+        }
+    }
+}
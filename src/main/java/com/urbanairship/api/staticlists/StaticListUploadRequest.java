@@ -4,8 +4,12 @@
 
 package com.urbanairship.api.staticlists;
 
+import com.google.common.base.Optional;
 import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.net.HttpHeaders;
+import com.urbanairship.api.client.ChannelBodyRequest;
+import com.urbanairship.api.client.ParallelGzipCompressingChannel;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
@@ -14,27 +18,51 @@ import org.apache.http.entity.ContentType;
 
 import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileReader;
 import java.io.IOException;
+import java.io.InputStream;
 import java.net.URI;
-import java.util.HashMap;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
 import java.util.Map;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
 
 /**
  * The StaticListUploadRequest class builds a static list upload request to be executed in
  * the {@link com.urbanairship.api.client.UrbanAirshipClient}.
+ *
+ * The list is streamed from its file, stream or channel while it is sent, and gzip compressed on the fly when gzip is
+ * enabled, so that uploads use the same memory whatever the size of the list. Compression runs on all cores, see
+ * {@link ParallelGzipCompressingChannel}. An upload from a file is read again
+ * if the request is retried; a stream or a channel can only be read once, a retry of such an upload fails.
  */
-public class StaticListUploadRequest implements Request<String> {
+public class StaticListUploadRequest implements ChannelBodyRequest<String> {
     private final static String API_LISTS_PATH = "/api/lists/";
     private final static String CSV_PATH = "/csv";
+    private final static Map<String, String> HEADERS = ImmutableMap.of(
+            HttpHeaders.ACCEPT, UA_VERSION_JSON,
+            HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_TEXT_CSV);
+    private final static Map<String, String> GZIP_HEADERS = ImmutableMap.of(
+            HttpHeaders.ACCEPT, UA_VERSION_JSON,
+            HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_TEXT_CSV,
+            HttpHeaders.CONTENT_ENCODING, CONTENT_ENCODING_GZIP);
     private final String path;
+    private final Optional<Path> csv;
+    private final AtomicReference<ReadableByteChannel> csvChannel;
 
-    private File csv;
     private Boolean gzip = false;
+    private int gzipLevel = Deflater.DEFAULT_COMPRESSION;
+    private int gzipBlockSize = ParallelGzipCompressingChannel.DEFAULT_BLOCK_SIZE;
 
-    private StaticListUploadRequest(String path, File csv) {
+    private StaticListUploadRequest(String path, Optional<Path> csv, ReadableByteChannel csvChannel) {
         this.path = path;
         this.csv = csv;
+        this.csvChannel = new AtomicReference<>(csvChannel);
     }
 
     /**
@@ -48,7 +76,48 @@ public class StaticListUploadRequest implements Request<String> {
         Preconditions.checkArgument(StringUtils.isNotEmpty(name), "List name cannot be null.");
         File csv = new File(csvFile);
         Preconditions.checkArgument(csv.exists() && csv.isFile(), "File does not exist: " + csvFile);
-        return new StaticListUploadRequest(API_LISTS_PATH + name + CSV_PATH, csv);
+        return new StaticListUploadRequest(API_LISTS_PATH + name + CSV_PATH, Optional.of(csv.toPath()), null);
+    }
+
+    /**
+     * Create a static list upload request from a csv file.
+     *
+     * @param name The name of the list as a string.
+     * @param csvFile The path of the csv file.
+     * @return StaticListUploadRequest
+     */
+    public static StaticListUploadRequest newRequest(String name, Path csvFile) {
+        Preconditions.checkArgument(StringUtils.isNotEmpty(name), "List name cannot be null.");
+        Preconditions.checkNotNull(csvFile, "File cannot be null.");
+        Preconditions.checkArgument(Files.isRegularFile(csvFile), "File does not exist: " + csvFile);
+        return new StaticListUploadRequest(API_LISTS_PATH + name + CSV_PATH, Optional.of(csvFile), null);
+    }
+
+    /**
+     * Create a static list upload request from a csv stream. The stream is read once, and closed, when the request
+     * is sent.
+     *
+     * @param name The name of the list as a string.
+     * @param csvStream The csv stream.
+     * @return StaticListUploadRequest
+     */
+    public static StaticListUploadRequest newRequest(String name, InputStream csvStream) {
+        Preconditions.checkNotNull(csvStream, "Stream cannot be null.");
+        return newRequest(name, Channels.newChannel(csvStream));
+    }
+
+    /**
+     * Create a static list upload request from a csv channel. The channel is read once, and closed, when the request
+     * is sent.
+     *
+     * @param name The name of the list as a string.
+     * @param csvChannel The csv channel.
+     * @return StaticListUploadRequest
+     */
+    public static StaticListUploadRequest newRequest(String name, ReadableByteChannel csvChannel) {
+        Preconditions.checkArgument(StringUtils.isNotEmpty(name), "List name cannot be null.");
+        Preconditions.checkNotNull(csvChannel, "Channel cannot be null.");
+        return new StaticListUploadRequest(API_LISTS_PATH + name + CSV_PATH, Optional.<Path>absent(), csvChannel);
     }
 
     /**
@@ -71,6 +140,31 @@ public class StaticListUploadRequest implements Request<String> {
         return this;
     }
 
+    /**
+     * Set the gzip compression level -- defaults to the zlib default, 6.
+     *
+     * @param gzipLevel The compression level, from 0 to 9.
+     * @return StaticListUploadRequest
+     */
+    public StaticListUploadRequest setGzipLevel(int gzipLevel) {
+        Preconditions.checkArgument(gzipLevel >= Deflater.NO_COMPRESSION && gzipLevel <= Deflater.BEST_COMPRESSION,
+                "Compression level must be between 0 and 9.");
+        this.gzipLevel = gzipLevel;
+        return this;
+    }
+
+    /**
+     * Set the size of the blocks of the list compressed in parallel -- defaults to 128 KiB.
+     *
+     * @param gzipBlockSize The block size in bytes, at least 32 KiB.
+     * @return StaticListUploadRequest
+     */
+    public StaticListUploadRequest setGzipBlockSize(int gzipBlockSize) {
+        Preconditions.checkArgument(gzipBlockSize >= 32 * 1024, "Block size must be at least 32 KiB.");
+        this.gzipBlockSize = gzipBlockSize;
+        return this;
+    }
+
     @Override
     public ContentType getContentType() {
         return ContentType.TEXT_PLAIN;
@@ -78,13 +172,7 @@ public class StaticListUploadRequest implements Request<String> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_TEXT_CSV);
-        if (this.gzip) {
-            headers.put(HttpHeaders.CONTENT_ENCODING, CONTENT_ENCODING_GZIP);
-        }
-        return headers;
+        return gzip ? GZIP_HEADERS : HEADERS;
     }
 
     @Override
@@ -92,9 +180,21 @@ public class StaticListUploadRequest implements Request<String> {
         return Request.HttpMethod.PUT;
     }
 
+    /**
+     * Read the whole list, uncompressed. The client streams the list with {@link #openRequestBody()} instead. The list
+     * of an upload from a stream or a channel can only be read once, by the client: check {@link #isRequestBodyReadable()}
+     * before calling this method.
+     *
+     * @return String
+     * @throws IllegalStateException if the upload is from a stream or a channel.
+     */
     @Override
     public String getRequestBody() {
-        try ( BufferedReader reader = new BufferedReader(new FileReader(this.csv)) ) {
+        if (!isRequestBodyReadable()) {
+            throw new IllegalStateException("The body of an upload from a stream or a channel can only be read by the client");
+        }
+
+        try ( BufferedReader reader = Files.newBufferedReader(csv.get(), StandardCharsets.UTF_8) ) {
             StringBuffer body = new StringBuffer();
             String line;
             while ((line = reader.readLine()) != null) {
@@ -106,6 +206,34 @@ public class StaticListUploadRequest implements Request<String> {
         }
     }
 
+    /**
+     * Return whether the list can be read with {@link #getRequestBody()}, which is the case for uploads from a file.
+     *
+     * @return boolean
+     */
+    public boolean isRequestBodyReadable() {
+        return csv.isPresent();
+    }
+
+    @Override
+    public Optional<Path> getRequestBodyFile() {
+        return gzip ? Optional.<Path>absent() : csv;
+    }
+
+    @Override
+    public ReadableByteChannel openRequestBody() throws IOException {
+        ReadableByteChannel body;
+        if (csv.isPresent()) {
+            body = FileChannel.open(csv.get(), StandardOpenOption.READ);
+        } else {
+            body = csvChannel.getAndSet(null);
+            if (body == null) {
+                throw new IOException("The body of an upload from a stream can only be sent once");
+            }
+        }
+        return gzip ? new ParallelGzipCompressingChannel(body, gzipLevel, gzipBlockSize) : body;
+    }
+
     @Override
     public URI getUri(URI baseUri) {
         return RequestUtils.resolveURI(baseUri, path);
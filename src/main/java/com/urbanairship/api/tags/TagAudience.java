@@ -0,0 +1,127 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.tags;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Preconditions;
+
+/**
+ * A single member of a tag mutation audience: a channel of a given type, or a named user.
+ */
+public final class TagAudience {
+
+    /**
+     * Types of tag audience members.
+     */
+    public enum Type {
+        IOS_CHANNEL,
+        ANDROID_CHANNEL,
+        AMAZON_CHANNEL,
+        CHANNEL,
+        NAMED_USER
+    }
+
+    private final Type type;
+    private final String id;
+
+    private TagAudience(Type type, String id) {
+        Preconditions.checkNotNull(id, "id may not be null");
+        this.type = type;
+        this.id = id;
+    }
+
+    /**
+     * An iOS channel.
+     *
+     * @param channel String
+     * @return TagAudience
+     */
+    public static TagAudience iosChannel(String channel) {
+        return new TagAudience(Type.IOS_CHANNEL, channel);
+    }
+
+    /**
+     * An Android channel.
+     *
+     * @param channel String
+     * @return TagAudience
+     */
+    public static TagAudience androidChannel(String channel) {
+        return new TagAudience(Type.ANDROID_CHANNEL, channel);
+    }
+
+    /**
+     * An Amazon channel.
+     *
+     * @param channel String
+     * @return TagAudience
+     */
+    public static TagAudience amazonChannel(String channel) {
+        return new TagAudience(Type.AMAZON_CHANNEL, channel);
+    }
+
+    /**
+     * An Open, Web, SMS or Email channel.
+     *
+     * @param channel String
+     * @return TagAudience
+     */
+    public static TagAudience channel(String channel) {
+        return new TagAudience(Type.CHANNEL, channel);
+    }
+
+    /**
+     * A named user.
+     *
+     * @param namedUser String
+     * @return TagAudience
+     */
+    public static TagAudience namedUser(String namedUser) {
+        return new TagAudience(Type.NAMED_USER, namedUser);
+    }
+
+    /**
+     * Get the type of the audience member.
+     *
+     * @return Type
+     */
+    public Type getType() {
+        return type;
+    }
+
+    /**
+     * Get the channel ID or named user ID.
+     *
+     * @return String
+     */
+    public String getId() {
+        return id;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o) {
+            return true;
+        }
+        if (o == null || getClass() != o.getClass()) {
+            return false;
+        }
+        TagAudience that = (TagAudience) o;
+        return type == that.type && id.equals(that.id);
+    }
+
+    @Override
+    public int hashCode() {
+        return Objects.hashCode(type, id);
+    }
+
+    @Override
+    public String toString() {
+        return "TagAudience{" +
+                "type=" + type +
+                ", id='" + id + '\'' +
+                '}';
+    }
+}
@@ -0,0 +1,505 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.tags;
+
+import com.google.common.base.Objects;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
+import com.google.common.collect.ImmutableSet;
+import com.google.common.collect.Iterables;
+import com.google.common.util.concurrent.ThreadFactoryBuilder;
+import com.urbanairship.api.channel.ChannelTagRequest;
+import com.urbanairship.api.client.Request;
+import com.urbanairship.api.client.Response;
+import com.urbanairship.api.client.UrbanAirshipClient;
+import com.urbanairship.api.nameduser.NamedUserTagRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.function.BiConsumer;
+import java.util.function.BiFunction;
+import java.util.function.Function;
+
+/**
+ * Coalesces a stream of tag mutations of channels and named users into as few {@link ChannelTagRequest}s and
+ * {@link NamedUserTagRequest}s as possible.
+ *
+ * The mutations of each audience member are merged per tag group until the coalescer is drained: a removal cancels an
+ * earlier addition of the same tag and the other way around, and a set replaces every earlier mutation of the group,
+ * later additions and removals applying to the set tags. The members ending up with identical mutations share a single
+ * request, split so that no request exceeds the maximum audience size. Set mutations are sent apart from additions and
+ * removals, which the API doesn't accept in the same request.
+ *
+ * When given a client, the coalescer sends its requests at the end of every window; otherwise its requests are
+ * collected with {@link #drain()}. The requests of a window are sent once those of the previous window have completed,
+ * retries included, so that the mutations are applied in the order they were received: within a window, the set
+ * mutations are applied before the additions and removals. Failed requests are logged and don't hold later windows.
+ */
+public class TagMutationCoalescer implements Closeable {
+
+    private static final Logger log = LoggerFactory.getLogger(TagMutationCoalescer.class);
+
+    public static final int DEFAULT_MAX_AUDIENCE_SIZE = 1000;
+    public static final long DEFAULT_WINDOW_MILLIS = 1000;
+
+    private final Optional<UrbanAirshipClient> client;
+    private final int maxAudienceSize;
+    private final Optional<ScheduledExecutorService> timer;
+
+    private Map<TagAudience, Map<String, GroupMutation>> mutations = new LinkedHashMap<>();
+    private long mutationCount = 0;
+
+    private final Object sendLock = new Object();
+    // Completes once the requests of every window sent so far have completed. Guarded by sendLock.
+    private CompletableFuture<Void> lastWindow = CompletableFuture.completedFuture(null);
+
+    private TagMutationCoalescer(Builder builder) {
+        this.client = Optional.fromNullable(builder.client);
+        this.maxAudienceSize = builder.maxAudienceSize;
+
+        if (client.isPresent()) {
+            ScheduledExecutorService executor = new ScheduledThreadPoolExecutor(1, new ThreadFactoryBuilder()
+                .setNameFormat("ua-tag-mutations-%d")
+                .setDaemon(true)
+                .build());
+            executor.scheduleWithFixedDelay(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        flush();
+                    } catch (RuntimeException e) {
+                        log.error("Failed to send the coalesced tag mutations", e);
+                    }
+                }
+            }, builder.windowNanos, builder.windowNanos, TimeUnit.NANOSECONDS);
+            this.timer = Optional.of(executor);
+        } else {
+            this.timer = Optional.absent();
+        }
+    }
+
+    /**
+     * New TagMutationCoalescer builder.
+     *
+     * @return Builder
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Add tags to an audience member.
+     *
+     * @param audience TagAudience
+     * @param tagGroup String
+     * @param tags Set of tags
+     */
+    public synchronized void addTags(TagAudience audience, String tagGroup, Set<String> tags) {
+        GroupMutation mutation = mutation(audience, tagGroup);
+        mutation.tags.addAll(tags);
+        mutation.removedTags.removeAll(tags);
+    }
+
+    /**
+     * Remove tags from an audience member.
+     *
+     * @param audience TagAudience
+     * @param tagGroup String
+     * @param tags Set of tags
+     */
+    public synchronized void removeTags(TagAudience audience, String tagGroup, Set<String> tags) {
+        GroupMutation mutation = mutation(audience, tagGroup);
+        mutation.tags.removeAll(tags);
+        if (!mutation.set) {
+            mutation.removedTags.addAll(tags);
+        }
+    }
+
+    /**
+     * Set the tags of a tag group of an audience member.
+     *
+     * @param audience TagAudience
+     * @param tagGroup String
+     * @param tags Set of tags
+     */
+    public synchronized void setTags(TagAudience audience, String tagGroup, Set<String> tags) {
+        GroupMutation mutation = mutation(audience, tagGroup);
+        mutation.set = true;
+        mutation.tags.clear();
+        mutation.tags.addAll(tags);
+        mutation.removedTags.clear();
+    }
+
+    /**
+     * Get the number of mutations received since the coalescer was last drained.
+     *
+     * @return long
+     */
+    public synchronized long getPendingMutationCount() {
+        return mutationCount;
+    }
+
+    private GroupMutation mutation(TagAudience audience, String tagGroup) {
+        Preconditions.checkNotNull(audience, "audience may not be null");
+        Preconditions.checkNotNull(tagGroup, "tag group may not be null");
+        mutationCount++;
+
+        Map<String, GroupMutation> groups = mutations.get(audience);
+        if (groups == null) {
+            groups = new LinkedHashMap<>();
+            mutations.put(audience, groups);
+        }
+        GroupMutation mutation = groups.get(tagGroup);
+        if (mutation == null) {
+            mutation = new GroupMutation();
+            groups.put(tagGroup, mutation);
+        }
+        return mutation;
+    }
+
+    /**
+     * Take the mutations received so far, as the fewest requests applying them.
+     *
+     * @return List of ChannelTagRequest and NamedUserTagRequest objects.
+     */
+    public List<Request<String>> drain() {
+        Window window = drainWindow();
+        List<Request<String>> requests = new ArrayList<>(window.setRequests);
+        requests.addAll(window.deltaRequests);
+        return requests;
+    }
+
+    private Window drainWindow() {
+        Map<TagAudience, Map<String, GroupMutation>> drained;
+        synchronized (this) {
+            drained = mutations;
+            mutations = new LinkedHashMap<>();
+            mutationCount = 0;
+        }
+
+        Map<Signature, List<TagAudience>> audiences = new LinkedHashMap<>();
+        for (Map.Entry<TagAudience, Map<String, GroupMutation>> entry : drained.entrySet()) {
+            boolean namedUser = entry.getKey().getType() == TagAudience.Type.NAMED_USER;
+            ImmutableMap.Builder<String, ImmutableSet<String>> setTags = ImmutableMap.builder();
+            ImmutableMap.Builder<String, ImmutableSet<String>> addTags = ImmutableMap.builder();
+            ImmutableMap.Builder<String, ImmutableSet<String>> removeTags = ImmutableMap.builder();
+            for (Map.Entry<String, GroupMutation> group : entry.getValue().entrySet()) {
+                GroupMutation mutation = group.getValue();
+                if (mutation.set) {
+                    setTags.put(group.getKey(), ImmutableSet.copyOf(mutation.tags));
+                } else {
+                    if (!mutation.tags.isEmpty()) {
+                        addTags.put(group.getKey(), ImmutableSet.copyOf(mutation.tags));
+                    }
+                    if (!mutation.removedTags.isEmpty()) {
+                        removeTags.put(group.getKey(), ImmutableSet.copyOf(mutation.removedTags));
+                    }
+                }
+            }
+
+            Signature set = new Signature(namedUser, setTags.build(), ImmutableMap.<String, ImmutableSet<String>>of(),
+                ImmutableMap.<String, ImmutableSet<String>>of());
+            Signature delta = new Signature(namedUser, ImmutableMap.<String, ImmutableSet<String>>of(), addTags.build(),
+                removeTags.build());
+            for (Signature signature : ImmutableList.of(set, delta)) {
+                if (signature.isEmpty()) {
+                    continue;
+                }
+                List<TagAudience> members = audiences.get(signature);
+                if (members == null) {
+                    members = new ArrayList<>();
+                    audiences.put(signature, members);
+                }
+                members.add(entry.getKey());
+            }
+        }
+
+        Window window = new Window();
+        for (Map.Entry<Signature, List<TagAudience>> entry : audiences.entrySet()) {
+            List<Request<String>> requests = entry.getKey().setTags.isEmpty() ? window.deltaRequests : window.setRequests;
+            for (List<TagAudience> members : Iterables.partition(entry.getValue(), maxAudienceSize)) {
+                requests.add(entry.getKey().namedUser
+                    ? namedUserRequest(entry.getKey(), members)
+                    : channelRequest(entry.getKey(), members));
+            }
+        }
+        return window;
+    }
+
+    /**
+     * Send the mutations received so far with the client, once the requests of the previous window have completed.
+     *
+     * @return The responses of the requests sent, completing as they are received.
+     * @throws IllegalStateException if the coalescer was built without a client.
+     */
+    public List<CompletionStage<Response<String>>> flush() {
+        Preconditions.checkState(client.isPresent(), "A client is required to send tag mutations");
+        synchronized (sendLock) {
+            final Window window = drainWindow();
+            final List<CompletableFuture<Response<String>>> setResponses = newResponses(window.setRequests.size());
+            final List<CompletableFuture<Response<String>>> deltaResponses = newResponses(window.deltaRequests.size());
+            if (!setResponses.isEmpty() || !deltaResponses.isEmpty()) {
+                lastWindow = lastWindow
+                    .thenCompose(new Function<Void, CompletionStage<Void>>() {
+                        @Override
+                        public CompletionStage<Void> apply(Void previous) {
+                            return send(window.setRequests, setResponses);
+                        }
+                    })
+                    .thenCompose(new Function<Void, CompletionStage<Void>>() {
+                        @Override
+                        public CompletionStage<Void> apply(Void sets) {
+                            return send(window.deltaRequests, deltaResponses);
+                        }
+                    });
+            }
+
+            List<CompletionStage<Response<String>>> responses = new ArrayList<>();
+            responses.addAll(setResponses);
+            responses.addAll(deltaResponses);
+            return responses;
+        }
+    }
+
+    private static List<CompletableFuture<Response<String>>> newResponses(int count) {
+        List<CompletableFuture<Response<String>>> responses = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            responses.add(new CompletableFuture<Response<String>>());
+        }
+        return responses;
+    }
+
+    /**
+     * Sends requests at once, completing their responses.
+     *
+     * @return A stage completing once every request has completed, successfully or not.
+     */
+    private CompletableFuture<Void> send(List<Request<String>> requests, List<CompletableFuture<Response<String>>> responses) {
+        CompletableFuture<?>[] completions = new CompletableFuture<?>[requests.size()];
+        for (int i = 0; i < requests.size(); i++) {
+            final Request<String> request = requests.get(i);
+            final CompletableFuture<Response<String>> response = responses.get(i);
+            completions[i] = response;
+            try {
+                client.get().executeAsyncStage(request).whenComplete(new BiConsumer<Response<String>, Throwable>() {
+                    @Override
+                    public void accept(Response<String> result, Throwable throwable) {
+                        if (throwable != null) {
+                            log.error("Failed to send a tag mutation request", throwable);
+                            response.completeExceptionally(throwable);
+                        } else {
+                            if (result.getStatus() / 100 != 2) {
+                                log.error("Tag mutation request rejected with status " + result.getStatus() + ": "
+                                    + result.getBody().or(""));
+                            }
+                            response.complete(result);
+                        }
+                    }
+                });
+            } catch (RuntimeException e) {
+                log.error("Failed to send a tag mutation request", e);
+                response.completeExceptionally(e);
+            }
+        }
+        return CompletableFuture.allOf(completions).handle(new BiFunction<Void, Throwable, Void>() {
+            @Override
+            public Void apply(Void result, Throwable throwable) {
+                return null;
+            }
+        });
+    }
+
+    /**
+     * Stop the window timer, then send the mutations received so far if the coalescer has a client, and wait for
+     * the requests of every window to complete. The client is left open.
+     */
+    @Override
+    public void close() {
+        if (timer.isPresent()) {
+            timer.get().shutdown();
+            flush();
+            CompletableFuture<Void> pending;
+            synchronized (sendLock) {
+                pending = lastWindow;
+            }
+            pending.join();
+        }
+    }
+
+    private static ChannelTagRequest channelRequest(Signature signature, List<TagAudience> members) {
+        ChannelTagRequest request = ChannelTagRequest.newRequest();
+        for (TagAudience member : members) {
+            switch (member.getType()) {
+                case IOS_CHANNEL:
+                    request.addIOSChannel(member.getId());
+                    break;
+                case ANDROID_CHANNEL:
+                    request.addAndroidChannel(member.getId());
+                    break;
+                case AMAZON_CHANNEL:
+                    request.addAmazonChannel(member.getId());
+                    break;
+                default:
+                    request.addGenericChannel(member.getId());
+                    break;
+            }
+        }
+        for (Map.Entry<String, ImmutableSet<String>> group : signature.setTags.entrySet()) {
+            request.setTags(group.getKey(), new HashSet<>(group.getValue()));
+        }
+        for (Map.Entry<String, ImmutableSet<String>> group : signature.addTags.entrySet()) {
+            request.addTags(group.getKey(), new HashSet<>(group.getValue()));
+        }
+        for (Map.Entry<String, ImmutableSet<String>> group : signature.removeTags.entrySet()) {
+            request.removeTags(group.getKey(), new HashSet<>(group.getValue()));
+        }
+        return request;
+    }
+
+    private static NamedUserTagRequest namedUserRequest(Signature signature, List<TagAudience> members) {
+        NamedUserTagRequest request = NamedUserTagRequest.newRequest();
+        for (TagAudience member : members) {
+            request.addNamedUser(member.getId());
+        }
+        for (Map.Entry<String, ImmutableSet<String>> group : signature.setTags.entrySet()) {
+            request.setTags(group.getKey(), new HashSet<>(group.getValue()));
+        }
+        for (Map.Entry<String, ImmutableSet<String>> group : signature.addTags.entrySet()) {
+            request.addTags(group.getKey(), new HashSet<>(group.getValue()));
+        }
+        for (Map.Entry<String, ImmutableSet<String>> group : signature.removeTags.entrySet()) {
+            request.removeTags(group.getKey(), new HashSet<>(group.getValue()));
+        }
+        return request;
+    }
+
+    /**
+     * The requests of a window: the set mutations, applied before the additions and removals.
+     */
+    private static final class Window {
+        private final List<Request<String>> setRequests = new ArrayList<>();
+        private final List<Request<String>> deltaRequests = new ArrayList<>();
+    }
+
+    private static final class GroupMutation {
+        private boolean set = false;
+        // The tags added, or the tags set once the group is set.
+        private final Set<String> tags = new LinkedHashSet<>();
+        private final Set<String> removedTags = new LinkedHashSet<>();
+    }
+
+    /**
+     * The net mutations of an audience member, shared by the members sent in the same request.
+     */
+    private static final class Signature {
+        private final boolean namedUser;
+        private final ImmutableMap<String, ImmutableSet<String>> setTags;
+        private final ImmutableMap<String, ImmutableSet<String>> addTags;
+        private final ImmutableMap<String, ImmutableSet<String>> removeTags;
+
+        private Signature(boolean namedUser, ImmutableMap<String, ImmutableSet<String>> setTags,
+                          ImmutableMap<String, ImmutableSet<String>> addTags, ImmutableMap<String, ImmutableSet<String>> removeTags) {
+            this.namedUser = namedUser;
+            this.setTags = setTags;
+            this.addTags = addTags;
+            this.removeTags = removeTags;
+        }
+
+        private boolean isEmpty() {
+            return setTags.isEmpty() && addTags.isEmpty() && removeTags.isEmpty();
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (this == o) {
+                return true;
+            }
+            if (o == null || getClass() != o.getClass()) {
+                return false;
+            }
+            Signature that = (Signature) o;
+            return namedUser == that.namedUser && setTags.equals(that.setTags) && addTags.equals(that.addTags)
+                && removeTags.equals(that.removeTags);
+        }
+
+        @Override
+        public int hashCode() {
+            return Objects.hashCode(namedUser, setTags, addTags, removeTags);
+        }
+    }
+
+    /**
+     * TagMutationCoalescer Builder
+     */
+    public static class Builder {
+        private UrbanAirshipClient client = null;
+        private int maxAudienceSize = DEFAULT_MAX_AUDIENCE_SIZE;
+        private long windowNanos = TimeUnit.MILLISECONDS.toNanos(DEFAULT_WINDOW_MILLIS);
+
+        private Builder() {
+        }
+
+        /**
+         * Set the client sending the requests at the end of every window. Optional: without a client, the requests
+         * are collected with {@link TagMutationCoalescer#drain()}.
+         *
+         * @param client UrbanAirshipClient
+         * @return Builder
+         */
+        public Builder setClient(UrbanAirshipClient client) {
+            this.client = client;
+            return this;
+        }
+
+        /**
+         * Set the maximum number of channels or named users in a request, 1000 by default.
+         *
+         * @param maxAudienceSize int
+         * @return Builder
+         */
+        public Builder setMaxAudienceSize(int maxAudienceSize) {
+            this.maxAudienceSize = maxAudienceSize;
+            return this;
+        }
+
+        /**
+         * Set the time window over which mutations are coalesced before being sent by the client, 1 second by default.
+         *
+         * @param window long
+         * @param unit TimeUnit
+         * @return Builder
+         */
+        public Builder setWindow(long window, TimeUnit unit) {
+            this.windowNanos = unit.toNanos(window);
+            return this;
+        }
+
+        /**
+         * Build the TagMutationCoalescer object.
+         *
+         * @return TagMutationCoalescer
+         */
+        public TagMutationCoalescer build() {
+            Preconditions.checkArgument(maxAudienceSize >= 1, "maxAudienceSize must be at least 1");
+            Preconditions.checkArgument(windowNanos > 0, "window must be positive");
+            return new TagMutationCoalescer(this);
+        }
+    }
+}
@@ -4,7 +4,7 @@
 
 package com.urbanairship.api.templates;
 
-import com.google.common.net.HttpHeaders;
+import com.urbanairship.api.client.JsonResponseParser;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
@@ -12,10 +12,8 @@ import com.urbanairship.api.templates.model.TemplateResponse;
 import com.urbanairship.api.templates.parse.TemplatesObjectMapper;
 import org.apache.http.entity.ContentType;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -24,6 +22,7 @@ import java.util.Map;
  */
 public class TemplateDeleteRequest implements Request<TemplateResponse> {
     private final static String API_TEMPLATES_DELETE = "/api/templates/";
+    private static final ResponseParser<TemplateResponse> PARSER = new JsonResponseParser<>(TemplatesObjectMapper.getInstance(), TemplateResponse.class);
     private final String path;
 
     private TemplateDeleteRequest(String path) {
@@ -57,9 +56,7 @@ public class TemplateDeleteRequest implements Request<TemplateResponse> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_ACCEPT_HEADERS;
     }
 
     @Override
@@ -69,12 +66,7 @@ public class TemplateDeleteRequest implements Request<TemplateResponse> {
 
     @Override
     public ResponseParser<TemplateResponse> getResponseParser() {
-        return new ResponseParser<TemplateResponse>() {
-            @Override
-            public TemplateResponse parse(String response) throws IOException {
-                return TemplatesObjectMapper.getInstance().readValue(response, TemplateResponse.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
@@ -4,7 +4,7 @@
 
 package com.urbanairship.api.templates;
 
-import com.google.common.net.HttpHeaders;
+import com.urbanairship.api.client.JsonResponseParser;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
@@ -13,10 +13,8 @@ import com.urbanairship.api.templates.parse.TemplatesObjectMapper;
 import org.apache.http.client.utils.URIBuilder;
 import org.apache.http.entity.ContentType;
 
-import java.io.IOException;
 import java.net.URI;
 import java.net.URISyntaxException;
-import java.util.HashMap;
 import java.util.Map;
 
 /**
@@ -25,6 +23,7 @@ import java.util.Map;
  */
 public class TemplateListingRequest implements Request<TemplateListingResponse> {
     private final static String API_TEMPLATES_GET = "/api/templates/";
+    private static final ResponseParser<TemplateListingResponse> PARSER = new JsonResponseParser<>(TemplatesObjectMapper.getInstance(), TemplateListingResponse.class);
     private final String path;
     private Integer page;
     private Integer pageSize;
@@ -91,9 +90,7 @@ public class TemplateListingRequest implements Request<TemplateListingResponse>
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_ACCEPT_HEADERS;
     }
 
     @Override
@@ -119,12 +116,7 @@ public class TemplateListingRequest implements Request<TemplateListingResponse>
 
     @Override
     public ResponseParser<TemplateListingResponse> getResponseParser() {
-        return new ResponseParser<TemplateListingResponse>() {
-            @Override
-            public TemplateListingResponse parse(String response) throws IOException {
-                return TemplatesObjectMapper.getInstance().readValue(response, TemplateListingResponse.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
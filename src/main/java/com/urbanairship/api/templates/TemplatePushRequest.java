@@ -4,20 +4,21 @@
 
 package com.urbanairship.api.templates;
 
-import com.google.common.net.HttpHeaders;
-import com.urbanairship.api.client.Request;
+import com.urbanairship.api.client.JsonResponseParser;
 import com.urbanairship.api.client.RequestUtils;
 import com.urbanairship.api.client.ResponseParser;
+import com.urbanairship.api.client.StreamingRequest;
 import com.urbanairship.api.templates.model.TemplatePushPayload;
 import com.urbanairship.api.templates.model.TemplateResponse;
 import com.urbanairship.api.templates.parse.TemplatesObjectMapper;
 import org.apache.http.entity.ContentType;
 
 import java.io.IOException;
+import java.io.OutputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.util.ArrayList;
-import java.util.HashMap;
+import java.util.Collections;
 import java.util.List;
 import java.util.Map;
 
@@ -25,9 +26,10 @@ import java.util.Map;
  * The TemplatePushRequest object builds a template push request to be executed in the
  *  {@link com.urbanairship.api.client.UrbanAirshipClient}.
  */
-public class TemplatePushRequest implements Request<TemplateResponse> {
+public class TemplatePushRequest implements StreamingRequest<TemplateResponse> {
     private final static String TEMPLATE_PUSH = "/api/templates/push/";
     private final static String TEMPLATE_PUSH_VALIDATE = TEMPLATE_PUSH + "validate/";
+    private static final ResponseParser<TemplateResponse> PARSER = new JsonResponseParser<>(TemplatesObjectMapper.getInstance(), TemplateResponse.class);
 
     private List<TemplatePushPayload> templatePushPayloads = new ArrayList<TemplatePushPayload>();
     private boolean validateOnly = false;
@@ -76,6 +78,15 @@ public class TemplatePushRequest implements Request<TemplateResponse> {
         return this;
     }
 
+    /**
+     * Get the payloads of the request.
+     *
+     * @return List of TemplatePushPayload objects
+     */
+    public List<TemplatePushPayload> getTemplatePushPayloads() {
+        return Collections.unmodifiableList(templatePushPayloads);
+    }
+
     @Override
     public HttpMethod getHttpMethod() {
         return HttpMethod.POST;
@@ -93,6 +104,15 @@ public class TemplatePushRequest implements Request<TemplateResponse> {
         }
     }
 
+    @Override
+    public void writeRequestBody(OutputStream out) throws IOException {
+        if (templatePushPayloads.size() == 1) {
+            TemplatesObjectMapper.getInstance().writeValue(out, templatePushPayloads.get(0));
+        } else {
+            TemplatesObjectMapper.getInstance().writeValue(out, templatePushPayloads);
+        }
+    }
+
     @Override
     public ContentType getContentType() {
         return ContentType.APPLICATION_JSON;
@@ -100,10 +120,7 @@ public class TemplatePushRequest implements Request<TemplateResponse> {
 
     @Override
     public Map<String, String> getRequestHeaders() {
-        Map<String, String> headers = new HashMap<String, String>();
-        headers.put(HttpHeaders.CONTENT_TYPE, CONTENT_TYPE_JSON);
-        headers.put(HttpHeaders.ACCEPT, UA_VERSION_JSON);
-        return headers;
+        return RequestUtils.JSON_REQUEST_HEADERS;
     }
 
     @Override
@@ -114,12 +131,7 @@ public class TemplatePushRequest implements Request<TemplateResponse> {
 
     @Override
     public ResponseParser<TemplateResponse> getResponseParser() {
-        return new ResponseParser<TemplateResponse>() {
-            @Override
-            public TemplateResponse parse(String response) throws IOException {
-                return TemplatesObjectMapper.getInstance().readValue(response, TemplateResponse.class);
-            }
-        };
+        return PARSER;
     }
 
     @Override
@@ -0,0 +1,289 @@
+/*
+ * Copyright (c) 2013-2016.  Urban Airship and Contributors
+ */
+
+package com.urbanairship.api.client;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+import jdk.jfr.StackTrace;
+import jdk.jfr.Timespan;
+
+/**
+ * The Java Flight Recorder events of the client, recorded through {@link ClientEvents}. This class is compiled for
+ * Java 11 when the library is built with JDK 11 or later, and only loaded by ClientEvents on runtimes with JFR.
+ * Recording the events only costs a check of whether the event type is enabled when no recording is running.
+ */
+final class JfrClientEvents implements ClientEvents.Recorder {
+
+    JfrClientEvents() {
+    }
+
+    @Override
+    public Object beginRequest() {
+        RequestEvent event = new RequestEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitRequest(Object requestEvent, String method, String endpoint, EndpointFamily endpointFamily,
+                              int statusCode, int attempts, long bytesSent, long serializationNanos) {
+        RequestEvent event = (RequestEvent) requestEvent;
+        event.end();
+        if (event.shouldCommit()) {
+            event.method = method;
+            event.endpoint = endpoint;
+            event.endpointFamily = endpointFamily.name();
+            event.statusCode = statusCode;
+            event.attempts = attempts;
+            event.bytesSent = bytesSent;
+            event.serializationTime = serializationNanos;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginSerialization() {
+        SerializationEvent event = new SerializationEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitSerialization(Object serializationEvent, Class<?> requestType, long bodySize) {
+        SerializationEvent event = (SerializationEvent) serializationEvent;
+        event.end();
+        if (event.shouldCommit()) {
+            event.requestType = requestType.getName();
+            event.bodySize = bodySize;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginAttempt() {
+        AttemptEvent event = new AttemptEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitAttempt(Object attemptEvent, String method, String endpoint, int attempt, int statusCode,
+                              long timeToFirstByteNanos, long bytesSent, long bytesReceived) {
+        AttemptEvent event = (AttemptEvent) attemptEvent;
+        event.end();
+        if (event.shouldCommit()) {
+            event.method = method;
+            event.endpoint = endpoint;
+            event.attempt = attempt;
+            event.statusCode = statusCode;
+            event.timeToFirstByte = timeToFirstByteNanos;
+            event.bytesSent = bytesSent;
+            event.bytesReceived = bytesReceived;
+            event.commit();
+        }
+    }
+
+    @Override
+    public void retry(String method, String endpoint, int attempt, int statusCode, long delayMillis) {
+        RetryEvent event = new RetryEvent();
+        if (event.shouldCommit()) {
+            event.method = method;
+            event.endpoint = endpoint;
+            event.attempt = attempt;
+            event.statusCode = statusCode;
+            event.retryDelay = delayMillis;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginParse() {
+        ParseEvent event = new ParseEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitParse(Object parseEvent, Class<?> parserType, long bodySize) {
+        ParseEvent event = (ParseEvent) parseEvent;
+        event.end();
+        if (event.shouldCommit()) {
+            event.parserType = parserType.getName();
+            event.bodySize = bodySize;
+            event.commit();
+        }
+    }
+
+    @Override
+    public Object beginCallback() {
+        CallbackEvent event = new CallbackEvent();
+        if (!event.isEnabled()) {
+            return null;
+        }
+        event.begin();
+        return event;
+    }
+
+    @Override
+    public void commitCallback(Object callbackEvent, Class<?> callbackType, boolean error) {
+        CallbackEvent event = (CallbackEvent) callbackEvent;
+        event.end();
+        if (event.shouldCommit()) {
+            event.callbackType = callbackType.getName();
+            event.error = error;
+            event.commit();
+        }
+    }
+
+    @Name("com.urbanairship.api.Request")
+    @Label("Request")
+    @Description("An API request, from its submission to its completion, including serialization, queueing and retries")
+    @Category({"Urban Airship", "API Client"})
+    @StackTrace(false)
+    static final class RequestEvent extends Event {
+
+        @Label("Method")
+        String method;
+
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Endpoint Family")
+        String endpointFamily;
+
+        @Label("Status Code")
+        @Description("Status code of the last attempt, 0 if no response was received")
+        int statusCode;
+
+        @Label("Attempts")
+        int attempts;
+
+        @Label("Bytes Sent")
+        @DataAmount
+        long bytesSent;
+
+        @Label("Serialization Time")
+        @Timespan
+        long serializationTime;
+    }
+
+    @Name("com.urbanairship.api.RequestSerialization")
+    @Label("Request Serialization")
+    @Description("Serialization of a request body")
+    @Category({"Urban Airship", "API Client"})
+    @StackTrace(false)
+    static final class SerializationEvent extends Event {
+
+        @Label("Request Type")
+        String requestType;
+
+        @Label("Body Size")
+        @DataAmount
+        long bodySize;
+    }
+
+    @Name("com.urbanairship.api.RequestAttempt")
+    @Label("Request Attempt")
+    @Description("An HTTP exchange with the API")
+    @Category({"Urban Airship", "API Client"})
+    @StackTrace(false)
+    static final class AttemptEvent extends Event {
+
+        @Label("Method")
+        String method;
+
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Attempt")
+        int attempt;
+
+        @Label("Status Code")
+        @Description("0 if no response was received")
+        int statusCode;
+
+        @Label("Time To First Byte")
+        @Description("-1 if no response was received")
+        @Timespan
+        long timeToFirstByte;
+
+        @Label("Bytes Sent")
+        @DataAmount
+        long bytesSent;
+
+        @Label("Bytes Received")
+        @DataAmount
+        long bytesReceived;
+    }
+
+    @Name("com.urbanairship.api.RequestRetry")
+    @Label("Request Retry")
+    @Description("A retry scheduled for a request attempt")
+    @Category({"Urban Airship", "API Client"})
+    @StackTrace(false)
+    static final class RetryEvent extends Event {
+
+        @Label("Method")
+        String method;
+
+        @Label("Endpoint")
+        String endpoint;
+
+        @Label("Attempt")
+        int attempt;
+
+        @Label("Status Code")
+        int statusCode;
+
+        @Label("Retry Delay")
+        @Timespan(Timespan.MILLISECONDS)
+        long retryDelay;
+    }
+
+    @Name("com.urbanairship.api.ResponseParse")
+    @Label("Response Parse")
+    @Description("Parsing of a response body")
+    @Category({"Urban Airship", "API Client"})
+    @StackTrace(false)
+    static final class ParseEvent extends Event {
+
+        @Label("Parser Type")
+        String parserType;
+
+        @Label("Body Size")
+        @DataAmount
+        long bodySize;
+    }
+
+    @Name("com.urbanairship.api.ResponseCallback")
+    @Label("Response Callback")
+    @Description("Execution of a response callback")
+    @Category({"Urban Airship", "API Client"})
+    @StackTrace(false)
+    static final class CallbackEvent extends Event {
+
+        @Label("Callback Type")
+        String callbackType;
+
+        @Label("Error")
+        boolean error;
+    }
+}
@@ -9,6 +9,7 @@ import com.urbanairship.api.client.Request;
 import org.apache.http.entity.ContentType;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.net.URI;
 import java.util.HashMap;
 import java.util.Map;
@@ -53,6 +54,19 @@ public class ChannelTagRequestTest {
         assertEquals(jsonFromObject, jsonFromString);
     }
 
+    @Test
+    public void testStreamedBody() throws Exception {
+        ChannelTagRequest request = ChannelTagRequest.newRequest()
+            .addIOSChannel(UUID.randomUUID().toString())
+            .addAndroidChannel(UUID.randomUUID().toString())
+            .removeTags("tag_group1", ImmutableSet.of("tag1", "tag2", "tag3"));
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        request.writeRequestBody(out);
+
+        assertEquals(MAPPER.readTree(request.getRequestBody()), MAPPER.readTree(out.toByteArray()));
+    }
+
     @Test
     public void testRemoveTags() throws Exception {
         String iosChannel1 = UUID.randomUUID().toString();
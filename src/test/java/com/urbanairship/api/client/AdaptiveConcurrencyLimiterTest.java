@@ -0,0 +1,120 @@
+package com.urbanairship.api.client;
+
+import com.google.common.base.Optional;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveConcurrencyLimiterTest {
+
+    private static final Optional<Long> RTT = Optional.of(TimeUnit.MILLISECONDS.toNanos(50));
+
+    @Test
+    public void testQueuesOverTheLimit() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(2, 2);
+        final List<Integer> started = new ArrayList<>();
+
+        for (int i = 0; i < 5; i++) {
+            final int task = i;
+            limiter.acquire(new Runnable() {
+                @Override
+                public void run() {
+                    started.add(task);
+                }
+            });
+        }
+
+        assertEquals(2, started.size());
+        assertEquals(2, limiter.getInFlight());
+        assertEquals(3, limiter.getQueueDepth());
+
+        limiter.release(Optional.<Long>absent(), false);
+        assertEquals(3, started.size());
+        assertEquals(2, limiter.getQueueDepth());
+
+        limiter.release(Optional.<Long>absent(), false);
+        limiter.release(Optional.<Long>absent(), false);
+        limiter.release(Optional.<Long>absent(), false);
+        limiter.release(Optional.<Long>absent(), false);
+        assertEquals(0, limiter.getQueueDepth());
+        assertEquals(0, limiter.getInFlight());
+        assertEquals(5, started.size());
+        for (int i = 0; i < 5; i++) {
+            assertEquals(i, (int) started.get(i));
+        }
+    }
+
+    @Test
+    public void testLimitGrowsWhileLatencyIsFlat() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(4, 100);
+        saturate(limiter);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.release(RTT, false);
+            saturate(limiter);
+        }
+
+        assertTrue(limiter.getLimit() > 4);
+        assertTrue(limiter.getLimit() <= 100);
+    }
+
+    @Test
+    public void testLimitShrinksWhenLatencyRises() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(50, 100);
+        saturate(limiter);
+
+        limiter.release(RTT, false);
+        saturate(limiter);
+        int limit = limiter.getLimit();
+
+        for (int i = 0; i < 20; i++) {
+            limiter.release(Optional.of(RTT.get() * 4), false);
+            saturate(limiter);
+        }
+
+        assertTrue(limiter.getLimit() < limit);
+    }
+
+    @Test
+    public void testLimitIsCutOnDrops() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 100);
+        saturate(limiter);
+
+        limiter.release(RTT, true);
+        assertEquals(18, limiter.getLimit());
+
+        for (int i = 0; i < 100; i++) {
+            limiter.release(RTT, true);
+        }
+        assertEquals(1, limiter.getLimit());
+    }
+
+    @Test
+    public void testIdleLimitDoesNotGrow() {
+        AdaptiveConcurrencyLimiter limiter = new AdaptiveConcurrencyLimiter(20, 100);
+
+        for (int i = 0; i < 50; i++) {
+            limiter.acquire(new NoopTask());
+            limiter.release(RTT, false);
+        }
+
+        assertEquals(20, limiter.getLimit());
+    }
+
+    private static void saturate(AdaptiveConcurrencyLimiter limiter) {
+        while (limiter.getInFlight() < limiter.getLimit()) {
+            limiter.acquire(new NoopTask());
+        }
+    }
+
+    private static class NoopTask implements Runnable {
+        @Override
+        public void run() {
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.urbanairship.api.client;
+
+import com.urbanairship.api.staticlists.StaticListUploadRequest;
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.Unpooled;
+import org.asynchttpclient.request.body.Body;
+import org.asynchttpclient.request.body.generator.FeedListener;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ChannelBodyGeneratorTest {
+
+    @Test
+    public void testBlockingChannelIsReadOffTheCallingThread() throws Exception {
+        final byte[] csv = new byte[PumpingChannel.CHUNK_SIZE * 3 + 5];
+        for (int i = 0; i < csv.length; i++) {
+            csv[i] = (byte) ('a' + i % 26);
+        }
+        final CountDownLatch unblock = new CountDownLatch(1);
+        final Thread caller = Thread.currentThread();
+        final boolean[] readByCaller = {false};
+
+        ReadableByteChannel source = new ReadableByteChannel() {
+            private int position = 0;
+            private boolean open = true;
+
+            @Override
+            public int read(ByteBuffer dst) throws IOException {
+                readByCaller[0] |= Thread.currentThread() == caller;
+                try {
+                    unblock.await();
+                } catch (InterruptedException e) {
+                    throw new IOException(e);
+                }
+                if (position == csv.length) {
+                    return -1;
+                }
+                int count = Math.min(dst.remaining(), csv.length - position);
+                dst.put(csv, position, count);
+                position += count;
+                return count;
+            }
+
+            @Override
+            public boolean isOpen() {
+                return open;
+            }
+
+            @Override
+            public void close() {
+                open = false;
+            }
+        };
+
+        ChannelBodyGenerator generator = new ChannelBodyGenerator(StaticListUploadRequest.newRequest("list", source));
+        final Semaphore contentAdded = new Semaphore(0);
+        generator.setListener(new FeedListener() {
+            @Override
+            public void onContentAdded() {
+                contentAdded.release();
+            }
+
+            @Override
+            public void onError(Throwable t) {
+            }
+        });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (Body body = generator.createBody()) {
+            ByteBuf chunk = Unpooled.buffer(8192);
+            // The source blocks, the transfer is suspended instead.
+            assertEquals(Body.BodyState.SUSPEND, body.transferTo(chunk));
+            assertEquals(0, chunk.readableBytes());
+
+            unblock.countDown();
+            Body.BodyState state;
+            do {
+                chunk.clear();
+                state = body.transferTo(chunk);
+                if (state == Body.BodyState.SUSPEND) {
+                    assertTrue(contentAdded.tryAcquire(10, TimeUnit.SECONDS));
+                }
+                chunk.readBytes(out, chunk.readableBytes());
+            } while (state != Body.BodyState.STOP);
+        }
+
+        assertArrayEquals(csv, out.toByteArray());
+        assertFalse(readByCaller[0]);
+    }
+}
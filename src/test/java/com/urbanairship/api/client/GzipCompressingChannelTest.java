@@ -0,0 +1,73 @@
+package com.urbanairship.api.client;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.Random;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GzipCompressingChannelTest {
+
+    @Test
+    public void testEmptySource() throws Exception {
+        assertArrayEquals(new byte[0], roundTrip(new byte[0], 1024));
+    }
+
+    @Test
+    public void testCompressibleSource() throws Exception {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 100000; i++) {
+            csv.append("named_user,user-").append(i).append('\n');
+        }
+        byte[] source = csv.toString().getBytes("UTF-8");
+
+        byte[] compressed = compress(source, 8192);
+        assertTrue(compressed.length < source.length / 4);
+        assertArrayEquals(source, ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed))));
+    }
+
+    @Test
+    public void testSmallReads() throws Exception {
+        byte[] source = new byte[200 * 1024];
+        new Random(42).nextBytes(source);
+        assertArrayEquals(source, roundTrip(source, 7));
+    }
+
+    @Test
+    public void testCloseClosesSource() throws Exception {
+        ReadableByteChannel source = Channels.newChannel(new ByteArrayInputStream(new byte[10]));
+        GzipCompressingChannel channel = new GzipCompressingChannel(source);
+        channel.close();
+        assertFalse(channel.isOpen());
+        assertFalse(source.isOpen());
+    }
+
+    private static byte[] roundTrip(byte[] source, int readSize) throws IOException {
+        return ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compress(source, readSize))));
+    }
+
+    private static byte[] compress(byte[] source, int readSize) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (GzipCompressingChannel channel = new GzipCompressingChannel(Channels.newChannel(new ByteArrayInputStream(source)))) {
+            ByteBuffer buffer = ByteBuffer.allocate(readSize);
+            int read;
+            while ((read = channel.read(buffer)) != -1) {
+                out.write(buffer.array(), 0, read);
+                buffer.clear();
+            }
+            assertEquals(-1, channel.read(buffer));
+        }
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,163 @@
+package com.urbanairship.api.client;
+
+import com.google.common.io.ByteStreams;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.ReadableByteChannel;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPInputStream;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class ParallelGzipCompressingChannelTest {
+
+    private static final int BLOCK_SIZE = 32 * 1024;
+
+    @Test
+    public void testEmptySource() throws Exception {
+        byte[] compressed = compress(new ParallelGzipCompressingChannel(source(new byte[0])), 1024);
+        assertArrayEquals(new byte[0], decompress(compressed));
+    }
+
+    @Test
+    public void testBlocksFormASingleStream() throws Exception {
+        byte[] source = csv(100000);
+        byte[] parallel = compress(new ParallelGzipCompressingChannel(source(source), Deflater.DEFAULT_COMPRESSION, BLOCK_SIZE), 8192);
+        byte[] sequential = compress(new GzipCompressingChannel(source(source)), 8192);
+
+        assertArrayEquals(source, decompress(parallel));
+        // Priming every block with the end of the previous one keeps the ratio close to a sequential compression.
+        assertTrue(parallel.length < sequential.length * 1.1);
+    }
+
+    @Test
+    public void testRandomSourceWithSmallReads() throws Exception {
+        byte[] source = new byte[BLOCK_SIZE * 5 + 17];
+        new Random(42).nextBytes(source);
+
+        ExecutorService executor = Executors.newFixedThreadPool(3);
+        try {
+            byte[] compressed = compress(new ParallelGzipCompressingChannel(source(source), Deflater.BEST_SPEED, BLOCK_SIZE, executor, 3), 7);
+            assertArrayEquals(source, decompress(compressed));
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void testStoredBlocks() throws Exception {
+        byte[] source = csv(10000);
+        byte[] compressed = compress(new ParallelGzipCompressingChannel(source(source), Deflater.NO_COMPRESSION, BLOCK_SIZE), 4096);
+        assertArrayEquals(source, decompress(compressed));
+    }
+
+    @Test
+    public void testReadsDoNotWaitForCompression() throws Exception {
+        final List<Runnable> tasks = new ArrayList<>();
+        Executor queued = new Executor() {
+            @Override
+            public void execute(Runnable task) {
+                tasks.add(task);
+            }
+        };
+        byte[] source = csv(10000);
+        ParallelGzipCompressingChannel channel = new ParallelGzipCompressingChannel(source(source), Deflater.DEFAULT_COMPRESSION, BLOCK_SIZE, queued, 1);
+        final int[] notifications = {0};
+        channel.setReadListener(new Runnable() {
+            @Override
+            public void run() {
+                notifications[0]++;
+            }
+        });
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        ByteBuffer buffer = ByteBuffer.allocate(4096);
+        // Only the header is available until the executor has run.
+        assertEquals(10, channel.read(buffer));
+        assertEquals(0, channel.read(buffer));
+        out.write(buffer.array(), 0, buffer.position());
+        buffer.clear();
+
+        int read;
+        while ((read = channel.read(buffer)) != -1) {
+            if (read == 0) {
+                assertFalse(tasks.isEmpty());
+                tasks.remove(0).run();
+            }
+            out.write(buffer.array(), 0, buffer.position());
+            buffer.clear();
+        }
+        channel.close();
+
+        assertArrayEquals(source, decompress(out.toByteArray()));
+        assertTrue(notifications[0] > 0);
+    }
+
+    @Test
+    public void testCloseClosesSource() throws Exception {
+        ReadableByteChannel source = source(csv(10000));
+        ParallelGzipCompressingChannel channel = new ParallelGzipCompressingChannel(source);
+        channel.read(ByteBuffer.allocate(16));
+        channel.close();
+        assertFalse(channel.isOpen());
+        assertFalse(source.isOpen());
+    }
+
+    private static byte[] csv(int rows) throws IOException {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < rows; i++) {
+            csv.append("named_user,user-").append(i).append('\n');
+        }
+        return csv.toString().getBytes("UTF-8");
+    }
+
+    private static ReadableByteChannel source(byte[] bytes) {
+        return Channels.newChannel(new ByteArrayInputStream(bytes));
+    }
+
+    private static byte[] decompress(byte[] compressed) throws IOException {
+        return ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed)));
+    }
+
+    private static byte[] compress(ReadableByteChannel channel, int readSize) throws Exception {
+        final Semaphore readable = new Semaphore(0);
+        if (channel instanceof NonBlockingReadableChannel) {
+            ((NonBlockingReadableChannel) channel).setReadListener(new Runnable() {
+                @Override
+                public void run() {
+                    readable.release();
+                }
+            });
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ReadableByteChannel compressing = channel) {
+            ByteBuffer buffer = ByteBuffer.allocate(readSize);
+            int read;
+            while ((read = compressing.read(buffer)) != -1) {
+                if (read == 0) {
+                    assertTrue(readable.tryAcquire(10, TimeUnit.SECONDS));
+                }
+                out.write(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        }
+        return out.toByteArray();
+    }
+}
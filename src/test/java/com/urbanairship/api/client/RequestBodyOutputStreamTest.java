@@ -0,0 +1,43 @@
+package com.urbanairship.api.client;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RequestBodyOutputStreamTest {
+
+    @Test
+    public void testSegmentsHoldWrittenBytes() throws Exception {
+        byte[] data = new byte[300000];
+        new Random(42).nextBytes(data);
+
+        RequestBodyOutputStream out = new RequestBodyOutputStream();
+        out.write(data, 0, 100);
+        out.write(data[100]);
+        out.write(data, 101, data.length - 101);
+
+        List<byte[]> segments = out.toSegments();
+        assertTrue(segments.size() > 1);
+        assertEquals(data.length, out.size());
+
+        ByteArrayOutputStream joined = new ByteArrayOutputStream();
+        for (byte[] segment : segments) {
+            assertTrue(segment.length <= 64 * 1024);
+            joined.write(segment);
+        }
+        assertArrayEquals(data, joined.toByteArray());
+    }
+
+    @Test
+    public void testEmptyBody() throws Exception {
+        RequestBodyOutputStream out = new RequestBodyOutputStream();
+        assertEquals(0, out.size());
+        assertTrue(out.toSegments().isEmpty());
+    }
+}
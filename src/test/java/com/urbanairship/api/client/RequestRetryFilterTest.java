@@ -0,0 +1,57 @@
+package com.urbanairship.api.client;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Predicate;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.asynchttpclient.filter.FilterContext;
+import org.junit.Test;
+
+import java.time.ZoneOffset;
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class RequestRetryFilterTest {
+
+    private final RequestRetryFilter filter = new RequestRetryFilter(10, Optional.<Predicate<FilterContext>>absent(), 5, 1000);
+
+    @Test
+    public void testBackoffIsBoundedByExponentAndCap() {
+        for (int retry = 0; retry < 20; retry++) {
+            long bound = Math.min(1000, 5L << (retry + 1));
+            for (int i = 0; i < 100; i++) {
+                long delay = filter.getRetryDelay(retry, null);
+                assertTrue(delay >= 0);
+                assertTrue(delay <= bound);
+            }
+        }
+    }
+
+    @Test
+    public void testRetryAfterSeconds() {
+        HttpHeaders headers = new DefaultHttpHeaders().add("Retry-After", "1");
+        assertEquals(1000, filter.getRetryDelay(0, headers));
+
+        headers = new DefaultHttpHeaders().add("Retry-After", "120");
+        assertEquals(1000, filter.getRetryDelay(0, headers));
+    }
+
+    @Test
+    public void testParseRetryAfter() {
+        assertEquals(Long.valueOf(3000), RequestRetryFilter.parseRetryAfter(" 3 ").get());
+        assertEquals(Long.valueOf(0), RequestRetryFilter.parseRetryAfter("-3").get());
+        assertFalse(RequestRetryFilter.parseRetryAfter(null).isPresent());
+        assertFalse(RequestRetryFilter.parseRetryAfter("soon").isPresent());
+
+        String date = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).plusSeconds(60));
+        long delay = RequestRetryFilter.parseRetryAfter(date).get();
+        assertTrue(delay > 50000 && delay <= 60000);
+
+        String past = DateTimeFormatter.RFC_1123_DATE_TIME.format(ZonedDateTime.now(ZoneOffset.UTC).minusSeconds(60));
+        assertEquals(Long.valueOf(0), RequestRetryFilter.parseRetryAfter(past).get());
+    }
+}
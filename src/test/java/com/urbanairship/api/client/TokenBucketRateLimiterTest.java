@@ -0,0 +1,101 @@
+package com.urbanairship.api.client;
+
+import com.google.common.base.Optional;
+import com.google.common.base.Ticker;
+import org.junit.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertEquals;
+
+public class TokenBucketRateLimiterTest {
+
+    private static final long SECOND = TimeUnit.SECONDS.toNanos(1);
+
+    private final FakeTicker ticker = new FakeTicker();
+
+    @Test
+    public void testBurstThenRate() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(10, 3, ticker);
+
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(SECOND / 10, limiter.reserve());
+        assertEquals(2 * SECOND / 10, limiter.reserve());
+
+        // Permits accumulate again while idle, up to the burst.
+        ticker.advance(10 * SECOND);
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(0, limiter.reserve());
+        assertEquals(SECOND / 10, limiter.reserve());
+    }
+
+    @Test
+    public void testThrottlingHalvesTheRate() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(16, 1, ticker);
+
+        limiter.onThrottled(Optional.<Long>absent());
+        assertEquals(8, limiter.getRate(), 0.001);
+
+        for (int i = 0; i < 10; i++) {
+            limiter.onThrottled(Optional.<Long>absent());
+        }
+        assertEquals(1, limiter.getRate(), 0.001);
+
+        assertEquals(0, limiter.reserve());
+        assertEquals(SECOND, limiter.reserve());
+    }
+
+    @Test
+    public void testRetryAfterPausesTheBucket() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(100, 5, ticker);
+
+        limiter.onThrottled(Optional.of(2000L));
+        assertEquals(2 * SECOND, limiter.reserve());
+        assertEquals(2 * SECOND + SECOND / 50, limiter.reserve());
+    }
+
+    @Test
+    public void testSuccessRecoversTheRate() {
+        TokenBucketRateLimiter limiter = new TokenBucketRateLimiter(20, 1, ticker);
+
+        limiter.onThrottled(Optional.<Long>absent());
+        assertEquals(10, limiter.getRate(), 0.001);
+
+        limiter.onSuccess();
+        assertEquals(11, limiter.getRate(), 0.001);
+
+        for (int i = 0; i < 100; i++) {
+            limiter.onSuccess();
+        }
+        assertEquals(20, limiter.getRate(), 0.001);
+    }
+
+    @Test
+    public void testEndpointFamilies() {
+        assertEquals(EndpointFamily.PUSH, EndpointFamily.forPath("/api/push/"));
+        assertEquals(EndpointFamily.PUSH, EndpointFamily.forPath("/api/schedules/"));
+        assertEquals(EndpointFamily.REPORTS, EndpointFamily.forPath("/api/push/stats/"));
+        assertEquals(EndpointFamily.CHANNELS, EndpointFamily.forPath("/custom/path/api/channels/tags/"));
+        assertEquals(EndpointFamily.NAMED_USERS, EndpointFamily.forPath("/api/named_users/"));
+        assertEquals(EndpointFamily.CUSTOM_EVENTS, EndpointFamily.forPath("/api/custom-events/"));
+        assertEquals(EndpointFamily.OTHER, EndpointFamily.forPath("/api/segments/"));
+        assertEquals(EndpointFamily.OTHER, EndpointFamily.forPath(null));
+    }
+
+    private static class FakeTicker extends Ticker {
+
+        private long nanos = 1000 * SECOND;
+
+        @Override
+        public long read() {
+            return nanos;
+        }
+
+        void advance(long delta) {
+            nanos += delta;
+        }
+    }
+}
@@ -4,7 +4,10 @@ import com.fasterxml.jackson.core.type.TypeReference;
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
 import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import com.google.common.base.Optional;
 import com.google.common.base.Predicate;
+import com.google.common.collect.ImmutableList;
+import com.google.common.collect.ImmutableMap;
 import com.google.common.collect.ImmutableSet;
 import com.google.common.util.concurrent.ThreadFactoryBuilder;
 import com.urbanairship.api.channel.ChannelRequest;
@@ -12,6 +15,11 @@ import com.urbanairship.api.channel.ChannelTagRequest;
 import com.urbanairship.api.channel.model.ChannelResponse;
 import com.urbanairship.api.channel.model.ChannelType;
 import com.urbanairship.api.common.parse.DateFormats;
+import com.urbanairship.api.customevents.CustomEventRequest;
+import com.urbanairship.api.customevents.model.CustomEventBody;
+import com.urbanairship.api.customevents.model.CustomEventChannelType;
+import com.urbanairship.api.customevents.model.CustomEventPayload;
+import com.urbanairship.api.customevents.model.CustomEventUser;
 import com.urbanairship.api.experiments.ExperimentRequest;
 import com.urbanairship.api.experiments.model.Experiment;
 import com.urbanairship.api.experiments.model.ExperimentResponse;
@@ -58,6 +66,7 @@ import com.urbanairship.api.segments.SegmentListingRequest;
 import com.urbanairship.api.segments.SegmentLookupRequest;
 import com.urbanairship.api.segments.SegmentRequest;
 import com.urbanairship.api.segments.model.SegmentListingResponse;
+import com.urbanairship.api.segments.model.SegmentListingView;
 import com.urbanairship.api.segments.model.SegmentView;
 import com.urbanairship.api.staticlists.StaticListDeleteRequest;
 import com.urbanairship.api.staticlists.StaticListDownloadRequest;
@@ -93,22 +102,38 @@ import org.junit.Test;
 import org.mockito.Mock;
 import org.mockito.Mockito;
 import org.mockito.MockitoAnnotations;
+import org.reactivestreams.Subscriber;
+import org.reactivestreams.Subscription;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
 import java.io.FileOutputStream;
 import java.io.IOException;
 import java.math.BigDecimal;
 import java.net.URI;
 import java.net.URISyntaxException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
 import java.util.concurrent.ScheduledExecutorService;
 import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.Function;
 
 import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
 import static com.github.tomakehurst.wiremock.client.WireMock.delete;
@@ -125,6 +150,7 @@ import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
 import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
 import static com.github.tomakehurst.wiremock.client.WireMock.verify;
 import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
 import static org.junit.Assert.assertNotNull;
@@ -292,6 +318,38 @@ public class UrbanAirshipClientTest {
         client.close();
     }
 
+    @Test
+    public void testCreateHeaders() {
+        Map<String, String> headers = client.createHeaders(PushRequest.newRequest(PushPayload.newBuilder()
+            .setAudience(Selectors.all())
+            .setDeviceTypes(DeviceTypeData.of(DeviceType.IOS))
+            .setNotification(Notifications.alert("Foo"))
+            .build()));
+
+        assertEquals("Basic a2V5OnNlY3JldA==", headers.get("Authorization"));
+        assertEquals("key", headers.get("X-UA-Appkey"));
+        assertEquals(client.getUserAgent(), headers.get("User-Agent"));
+        assertEquals(Request.CONTENT_TYPE_JSON, headers.get("Content-Type"));
+        assertEquals(Request.UA_VERSION_JSON, headers.get("Accept"));
+
+        // Headers are merged once per distinct set of request headers.
+        assertTrue(headers == client.createHeaders(ChannelRequest.newRequest()));
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testCreateHeadersWithoutBearerToken() {
+        client.createHeaders(CustomEventRequest.newRequest(CustomEventPayload.newBuilder()
+            .setCustomEventBody(CustomEventBody.newBuilder()
+                .setName("event")
+                .build())
+            .setCustomEventUser(CustomEventUser.newBuilder()
+                .setChannel("e393d28e-23b2-4a22-9ace-dc539a5b07a8")
+                .setCustomEventChannelType(CustomEventChannelType.ANDROID_CHANNEL)
+                .build())
+            .setOccurred(DateTime.now())
+            .build()));
+    }
+
     @Test
     public void testBaseUriResolutionWithPath() throws URISyntaxException {
         String base = "https://test.com/big/fun/path/";
@@ -566,6 +624,557 @@ public class UrbanAirshipClientTest {
         }, 5, TimeUnit.MILLISECONDS);
     }
 
+    @Test
+    public void testRetryAfterIsHonored() throws Exception {
+        stubFor(get(urlEqualTo("/api/named_users/?start=retry-after")).inScenario("retry-after")
+                .whenScenarioStateIs("Started")
+                .willReturn(aResponse()
+                        .withHeader("Retry-After", "1")
+                        .withStatus(503))
+                .willSetStateTo("Retry"));
+
+        stubFor(get(urlEqualTo("/api/named_users/?start=retry-after")).inScenario("retry-after")
+                .whenScenarioStateIs("Retry")
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE_KEY, "application/json")
+                        .withBody("{\"ok\":true,\"named_users\":[]}")
+                        .withStatus(200)));
+
+        long start = System.nanoTime();
+        Response<NamedUserListingResponse> response = client.execute(NamedUserListingRequest.newRequest(URI.create("/api/named_users/?start=retry-after")));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+        assertEquals(200, response.getStatus());
+        assertTrue(elapsedMillis >= 900);
+        assertEquals(2, findAll(getRequestedFor(urlEqualTo("/api/named_users/?start=retry-after"))).size());
+    }
+
+    @Test
+    public void testRetriesDoNotStallOtherRequests() throws Exception {
+        asyncRequestClient = AsyncRequestClient.newBuilder()
+                .setBaseUri("http://localhost:" + wireMockRule.port())
+                .setMaxRetries(3)
+                .setBaseRetryDelayMillis(5000)
+                .setMaxRetryDelayMillis(5000)
+                .setClientConfigBuilder(new DefaultAsyncHttpClientConfig.Builder().setIoThreadsCount(1))
+                .build();
+
+        UrbanAirshipClient client = UrbanAirshipClient.newBuilder()
+                .setKey("key")
+                .setSecret("secret")
+                .setClient(asyncRequestClient)
+                .build();
+
+        stubFor(get(urlEqualTo("/api/named_users/"))
+                .willReturn(aResponse()
+                        .withHeader("Retry-After", "5")
+                        .withStatus(503)));
+
+        String pushJSON = "{\"ok\" : true,\"operation_id\" : \"df6a6b50\", \"push_ids\":[\"PushID\"]}";
+        stubFor(post(urlEqualTo("/api/push/"))
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE_KEY, "application/json")
+                        .withBody(pushJSON)
+                        .withStatus(201)));
+
+        PushPayload payload = PushPayload.newBuilder()
+                .setAudience(Selectors.all())
+                .setDeviceTypes(DeviceTypeData.of(DeviceType.IOS))
+                .setNotification(Notifications.alert("Foo"))
+                .build();
+
+        List<Future<Response>> retrying = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            retrying.add(client.executeAsync(NamedUserListingRequest.newRequest()));
+        }
+
+        // Wait for the first 503s to be handled by the single I/O thread, then make sure it is still serving pushes.
+        Thread.sleep(200);
+        long start = System.nanoTime();
+        for (int i = 0; i < 10; i++) {
+            Response<PushResponse> response = client.execute(PushRequest.newRequest(payload));
+            assertEquals(201, response.getStatus());
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 1000);
+
+        for (Future<Response> future : retrying) {
+            assertFalse(future.isDone());
+        }
+
+        client.close();
+        for (Future<Response> future : retrying) {
+            assertTrue(future.isCancelled());
+        }
+    }
+
+    @Test
+    public void testRateLimitDelaysRequests() throws Exception {
+        asyncRequestClient = AsyncRequestClient.newBuilder()
+                .setBaseUri("http://localhost:" + wireMockRule.port())
+                .setRateLimit(EndpointFamily.NAMED_USERS, 10, 1)
+                .build();
+
+        UrbanAirshipClient client = UrbanAirshipClient.newBuilder()
+                .setKey("key")
+                .setSecret("secret")
+                .setClient(asyncRequestClient)
+                .build();
+
+        stubFor(get(urlEqualTo("/api/named_users/?start=rate-limit"))
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE_KEY, "application/json")
+                        .withBody("{\"ok\": true, \"named_users\": []}")
+                        .withStatus(200)));
+
+        long start = System.nanoTime();
+        List<Future<Response>> futures = new ArrayList<>();
+        for (int i = 0; i < 4; i++) {
+            futures.add(client.executeAsync(NamedUserListingRequest.newRequest(URI.create("/api/named_users/?start=rate-limit"))));
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 100);
+
+        for (Future<Response> future : futures) {
+            assertEquals(200, future.get(5, TimeUnit.SECONDS).getStatus());
+        }
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) >= 290);
+        assertEquals(4, findAll(getRequestedFor(urlEqualTo("/api/named_users/?start=rate-limit"))).size());
+
+        client.close();
+    }
+
+    @Test
+    public void testConcurrencyLimitQueuesRequests() throws Exception {
+        asyncRequestClient = AsyncRequestClient.newBuilder()
+                .setBaseUri("http://localhost:" + wireMockRule.port())
+                .setMaxConcurrentRequests(1)
+                .build();
+
+        UrbanAirshipClient client = UrbanAirshipClient.newBuilder()
+                .setKey("key")
+                .setSecret("secret")
+                .setClient(asyncRequestClient)
+                .build();
+
+        stubFor(get(urlEqualTo("/api/named_users/?start=concurrency"))
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE_KEY, "application/json")
+                        .withBody("{\"ok\": true, \"named_users\": []}")
+                        .withFixedDelay(200)
+                        .withStatus(200)));
+
+        List<Future<Response>> futures = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            futures.add(client.executeAsync(NamedUserListingRequest.newRequest(URI.create("/api/named_users/?start=concurrency"))));
+        }
+
+        assertEquals(Optional.of(1), asyncRequestClient.getConcurrencyLimit());
+        assertEquals(2, asyncRequestClient.getQueuedRequestCount());
+
+        Thread.sleep(100);
+        assertEquals(1, findAll(getRequestedFor(urlEqualTo("/api/named_users/?start=concurrency"))).size());
+
+        for (Future<Response> future : futures) {
+            assertEquals(200, future.get(5, TimeUnit.SECONDS).getStatus());
+        }
+        assertEquals(0, asyncRequestClient.getQueuedRequestCount());
+        assertEquals(3, findAll(getRequestedFor(urlEqualTo("/api/named_users/?start=concurrency"))).size());
+
+        client.close();
+    }
+
+    @Test
+    public void testRequestMetrics() throws Exception {
+        ClientMetrics metrics = new ClientMetrics();
+        asyncRequestClient = AsyncRequestClient.newBuilder()
+                .setBaseUri("http://localhost:" + wireMockRule.port())
+                .setRequestMetrics(metrics)
+                .build();
+
+        UrbanAirshipClient client = UrbanAirshipClient.newBuilder()
+                .setKey("key")
+                .setSecret("secret")
+                .setClient(asyncRequestClient)
+                .build();
+
+        String body = "{\"ok\": true, \"named_users\": []}";
+        stubFor(get(urlEqualTo("/api/named_users/?start=metrics")).inScenario("metrics")
+                .whenScenarioStateIs("Started")
+                .willReturn(aResponse()
+                        .withStatus(503))
+                .willSetStateTo("Retry"));
+        stubFor(get(urlEqualTo("/api/named_users/?start=metrics")).inScenario("metrics")
+                .whenScenarioStateIs("Retry")
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE_KEY, "application/json")
+                        .withBody(body)
+                        .withFixedDelay(50)
+                        .withStatus(200)));
+
+        Response response = client.execute(NamedUserListingRequest.newRequest(URI.create("/api/named_users/?start=metrics")));
+        assertEquals(200, response.getStatus());
+
+        ClientMetrics.EndpointMetrics namedUsers = metrics.get(EndpointFamily.NAMED_USERS);
+        assertEquals(1, namedUsers.getRequestCount());
+        assertEquals(2, namedUsers.getAttemptCount());
+        assertEquals(1, namedUsers.getRetryCount());
+        assertEquals(0, namedUsers.getInFlight());
+        assertEquals(ImmutableMap.of(200, 1L, 503, 1L), namedUsers.getStatusCounts());
+        assertEquals(body.length(), namedUsers.getBytesReceived());
+        assertEquals(0, namedUsers.getBytesSent());
+
+        assertEquals(1, namedUsers.getRequestLatency().getCount());
+        assertEquals(2, namedUsers.getTimeToFirstByte().getCount());
+        assertTrue(namedUsers.getTimeToFirstByte().getMax() >= TimeUnit.MILLISECONDS.toNanos(50));
+        assertTrue(namedUsers.getRequestLatency().getMax() >= namedUsers.getAttemptLatency().getMax());
+        assertEquals(0, metrics.get(EndpointFamily.PUSH).getRequestCount());
+
+        client.close();
+    }
+
+    @Test
+    public void testResponseExecutor() throws Exception {
+        ExecutorService executor = Executors.newSingleThreadExecutor(new ThreadFactoryBuilder()
+                .setNameFormat("response-executor-test")
+                .build());
+        asyncRequestClient = AsyncRequestClient.newBuilder()
+                .setBaseUri("http://localhost:" + wireMockRule.port())
+                .setResponseExecutor(executor)
+                .build();
+
+        UrbanAirshipClient client = UrbanAirshipClient.newBuilder()
+                .setKey("key")
+                .setSecret("secret")
+                .setClient(asyncRequestClient)
+                .build();
+
+        stubFor(get(urlEqualTo("/api/named_users/?start=executor"))
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE_KEY, "application/json")
+                        .withBody("{\"ok\": true, \"named_users\": []}")
+                        .withStatus(200)));
+        stubFor(get(urlEqualTo("/api/named_users/?start=unauthorized"))
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE_KEY, "application/json")
+                        .withBody("{\"ok\": false, \"error\": \"Unauthorized\", \"error_code\": 40101}")
+                        .withStatus(401)));
+
+        final List<String> threads = new CopyOnWriteArrayList<>();
+        ResponseCallback callback = new ResponseCallback() {
+            @Override
+            public void completed(Response response) {
+                threads.add(Thread.currentThread().getName());
+            }
+
+            @Override
+            public void error(Throwable throwable) {
+                threads.add(Thread.currentThread().getName());
+            }
+        };
+
+        Response response = client.executeAsync(NamedUserListingRequest.newRequest(URI.create("/api/named_users/?start=executor")), callback).get();
+        assertEquals(200, response.getStatus());
+        assertTrue(response.getBody().isPresent());
+
+        try {
+            client.executeAsync(NamedUserListingRequest.newRequest(URI.create("/api/named_users/?start=unauthorized")), callback).get();
+            fail("Exception should have been thrown");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ClientException);
+        }
+
+        assertEquals(ImmutableList.of("response-executor-test", "response-executor-test"), ImmutableList.copyOf(threads));
+
+        client.close();
+        assertFalse(executor.isShutdown());
+        executor.shutdown();
+    }
+
+    @Test
+    public void testExecuteAsyncStage() throws Exception {
+        String pushJSON = "{\"ok\" : true,\"operation_id\" : \"df6a6b50\", \"push_ids\":[\"PushID\"]}";
+        stubFor(post(urlEqualTo("/api/push/"))
+            .willReturn(aResponse()
+                .withHeader(CONTENT_TYPE_KEY, "application/json")
+                .withBody(pushJSON)
+                .withStatus(201)));
+
+        PushPayload payload = PushPayload.newBuilder()
+            .setAudience(Selectors.all())
+            .setDeviceTypes(DeviceTypeData.of(DeviceType.IOS))
+            .setNotification(Notifications.alert("Foo"))
+            .build();
+
+        String pushId = client.executeAsyncStage(PushRequest.newRequest(payload))
+            .thenApply(new Function<Response<PushResponse>, String>() {
+                @Override
+                public String apply(Response<PushResponse> response) {
+                    return response.getBody().get().getPushIds().get().get(0);
+                }
+            })
+            .toCompletableFuture()
+            .get(5, TimeUnit.SECONDS);
+
+        assertEquals("PushID", pushId);
+    }
+
+    @Test
+    public void testExecuteAsyncStageError() throws Exception {
+        stubFor(post(urlEqualTo("/api/push/"))
+            .willReturn(aResponse()
+                .withHeader(CONTENT_TYPE_KEY, "application/json")
+                .withBody("{\"ok\" : false, \"error\" : \"Unauthorized\", \"error_code\" : 40101}")
+                .withStatus(401)));
+
+        PushPayload payload = PushPayload.newBuilder()
+            .setAudience(Selectors.all())
+            .setDeviceTypes(DeviceTypeData.of(DeviceType.IOS))
+            .setNotification(Notifications.alert("Foo"))
+            .build();
+
+        try {
+            client.executeAsyncStage(PushRequest.newRequest(payload)).toCompletableFuture().get(5, TimeUnit.SECONDS);
+            fail("Expected a ClientException");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof ClientException);
+            assertEquals(401, ((ClientException) e.getCause()).getStatusCode());
+        }
+    }
+
+    @Test
+    public void testExecuteAsyncStageCancellation() throws Exception {
+        stubFor(get(urlEqualTo("/api/named_users/?start=cancel"))
+            .willReturn(aResponse()
+                .withHeader("Retry-After", "1")
+                .withStatus(503)));
+
+        CompletableFuture<Response<NamedUserListingResponse>> future =
+            client.executeAsyncStage(NamedUserListingRequest.newRequest(URI.create("/api/named_users/?start=cancel"))).toCompletableFuture();
+
+        Thread.sleep(300);
+        assertTrue(future.cancel(true));
+        int attempts = findAll(getRequestedFor(urlEqualTo("/api/named_users/?start=cancel"))).size();
+
+        Thread.sleep(1500);
+        assertTrue(future.isCancelled());
+        assertEquals(1, attempts);
+        assertEquals(attempts, findAll(getRequestedFor(urlEqualTo("/api/named_users/?start=cancel"))).size());
+    }
+
+    @Test
+    public void testPaginator() throws Exception {
+        stubSegmentPage("/api/segments/", "/api/segments/?start=2", "segment1", "segment2");
+        stubSegmentPage("/api/segments/?start=2", "/api/segments/?start=3", "segment3", "segment4");
+        stubSegmentPage("/api/segments/?start=3", null, "segment5");
+
+        Paginator<SegmentListingResponse, SegmentListingView> paginator =
+            SegmentListingRequest.newPaginatorBuilder(client, SegmentListingRequest.newRequest()).build();
+
+        List<String> names = new ArrayList<>();
+        for (SegmentListingView segment : paginator) {
+            names.add(segment.getDisplayName());
+        }
+
+        assertEquals(ImmutableList.of("segment1", "segment2", "segment3", "segment4", "segment5"), names);
+        assertEquals(1, findAll(getRequestedFor(urlEqualTo("/api/segments/"))).size());
+        assertEquals(1, findAll(getRequestedFor(urlEqualTo("/api/segments/?start=2"))).size());
+        assertEquals(1, findAll(getRequestedFor(urlEqualTo("/api/segments/?start=3"))).size());
+    }
+
+    @Test
+    public void testPaginatorWithCompletedResponses() throws Exception {
+        final Map<String, String> pages = ImmutableMap.of(
+            "/api/segments/", segmentPage("/api/segments/?start=2", "segment1", "segment2"),
+            "/api/segments/?start=2", segmentPage("/api/segments/?start=3", "segment3", "segment4"),
+            "/api/segments/?start=3", segmentPage(null, "segment5"));
+
+        // Every response is received before the client returns.
+        UrbanAirshipClient synchronousClient = UrbanAirshipClient.newBuilder()
+            .setKey("key")
+            .setSecret("secret")
+            .setClient(new RequestClient() {
+                @Override
+                public <T> Future<Response> executeAsync(Request<T> request, ResponseCallback callback, Map<String, String> headers) {
+                    try {
+                        URI uri = request.getUri(URI.create("https://go.urbanairship.com"));
+                        String path = uri.getRawPath() + (uri.getRawQuery() == null ? "" : "?" + uri.getRawQuery());
+                        Response response = new Response<>(request.getResponseParser().parse(pages.get(path)),
+                            ImmutableMap.<String, String>of(), 200);
+                        callback.completed(response);
+                        return CompletableFuture.completedFuture(response);
+                    } catch (Exception e) {
+                        throw new RuntimeException(e);
+                    }
+                }
+
+                @Override
+                public void close() {
+                }
+            })
+            .build();
+
+        List<String> names = new ArrayList<>();
+        for (SegmentListingView segment : SegmentListingRequest.newPaginatorBuilder(synchronousClient, SegmentListingRequest.newRequest()).build()) {
+            names.add(segment.getDisplayName());
+        }
+
+        assertEquals(ImmutableList.of("segment1", "segment2", "segment3", "segment4", "segment5"), names);
+    }
+
+    @Test
+    public void testPaginatorWithoutPrefetch() throws Exception {
+        stubSegmentPage("/api/segments/", "/api/segments/?start=2", "segment1", "segment2");
+        stubSegmentPage("/api/segments/?start=2", null, "segment3");
+
+        Iterator<SegmentListingView> iterator = SegmentListingRequest.newPaginatorBuilder(client, SegmentListingRequest.newRequest())
+            .setPrefetchDepth(0)
+            .build()
+            .iterator();
+
+        assertEquals("segment1", iterator.next().getDisplayName());
+        assertEquals("segment2", iterator.next().getDisplayName());
+        assertEquals(0, findAll(getRequestedFor(urlEqualTo("/api/segments/?start=2"))).size());
+
+        assertEquals("segment3", iterator.next().getDisplayName());
+        assertFalse(iterator.hasNext());
+        assertEquals(1, findAll(getRequestedFor(urlEqualTo("/api/segments/?start=2"))).size());
+    }
+
+    @Test
+    public void testPaginatorError() throws Exception {
+        stubSegmentPage("/api/segments/", "/api/segments/?start=missing", "segment1");
+        stubFor(get(urlEqualTo("/api/segments/?start=missing"))
+            .willReturn(aResponse()
+                .withStatus(404)));
+
+        Iterator<SegmentListingView> iterator = SegmentListingRequest.newPaginatorBuilder(client, SegmentListingRequest.newRequest())
+            .build()
+            .iterator();
+
+        assertEquals("segment1", iterator.next().getDisplayName());
+        try {
+            iterator.hasNext();
+            fail("Expected a ClientException");
+        } catch (ClientException e) {
+            assertEquals(404, e.getStatusCode());
+        }
+    }
+
+    @Test
+    public void testPaginatorPublisher() throws Exception {
+        stubSegmentPage("/api/segments/", "/api/segments/?start=2", "segment1", "segment2");
+        stubSegmentPage("/api/segments/?start=2", null, "segment3");
+
+        final List<String> names = new CopyOnWriteArrayList<>();
+        final CountDownLatch received = new CountDownLatch(2);
+        final CountDownLatch completed = new CountDownLatch(1);
+        final AtomicReference<Subscription> subscription = new AtomicReference<>();
+
+        SegmentListingRequest.newPaginatorBuilder(client, SegmentListingRequest.newRequest())
+            .build()
+            .publisher()
+            .subscribe(new Subscriber<SegmentListingView>() {
+                @Override
+                public void onSubscribe(Subscription s) {
+                    subscription.set(s);
+                    s.request(2);
+                }
+
+                @Override
+                public void onNext(SegmentListingView segment) {
+                    names.add(segment.getDisplayName());
+                    received.countDown();
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    fail("Unexpected error " + throwable);
+                }
+
+                @Override
+                public void onComplete() {
+                    completed.countDown();
+                }
+            });
+
+        assertTrue(received.await(5, TimeUnit.SECONDS));
+        Thread.sleep(200);
+        assertEquals(ImmutableList.of("segment1", "segment2"), names);
+        assertEquals(0, findAll(getRequestedFor(urlEqualTo("/api/segments/?start=2"))).size());
+
+        subscription.get().request(Long.MAX_VALUE);
+        assertTrue(completed.await(5, TimeUnit.SECONDS));
+        assertEquals(ImmutableList.of("segment1", "segment2", "segment3"), names);
+        assertEquals(1, findAll(getRequestedFor(urlEqualTo("/api/segments/?start=2"))).size());
+    }
+
+    @Test
+    public void testPaginatorPublisherError() throws Exception {
+        stubFor(get(urlEqualTo("/api/segments/"))
+            .willReturn(aResponse()
+                .withHeader(CONTENT_TYPE_KEY, "application/json")
+                .withBody("{\"ok\" : false, \"error\" : \"Unauthorized\", \"error_code\" : 40101}")
+                .withStatus(401)));
+
+        final AtomicReference<Throwable> error = new AtomicReference<>();
+        final CountDownLatch latch = new CountDownLatch(1);
+
+        SegmentListingRequest.newPaginatorBuilder(client, SegmentListingRequest.newRequest())
+            .build()
+            .publisher()
+            .subscribe(new Subscriber<SegmentListingView>() {
+                @Override
+                public void onSubscribe(Subscription s) {
+                    s.request(1);
+                }
+
+                @Override
+                public void onNext(SegmentListingView segment) {
+                    fail("Unexpected element " + segment);
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                    error.set(throwable);
+                    latch.countDown();
+                }
+
+                @Override
+                public void onComplete() {
+                    fail("Unexpected completion");
+                }
+            });
+
+        assertTrue(latch.await(5, TimeUnit.SECONDS));
+        assertTrue(error.get() instanceof ClientException);
+        assertEquals(401, ((ClientException) error.get()).getStatusCode());
+    }
+
+    private void stubSegmentPage(String url, String nextPage, String... names) {
+        stubFor(get(urlEqualTo(url))
+            .willReturn(aResponse()
+                .withHeader(CONTENT_TYPE_KEY, "application/json")
+                .withBody(segmentPage(nextPage, names))
+                .withStatus(200)));
+    }
+
+    private static String segmentPage(String nextPage, String... names) {
+        StringBuilder body = new StringBuilder("{\"segments\": [");
+        for (int i = 0; i < names.length; i++) {
+            if (i > 0) {
+                body.append(",");
+            }
+            body.append("{\"creation_date\": 1346248822221, \"modification_date\": 1346248822221, ")
+                .append("\"id\": \"").append(UUID.randomUUID()).append("\", ")
+                .append("\"display_name\": \"").append(names[i]).append("\"}");
+        }
+        body.append("]");
+        if (nextPage != null) {
+            body.append(", \"next_page\": \"https://go.urbanairship.com").append(nextPage).append("\"");
+        }
+        body.append("}");
+        return body.toString();
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void testClose() throws Exception {
@@ -601,6 +1210,42 @@ public class UrbanAirshipClientTest {
         }, 5, TimeUnit.MILLISECONDS);
     }
 
+    @Test
+    public void testCloseCompletesInFlightRequests() throws Exception {
+        stubFor(get(urlEqualTo("/api/named_users/?start=in-flight"))
+            .willReturn(aResponse()
+                .withHeader(CONTENT_TYPE_KEY, "application/json")
+                .withBody("{\"ok\": true, \"named_users\": []}")
+                .withFixedDelay(1000)
+                .withStatus(200)));
+
+        final CountDownLatch callbackLatch = new CountDownLatch(1);
+        Future<Response> future = asyncRequestClient.executeAsync(
+            NamedUserListingRequest.newRequest(URI.create("/api/named_users/?start=in-flight")), new ResponseCallback() {
+                @Override
+                public void completed(Response response) {
+                    callbackLatch.countDown();
+                }
+
+                @Override
+                public void error(Throwable throwable) {
+                    callbackLatch.countDown();
+                }
+            }, ImmutableMap.<String, String>of());
+
+        Thread.sleep(200);
+        client.close();
+
+        // The HTTP client drops the request when it closes: the request fails instead of never completing.
+        try {
+            future.get(5, TimeUnit.SECONDS);
+        } catch (ExecutionException e) {
+            assertNotNull(e.getCause());
+        }
+        assertTrue(future.isDone());
+        assertTrue(callbackLatch.await(5, TimeUnit.SECONDS));
+    }
+
     @Test
     @SuppressWarnings("unchecked")
     public void testClientException() throws Exception {
@@ -1562,6 +2207,39 @@ public class UrbanAirshipClientTest {
         }
     }
 
+    @Test
+    public void testMultiByteCharactersSplitAcrossChunks() throws Exception {
+        StringBuilder id = new StringBuilder();
+        for (int i = 0; i < 2000; i++) {
+            id.append("\u00fc\u20ac\ud83d\ude00");
+        }
+
+        String body = "{\"ok\": true, \"named_users\": [{\"named_user_id\": \"" + id + "\", \"tags\": {}, \"channels\": []}]}";
+
+        stubFor(get(urlEqualTo("/api/named_users/"))
+            .willReturn(aResponse()
+                .withHeader(CONTENT_TYPE_KEY, "application/json; charset=utf-8")
+                .withBody(body)
+                .withChunkedDribbleDelay(37, 50)
+                .withStatus(200)));
+
+        Response<NamedUserListingResponse> response = client.execute(NamedUserListingRequest.newRequest());
+        assertEquals(200, response.getStatus());
+        assertEquals(id.toString(), response.getBody().get().getNamedUserViews().get().get(0).getNamedUserId());
+
+        stubFor(post(urlEqualTo("/api/channels/tags/"))
+            .willReturn(aResponse()
+                .withHeader(CONTENT_TYPE_KEY, "application/json; charset=utf-8")
+                .withBody(body)
+                .withChunkedDribbleDelay(37, 50)
+                .withStatus(200)));
+
+        Response<String> tagResponse = client.execute(ChannelTagRequest.newRequest()
+            .addIOSChannel("9c36e8c7-5a73-47c0-9716-99fd3d4197d5")
+            .addTags("group", ImmutableSet.of("tag")));
+        assertEquals(body, tagResponse.getBody().get());
+    }
+
     @Test
     public void testSinglePushInfo() throws Exception {
 
@@ -2974,28 +3652,161 @@ public class UrbanAirshipClientTest {
         assertEquals(200, response.getStatus());
     }
 
+    @Test
+    public void testUploadStaticListStreams() throws Exception {
+        Path csvFile = new File("src/test/data/test.csv").toPath();
+        byte[] csv = Files.readAllBytes(csvFile);
+        String queryPathString = "/api/lists/streamed/csv";
+
+        stubFor(put(urlEqualTo(queryPathString))
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE_KEY, APP_JSON)
+                        .withStatus(200)));
+
+        assertEquals(200, client.execute(StaticListUploadRequest.newRequest("streamed", csvFile)).getStatus());
+        assertEquals(200, client.execute(StaticListUploadRequest.newRequest("streamed", new ByteArrayInputStream(csv))
+                .setGzipEnabled(true)).getStatus());
+        assertEquals(200, client.execute(StaticListUploadRequest.newRequest("streamed", new ByteArrayInputStream(csv)))
+                .getStatus());
+
+        List<LoggedRequest> requests = findAll(putRequestedFor(urlEqualTo(queryPathString)));
+        assertEquals(3, requests.size());
+
+        assertEquals(String.valueOf(csv.length), requests.get(0).getHeader("Content-Length"));
+        assertArrayEquals(csv, requests.get(0).getBody());
+
+        assertEquals("gzip", requests.get(1).getHeader("Content-Encoding"));
+        assertEquals("chunked", requests.get(1).getHeader("Transfer-Encoding"));
+        // WireMock inflates gzip request bodies.
+        assertArrayEquals(csv, requests.get(1).getBody());
+
+        assertEquals("chunked", requests.get(2).getHeader("Transfer-Encoding"));
+        assertArrayEquals(csv, requests.get(2).getBody());
+    }
+
     @Test
     public void testDownloadStaticList() throws Exception {
-        FileOutputStream fileOutputStream = new FileOutputStream(new File("src/test/data/out.csv"));
+        File outFile = new File("src/test/data/out.csv");
+        FileOutputStream fileOutputStream = new FileOutputStream(outFile);
         String listName = "testlist";
         String queryPathString = "/api/lists/" + listName + "/csv";
+        String csv = "alias,stevenh\nnamed_user,\"gates,bill\"\n";
 
         stubFor(get(urlEqualTo(queryPathString))
                 .willReturn(aResponse()
                         .withHeader(CONTENT_TYPE_KEY, TEXT_CSV)
+                        .withBody(csv)
                         .withStatus(200)));
 
         StaticListDownloadRequest request = StaticListDownloadRequest.newRequest(listName)
                 .setOutputStream(fileOutputStream);
-        Response<String> response = client.execute(request);
+        try {
+            Response<String> response = client.execute(request);
 
-        verify(getRequestedFor(urlEqualTo(queryPathString)));
-        List<LoggedRequest> requests = findAll(getRequestedFor(
-                urlEqualTo(queryPathString)));
+            verify(getRequestedFor(urlEqualTo(queryPathString)));
+            List<LoggedRequest> requests = findAll(getRequestedFor(
+                    urlEqualTo(queryPathString)));
 
-        assertEquals(requests.size(), 1);
-        assertNotNull(response);
-        assertEquals(200, response.getStatus());
+            assertEquals(requests.size(), 1);
+            assertNotNull(response);
+            assertEquals(200, response.getStatus());
+            assertFalse(response.getBody().isPresent());
+            assertEquals(csv, new String(Files.readAllBytes(outFile.toPath()), StandardCharsets.UTF_8));
+        } finally {
+            Files.deleteIfExists(outFile.toPath());
+        }
+    }
+
+    @Test
+    public void testDownloadStaticListError() throws Exception {
+        Path outFile = new File("src/test/data/error-out.csv").toPath();
+        String error = "{\"ok\": false, \"error\": \"Could not find list\", \"error_code\": 40400}";
+        String queryPathString = "/api/lists/missing/csv";
+
+        stubFor(get(urlEqualTo(queryPathString))
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE_KEY, APP_JSON)
+                        .withBody(error)
+                        .withStatus(404)));
+
+        final List<String[]> rows = new CopyOnWriteArrayList<>();
+        java.util.function.Consumer<String[]> rowConsumer = new java.util.function.Consumer<String[]>() {
+            @Override
+            public void accept(String[] row) {
+                rows.add(row);
+            }
+        };
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+
+        try {
+            Files.write(outFile, "alias,stevenh\n".getBytes(StandardCharsets.UTF_8));
+
+            Response<String> response = client.execute(StaticListDownloadRequest.newRequest("missing")
+                    .setOutputFile(outFile)
+                    .setRowConsumer(rowConsumer));
+            assertEquals(404, response.getStatus());
+            assertEquals(error, response.getBody().get());
+            assertEquals("alias,stevenh\n", new String(Files.readAllBytes(outFile), StandardCharsets.UTF_8));
+
+            StaticListDownloadRequest streamed = StaticListDownloadRequest.newRequest("missing")
+                    .setOutputStream(out)
+                    .setRowConsumer(rowConsumer);
+            response = client.execute(streamed);
+            assertEquals(404, response.getStatus());
+            assertEquals(error, response.getBody().get());
+            assertEquals(0, out.size());
+            assertTrue(rows.isEmpty());
+
+            // The stream wasn't used up by the error: the list can still be downloaded to it.
+            stubFor(get(urlEqualTo(queryPathString))
+                    .willReturn(aResponse()
+                            .withHeader(CONTENT_TYPE_KEY, TEXT_CSV)
+                            .withBody("alias,marianb\n")
+                            .withStatus(200)));
+            response = client.execute(streamed);
+            assertEquals(200, response.getStatus());
+            assertEquals("alias,marianb\n", new String(out.toByteArray(), StandardCharsets.UTF_8));
+            assertEquals(1, rows.size());
+        } finally {
+            Files.deleteIfExists(outFile);
+        }
+    }
+
+    @Test
+    public void testDownloadStaticListToFile() throws Exception {
+        Path outFile = new File("src/test/data/streamed-out.csv").toPath();
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            csv.append("named_user,user-").append(i).append('\n');
+        }
+        String queryPathString = "/api/lists/streamed/csv";
+
+        stubFor(get(urlEqualTo(queryPathString))
+                .willReturn(aResponse()
+                        .withHeader(CONTENT_TYPE_KEY, TEXT_CSV)
+                        .withBody(csv.toString())
+                        .withStatus(200)));
+
+        final List<String> lastRow = new CopyOnWriteArrayList<>();
+        StaticListDownloadRequest request = StaticListDownloadRequest.newRequest("streamed")
+                .setOutputFile(outFile)
+                .setRowConsumer(new java.util.function.Consumer<String[]>() {
+                    @Override
+                    public void accept(String[] row) {
+                        lastRow.clear();
+                        lastRow.addAll(Arrays.asList(row));
+                    }
+                });
+
+        try {
+            Response<String> response = client.execute(request);
+            assertEquals(200, response.getStatus());
+            assertFalse(response.getBody().isPresent());
+            assertEquals(csv.toString(), new String(Files.readAllBytes(outFile), StandardCharsets.UTF_8));
+            assertEquals(Arrays.asList("named_user", "user-19999"), lastRow);
+        } finally {
+            Files.deleteIfExists(outFile);
+        }
     }
 
     @Test
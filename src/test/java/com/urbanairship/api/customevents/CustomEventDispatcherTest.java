@@ -0,0 +1,343 @@
+package com.urbanairship.api.customevents;
+
+import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import com.urbanairship.api.client.AsyncRequestClient;
+import com.urbanairship.api.client.ClientException;
+import com.urbanairship.api.client.Request;
+import com.urbanairship.api.client.RequestClient;
+import com.urbanairship.api.client.Response;
+import com.urbanairship.api.client.ResponseCallback;
+import com.urbanairship.api.client.ServerException;
+import com.urbanairship.api.client.UrbanAirshipClient;
+import com.urbanairship.api.customevents.model.CustomEventBody;
+import com.urbanairship.api.customevents.model.CustomEventChannelType;
+import com.urbanairship.api.customevents.model.CustomEventPayload;
+import com.urbanairship.api.customevents.model.CustomEventResponse;
+import com.urbanairship.api.customevents.model.CustomEventUser;
+import com.urbanairship.api.push.parse.PushObjectMapper;
+import org.joda.time.DateTime;
+import org.joda.time.DateTimeZone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.findAll;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CustomEventDispatcherTest {
+
+    @ClassRule
+    public static WireMockClassRule wireMockRule = new WireMockClassRule(wireMockConfig().dynamicPort());
+
+    @Rule
+    public WireMockClassRule instanceRule = wireMockRule;
+
+    private UrbanAirshipClient client;
+
+    @Before
+    public void setup() {
+        client = UrbanAirshipClient.newBuilder()
+                .setKey("key")
+                .setBearerToken("token")
+                .setClient(AsyncRequestClient.newBuilder()
+                        .setBaseUri("http://localhost:" + wireMockRule.port())
+                        .build())
+                .build();
+    }
+
+    @After
+    public void takeDown() throws Exception {
+        client.close();
+    }
+
+    private static CustomEventPayload payload(String name) {
+        return CustomEventPayload.newBuilder()
+                .setCustomEventBody(CustomEventBody.newBuilder()
+                        .setName(name)
+                        .build())
+                .setCustomEventUser(CustomEventUser.newBuilder()
+                        .setCustomEventChannelType(CustomEventChannelType.ANDROID_CHANNEL)
+                        .setChannel("e393d28e-23b2-4a22-9ace-dc539a5b07a8")
+                        .build())
+                .setOccurred(new DateTime(2015, 5, 2, 2, 31, 22, DateTimeZone.UTC))
+                .build();
+    }
+
+    @Test
+    public void testBatchesBySize() throws Exception {
+        stubFor(post(urlEqualTo("/api/custom-events/"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ok\": true, \"operationId\": \"df6a6b50\"}")
+                        .withStatus(200)));
+
+        CustomEventDispatcher dispatcher = CustomEventDispatcher.newBuilder()
+                .setClient(client)
+                .setMaxBatchSize(3)
+                .setMaxBatchDelay(1, TimeUnit.HOURS)
+                .build();
+
+        List<CompletableFuture<CustomEventResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            futures.add(dispatcher.dispatch(payload("event" + i)));
+        }
+        // The seventh event waits for its batch to fill up until the dispatcher is closed.
+        dispatcher.close();
+
+        for (CompletableFuture<CustomEventResponse> future : futures) {
+            assertEquals("df6a6b50", future.get(10, TimeUnit.SECONDS).getOperationId().get());
+        }
+
+        List<LoggedRequest> requests = findAll(postRequestedFor(urlEqualTo("/api/custom-events/")));
+        assertEquals(3, requests.size());
+        int events = 0;
+        for (LoggedRequest request : requests) {
+            String body = request.getBodyAsString();
+            if (body.startsWith("[")) {
+                events += PushObjectMapper.getInstance().readTree(body).size();
+            } else {
+                events++;
+            }
+        }
+        assertEquals(7, events);
+    }
+
+    @Test
+    public void testBatchesByBytesAndDelay() throws Exception {
+        stubFor(post(urlEqualTo("/api/custom-events/"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ok\": true, \"operationId\": \"df6a6b50\"}")
+                        .withStatus(200)));
+
+        int eventBytes = payload("event0").toJSON().length();
+        CustomEventDispatcher dispatcher = CustomEventDispatcher.newBuilder()
+                .setClient(client)
+                .setMaxBatchBytes(2 * eventBytes + 3)
+                .setMaxBatchDelay(50, TimeUnit.MILLISECONDS)
+                .setMaxInFlightBatches(1)
+                .build();
+
+        List<CompletableFuture<CustomEventResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            futures.add(dispatcher.dispatch(payload("event" + i)));
+        }
+        for (CompletableFuture<CustomEventResponse> future : futures) {
+            future.get(10, TimeUnit.SECONDS);
+        }
+        dispatcher.close();
+
+        List<LoggedRequest> requests = findAll(postRequestedFor(urlEqualTo("/api/custom-events/")));
+        assertEquals(3, requests.size());
+        for (LoggedRequest request : requests) {
+            assertTrue(request.getBody().length <= 2 * eventBytes + 3);
+        }
+    }
+
+    @Test
+    public void testFailedBatch() throws Exception {
+        stubFor(post(urlEqualTo("/api/custom-events/"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ok\": false, \"error\": \"Unauthorized\", \"error_code\": 40101}")
+                        .withStatus(401)));
+
+        CustomEventDispatcher dispatcher = CustomEventDispatcher.newBuilder()
+                .setClient(client)
+                .build();
+
+        CompletableFuture<CustomEventResponse> first = dispatcher.dispatch(payload("first"));
+        CompletableFuture<CustomEventResponse> second = dispatcher.dispatch(payload("second"));
+        dispatcher.flush();
+
+        for (CompletableFuture<CustomEventResponse> future : new CompletableFuture[]{first, second}) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                fail("Exception should have been thrown");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof ClientException);
+            }
+        }
+        assertEquals(1, findAll(postRequestedFor(urlEqualTo("/api/custom-events/"))).size());
+        dispatcher.close();
+    }
+
+    @Test
+    public void testRejectedBatch() throws Exception {
+        stubFor(post(urlEqualTo("/api/custom-events/"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/vnd.urbanairship+json; version=3")
+                        .withBody("{\"ok\": false, \"error\": \"Could not parse request body.\", \"error_code\": 40000}")
+                        .withStatus(400)));
+
+        CustomEventDispatcher dispatcher = CustomEventDispatcher.newBuilder()
+                .setClient(client)
+                .build();
+
+        CompletableFuture<CustomEventResponse> first = dispatcher.dispatch(payload("first"));
+        CompletableFuture<CustomEventResponse> second = dispatcher.dispatch(payload("second"));
+        dispatcher.flush();
+
+        for (CompletableFuture<CustomEventResponse> future : new CompletableFuture[]{first, second}) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                fail("Exception should have been thrown");
+            } catch (ExecutionException e) {
+                ClientException cause = (ClientException) e.getCause();
+                assertEquals(400, cause.getStatusCode());
+                assertEquals("Could not parse request body.", cause.getError().get().getError());
+            }
+        }
+        dispatcher.close();
+    }
+
+    @Test
+    public void testServerError() throws Exception {
+        stubFor(post(urlEqualTo("/api/custom-events/"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/vnd.urbanairship+json; version=3")
+                        .withBody("{\"ok\": false, \"error\": \"Internal error\", \"error_code\": 50000}")
+                        .withStatus(500)));
+
+        UrbanAirshipClient noRetryClient = UrbanAirshipClient.newBuilder()
+                .setKey("key")
+                .setBearerToken("token")
+                .setClient(AsyncRequestClient.newBuilder()
+                        .setBaseUri("http://localhost:" + wireMockRule.port())
+                        .setMaxRetries(0)
+                        .build())
+                .build();
+        try {
+            CustomEventDispatcher dispatcher = CustomEventDispatcher.newBuilder()
+                    .setClient(noRetryClient)
+                    .build();
+
+            CompletableFuture<CustomEventResponse> future = dispatcher.dispatch(payload("event"));
+            dispatcher.close();
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                fail("Exception should have been thrown");
+            } catch (ExecutionException e) {
+                ServerException cause = (ServerException) e.getCause();
+                assertEquals(500, cause.getStatusCode().intValue());
+                assertEquals("Internal error", cause.getError().get().getError());
+            }
+        } finally {
+            noRetryClient.close();
+        }
+    }
+
+    @Test
+    public void testQueueIsBounded() throws Exception {
+        stubFor(post(urlEqualTo("/api/custom-events/"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ok\": true, \"operationId\": \"df6a6b50\"}")
+                        .withFixedDelay(500)
+                        .withStatus(200)));
+
+        CustomEventDispatcher dispatcher = CustomEventDispatcher.newBuilder()
+                .setClient(client)
+                .setMaxBatchSize(1)
+                .setMaxInFlightBatches(1)
+                .setMaxQueuedBatches(1)
+                .build();
+
+        CompletableFuture<CustomEventResponse> first = dispatcher.dispatch(payload("first"));
+        CompletableFuture<CustomEventResponse> second = dispatcher.dispatch(payload("second"));
+        assertEquals(1, dispatcher.getInFlightBatchCount());
+        assertEquals(1, dispatcher.getQueuedBatchCount());
+        try {
+            dispatcher.dispatch(payload("third"));
+            fail("Exception should have been thrown");
+        } catch (RejectedExecutionException e) {
+            // Expected.
+        }
+
+        first.get(10, TimeUnit.SECONDS);
+        second.get(10, TimeUnit.SECONDS);
+        dispatcher.close();
+    }
+
+    @Test
+    public void testSynchronousFailuresDontRecurse() throws Exception {
+        final int[] depths = {Integer.MAX_VALUE, 0};
+        final List<ResponseCallback> pending = new ArrayList<>();
+        UrbanAirshipClient failingClient = UrbanAirshipClient.newBuilder()
+                .setKey("key")
+                .setBearerToken("token")
+                .setClient(new RequestClient() {
+                    @Override
+                    public <T> Future<Response> executeAsync(Request<T> request, ResponseCallback callback, Map<String, String> headers) {
+                        // The first batch stays in flight while the others are queued, then they all fail right away.
+                        if (pending.isEmpty()) {
+                            pending.add(callback);
+                            return new CompletableFuture<>();
+                        }
+                        int depth = Thread.currentThread().getStackTrace().length;
+                        depths[0] = Math.min(depths[0], depth);
+                        depths[1] = Math.max(depths[1], depth);
+                        throw new RejectedExecutionException("closed");
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                })
+                .build();
+
+        CustomEventDispatcher dispatcher = CustomEventDispatcher.newBuilder()
+                .setClient(failingClient)
+                .setMaxBatchSize(1)
+                .setMaxInFlightBatches(1)
+                .setMaxQueuedBatches(500)
+                .build();
+
+        List<CompletableFuture<CustomEventResponse>> futures = new ArrayList<>();
+        for (int i = 0; i < 500; i++) {
+            futures.add(dispatcher.dispatch(payload("event" + i)));
+        }
+        pending.get(0).error(new RejectedExecutionException("closed"));
+
+        for (CompletableFuture<CustomEventResponse> future : futures) {
+            try {
+                future.get(10, TimeUnit.SECONDS);
+                fail("Exception should have been thrown");
+            } catch (ExecutionException e) {
+                assertTrue(e.getCause() instanceof RejectedExecutionException);
+            }
+        }
+        // Every batch is sent from the same loop, the stack doesn't grow with the number of batches.
+        assertEquals(depths[0], depths[1]);
+        dispatcher.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testDispatchAfterClose() {
+        CustomEventDispatcher dispatcher = CustomEventDispatcher.newBuilder()
+                .setClient(client)
+                .build();
+        dispatcher.close();
+        dispatcher.dispatch(payload("event"));
+    }
+}
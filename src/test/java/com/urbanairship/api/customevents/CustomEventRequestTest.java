@@ -1,5 +1,6 @@
 package com.urbanairship.api.customevents;
 
+import com.google.common.collect.ImmutableList;
 import com.google.common.net.HttpHeaders;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.client.ResponseParser;
@@ -14,6 +15,7 @@ import org.joda.time.DateTime;
 import org.joda.time.DateTimeZone;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
 import java.util.HashMap;
@@ -56,6 +58,26 @@ public class CustomEventRequestTest {
         assertEquals(customEventRequest.getRequestBody(), customEventPayload.toJSON());
     }
 
+    @Test
+    public void testBatchBody() throws Exception {
+        CustomEventRequest batchRequest = CustomEventRequest.newRequest(ImmutableList.of(customEventPayload, customEventPayload));
+        String expected = "[" + customEventPayload.toJSON() + "," + customEventPayload.toJSON() + "]";
+        assertEquals(expected, batchRequest.getRequestBody());
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        batchRequest.writeRequestBody(out);
+        assertEquals(expected, out.toString("UTF-8"));
+
+        CustomEventRequest serializedRequest = CustomEventRequest.newRequest(ImmutableList.of(customEventPayload, customEventPayload),
+            ImmutableList.of(customEventPayload.toJSON(), customEventPayload.toJSON()));
+        assertEquals(expected, serializedRequest.getRequestBody());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testEmptyBatch() throws Exception {
+        CustomEventRequest.newRequest(ImmutableList.<CustomEventPayload>of());
+    }
+
     @Test
     public void testMethod() throws Exception {
         assertEquals(customEventRequest.getHttpMethod(), Request.HttpMethod.POST);
@@ -0,0 +1,76 @@
+package com.urbanairship.api.push;
+
+import com.urbanairship.api.push.model.DeviceType;
+import com.urbanairship.api.push.model.DeviceTypeData;
+import com.urbanairship.api.push.model.PushPayload;
+import com.urbanairship.api.push.model.audience.Selectors;
+import com.urbanairship.api.push.model.notification.Notifications;
+import org.apache.commons.lang.StringUtils;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PushBatchPackerTest {
+
+    private static PushPayload payload(int alertLength) {
+        return PushPayload.newBuilder()
+                .setAudience(Selectors.all())
+                .setDeviceTypes(DeviceTypeData.of(DeviceType.IOS))
+                .setNotification(Notifications.alert(StringUtils.repeat("a", alertLength)))
+                .build();
+    }
+
+    @Test
+    public void testPacksWithinBudget() throws Exception {
+        int overhead = payload(0).toJSON().length();
+        List<PushPayload> payloads = new ArrayList<>();
+        int[] sizes = {600, 400, 300, 700, 100, 900, 500, 200};
+        for (int size : sizes) {
+            payloads.add(payload(size - overhead));
+        }
+
+        PushBatchPacker packer = PushBatchPacker.newBuilder()
+                .setMaxBatchBytes(1003)
+                .build();
+        List<PushRequest> requests = packer.pack(payloads);
+
+        // 3700 bytes of payloads fit in 4 requests of 1000 bytes: 900+100, 700+300, 600+400, 500+200.
+        assertEquals(4, requests.size());
+        Set<PushPayload> packed = new HashSet<>();
+        for (PushRequest request : requests) {
+            assertTrue(request.getRequestBody().getBytes(StandardCharsets.UTF_8).length <= 1003);
+            packed.addAll(request.getPayloads());
+        }
+        assertEquals(new HashSet<>(payloads), packed);
+        assertEquals(payloads.get(0), requests.get(0).getPayloads().get(0));
+    }
+
+    @Test
+    public void testMaxBatchSizeAndOversizedPayloads() throws Exception {
+        List<PushPayload> payloads = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            payloads.add(payload(10 + i));
+        }
+        payloads.add(payload(5000));
+
+        PushBatchPacker packer = PushBatchPacker.newBuilder()
+                .setMaxBatchSize(2)
+                .setMaxBatchBytes(1000)
+                .build();
+        List<List<PushPayload>> batches = packer.packPayloads(payloads);
+
+        assertEquals(4, batches.size());
+        for (List<PushPayload> batch : batches) {
+            assertTrue(batch.size() <= 2);
+        }
+        assertEquals(1, batches.get(3).size());
+        assertEquals(payloads.get(5), batches.get(3).get(0));
+    }
+}
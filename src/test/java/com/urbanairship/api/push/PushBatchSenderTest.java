@@ -0,0 +1,338 @@
+package com.urbanairship.api.push;
+
+import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import com.google.common.collect.ImmutableList;
+import com.urbanairship.api.client.AsyncRequestClient;
+import com.urbanairship.api.client.ClientException;
+import com.urbanairship.api.client.Request;
+import com.urbanairship.api.client.RequestClient;
+import com.urbanairship.api.client.Response;
+import com.urbanairship.api.client.ResponseCallback;
+import com.urbanairship.api.client.ServerException;
+import com.urbanairship.api.client.UrbanAirshipClient;
+import com.urbanairship.api.push.model.DeviceType;
+import com.urbanairship.api.push.model.DeviceTypeData;
+import com.urbanairship.api.push.model.PushPayload;
+import com.urbanairship.api.push.model.PushResponse;
+import com.urbanairship.api.push.model.audience.Selectors;
+import com.urbanairship.api.push.model.notification.Notifications;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.containing;
+import static com.github.tomakehurst.wiremock.client.WireMock.findAll;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class PushBatchSenderTest {
+
+    @ClassRule
+    public static WireMockClassRule wireMockRule = new WireMockClassRule(wireMockConfig().dynamicPort());
+
+    @Rule
+    public WireMockClassRule instanceRule = wireMockRule;
+
+    private UrbanAirshipClient client;
+
+    @Before
+    public void setup() {
+        client = UrbanAirshipClient.newBuilder()
+                .setKey("key")
+                .setSecret("secret")
+                .setClient(AsyncRequestClient.newBuilder()
+                        .setBaseUri("http://localhost:" + wireMockRule.port())
+                        .build())
+                .build();
+    }
+
+    @After
+    public void takeDown() throws Exception {
+        client.close();
+    }
+
+    private static PushPayload payload(String alert) {
+        return PushPayload.newBuilder()
+                .setAudience(Selectors.all())
+                .setDeviceTypes(DeviceTypeData.of(DeviceType.IOS))
+                .setNotification(Notifications.alert(alert))
+                .build();
+    }
+
+    private static List<PushPayload> payloads(int count) {
+        List<PushPayload> payloads = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            payloads.add(payload("m" + i));
+        }
+        return payloads;
+    }
+
+    private static void stubBatch(int first, int count, int status) {
+        StringBuilder pushIds = new StringBuilder();
+        for (int i = first; i < first + count; i++) {
+            pushIds.append(i == first ? "" : ",").append("\"p").append(i).append("\"");
+        }
+        stubFor(post(urlEqualTo("/api/push/"))
+                .withRequestBody(containing("\"alert\":\"m" + first + "\""))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody(status == 202
+                                ? "{\"ok\": true, \"operation_id\": \"op" + first + "\", \"push_ids\": [" + pushIds + "]}"
+                                : "{\"ok\": false, \"error\": \"Invalid push\", \"error_code\": 40001}")
+                        .withStatus(status)));
+    }
+
+    @Test
+    public void testSplitsBySizeAndMergesInOrder() throws Exception {
+        for (int i = 0; i < 10; i += 3) {
+            stubBatch(i, Math.min(3, 10 - i), 202);
+        }
+
+        PushBatchSender sender = PushBatchSender.newBuilder()
+                .setClient(client)
+                .setMaxBatchSize(3)
+                .setMaxInFlightBatches(2)
+                .build();
+
+        PushResponse response = sender.send(PushRequest.newRequest(payloads(10))).get(10, TimeUnit.SECONDS);
+        assertTrue(response.getOk());
+        assertEquals("op0", response.getOperationId().get());
+        assertEquals(ImmutableList.of("p0", "p1", "p2", "p3", "p4", "p5", "p6", "p7", "p8", "p9"), response.getPushIds().get());
+
+        List<LoggedRequest> requests = findAll(postRequestedFor(urlEqualTo("/api/push/")));
+        assertEquals(4, requests.size());
+        assertEquals(0, sender.getInFlightBatchCount());
+        assertEquals(0, sender.getQueuedBatchCount());
+    }
+
+    @Test
+    public void testSplitsByBytes() throws Exception {
+        for (int i = 0; i < 5; i++) {
+            stubBatch(i, 1, 202);
+        }
+
+        int payloadBytes = payload("m0").toJSON().length();
+        PushBatchSender sender = PushBatchSender.newBuilder()
+                .setClient(client)
+                .setMaxBatchBytes(payloadBytes + 2)
+                .build();
+
+        PushResponse response = sender.send(PushRequest.newRequest(payloads(5))).get(10, TimeUnit.SECONDS);
+        assertEquals(ImmutableList.of("p0", "p1", "p2", "p3", "p4"), response.getPushIds().get());
+
+        List<LoggedRequest> requests = findAll(postRequestedFor(urlEqualTo("/api/push/")));
+        assertEquals(5, requests.size());
+        for (LoggedRequest request : requests) {
+            assertFalse(request.getBodyAsString().startsWith("["));
+        }
+    }
+
+    @Test
+    public void testFailedBatch() throws Exception {
+        stubBatch(0, 2, 202);
+        stubBatch(2, 2, 400);
+
+        PushBatchSender sender = PushBatchSender.newBuilder()
+                .setClient(client)
+                .setMaxBatchSize(2)
+                .build();
+
+        try {
+            sender.send(PushRequest.newRequest(payloads(4))).get(10, TimeUnit.SECONDS);
+            fail("Exception should have been thrown");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof BatchSendException);
+            assertTrue(e.getCause().getCause() instanceof ClientException);
+
+            // The first batch was delivered, only the second one should be sent again.
+            BatchResult<?> result = ((BatchSendException) e.getCause()).getResult();
+            assertEquals(ImmutableList.of("p0", "p1"), ((PushResponse) result.getResponse().get()).getPushIds().get());
+            assertEquals(1, result.getFailedBatches().size());
+            assertEquals(2, result.getFailedBatches().get(0).getFromIndex());
+            assertEquals(4, result.getFailedBatches().get(0).getToIndex());
+            assertTrue(result.getRejectedPayloads().isEmpty());
+        }
+        assertEquals(2, findAll(postRequestedFor(urlEqualTo("/api/push/"))).size());
+    }
+
+    @Test
+    public void testIsolatesRejectedPayloads() throws Exception {
+        stubFor(post(urlEqualTo("/api/push/"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ok\": true, \"operation_id\": \"op\", \"push_ids\": [\"id\"]}")
+                        .withStatus(202)));
+        stubFor(post(urlEqualTo("/api/push/"))
+                .withRequestBody(containing("\"alert\":\"bad\""))
+                .atPriority(1)
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/vnd.urbanairship+json; version=3")
+                        .withBody("{\"ok\": false, \"error\": \"Could not parse request body.\", \"error_code\": 40001}")
+                        .withStatus(400)));
+
+        List<PushPayload> payloads = payloads(8);
+        payloads.set(5, payload("bad"));
+
+        PushBatchSender sender = PushBatchSender.newBuilder()
+                .setClient(client)
+                .build();
+
+        BatchResult<PushResponse> result = sender.sendIsolatingRejects(PushRequest.newRequest(payloads)).get(10, TimeUnit.SECONDS);
+        assertEquals(1, result.getRejectedPayloads().size());
+        BatchResult.RejectedPayload rejected = result.getRejectedPayloads().get(0);
+        assertEquals(5, rejected.getIndex());
+        assertEquals(400, rejected.getStatusCode());
+        assertEquals("Could not parse request body.", rejected.getError().get().getError());
+
+        // The whole batch, then the halves, quarters and eighths holding the rejected payload.
+        assertEquals(7, result.getRequestCount());
+        assertEquals(7, findAll(postRequestedFor(urlEqualTo("/api/push/"))).size());
+
+        // [0, 4), [4, 5) and [6, 8) were delivered.
+        assertTrue(result.getResponse().get().getOk());
+        assertEquals(3, result.getResponse().get().getPushIds().get().size());
+    }
+
+    @Test
+    public void testFailedBatchesAreReported() throws Exception {
+        stubFor(post(urlEqualTo("/api/push/"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ok\": true, \"operation_id\": \"op\", \"push_ids\": [\"id\"]}")
+                        .withStatus(202)));
+        stubFor(post(urlEqualTo("/api/push/"))
+                .withRequestBody(containing("\"alert\":\"m2\""))
+                .atPriority(1)
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ok\": false, \"error\": \"Internal error\", \"error_code\": 50000}")
+                        .withStatus(500)));
+        stubFor(post(urlEqualTo("/api/push/"))
+                .withRequestBody(containing("\"alert\":\"bad\""))
+                .atPriority(1)
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ok\": false, \"error\": \"Could not parse request body.\", \"error_code\": 40001}")
+                        .withStatus(400)));
+
+        List<PushPayload> payloads = payloads(8);
+        payloads.set(5, payload("bad"));
+
+        UrbanAirshipClient noRetryClient = UrbanAirshipClient.newBuilder()
+                .setKey("key")
+                .setSecret("secret")
+                .setClient(AsyncRequestClient.newBuilder()
+                        .setBaseUri("http://localhost:" + wireMockRule.port())
+                        .setMaxRetries(0)
+                        .build())
+                .build();
+        try {
+            PushBatchSender sender = PushBatchSender.newBuilder()
+                    .setClient(noRetryClient)
+                    .setMaxBatchSize(2)
+                    .build();
+
+            BatchResult<PushResponse> result = sender.sendIsolatingRejects(PushRequest.newRequest(payloads)).get(10, TimeUnit.SECONDS);
+
+            // [0, 2), [4, 5) and [6, 8) were delivered, [2, 4) failed and 5 was rejected.
+            assertEquals(3, result.getResponse().get().getPushIds().get().size());
+            assertEquals(1, result.getRejectedPayloads().size());
+            assertEquals(5, result.getRejectedPayloads().get(0).getIndex());
+            assertEquals(1, result.getFailedBatches().size());
+            BatchResult.FailedBatch failed = result.getFailedBatches().get(0);
+            assertEquals(2, failed.getFromIndex());
+            assertEquals(4, failed.getToIndex());
+            assertEquals(500, ((ServerException) failed.getCause()).getStatusCode().intValue());
+            assertEquals(6, result.getRequestCount());
+        } finally {
+            noRetryClient.close();
+        }
+    }
+
+    @Test
+    public void testAllPayloadsRejected() throws Exception {
+        stubFor(post(urlEqualTo("/api/push/"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/vnd.urbanairship+json; version=3")
+                        .withBody("{\"ok\": false, \"error\": \"Could not parse request body.\", \"error_code\": 40001}")
+                        .withStatus(400)));
+
+        PushBatchSender sender = PushBatchSender.newBuilder()
+                .setClient(client)
+                .build();
+
+        BatchResult<PushResponse> result = sender.sendIsolatingRejects(PushRequest.newRequest(payloads(2))).get(10, TimeUnit.SECONDS);
+        assertFalse(result.getResponse().isPresent());
+        assertEquals(2, result.getRejectedPayloads().size());
+        assertEquals(0, result.getRejectedPayloads().get(0).getIndex());
+        assertEquals(1, result.getRejectedPayloads().get(1).getIndex());
+        assertEquals(3, result.getRequestCount());
+    }
+
+    @Test
+    public void testSynchronousFailuresDontRecurse() throws Exception {
+        final int[] depths = {Integer.MAX_VALUE, 0};
+        final List<ResponseCallback> pending = new ArrayList<>();
+        UrbanAirshipClient failingClient = UrbanAirshipClient.newBuilder()
+                .setKey("key")
+                .setSecret("secret")
+                .setClient(new RequestClient() {
+                    @Override
+                    public <T> Future<Response> executeAsync(Request<T> request, ResponseCallback callback, Map<String, String> headers) {
+                        // The first batch stays in flight while the others are queued, then they all fail right away.
+                        if (pending.isEmpty()) {
+                            pending.add(callback);
+                            return new CompletableFuture<>();
+                        }
+                        int depth = Thread.currentThread().getStackTrace().length;
+                        depths[0] = Math.min(depths[0], depth);
+                        depths[1] = Math.max(depths[1], depth);
+                        throw new RejectedExecutionException("closed");
+                    }
+
+                    @Override
+                    public void close() {
+                    }
+                })
+                .build();
+
+        PushBatchSender sender = PushBatchSender.newBuilder()
+                .setClient(failingClient)
+                .setMaxBatchSize(1)
+                .setMaxInFlightBatches(1)
+                .build();
+
+        CompletableFuture<PushResponse> response = sender.send(PushRequest.newRequest(payloads(500)));
+        pending.get(0).error(new RejectedExecutionException("closed"));
+        try {
+            response.get(10, TimeUnit.SECONDS);
+            fail("Exception should have been thrown");
+        } catch (ExecutionException e) {
+            assertTrue(e.getCause() instanceof BatchSendException);
+            assertTrue(e.getCause().getCause() instanceof RejectedExecutionException);
+            assertEquals(500, ((BatchSendException) e.getCause()).getResult().getFailedBatches().size());
+        }
+        // Every batch is sent from the same loop, the stack doesn't grow with the number of batches.
+        assertEquals(depths[0], depths[1]);
+    }
+}
@@ -13,8 +13,10 @@ import com.urbanairship.api.push.parse.PushObjectMapper;
 import org.apache.http.entity.ContentType;
 import org.junit.Test;
 
+import java.io.ByteArrayOutputStream;
 import java.io.IOException;
 import java.net.URI;
+import java.nio.charset.StandardCharsets;
 import java.util.HashMap;
 import java.util.Map;
 
@@ -55,6 +57,18 @@ public class PushRequestTest {
         assertEquals(validateRequest.getRequestBody(), "[{\"audience\":\"ALL\",\"device_types\":[\"ios\"],\"notification\":{\"alert\":\"Foo\"}},{\"audience\":\"ALL\",\"device_types\":[\"ios\"],\"notification\":{\"alert\":\"Bar\"}}]");
     }
 
+    @Test
+    public void testStreamedBody() throws Exception {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        pushRequest.writeRequestBody(out);
+        assertEquals(pushRequest.getRequestBody(), new String(out.toByteArray(), StandardCharsets.UTF_8));
+
+        PushRequest singleRequest = PushRequest.newRequest(payload);
+        out = new ByteArrayOutputStream();
+        singleRequest.writeRequestBody(out);
+        assertEquals(singleRequest.getRequestBody(), new String(out.toByteArray(), StandardCharsets.UTF_8));
+    }
+
     @Test
     public void testHeaders() throws Exception {
         Map<String, String> headers = new HashMap<String, String>();
@@ -0,0 +1,124 @@
+package com.urbanairship.api.push.parse;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.urbanairship.api.push.model.DeviceType;
+import com.urbanairship.api.push.model.DeviceTypeData;
+import com.urbanairship.api.push.model.PushOptions;
+import com.urbanairship.api.push.model.PushPayload;
+import com.urbanairship.api.push.model.audience.Selector;
+import com.urbanairship.api.push.model.audience.Selectors;
+import com.urbanairship.api.push.model.localization.Localization;
+import com.urbanairship.api.push.model.notification.Notification;
+import com.urbanairship.api.push.model.notification.Notifications;
+import com.urbanairship.api.push.model.notification.ios.IOSBadgeData;
+import com.urbanairship.api.push.model.notification.ios.IOSDevicePayload;
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class PushSerializationCacheTest {
+
+    private static PushPayload payload(Selector audience, Notification notification, PushOptions options, Localization localization) {
+        return PushPayload.newBuilder()
+                .setAudience(audience)
+                .setDeviceTypes(DeviceTypeData.of(DeviceType.IOS, DeviceType.ANDROID))
+                .setNotification(notification)
+                .setPushOptions(options)
+                .addLocalization(localization)
+                .build();
+    }
+
+    @Test
+    public void testMemoizedOutputMatches() throws Exception {
+        Notification notification = Notification.newBuilder()
+                .setAlert("Hello \"world\" ✓")
+                .addDeviceTypeOverride(DeviceType.IOS, IOSDevicePayload.newBuilder()
+                        .setAlert("iOS 😀")
+                        .setBadge(IOSBadgeData.newBuilder()
+                                .setType(IOSBadgeData.Type.INCREMENT)
+                                .setValue(1)
+                                .build())
+                        .build())
+                .build();
+        PushOptions options = PushOptions.newBuilder()
+                .setNoThrottle(true)
+                .build();
+        Localization localization = Localization.newBuilder()
+                .setLanguage("de")
+                .setCountry("AT")
+                .setNotification(Notifications.alert("Grüss Gott"))
+                .build();
+        Selector segment = Selectors.or(Selectors.tag("tag1"), Selectors.alias("alias"));
+
+        ObjectMapper mapper = PushObjectMapper.getInstance();
+        ObjectMapper asciiMapper = PushObjectMapper.getInstance().copy()
+                .configure(JsonGenerator.Feature.ESCAPE_NON_ASCII, true);
+        PushPayload payload = payload(segment, notification, options, localization);
+        String expected = payload.toJSON();
+        byte[] expectedBytes = mapper.writeValueAsBytes(payload);
+        String expectedPretty = mapper.writerWithDefaultPrettyPrinter().writeValueAsString(payload);
+        String expectedAscii = asciiMapper.writeValueAsString(payload);
+        JsonNode expectedTree = mapper.valueToTree(payload);
+        long expectedSize = new PushSizeEstimator().sizeOf(payload);
+        assertEquals(expectedBytes.length, expectedSize);
+
+        assertSame(notification, PushSerializationCache.memoize(notification));
+        PushSerializationCache.memoize(options);
+        PushSerializationCache.memoize(localization);
+        PushSerializationCache.memoize(segment);
+        assertTrue(PushSerializationCache.isMemoized(notification));
+        assertTrue(PushSerializationCache.getEncodings(notification).isEmpty());
+
+        try {
+            assertEquals(expected, payload(segment, notification, options, localization).toJSON());
+            List<String> encodings = PushSerializationCache.getEncodings(notification);
+            assertEquals(1, encodings.size());
+            assertEquals(mapper.writeValueAsString(notification), encodings.get(0));
+            assertEquals(expected, payload(segment, notification, options, localization).toJSON());
+            assertSame(encodings.get(0), PushSerializationCache.getEncodings(notification).get(0));
+
+            // Byte output escapes the surrogate pair where character output doesn't, and keeps its own encoding.
+            assertArrayEquals(expectedBytes, mapper.writeValueAsBytes(payload(segment, notification, options, localization)));
+            assertArrayEquals(expectedBytes, mapper.writeValueAsBytes(payload(segment, notification, options, localization)));
+            assertEquals(2, PushSerializationCache.getEncodings(notification).size());
+            assertEquals(expectedSize, new PushSizeEstimator().sizeOf(payload(segment, notification, options, localization)));
+
+            // Generator features and other mappers don't share the memoized forms.
+            assertEquals(expectedAscii, asciiMapper.writeValueAsString(payload(segment, notification, options, localization)));
+            assertEquals(expected, payload(segment, notification, options, localization).toJSON());
+
+            // Pretty printed output and token buffers are never spliced.
+            assertEquals(expectedPretty, mapper.writerWithDefaultPrettyPrinter()
+                    .writeValueAsString(payload(segment, notification, options, localization)));
+            assertEquals(expectedTree, mapper.valueToTree(payload(segment, notification, options, localization)));
+            assertEquals(3, PushSerializationCache.getEncodings(notification).size());
+
+            // Only the audience differs between the payloads.
+            Selector named = Selectors.namedUser("user");
+            String other = payload(named, notification, options, localization).toJSON();
+            assertEquals(expected.replace(
+                    mapper.writeValueAsString(segment),
+                    mapper.writeValueAsString(named)), other);
+        } finally {
+            PushSerializationCache.forget(notification);
+            PushSerializationCache.forget(options);
+            PushSerializationCache.forget(localization);
+            PushSerializationCache.forget(segment);
+        }
+        assertFalse(PushSerializationCache.isMemoized(notification));
+        assertEquals(expected, payload(segment, notification, options, localization).toJSON());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testUnsupportedType() {
+        PushSerializationCache.memoize("not a push model object");
+    }
+}
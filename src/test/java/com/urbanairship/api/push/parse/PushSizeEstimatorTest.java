@@ -0,0 +1,97 @@
+package com.urbanairship.api.push.parse;
+
+import com.urbanairship.api.push.model.DeviceType;
+import com.urbanairship.api.push.model.DeviceTypeData;
+import com.urbanairship.api.push.model.PushOptions;
+import com.urbanairship.api.push.model.PushPayload;
+import com.urbanairship.api.push.model.audience.Selectors;
+import com.urbanairship.api.push.model.localization.Localization;
+import com.urbanairship.api.push.model.notification.Notification;
+import com.urbanairship.api.push.model.notification.Notifications;
+import com.urbanairship.api.push.model.notification.actions.Actions;
+import com.urbanairship.api.push.model.notification.actions.ShareAction;
+import com.urbanairship.api.push.model.notification.android.AndroidDevicePayload;
+import com.urbanairship.api.push.model.notification.ios.IOSDevicePayload;
+import com.urbanairship.api.push.model.notification.wns.WNSDevicePayload;
+import org.junit.Test;
+
+import java.nio.charset.StandardCharsets;
+
+import static org.junit.Assert.assertEquals;
+
+public class PushSizeEstimatorTest {
+
+    private final PushSizeEstimator estimator = new PushSizeEstimator();
+
+    private static long encodedSize(Object value) throws Exception {
+        return PushObjectMapper.getInstance().writeValueAsBytes(value).length;
+    }
+
+    @Test
+    public void testStringSize() throws Exception {
+        String[] values = {
+                "",
+                "plain",
+                "quote \" and backslash \\ and slash /",
+                "control \n\t\r\b\f \u0001 \u001f \u007f",
+                "Grüss Gott",
+                "日本語",
+                "emoji 😀 pair"
+        };
+        for (String value : values) {
+            assertEquals(value, encodedSize(value), estimator.sizeOf(value));
+        }
+    }
+
+    @Test
+    public void testPayloadSize() throws Exception {
+        Notification notification = Notification.newBuilder()
+                .setAlert("Hello \"world\"\n")
+                .addDeviceTypeOverride(DeviceType.IOS, IOSDevicePayload.newBuilder()
+                        .setAlert("iOS ✓")
+                        .setSound("default")
+                        .addExtraEntry("key", "value")
+                        .build())
+                .addDeviceTypeOverride(DeviceType.ANDROID, AndroidDevicePayload.newBuilder()
+                        .setAlert("Android")
+                        .setTitle("Title")
+                        .build())
+                .addDeviceTypeOverride(DeviceType.WNS, WNSDevicePayload.newBuilder()
+                        .setAlert("WNS")
+                        .build())
+                .setActions(Actions.newBuilder()
+                        .setShare(new ShareAction("Share this"))
+                        .build())
+                .build();
+
+        PushPayload payload = PushPayload.newBuilder()
+                .setAudience(Selectors.or(Selectors.tag("tag1"), Selectors.alias("alias")))
+                .setDeviceTypes(DeviceTypeData.of(DeviceType.IOS, DeviceType.ANDROID, DeviceType.WNS))
+                .setNotification(notification)
+                .setPushOptions(PushOptions.newBuilder()
+                        .setNoThrottle(true)
+                        .build())
+                .addLocalization(Localization.newBuilder()
+                        .setCountry("AT")
+                        .setLanguage("de")
+                        .setNotification(Notifications.alert("Grüss Gott"))
+                        .build())
+                .addLocalization(Localization.newBuilder()
+                        .setCountry("JP")
+                        .setLanguage("ja")
+                        .setNotification(Notifications.alert("こんにちは"))
+                        .build())
+                .build();
+
+        assertEquals(encodedSize(notification), estimator.sizeOf(notification));
+        assertEquals(payload.toJSON().getBytes(StandardCharsets.UTF_8).length, estimator.sizeOf(payload));
+        assertEquals(encodedSize(payload), estimator.sizeOf((Object) payload));
+
+        PushPayload minimal = PushPayload.newBuilder()
+                .setAudience(Selectors.all())
+                .setDeviceTypes(DeviceTypeData.of(DeviceType.IOS))
+                .setNotification(Notifications.alert("Foo"))
+                .build();
+        assertEquals(encodedSize(minimal), estimator.sizeOf(minimal));
+    }
+}
@@ -0,0 +1,410 @@
+package com.urbanairship.api.simulator;
+
+import com.github.tomakehurst.wiremock.WireMockServer;
+import com.github.tomakehurst.wiremock.client.MappingBuilder;
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.http.DelayDistribution;
+import com.google.common.base.Optional;
+import com.google.common.base.Preconditions;
+import com.urbanairship.api.client.EndpointFamily;
+
+import java.io.Closeable;
+import java.nio.charset.StandardCharsets;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.get;
+import static com.github.tomakehurst.wiremock.client.WireMock.matching;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.put;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlPathMatching;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+
+/**
+ * Local stand-in for the Airship API, for load and latency testing without any network. The simulator serves the
+ * endpoints targeted by this library with generated, well formed responses:
+ *
+ * <ul>
+ *     <li>/api/push/ and /api/push/validate/</li>
+ *     <li>/api/channels/ (paged listing), /api/channels/{id} and /api/channels/tags/</li>
+ *     <li>/api/named_users/ (paged listing and lookup), associate, disassociate and tags</li>
+ *     <li>/api/lists/{name}/csv uploads and downloads</li>
+ *     <li>/api/reports/responses/list/ (paged), /api/reports/responses/{id} and the paged platform stats</li>
+ *     <li>/api/schedules/ creation and paged listing</li>
+ *     <li>/api/custom-events/</li>
+ * </ul>
+ *
+ * Latency distributions, per endpoint family or overall, error and throttling rates and listing page sizes are
+ * configurable through the builder; random draws use a seeded generator so that runs are reproducible.
+ *
+ * Usage:
+ * <pre>
+ * ApiSimulator simulator = ApiSimulator.newBuilder()
+ *     .setLatency(new LogNormal(20, 0.3))
+ *     .setThrottleRate(0.01)
+ *     .setPageSize(500)
+ *     .build();
+ * simulator.start();
+ *
+ * AsyncRequestClient client = AsyncRequestClient.newBuilder()
+ *     .setBaseUri(simulator.getBaseUri())
+ *     .build();
+ * </pre>
+ */
+public class ApiSimulator implements Closeable {
+
+    private final WireMockServer server;
+    private final SimulatorTransformer transformer;
+    private final int staticListSize;
+
+    private ApiSimulator(Builder builder) {
+        this.staticListSize = builder.staticListSize;
+        this.transformer = new SimulatorTransformer(
+            new Random(builder.seed),
+            builder.defaultLatency,
+            builder.latencies,
+            builder.errorRate,
+            builder.throttleRate,
+            builder.retryAfterSeconds,
+            builder.pageSize,
+            builder.listingSize
+        );
+        this.server = new WireMockServer(wireMockConfig()
+            .port(builder.port)
+            .containerThreads(builder.containerThreads)
+            .asynchronousResponseEnabled(true)
+            .asynchronousResponseThreads(builder.containerThreads)
+            .disableRequestJournal()
+            .extensions(transformer));
+    }
+
+    /**
+     * New ApiSimulator builder.
+     *
+     * @return Builder
+     */
+    public static Builder newBuilder() {
+        return new Builder();
+    }
+
+    /**
+     * Start the simulator and register its endpoints.
+     */
+    public void start() {
+        server.start();
+        registerPush();
+        registerChannels();
+        registerNamedUsers();
+        registerStaticLists();
+        registerReports();
+        registerSchedules();
+        registerCustomEvents();
+    }
+
+    /**
+     * Stop the simulator.
+     */
+    public void stop() {
+        server.stop();
+    }
+
+    @Override
+    public void close() {
+        stop();
+    }
+
+    /**
+     * Get the base URI of the running simulator, to be given to the request client.
+     *
+     * @return The base URI.
+     */
+    public String getBaseUri() {
+        return "http://localhost:" + server.port();
+    }
+
+    /**
+     * Get the port of the running simulator.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return server.port();
+    }
+
+    /**
+     * Get the number of requests served.
+     *
+     * @return The request count.
+     */
+    public long getRequestCount() {
+        return transformer.getRequestCount();
+    }
+
+    /**
+     * Get the number of requests served for an endpoint family.
+     *
+     * @param endpointFamily The endpoint family.
+     * @return The request count.
+     */
+    public long getRequestCount(EndpointFamily endpointFamily) {
+        return transformer.getRequestCount(endpointFamily);
+    }
+
+    /**
+     * Get the number of requests answered with a simulated server error.
+     *
+     * @return The error count.
+     */
+    public long getErrorCount() {
+        return transformer.getErrorCount();
+    }
+
+    /**
+     * Get the number of requests answered with a 429.
+     *
+     * @return The throttled request count.
+     */
+    public long getThrottledCount() {
+        return transformer.getThrottledCount();
+    }
+
+    private void registerPush() {
+        server.stubFor(post(urlPathMatching("/api/push/validate/?"))
+            .atPriority(1)
+            .willReturn(json(200, "{\"ok\":true}")));
+        server.stubFor(post(urlPathMatching("/api/push/?"))
+            .atPriority(5)
+            .willReturn(json(202, "{\"ok\":true,\"operation_id\":\"" + SimulatorTransformer.uuid(0) + "\","
+                + "\"push_ids\":[\"" + SimulatorTransformer.uuid(1) + "\"]}")));
+    }
+
+    private void registerChannels() {
+        server.stubFor(listing(get(urlPathMatching("/api/channels/?")), SimulatorTransformer.Listing.CHANNELS, "channels"));
+        server.stubFor(post(urlPathMatching("/api/channels/tags/?"))
+            .atPriority(1)
+            .willReturn(json(200, "{\"ok\":true}")));
+        server.stubFor(get(urlPathMatching("/api/channels/[^/]+/?"))
+            .atPriority(5)
+            .willReturn(json(200, "{\"ok\":true,\"channel\":" + SimulatorTransformer.Listing.CHANNELS.element(0, "") + "}")));
+    }
+
+    private void registerNamedUsers() {
+        server.stubFor(get(urlPathMatching("/api/named_users/?"))
+            .withQueryParam("id", matching(".+"))
+            .atPriority(1)
+            .willReturn(json(200, "{\"ok\":true,\"named_user\":" + SimulatorTransformer.Listing.NAMED_USERS.element(0, "") + "}")));
+        server.stubFor(listing(get(urlPathMatching("/api/named_users/?")), SimulatorTransformer.Listing.NAMED_USERS, "named_users"));
+        server.stubFor(post(urlPathMatching("/api/named_users/(associate|disassociate|tags)/?"))
+            .willReturn(json(200, "{\"ok\":true}")));
+    }
+
+    private void registerStaticLists() {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < staticListSize; i++) {
+            csv.append("named_user,user-").append(i).append('\n');
+        }
+
+        server.stubFor(put(urlPathMatching("/api/lists/[^/]+/csv/?"))
+            .willReturn(json(202, "{\"ok\":true}")));
+        server.stubFor(get(urlPathMatching("/api/lists/[^/]+/csv/?"))
+            .willReturn(aResponse()
+                .withStatus(200)
+                .withHeader("Content-Type", "text/csv")
+                .withBody(csv.toString().getBytes(StandardCharsets.UTF_8))));
+    }
+
+    private void registerReports() {
+        server.stubFor(listing(get(urlPathMatching("/api/reports/responses/list/?")), SimulatorTransformer.Listing.PUSHES, "pushes")
+            .atPriority(1));
+        server.stubFor(get(urlPathMatching("/api/reports/responses/[^/]+/?"))
+            .atPriority(5)
+            .willReturn(json(200, SimulatorTransformer.Listing.PUSHES.element(0, ""))));
+
+        for (String stat : new String[]{"opens", "timeinapp", "optins", "optouts", "sends"}) {
+            server.stubFor(listing(get(urlPathMatching("/api/reports/" + stat + "/?")), SimulatorTransformer.Listing.PLATFORM_STATS, stat));
+        }
+    }
+
+    private void registerSchedules() {
+        String id = SimulatorTransformer.uuid(0);
+        server.stubFor(post(urlPathMatching("/api/schedules/?"))
+            .willReturn(json(201, "{\"ok\":true,\"operation_id\":\"" + SimulatorTransformer.uuid(1) + "\","
+                + "\"schedule_urls\":[\"" + getBaseUri() + "/api/schedules/" + id + "\"],"
+                + "\"schedule_ids\":[\"" + id + "\"],"
+                + "\"schedules\":[" + SimulatorTransformer.Listing.SCHEDULES.element(0, getBaseUri()) + "]}")));
+        server.stubFor(listing(get(urlPathMatching("/api/schedules/?")), SimulatorTransformer.Listing.SCHEDULES, "schedules"));
+    }
+
+    private void registerCustomEvents() {
+        server.stubFor(post(urlPathMatching("/api/custom-events/?"))
+            .willReturn(json(200, "{\"ok\":true,\"operationId\":\"" + SimulatorTransformer.uuid(0) + "\"}")));
+    }
+
+    private static MappingBuilder listing(MappingBuilder mapping, SimulatorTransformer.Listing listing, String field) {
+        return mapping
+            .atPriority(5)
+            .willReturn(json(200, "")
+                .withTransformerParameter(SimulatorTransformer.LISTING, listing.name())
+                .withTransformerParameter(SimulatorTransformer.FIELD, field));
+    }
+
+    private static ResponseDefinitionBuilder json(int status, String body) {
+        return aResponse()
+            .withStatus(status)
+            .withHeader("Content-Type", SimulatorTransformer.CONTENT_TYPE)
+            .withBody(body);
+    }
+
+    public static class Builder {
+
+        private int port = 0;
+        private int containerThreads = 64;
+        private long seed = 0;
+        private Optional<DelayDistribution> defaultLatency = Optional.absent();
+        private final Map<EndpointFamily, DelayDistribution> latencies = new EnumMap<>(EndpointFamily.class);
+        private double errorRate = 0;
+        private double throttleRate = 0;
+        private Optional<Integer> retryAfterSeconds = Optional.absent();
+        private int pageSize = 100;
+        private int listingSize = 1000;
+        private int staticListSize = 1000;
+
+        private Builder() {
+        }
+
+        /**
+         * Set the port to listen on, a free port is picked by default.
+         *
+         * @param port The port.
+         * @return Builder
+         */
+        public Builder setPort(int port) {
+            this.port = port;
+            return this;
+        }
+
+        /**
+         * Set the number of server threads, 64 by default.
+         *
+         * @param containerThreads The number of threads.
+         * @return Builder
+         */
+        public Builder setContainerThreads(int containerThreads) {
+            this.containerThreads = containerThreads;
+            return this;
+        }
+
+        /**
+         * Set the seed of the random draws for latencies, errors and throttling.
+         *
+         * @param seed The seed.
+         * @return Builder
+         */
+        public Builder setSeed(long seed) {
+            this.seed = seed;
+            return this;
+        }
+
+        /**
+         * Set the latency distribution of every endpoint without a latency of its own.
+         *
+         * @param latency The latency distribution, e.g. a WireMock LogNormal or UniformDistribution.
+         * @return Builder
+         */
+        public Builder setLatency(DelayDistribution latency) {
+            this.defaultLatency = Optional.of(latency);
+            return this;
+        }
+
+        /**
+         * Set the latency distribution of an endpoint family.
+         *
+         * @param endpointFamily The endpoint family.
+         * @param latency The latency distribution.
+         * @return Builder
+         */
+        public Builder setLatency(EndpointFamily endpointFamily, DelayDistribution latency) {
+            this.latencies.put(endpointFamily, latency);
+            return this;
+        }
+
+        /**
+         * Set the fraction of requests answered with a 500.
+         *
+         * @param errorRate The error rate, between 0 and 1.
+         * @return Builder
+         */
+        public Builder setErrorRate(double errorRate) {
+            this.errorRate = errorRate;
+            return this;
+        }
+
+        /**
+         * Set the fraction of requests answered with a 429.
+         *
+         * @param throttleRate The throttle rate, between 0 and 1.
+         * @return Builder
+         */
+        public Builder setThrottleRate(double throttleRate) {
+            this.throttleRate = throttleRate;
+            return this;
+        }
+
+        /**
+         * Set the Retry-After header sent along with 429s, none is sent by default.
+         *
+         * @param retryAfterSeconds The delay in seconds.
+         * @return Builder
+         */
+        public Builder setRetryAfterSeconds(int retryAfterSeconds) {
+            this.retryAfterSeconds = Optional.of(retryAfterSeconds);
+            return this;
+        }
+
+        /**
+         * Set the number of elements of a listing page, 100 by default. A limit query parameter overrides it.
+         *
+         * @param pageSize The page size.
+         * @return Builder
+         */
+        public Builder setPageSize(int pageSize) {
+            this.pageSize = pageSize;
+            return this;
+        }
+
+        /**
+         * Set the total number of elements of every listing, 1000 by default.
+         *
+         * @param listingSize The listing size.
+         * @return Builder
+         */
+        public Builder setListingSize(int listingSize) {
+            this.listingSize = listingSize;
+            return this;
+        }
+
+        /**
+         * Set the number of rows of downloaded static list CSVs, 1000 by default.
+         *
+         * @param staticListSize The number of rows.
+         * @return Builder
+         */
+        public Builder setStaticListSize(int staticListSize) {
+            this.staticListSize = staticListSize;
+            return this;
+        }
+
+        public ApiSimulator build() {
+            Preconditions.checkArgument(errorRate >= 0 && throttleRate >= 0 && errorRate + throttleRate <= 1,
+                "Error and throttle rates must be between 0 and 1");
+            Preconditions.checkArgument(pageSize > 0, "Page size must be positive");
+            Preconditions.checkArgument(listingSize >= 0, "Listing size cannot be negative");
+            Preconditions.checkArgument(staticListSize >= 0, "Static list size cannot be negative");
+            Preconditions.checkArgument(containerThreads > 0, "Container threads must be positive");
+
+            return new ApiSimulator(this);
+        }
+    }
+}
@@ -0,0 +1,175 @@
+package com.urbanairship.api.simulator;
+
+import com.github.tomakehurst.wiremock.http.UniformDistribution;
+import com.google.common.base.Predicate;
+import com.urbanairship.api.channel.ChannelRequest;
+import com.urbanairship.api.channel.model.ChannelResponse;
+import com.urbanairship.api.channel.model.ChannelView;
+import com.urbanairship.api.client.AsyncRequestClient;
+import com.urbanairship.api.client.EndpointFamily;
+import com.urbanairship.api.client.Response;
+import com.urbanairship.api.client.UrbanAirshipClient;
+import com.urbanairship.api.customevents.CustomEventRequest;
+import com.urbanairship.api.customevents.model.CustomEventBody;
+import com.urbanairship.api.customevents.model.CustomEventChannelType;
+import com.urbanairship.api.customevents.model.CustomEventPayload;
+import com.urbanairship.api.customevents.model.CustomEventResponse;
+import com.urbanairship.api.customevents.model.CustomEventUser;
+import com.urbanairship.api.nameduser.NamedUserListingRequest;
+import com.urbanairship.api.nameduser.model.NamedUserView;
+import com.urbanairship.api.push.PushRequest;
+import com.urbanairship.api.push.model.DeviceType;
+import com.urbanairship.api.push.model.DeviceTypeData;
+import com.urbanairship.api.push.model.PushPayload;
+import com.urbanairship.api.push.model.PushResponse;
+import com.urbanairship.api.push.model.audience.Selectors;
+import com.urbanairship.api.push.model.notification.Notifications;
+import com.urbanairship.api.reports.PushListingRequest;
+import com.urbanairship.api.reports.model.PushInfoResponse;
+import com.urbanairship.api.schedule.ScheduleListingRequest;
+import com.urbanairship.api.schedule.model.SchedulePayload;
+import com.urbanairship.api.staticlists.StaticListDownloadRequest;
+import org.asynchttpclient.filter.FilterContext;
+import org.joda.time.DateTime;
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ApiSimulatorTest {
+
+    private ApiSimulator simulator;
+    private UrbanAirshipClient client;
+
+    @After
+    public void tearDown() throws Exception {
+        if (client != null) {
+            client.close();
+        }
+        if (simulator != null) {
+            simulator.stop();
+        }
+    }
+
+    @Test
+    public void testPagedListings() throws Exception {
+        start(ApiSimulator.newBuilder()
+            .setListingSize(25)
+            .setPageSize(10));
+
+        Set<String> channelIds = new HashSet<>();
+        for (ChannelView channel : ChannelRequest.newPaginatorBuilder(client, ChannelRequest.newRequest()).build()) {
+            channelIds.add(channel.getChannelId());
+        }
+        assertEquals(25, channelIds.size());
+        assertEquals(3, simulator.getRequestCount(EndpointFamily.CHANNELS));
+
+        int namedUsers = 0;
+        for (NamedUserView ignored : NamedUserListingRequest.newPaginatorBuilder(client, NamedUserListingRequest.newRequest()).build()) {
+            namedUsers++;
+        }
+        assertEquals(25, namedUsers);
+
+        int schedules = 0;
+        for (SchedulePayload ignored : ScheduleListingRequest.newPaginatorBuilder(client, ScheduleListingRequest.newRequest()).build()) {
+            schedules++;
+        }
+        assertEquals(25, schedules);
+
+        int pushes = 0;
+        for (PushInfoResponse ignored : PushListingRequest.newPaginatorBuilder(client, PushListingRequest.newRequest()
+            .setStart(DateTime.now().minusDays(1))
+            .setEnd(DateTime.now())).build()) {
+            pushes++;
+        }
+        assertEquals(25, pushes);
+    }
+
+    @Test
+    public void testEndpoints() throws Exception {
+        start(ApiSimulator.newBuilder()
+            .setStaticListSize(3));
+
+        Response<PushResponse> push = client.execute(PushRequest.newRequest(PushPayload.newBuilder()
+            .setAudience(Selectors.all())
+            .setDeviceTypes(DeviceTypeData.of(DeviceType.IOS))
+            .setNotification(Notifications.alert("alert"))
+            .build()));
+        assertEquals(202, push.getStatus());
+        assertTrue(push.getBody().get().getOk());
+        assertEquals(1, push.getBody().get().getPushIds().get().size());
+
+        Response<CustomEventResponse> event = client.execute(CustomEventRequest.newRequest(CustomEventPayload.newBuilder()
+            .setCustomEventBody(CustomEventBody.newBuilder()
+                .setName("event")
+                .build())
+            .setCustomEventUser(CustomEventUser.newBuilder()
+                .setChannel("e393d28e-23b2-4a22-9ace-dc539a5b07a8")
+                .setCustomEventChannelType(CustomEventChannelType.ANDROID_CHANNEL)
+                .build())
+            .setOccurred(DateTime.now())
+            .build()));
+        assertEquals(200, event.getStatus());
+        assertTrue(event.getBody().get().isOk());
+
+        Response<String> csv = client.execute(StaticListDownloadRequest.newRequest("list"));
+        assertEquals(200, csv.getStatus());
+        assertEquals("named_user,user-0\nnamed_user,user-1\nnamed_user,user-2\n", csv.getBody().get());
+
+        Response<ChannelResponse> channel = client.execute(ChannelRequest.newRequest("e393d28e-23b2-4a22-9ace-dc539a5b07a8"));
+        assertTrue(channel.getBody().get().getChannelView().isPresent());
+    }
+
+    @Test
+    public void testErrorsAndThrottling() throws Exception {
+        start(ApiSimulator.newBuilder()
+            .setSeed(42)
+            .setErrorRate(0.2)
+            .setThrottleRate(0.2));
+
+        for (int i = 0; i < 50; i++) {
+            Response<ChannelResponse> response = client.execute(ChannelRequest.newRequest("e393d28e-23b2-4a22-9ace-dc539a5b07a8"));
+            assertEquals(200, response.getStatus());
+        }
+
+        assertTrue(simulator.getErrorCount() > 0);
+        assertTrue(simulator.getThrottledCount() > 0);
+        assertEquals(50 + simulator.getErrorCount() + simulator.getThrottledCount(), simulator.getRequestCount());
+    }
+
+    @Test
+    public void testLatency() throws Exception {
+        start(ApiSimulator.newBuilder()
+            .setLatency(EndpointFamily.CHANNELS, new UniformDistribution(200, 200)));
+
+        long start = System.nanoTime();
+        client.execute(ChannelRequest.newRequest("e393d28e-23b2-4a22-9ace-dc539a5b07a8"));
+        assertTrue(System.nanoTime() - start >= 200_000_000L);
+    }
+
+    private void start(ApiSimulator.Builder builder) {
+        simulator = builder.build();
+        simulator.start();
+
+        client = UrbanAirshipClient.newBuilder()
+            .setKey("key")
+            .setSecret("secret")
+            .setBearerToken("token")
+            .setClient(AsyncRequestClient.newBuilder()
+                .setBaseUri(simulator.getBaseUri())
+                .setMaxRetries(50)
+                .setRetryPredicate(new Predicate<FilterContext>() {
+                    @Override
+                    public boolean apply(FilterContext input) {
+                        int status = input.getResponseStatus().getStatusCode();
+                        return status >= 500 || status == 429;
+                    }
+                })
+                .build())
+            .build();
+    }
+}
@@ -0,0 +1,221 @@
+package com.urbanairship.api.simulator;
+
+import com.github.tomakehurst.wiremock.client.ResponseDefinitionBuilder;
+import com.github.tomakehurst.wiremock.common.FileSource;
+import com.github.tomakehurst.wiremock.extension.Parameters;
+import com.github.tomakehurst.wiremock.extension.ResponseDefinitionTransformer;
+import com.github.tomakehurst.wiremock.http.DelayDistribution;
+import com.github.tomakehurst.wiremock.http.QueryParameter;
+import com.github.tomakehurst.wiremock.http.Request;
+import com.github.tomakehurst.wiremock.http.ResponseDefinition;
+import com.google.common.base.Optional;
+import com.google.common.collect.Maps;
+import com.urbanairship.api.client.EndpointFamily;
+
+import java.net.URI;
+import java.util.EnumMap;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Applied to every response of the {@link ApiSimulator}: counts requests, injects errors and 429s, renders listing pages
+ * and adds the configured latency.
+ */
+class SimulatorTransformer extends ResponseDefinitionTransformer {
+
+    static final String CONTENT_TYPE = "application/vnd.urbanairship+json; version=3";
+    static final String LISTING = "listing";
+    static final String FIELD = "field";
+
+    private static final String CURSOR = "cursor";
+    private static final String LIMIT = "limit";
+
+    enum Listing {
+        CHANNELS {
+            @Override
+            String element(int index, String baseUri) {
+                return "{\"channel_id\":\"" + uuid(index) + "\","
+                    + "\"device_type\":\"" + (index % 2 == 0 ? "ios" : "android") + "\","
+                    + "\"installed\":true,\"opt_in\":true,\"background\":true,"
+                    + "\"push_address\":\"" + String.format("%064X", index) + "\","
+                    + "\"created\":\"2014-07-09T18:08:37\",\"last_registration\":\"2014-10-02T01:41:42\","
+                    + "\"alias\":null,\"tags\":[\"simulated\"],\"tag_groups\":{\"group\":[\"tag-" + index % 10 + "\"]}}";
+            }
+        },
+        NAMED_USERS {
+            @Override
+            String element(int index, String baseUri) {
+                return "{\"named_user_id\":\"user-" + index + "\","
+                    + "\"tags\":{\"group\":[\"tag-" + index % 10 + "\"]},"
+                    + "\"channels\":[" + CHANNELS.element(index, baseUri) + "]}";
+            }
+        },
+        SCHEDULES {
+            @Override
+            String element(int index, String baseUri) {
+                return "{\"url\":\"" + baseUri + "/api/schedules/" + uuid(index) + "\","
+                    + "\"name\":\"schedule-" + index + "\","
+                    + "\"schedule\":{\"scheduled_time\":\"2030-01-01T08:00:00\"},"
+                    + "\"push\":{\"audience\":\"ALL\",\"device_types\":[\"android\",\"ios\"],"
+                    + "\"notification\":{\"alert\":\"Simulated schedule " + index + "\"}},"
+                    + "\"push_ids\":[\"" + uuid(index + 1) + "\"]}";
+            }
+        },
+        PUSHES {
+            @Override
+            String element(int index, String baseUri) {
+                return "{\"push_uuid\":\"" + uuid(index) + "\","
+                    + "\"push_time\":\"2013-07-31 23:56:52\","
+                    + "\"push_type\":\"" + (index % 2 == 0 ? "BROADCAST_PUSH" : "UNICAST_PUSH") + "\","
+                    + "\"direct_responses\":" + index % 7 + ",\"sends\":" + index * 13 + "}";
+            }
+        },
+        PLATFORM_STATS {
+            @Override
+            String element(int index, String baseUri) {
+                return "{\"date\":\"2013-07-01 00:00:00\",\"ios\":" + index * 3 + ",\"android\":" + index * 5 + "}";
+            }
+        };
+
+        abstract String element(int index, String baseUri);
+    }
+
+    private final Random random;
+    private final Optional<DelayDistribution> defaultLatency;
+    private final Map<EndpointFamily, DelayDistribution> latencies;
+    private final double errorRate;
+    private final double throttleRate;
+    private final Optional<Integer> retryAfterSeconds;
+    private final int pageSize;
+    private final int listingSize;
+
+    private final AtomicLong requestCount = new AtomicLong();
+    private final Map<EndpointFamily, AtomicLong> familyRequestCounts = new EnumMap<>(EndpointFamily.class);
+    private final AtomicLong errorCount = new AtomicLong();
+    private final AtomicLong throttledCount = new AtomicLong();
+
+    SimulatorTransformer(Random random, Optional<DelayDistribution> defaultLatency, Map<EndpointFamily, DelayDistribution> latencies,
+                         double errorRate, double throttleRate, Optional<Integer> retryAfterSeconds, int pageSize, int listingSize) {
+        this.random = random;
+        this.defaultLatency = defaultLatency;
+        this.latencies = Maps.newEnumMap(latencies);
+        this.errorRate = errorRate;
+        this.throttleRate = throttleRate;
+        this.retryAfterSeconds = retryAfterSeconds;
+        this.pageSize = pageSize;
+        this.listingSize = listingSize;
+
+        for (EndpointFamily family : EndpointFamily.values()) {
+            familyRequestCounts.put(family, new AtomicLong());
+        }
+    }
+
+    @Override
+    public String getName() {
+        return "api-simulator";
+    }
+
+    @Override
+    public boolean applyGlobally() {
+        return true;
+    }
+
+    @Override
+    public ResponseDefinition transform(Request request, ResponseDefinition responseDefinition, FileSource files, Parameters parameters) {
+        URI uri = URI.create(request.getAbsoluteUrl());
+        EndpointFamily family = EndpointFamily.forPath(uri.getPath());
+        requestCount.incrementAndGet();
+        familyRequestCounts.get(family).incrementAndGet();
+
+        ResponseDefinitionBuilder builder;
+        double draw = random.nextDouble();
+        if (draw < throttleRate) {
+            throttledCount.incrementAndGet();
+            builder = error(429, "Too many requests", 42900);
+            if (retryAfterSeconds.isPresent()) {
+                builder.withHeader("Retry-After", String.valueOf(retryAfterSeconds.get()));
+            }
+        } else if (draw < throttleRate + errorRate) {
+            errorCount.incrementAndGet();
+            builder = error(500, "Simulated server error", 50000);
+        } else if (parameters != null && parameters.containsKey(LISTING)) {
+            builder = ResponseDefinitionBuilder.like(responseDefinition)
+                .withBody(page(request, uri, Listing.valueOf(parameters.getString(LISTING)), parameters.getString(FIELD)));
+        } else {
+            builder = ResponseDefinitionBuilder.like(responseDefinition);
+        }
+
+        DelayDistribution latency = latencies.containsKey(family) ? latencies.get(family) : defaultLatency.orNull();
+        if (latency != null) {
+            builder.withRandomDelay(latency);
+        }
+        return builder.build();
+    }
+
+    long getRequestCount() {
+        return requestCount.get();
+    }
+
+    long getRequestCount(EndpointFamily endpointFamily) {
+        return familyRequestCounts.get(endpointFamily).get();
+    }
+
+    long getErrorCount() {
+        return errorCount.get();
+    }
+
+    long getThrottledCount() {
+        return throttledCount.get();
+    }
+
+    static String uuid(int index) {
+        return new UUID(0x5107L, index).toString();
+    }
+
+    private String page(Request request, URI uri, Listing listing, String field) {
+        int start = intParameter(request, CURSOR, 0);
+        int limit = Math.max(1, intParameter(request, LIMIT, pageSize));
+        int end = Math.min(listingSize, start + limit);
+        String baseUri = uri.getScheme() + "://" + uri.getAuthority();
+
+        StringBuilder body = new StringBuilder("{\"ok\":true,");
+        if (listing == Listing.SCHEDULES) {
+            body.append("\"count\":").append(Math.max(0, end - start)).append(",\"total_count\":").append(listingSize).append(',');
+        }
+        if (end < listingSize) {
+            body.append("\"next_page\":\"").append(baseUri).append(uri.getPath())
+                .append('?').append(CURSOR).append('=').append(end)
+                .append('&').append(LIMIT).append('=').append(limit).append("\",");
+        }
+
+        body.append('"').append(field).append("\":[");
+        for (int i = start; i < end; i++) {
+            if (i > start) {
+                body.append(',');
+            }
+            body.append(listing.element(i, baseUri));
+        }
+        return body.append("]}").toString();
+    }
+
+    private static int intParameter(Request request, String key, int defaultValue) {
+        QueryParameter parameter = request.queryParameter(key);
+        if (parameter == null || !parameter.isPresent()) {
+            return defaultValue;
+        }
+        try {
+            return Math.max(0, Integer.parseInt(parameter.firstValue()));
+        } catch (NumberFormatException e) {
+            return defaultValue;
+        }
+    }
+
+    private static ResponseDefinitionBuilder error(int status, String message, int errorCode) {
+        return new ResponseDefinitionBuilder()
+            .withStatus(status)
+            .withHeader("Content-Type", CONTENT_TYPE)
+            .withBody("{\"ok\":false,\"error\":\"" + message + "\",\"error_code\":" + errorCode + "}");
+    }
+}
@@ -3,26 +3,33 @@ package com.urbanairship.api.staticlists;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
 import com.google.common.net.HttpHeaders;
+import com.urbanairship.api.client.ChunkedResponseParser;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.staticlists.parse.StaticListsObjectMapper;
 import org.junit.After;
 import org.junit.Before;
 import org.junit.Test;
 
-import java.io.BufferedReader;
 import java.io.File;
-import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.IOException;
-import java.io.InputStreamReader;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
+import java.util.List;
 import java.util.Map;
+import java.util.function.Consumer;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
 import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
 
 public class StaticListDownloadRequestTest {
     private static final ObjectMapper mapper = StaticListsObjectMapper.getInstance();
@@ -87,18 +94,67 @@ public class StaticListDownloadRequestTest {
 
 
         assertEquals(request.getResponseParser().parse(response), response);
-        assertEquals(requestWithFile.getResponseParser().parse(response), response);
+    }
 
-        File outFile = new File(OUTPUT_FILE_PATH);
-        assertTrue(outFile.exists());
+    @Test
+    public void testErrorBodyIsNotWrittenToOutput() throws Exception {
+        String error = "{\"ok\":false,\"error\":\"Could not find list\",\"error_code\":40400}";
+
+        // Only error responses are parsed whole: they are returned without reaching the output.
+        assertEquals(error, requestWithFile.getResponseParser().parse(error));
+        assertEquals(0, Files.size(Paths.get(OUTPUT_FILE_PATH)));
+
+        // The stream can still receive the list.
+        ChunkedResponseParser.BodyConsumer<String> consumer = ((ChunkedResponseParser<String>) requestWithFile.getResponseParser()).newConsumer();
+        consumer.consume(ByteBuffer.wrap("alias,stevenh\n".getBytes(StandardCharsets.UTF_8)));
+        consumer.complete();
+        assertEquals("alias,stevenh\n", new String(Files.readAllBytes(Paths.get(OUTPUT_FILE_PATH)), StandardCharsets.UTF_8));
+    }
 
-        BufferedReader br = new BufferedReader(new InputStreamReader(new FileInputStream(outFile)));
-        StringBuilder fileString = new StringBuilder();
-        String line = null;
-        while ((line = br.readLine()) != null) {
-            fileString.append(line).append("\n");
+    @Test
+    public void testChunkedParser() throws Exception {
+        final List<List<String>> rows = new ArrayList<>();
+        StaticListDownloadRequest streamedRequest = StaticListDownloadRequest.newRequest(TEST_LIST_NAME)
+            .setOutputFile(Paths.get(OUTPUT_FILE_PATH))
+            .setRowConsumer(new Consumer<String[]>() {
+                @Override
+                public void accept(String[] row) {
+                    rows.add(Arrays.asList(row));
+                }
+            });
+
+        String response = "alias,stevenh\r\n" +
+                "named_user,\"gates,bill\"\n" +
+                "named_user,\"line\nbreak \"\"quoted\"\"\"\r\n" +
+                "ios_channel,b64a5105-20a1-459e-a15d-6aa22f4365f5";
+        byte[] bytes = response.getBytes(StandardCharsets.UTF_8);
+
+        ChunkedResponseParser.BodyConsumer<String> consumer = ((ChunkedResponseParser<String>) streamedRequest.getResponseParser()).newConsumer();
+        for (int i = 0; i < bytes.length; i += 5) {
+            consumer.consume(ByteBuffer.wrap(bytes, i, Math.min(5, bytes.length - i)));
+        }
+        assertNull(consumer.complete());
+
+        assertArrayEquals(bytes, Files.readAllBytes(Paths.get(OUTPUT_FILE_PATH)));
+        assertEquals(Arrays.asList(
+                Arrays.asList("alias", "stevenh"),
+                Arrays.asList("named_user", "gates,bill"),
+                Arrays.asList("named_user", "line\nbreak \"quoted\""),
+                Arrays.asList("ios_channel", "b64a5105-20a1-459e-a15d-6aa22f4365f5")),
+            rows);
+    }
+
+    @Test
+    public void testOutputStreamIsWrittenOnce() throws Exception {
+        ChunkedResponseParser<String> parser = (ChunkedResponseParser<String>) requestWithFile.getResponseParser();
+        parser.newConsumer().complete();
+
+        try {
+            parser.newConsumer();
+            fail("Exception should have been thrown");
+        } catch (IOException e) {
+            assertEquals("A list downloaded to a stream can only be received once", e.getMessage());
         }
-        assertEquals(response, fileString.toString());
     }
 
     @After
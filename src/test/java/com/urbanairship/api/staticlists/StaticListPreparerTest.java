@@ -0,0 +1,123 @@
+package com.urbanairship.api.staticlists;
+
+import com.google.common.collect.ImmutableList;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.assertEquals;
+
+public class StaticListPreparerTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void testValidatesAndDedupes() throws Exception {
+        String csv = "alias,stevenh\n" +
+                "named_user,\"gates,bill\"\n" +
+                "ios_channel,B64A5105-20A1-459E-A15D-6AA22F4365F5\n" +
+                "\n" +
+                "alias,stevenh\n" +
+                "ios_channel,b64a5105-20a1-459e-a15d-6aa22f4365f5\n" +
+                "android_channel,not-a-uuid\n" +
+                "device_token,abc\n" +
+                "alias\n" +
+                "named_user,\"unterminated\n";
+        Path output = folder.getRoot().toPath().resolve("prepared.csv");
+
+        StaticListPreparer.Result result = StaticListPreparer.newBuilder()
+                .build()
+                .prepare(new ByteArrayInputStream(csv.getBytes(StandardCharsets.UTF_8)), output);
+
+        assertEquals(output, result.getOutput());
+        assertEquals(9, result.getRowCount());
+        assertEquals(5, result.getValidRowCount());
+        assertEquals(4, result.getInvalidRowCount());
+        assertEquals(2, result.getDuplicateRowCount());
+        assertEquals(3, result.getUniqueRowCount());
+        assertEquals(0, result.getSpilledRunCount());
+
+        assertEquals(ImmutableList.of(
+                "alias,stevenh",
+                "ios_channel,b64a5105-20a1-459e-a15d-6aa22f4365f5",
+                "named_user,\"gates,bill\""),
+            Files.readAllLines(output, StandardCharsets.UTF_8));
+
+        List<StaticListPreparer.InvalidRow> invalidRows = result.getInvalidRows();
+        assertEquals(4, invalidRows.size());
+        assertEquals(7, invalidRows.get(0).getLineNumber());
+        assertEquals("Invalid android_channel identifier", invalidRows.get(0).getReason());
+        assertEquals("device_token,abc", invalidRows.get(1).getLine());
+        assertEquals("Unknown identifier type: device_token", invalidRows.get(1).getReason());
+        assertEquals("Expected 2 columns, found 1", invalidRows.get(2).getReason());
+        assertEquals(10, invalidRows.get(3).getLineNumber());
+    }
+
+    @Test
+    public void testSpillsAndMerges() throws Exception {
+        List<String> expected = new ArrayList<>();
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 20000; i++) {
+            String row = "named_user,user-" + (i * 7919 % 5000);
+            csv.append(row).append('\n');
+            if (i < 5000) {
+                expected.add("named_user,user-" + i);
+            }
+        }
+        Collections.sort(expected);
+
+        File input = folder.newFile("list.csv");
+        Files.write(input.toPath(), csv.toString().getBytes(StandardCharsets.UTF_8));
+        File temp = folder.newFolder("temp");
+        Path output = folder.getRoot().toPath().resolve("prepared.csv");
+
+        ForkJoinPool pool = new ForkJoinPool(3);
+        try {
+            StaticListPreparer.Result result = StaticListPreparer.newBuilder()
+                    .setMaxRowsInMemory(100)
+                    .setMaxInvalidRowsReported(0)
+                    .setTempDirectory(temp.toPath())
+                    .setPool(pool)
+                    .build()
+                    .prepare(input.toPath(), output);
+
+            assertEquals(20000, result.getRowCount());
+            assertEquals(20000, result.getValidRowCount());
+            assertEquals(15000, result.getDuplicateRowCount());
+            assertEquals(200, result.getSpilledRunCount());
+            assertEquals(expected, Files.readAllLines(output, StandardCharsets.UTF_8));
+            assertEquals(0, temp.list().length);
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void testReportedInvalidRowsAreBounded() throws Exception {
+        StringBuilder csv = new StringBuilder();
+        for (int i = 0; i < 50; i++) {
+            csv.append("unknown,").append(i).append('\n');
+        }
+        Path output = folder.getRoot().toPath().resolve("prepared.csv");
+
+        StaticListPreparer.Result result = StaticListPreparer.newBuilder()
+                .setMaxInvalidRowsReported(10)
+                .build()
+                .prepare(new ByteArrayInputStream(csv.toString().getBytes(StandardCharsets.UTF_8)), output);
+
+        assertEquals(50, result.getInvalidRowCount());
+        assertEquals(10, result.getInvalidRows().size());
+        assertEquals(0, Files.size(output));
+    }
+}
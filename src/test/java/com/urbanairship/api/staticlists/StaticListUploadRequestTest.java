@@ -1,19 +1,35 @@
 package com.urbanairship.api.staticlists;
 
 import com.fasterxml.jackson.databind.ObjectMapper;
+import com.google.common.base.Optional;
+import com.google.common.io.ByteStreams;
 import com.google.common.net.HttpHeaders;
+import com.urbanairship.api.client.NonBlockingReadableChannel;
 import com.urbanairship.api.client.Request;
 import com.urbanairship.api.staticlists.parse.StaticListsObjectMapper;
 import org.apache.http.entity.ContentType;
 import org.junit.Before;
 import org.junit.Test;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
 import java.io.File;
+import java.io.IOException;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.Files;
+import java.nio.file.Paths;
 import java.util.HashMap;
 import java.util.Map;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.GZIPInputStream;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.fail;
 
 public class StaticListUploadRequestTest {
     private static final ObjectMapper mapper = StaticListsObjectMapper.getInstance();
@@ -70,9 +86,73 @@ public class StaticListUploadRequestTest {
         assertEquals(expected, request.getRequestBody());
     }
 
+    @Test
+    public void testStreamedBody() throws Exception {
+        byte[] csv = Files.readAllBytes(Paths.get(TEST_CSV_FILE));
+        assertEquals(Optional.of(Paths.get(TEST_CSV_FILE)), request.getRequestBodyFile());
+        assertArrayEquals(csv, read(request.openRequestBody()));
+
+        request.setGzipEnabled(true);
+        assertFalse(request.getRequestBodyFile().isPresent());
+        assertArrayEquals(csv, gunzip(read(request.openRequestBody())));
+        assertArrayEquals(csv, gunzip(read(request.openRequestBody())));
+    }
+
+    @Test
+    public void testStreamBodyIsReadOnce() throws Exception {
+        byte[] csv = Files.readAllBytes(Paths.get(TEST_CSV_FILE));
+        StaticListUploadRequest streamRequest = StaticListUploadRequest.newRequest(TEST_LIST_NAME, new ByteArrayInputStream(csv));
+        assertFalse(streamRequest.getRequestBodyFile().isPresent());
+        assertFalse(streamRequest.isRequestBodyReadable());
+        try {
+            streamRequest.getRequestBody();
+            fail("Exception should have been thrown");
+        } catch (IllegalStateException e) {
+            // Expected.
+        }
+        assertArrayEquals(csv, read(streamRequest.openRequestBody()));
+
+        try {
+            streamRequest.openRequestBody();
+            fail("Exception should have been thrown");
+        } catch (IOException e) {
+            assertEquals("The body of an upload from a stream can only be sent once", e.getMessage());
+        }
+    }
+
     @Test
     public void testParser() throws Exception {
         String response = "{\"ok\": true}";
         assertEquals(response, request.getResponseParser().parse(response));
     }
+
+    private static byte[] read(ReadableByteChannel channel) throws Exception {
+        final Semaphore readable = new Semaphore(0);
+        if (channel instanceof NonBlockingReadableChannel) {
+            ((NonBlockingReadableChannel) channel).setReadListener(new Runnable() {
+                @Override
+                public void run() {
+                    readable.release();
+                }
+            });
+        }
+
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        try (ReadableByteChannel body = channel) {
+            ByteBuffer buffer = ByteBuffer.allocate(8192);
+            int read;
+            while ((read = body.read(buffer)) != -1) {
+                if (read == 0) {
+                    readable.tryAcquire(10, TimeUnit.SECONDS);
+                }
+                out.write(buffer.array(), 0, buffer.position());
+                buffer.clear();
+            }
+        }
+        return out.toByteArray();
+    }
+
+    private static byte[] gunzip(byte[] compressed) throws IOException {
+        return ByteStreams.toByteArray(new GZIPInputStream(new ByteArrayInputStream(compressed)));
+    }
 }
@@ -0,0 +1,223 @@
+package com.urbanairship.api.tags;
+
+import com.fasterxml.jackson.databind.JsonNode;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.github.tomakehurst.wiremock.junit.WireMockClassRule;
+import com.github.tomakehurst.wiremock.verification.LoggedRequest;
+import com.google.common.collect.ImmutableSet;
+import com.urbanairship.api.channel.ChannelTagRequest;
+import com.urbanairship.api.client.AsyncRequestClient;
+import com.urbanairship.api.client.Request;
+import com.urbanairship.api.client.Response;
+import com.urbanairship.api.client.UrbanAirshipClient;
+import com.urbanairship.api.nameduser.NamedUserTagRequest;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.ClassRule;
+import org.junit.Rule;
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CompletionStage;
+import java.util.concurrent.TimeUnit;
+
+import static com.github.tomakehurst.wiremock.client.WireMock.aResponse;
+import static com.github.tomakehurst.wiremock.client.WireMock.findAll;
+import static com.github.tomakehurst.wiremock.client.WireMock.post;
+import static com.github.tomakehurst.wiremock.client.WireMock.postRequestedFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.stubFor;
+import static com.github.tomakehurst.wiremock.client.WireMock.urlEqualTo;
+import static com.github.tomakehurst.wiremock.core.WireMockConfiguration.wireMockConfig;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TagMutationCoalescerTest {
+
+    private static final ObjectMapper MAPPER = new ObjectMapper();
+
+    @ClassRule
+    public static WireMockClassRule wireMockRule = new WireMockClassRule(wireMockConfig().dynamicPort());
+
+    @Rule
+    public WireMockClassRule instanceRule = wireMockRule;
+
+    private UrbanAirshipClient client;
+
+    @Before
+    public void setup() {
+        client = UrbanAirshipClient.newBuilder()
+                .setKey("key")
+                .setSecret("secret")
+                .setClient(AsyncRequestClient.newBuilder()
+                        .setBaseUri("http://localhost:" + wireMockRule.port())
+                        .build())
+                .build();
+    }
+
+    @After
+    public void takeDown() throws Exception {
+        client.close();
+    }
+
+    private static Set<String> values(JsonNode node) {
+        Set<String> values = new HashSet<>();
+        for (JsonNode value : node) {
+            values.add(value.asText());
+        }
+        return values;
+    }
+
+    @Test
+    public void testMergesMutationsOfAMember() throws Exception {
+        TagMutationCoalescer coalescer = TagMutationCoalescer.newBuilder().build();
+        TagAudience channel = TagAudience.iosChannel("channel");
+
+        coalescer.addTags(channel, "group", ImmutableSet.of("a", "b"));
+        coalescer.removeTags(channel, "group", ImmutableSet.of("a", "c"));
+        coalescer.addTags(channel, "group", ImmutableSet.of("c"));
+        assertEquals(3, coalescer.getPendingMutationCount());
+
+        List<Request<String>> requests = coalescer.drain();
+        assertEquals(1, requests.size());
+        assertTrue(requests.get(0) instanceof ChannelTagRequest);
+
+        JsonNode body = MAPPER.readTree(requests.get(0).getRequestBody());
+        assertEquals(ImmutableSet.of("channel"), values(body.get("audience").get("ios_channel")));
+        assertEquals(ImmutableSet.of("b", "c"), values(body.get("add").get("group")));
+        assertEquals(ImmutableSet.of("a"), values(body.get("remove").get("group")));
+
+        assertEquals(0, coalescer.getPendingMutationCount());
+        assertTrue(coalescer.drain().isEmpty());
+    }
+
+    @Test
+    public void testCollapsesSets() throws Exception {
+        TagMutationCoalescer coalescer = TagMutationCoalescer.newBuilder().build();
+        TagAudience namedUser = TagAudience.namedUser("user");
+
+        coalescer.addTags(namedUser, "group", ImmutableSet.of("a"));
+        coalescer.setTags(namedUser, "group", ImmutableSet.of("b", "c"));
+        coalescer.setTags(namedUser, "group", ImmutableSet.of("d", "e"));
+        coalescer.removeTags(namedUser, "group", ImmutableSet.of("e"));
+        coalescer.addTags(namedUser, "group", ImmutableSet.of("f"));
+        coalescer.addTags(namedUser, "other", ImmutableSet.of("g"));
+
+        List<Request<String>> requests = coalescer.drain();
+        assertEquals(2, requests.size());
+        assertTrue(requests.get(0) instanceof NamedUserTagRequest);
+
+        JsonNode set = MAPPER.readTree(requests.get(0).getRequestBody());
+        assertEquals(ImmutableSet.of("user"), values(set.get("audience").get("named_user_id")));
+        assertEquals(ImmutableSet.of("d", "f"), values(set.get("set").get("group")));
+        assertFalse(set.has("add"));
+
+        JsonNode add = MAPPER.readTree(requests.get(1).getRequestBody());
+        assertEquals(ImmutableSet.of("g"), values(add.get("add").get("other")));
+        assertFalse(add.has("set"));
+    }
+
+    @Test
+    public void testGroupsIdenticalMutations() throws Exception {
+        TagMutationCoalescer coalescer = TagMutationCoalescer.newBuilder()
+                .setMaxAudienceSize(2)
+                .build();
+
+        coalescer.addTags(TagAudience.iosChannel("ios1"), "group", ImmutableSet.of("a"));
+        coalescer.addTags(TagAudience.androidChannel("android1"), "group", ImmutableSet.of("a"));
+        coalescer.addTags(TagAudience.channel("web1"), "group", ImmutableSet.of("a"));
+        coalescer.addTags(TagAudience.amazonChannel("amazon1"), "group", ImmutableSet.of("b"));
+        coalescer.addTags(TagAudience.namedUser("user1"), "group", ImmutableSet.of("a"));
+        coalescer.addTags(TagAudience.namedUser("user2"), "group", ImmutableSet.of("a"));
+
+        List<Request<String>> requests = coalescer.drain();
+        assertEquals(4, requests.size());
+
+        JsonNode first = MAPPER.readTree(requests.get(0).getRequestBody());
+        assertEquals(ImmutableSet.of("ios1"), values(first.get("audience").get("ios_channel")));
+        assertEquals(ImmutableSet.of("android1"), values(first.get("audience").get("android_channel")));
+        assertEquals(ImmutableSet.of("a"), values(first.get("add").get("group")));
+
+        JsonNode second = MAPPER.readTree(requests.get(1).getRequestBody());
+        assertEquals(ImmutableSet.of("web1"), values(second.get("audience").get("channel")));
+
+        JsonNode third = MAPPER.readTree(requests.get(2).getRequestBody());
+        assertEquals(ImmutableSet.of("amazon1"), values(third.get("audience").get("amazon_channel")));
+        assertEquals(ImmutableSet.of("b"), values(third.get("add").get("group")));
+
+        JsonNode fourth = MAPPER.readTree(requests.get(3).getRequestBody());
+        assertEquals(ImmutableSet.of("user1", "user2"), values(fourth.get("audience").get("named_user_id")));
+    }
+
+    @Test
+    public void testWindowsAreSentInOrder() throws Exception {
+        stubFor(post(urlEqualTo("/api/channels/tags/"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ok\": true}")
+                        .withFixedDelay(300)
+                        .withStatus(200)));
+
+        TagMutationCoalescer coalescer = TagMutationCoalescer.newBuilder()
+                .setClient(client)
+                .setWindow(20, TimeUnit.MILLISECONDS)
+                .build();
+        TagAudience channel = TagAudience.iosChannel("channel");
+
+        coalescer.addTags(channel, "group", ImmutableSet.of("a"));
+        long deadline = System.currentTimeMillis() + 10000;
+        while (findAll(postRequestedFor(urlEqualTo("/api/channels/tags/"))).isEmpty()) {
+            assertTrue(System.currentTimeMillis() < deadline);
+            Thread.sleep(5);
+        }
+        // Sent by a later window, while the addition is still in flight.
+        coalescer.removeTags(channel, "group", ImmutableSet.of("a"));
+        Thread.sleep(100);
+        coalescer.close();
+
+        List<LoggedRequest> requests = findAll(postRequestedFor(urlEqualTo("/api/channels/tags/")));
+        assertEquals(2, requests.size());
+        assertTrue(MAPPER.readTree(requests.get(0).getBodyAsString()).has("add"));
+        assertTrue(MAPPER.readTree(requests.get(1).getBodyAsString()).has("remove"));
+        assertTrue(requests.get(1).getLoggedDate().getTime() - requests.get(0).getLoggedDate().getTime() >= 250);
+    }
+
+    @Test
+    public void testSetsAreSentFirstAndFailuresDontHoldLaterWindows() throws Exception {
+        stubFor(post(urlEqualTo("/api/named_users/tags/"))
+                .willReturn(aResponse()
+                        .withHeader("Content-Type", "application/json")
+                        .withBody("{\"ok\": false, \"error\": \"Invalid tag group\"}")
+                        .withFixedDelay(100)
+                        .withStatus(400)));
+
+        TagMutationCoalescer coalescer = TagMutationCoalescer.newBuilder()
+                .setClient(client)
+                .setWindow(1, TimeUnit.HOURS)
+                .build();
+
+        coalescer.addTags(TagAudience.namedUser("user1"), "group", ImmutableSet.of("a"));
+        coalescer.setTags(TagAudience.namedUser("user2"), "group", ImmutableSet.of("b"));
+        coalescer.addTags(TagAudience.namedUser("user2"), "other", ImmutableSet.of("a"));
+        List<CompletionStage<Response<String>>> first = coalescer.flush();
+        assertEquals(3, first.size());
+
+        coalescer.removeTags(TagAudience.namedUser("user1"), "group", ImmutableSet.of("a"));
+        List<CompletionStage<Response<String>>> second = coalescer.flush();
+        assertEquals(1, second.size());
+        assertEquals(400, second.get(0).toCompletableFuture().get(10, TimeUnit.SECONDS).getStatus());
+        for (CompletionStage<Response<String>> response : first) {
+            assertEquals(400, response.toCompletableFuture().get(10, TimeUnit.SECONDS).getStatus());
+        }
+        coalescer.close();
+
+        List<LoggedRequest> requests = findAll(postRequestedFor(urlEqualTo("/api/named_users/tags/")));
+        assertEquals(4, requests.size());
+        assertTrue(MAPPER.readTree(requests.get(0).getBodyAsString()).has("set"));
+        assertTrue(MAPPER.readTree(requests.get(1).getBodyAsString()).has("add"));
+        assertTrue(MAPPER.readTree(requests.get(2).getBodyAsString()).has("add"));
+        assertTrue(MAPPER.readTree(requests.get(3).getBodyAsString()).has("remove"));
+    }
+}
@@ -0,0 +1,81 @@
+package com.urbanairship.api.client;
+
+import com.google.common.base.Optional;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.Test;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class ClientEventsTest {
+
+    @Test
+    public void testDisabledEventsAreNotBegun() {
+        assertNull(ClientEvents.beginRequest());
+        assertNull(ClientEvents.beginSerialization());
+        assertNull(ClientEvents.beginParse());
+        assertNull(ClientEvents.beginCallback());
+    }
+
+    @Test
+    public void testRequestLifecycleIsRecorded() throws Exception {
+        File file = File.createTempFile("client-events", ".jfr");
+        file.deleteOnExit();
+
+        try (Recording recording = new Recording()) {
+            recording.enable("com.urbanairship.api.Request");
+            recording.enable("com.urbanairship.api.RequestAttempt");
+            recording.enable("com.urbanairship.api.RequestRetry");
+            recording.start();
+
+            Object requestEvent = ClientEvents.beginRequest();
+            RequestMeter meter = RequestMeter.start(Optional.<RequestMetrics>absent(), requestEvent, "POST", "/api/push/",
+                System.nanoTime(), 100, 1000).get();
+            meter.attemptStarted();
+            meter.attemptCompleted(503, System.nanoTime(), System.nanoTime(), 10);
+            meter.retryScheduled(503, 50);
+            meter.attemptStarted();
+            meter.attemptCompleted(202, System.nanoTime(), System.nanoTime(), 20);
+            meter.requestCompleted(202);
+            meter.requestCompleted(202);
+
+            recording.stop();
+            recording.dump(file.toPath());
+        }
+
+        List<RecordedEvent> requests = new ArrayList<>();
+        List<RecordedEvent> attempts = new ArrayList<>();
+        List<RecordedEvent> retries = new ArrayList<>();
+        for (RecordedEvent event : RecordingFile.readAllEvents(file.toPath())) {
+            String name = event.getEventType().getName();
+            if (name.equals("com.urbanairship.api.Request")) {
+                requests.add(event);
+            } else if (name.equals("com.urbanairship.api.RequestAttempt")) {
+                attempts.add(event);
+            } else if (name.equals("com.urbanairship.api.RequestRetry")) {
+                retries.add(event);
+            }
+        }
+
+        assertEquals(1, requests.size());
+        RecordedEvent request = requests.get(0);
+        assertEquals("POST", request.getString("method"));
+        assertEquals("/api/push/", request.getString("endpoint"));
+        assertEquals("PUSH", request.getString("endpointFamily"));
+        assertEquals(202, request.getInt("statusCode"));
+        assertEquals(2, request.getInt("attempts"));
+        assertEquals(100, request.getLong("bytesSent"));
+        assertEquals(1000, request.getDuration("serializationTime").toNanos());
+
+        assertEquals(2, attempts.size());
+        assertEquals(1, retries.size());
+        assertEquals(503, retries.get(0).getInt("statusCode"));
+        assertEquals(50, retries.get(0).getDuration("retryDelay").toMillis());
+    }
+}